@@ -9,14 +9,48 @@ create table user_data_table (
 id int NOT NULL AUTO_INCREMENT,
 user_first_name varchar (255) NOT NULL,
 user_last_name varchar (255) NOT null,
-user_email varchar (255) Not null,
-PRIMARY KEY (id)
+user_email varchar (255) NULL,
+version bigint NOT NULL DEFAULT 0,
+updated_at datetime (6) NOT NULL DEFAULT CURRENT_TIMESTAMP (6),
+deleted_at datetime (6) NULL DEFAULT NULL,
+deleted_email varchar (255) NULL DEFAULT NULL,
+PRIMARY KEY (id),
+UNIQUE KEY uk_user_email (user_email),
+KEY idx_user_last_first (user_last_name, user_first_name),
+KEY idx_user_deleted_at (deleted_at)
 );
 */
+
+/*
+Indexes for an existing user_data_table (created with the script above before they were added).
+Remove duplicate emails first, the unique index cannot be created while there are any:
+select user_email, count(*) from user_data_table group by user_email having count(*) > 1;
+
+ALTER TABLE user_data_table
+ADD UNIQUE KEY uk_user_email (user_email),
+ADD KEY idx_user_last_first (user_last_name, user_first_name);
+*/
 -- select * from user_data_table;
 
 /*
 INSERT INTO user_data_table (user_first_name, user_last_name, user_email)
 VALUES ("peter", "mustermann","pm@schimmercreative.com");
 */
+/*
+Version and time of the last write (ETag / Last-Modified, optimistic locking with If-Match) for an existing user_data_table:
+
+ALTER TABLE user_data_table
+ADD COLUMN version bigint NOT NULL DEFAULT 0,
+ADD COLUMN updated_at datetime (6) NOT NULL DEFAULT CURRENT_TIMESTAMP (6);
+*/
+/*
+Soft delete (time of the delete, NULL for every visible user; the email of the deleted user,
+user_email becomes NULL so the email can be used again) and the index the purge of the deleted users reads.
+The application runs these at startup when they are missing (UserSchemaMigration, admin-panel.schema.migrate):
+
+ALTER TABLE user_data_table ADD COLUMN deleted_at datetime(6) NULL DEFAULT NULL;
+CREATE INDEX idx_user_deleted_at ON user_data_table (deleted_at);
+ALTER TABLE user_data_table ADD COLUMN deleted_email varchar(255) NULL DEFAULT NULL;
+ALTER TABLE user_data_table MODIFY user_email varchar(255) NULL;
+*/
 select * from user_data_table;
@@ -0,0 +1,19 @@
+package com.schimmerCreative.admin_panel_reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+/*
+Reactive variant of the /users API of admin_panel: WebFlux on Netty and R2DBC MySQL instead of
+Tomcat, JPA and JDBC. A request holds no thread while it waits for MySQL, a few event loop threads
+serve all connections, the r2dbc pool limits how many statements run at the same time.
+*/
+@SpringBootApplication
+public class AdminPanelReactiveApplication {
+
+	public static void main(String[] args) {
+		SpringApplication.run(AdminPanelReactiveApplication.class, args);
+	}
+
+
+}
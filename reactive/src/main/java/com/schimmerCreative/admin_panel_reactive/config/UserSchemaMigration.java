@@ -0,0 +1,86 @@
+package com.schimmerCreative.admin_panel_reactive.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/*
+Soft delete columns of user_data_table, checked at startup like the UserSchemaMigration of the servlet application
+(same statements, same admin-panel.schema.migrate): every statement of UserRepository has deleted_at IS NULL,
+also with soft delete off, so an older table gets the columns before the first request.
+Blocks only while the application starts, never on an event loop thread of a request.
+*/
+@Component
+public class UserSchemaMigration implements InitializingBean {
+
+    static final Logger log = LoggerFactory.getLogger(UserSchemaMigration.class);
+
+    static final String COLUMNS = "SELECT LOWER(COLUMN_NAME) AS name, IS_NULLABLE AS nullable FROM INFORMATION_SCHEMA.COLUMNS"
+            + " WHERE LOWER(TABLE_NAME) = 'user_data_table' AND TABLE_SCHEMA = SCHEMA()";
+
+    DatabaseClient databaseClient;
+
+    final boolean migrate;
+
+    @Override
+    public void afterPropertiesSet() {
+
+        List<String> statements = missingStatements();
+        if (statements.isEmpty()) {
+            return;
+        }
+        if (!migrate) {
+            throw new IllegalStateException("user_data_table needs the soft delete columns, run: " + String.join("; ", statements));
+        }
+        for (String statement : statements) {
+            log.info("migrating user_data_table: {}", statement);
+            databaseClient.sql(statement).then().block();
+        }
+    }
+
+    //empty when the table is up to date or does not exist
+    List<String> missingStatements() {
+
+        Map<String, String> nullableByColumn = databaseClient.sql(COLUMNS)
+                .map(row -> Map.entry(row.get("name", String.class), row.get("nullable", String.class).toUpperCase(Locale.ROOT)))
+                .all()
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue))
+                .block();
+
+        List<String> statements = new ArrayList<>();
+        if (nullableByColumn == null || nullableByColumn.isEmpty()) {
+            return statements;
+        }
+        if (!nullableByColumn.containsKey("deleted_at")) {
+            statements.add("ALTER TABLE user_data_table ADD COLUMN deleted_at datetime(6) NULL DEFAULT NULL");
+            statements.add("CREATE INDEX idx_user_deleted_at ON user_data_table (deleted_at)");
+        }
+        if (!nullableByColumn.containsKey("deleted_email")) {
+            statements.add("ALTER TABLE user_data_table ADD COLUMN deleted_email varchar(255) NULL DEFAULT NULL");
+        }
+        if ("NO".equals(nullableByColumn.get("user_email"))) {
+            statements.add("ALTER TABLE user_data_table MODIFY user_email varchar(255) NULL");
+        }
+        return statements;
+    }
+
+
+    /*
+    constructor
+    */
+    @Autowired
+    public UserSchemaMigration(DatabaseClient databaseClient, @Value("${admin-panel.schema.migrate:true}") boolean migrate) {
+        this.databaseClient = databaseClient;
+        this.migrate = migrate;
+    }
+}
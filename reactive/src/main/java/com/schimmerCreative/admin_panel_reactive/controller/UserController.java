@@ -0,0 +1,141 @@
+package com.schimmerCreative.admin_panel_reactive.controller;
+
+import com.schimmerCreative.admin_panel_reactive.model.User;
+import com.schimmerCreative.admin_panel_reactive.model.UserPage;
+import com.schimmerCreative.admin_panel_reactive.service.UserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/*
+The /users contract of the servlet UserController (same paths, parameters, status codes, JSON and ETags)
+for the CRUD operations and the list:
+
+    POST   /users        201 with the user, 400 without names or email, 409 for a used email
+    PUT    /users/{id}   200 with the user, 404, 409, 412 when If-Match does not match the version
+    DELETE /users/{id}   200 true, 404
+    GET    /users/{id}   200 with ETag and Last-Modified, 304 for If-None-Match, 404
+    GET    /users        one page: ?after=<id>&limit=<n>&lastName=..&emailPrefix=.., 400 for a bad limit
+    GET    /users?all=true
+                         every user, streamed: a JSON array written while the rows are read,
+                         or one user per line with Accept: application/x-ndjson
+
+The handlers return a Mono/Flux and give the event loop thread back at once,
+the response is written when the database answered. The other endpoints of the servlet application
+(bulk, search, suggest, export, change feed, tickets) are not part of this variant.
+*/
+@RestController
+public class UserController {
+
+    static final Logger log = LoggerFactory.getLogger(UserController.class);
+
+    UserService userServiceInject;
+
+    //page size for GET /users when the client sends no limit, and the biggest limit a client may ask for
+    int defaultPageSize;
+    int maxPageSize;
+
+    @PostMapping("/users")
+    public Mono<ResponseEntity<User>> addUser(@RequestBody User newUser){
+
+        return userServiceInject.createUser(newUser.getUserFirstName(), newUser.getUserLastName(), newUser.getUserEmail())
+                .map(createdUser -> ResponseEntity.status(HttpStatus.CREATED).body(createdUser))
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).build()))
+                //the email is already used by another user (unique index on user_email)
+                .onErrorResume(DataIntegrityViolationException.class, e -> Mono.just(ResponseEntity.status(HttpStatus.CONFLICT).build()));
+    }
+
+    @PutMapping("/users/{id}")
+    public Mono<ResponseEntity<User>> modifyUser(@RequestBody User userToUpdate, @PathVariable int id,
+                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+
+        Long expectedVersion = UserETags.expectedVersion(ifMatch, id);
+        Mono<User> updatedUser = (expectedVersion == null)
+                ? userServiceInject.updateUser(userToUpdate.getUserFirstName(), userToUpdate.getUserLastName(), userToUpdate.getUserEmail(), id)
+                : userServiceInject.updateUser(userToUpdate.getUserFirstName(), userToUpdate.getUserLastName(), userToUpdate.getUserEmail(), id, expectedVersion);
+
+        return updatedUser
+                .map(user -> ResponseEntity.status(HttpStatus.OK).eTag(UserETags.of(user)).body(user))
+                .defaultIfEmpty(ResponseEntity.status(HttpStatus.NOT_FOUND).build())
+                .onErrorResume(DataIntegrityViolationException.class, e -> Mono.just(ResponseEntity.status(HttpStatus.CONFLICT).build()))
+                .onErrorResume(OptimisticLockingFailureException.class, e -> Mono.just(ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build()));
+    }
+
+    @DeleteMapping("/users/{id}")
+    public Mono<ResponseEntity<Boolean>> removeUser(@PathVariable int id){
+
+        return userServiceInject.deleteUser(id)
+                .map(deleted -> deleted
+                        ? ResponseEntity.status(HttpStatus.OK).body(true)
+                        : ResponseEntity.status(HttpStatus.NOT_FOUND).<Boolean>build());
+    }
+
+    /*
+    Conditional GET: WebFlux compares If-None-Match with the ETag of the answer and sends 304 without the body.
+    */
+    @GetMapping("/users/{id}")
+    public Mono<ResponseEntity<User>> retrieveUser(@PathVariable int id){
+
+        return userServiceInject.findUserById(id)
+                .map(user -> {
+                    ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.OK)
+                            .cacheControl(CacheControl.noCache())
+                            .eTag(UserETags.of(user));
+                    if (user.getUpdatedAt() != null) {
+                        response.lastModified(user.getUpdatedAt());
+                    }
+                    return response.body(user);
+                })
+                .defaultIfEmpty(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+    }
+
+    @GetMapping("/users")
+    public Mono<ResponseEntity<UserPage>> retrieveUsersPage(@RequestParam(defaultValue = "0") int after,
+                                                            @RequestParam(required = false) Integer limit,
+                                                            @RequestParam(required = false) String lastName,
+                                                            @RequestParam(required = false) String emailPrefix){
+
+        int pageSize = (limit == null) ? defaultPageSize : limit;
+        if (pageSize < 1 || pageSize > maxPageSize || after < 0) {
+            return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).build());
+        }
+
+        return userServiceInject.getUsersPage(after, pageSize, lastName, emailPrefix)
+                .map(page -> ResponseEntity.status(HttpStatus.OK).cacheControl(CacheControl.noCache()).body(page))
+                .doOnError(e -> log.warn("retrieveUsersPage failed after={} limit={}", after, pageSize, e));
+    }
+
+    /*
+    A Flux is encoded element by element: for application/json as one array (the first user goes out
+    before the last row is read), for application/x-ndjson one user per line.
+    A slow client slows down the reading of the rows (backpressure) instead of filling the heap.
+    */
+    @GetMapping(value = "/users", params = "all=true", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<User> retrieveAllUsers(){
+
+        return userServiceInject.getAllUsers()
+                .doOnError(e -> log.warn("retrieveAllUsers failed", e));
+    }
+
+
+    @Autowired
+    public UserController(UserService userServiceInject,
+                          @Value("${admin-panel.users.default-page-size:50}") int defaultPageSize,
+                          @Value("${admin-panel.users.max-page-size:500}") int maxPageSize) {
+
+        this.userServiceInject = userServiceInject;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+}
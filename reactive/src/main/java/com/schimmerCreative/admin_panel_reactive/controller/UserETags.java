@@ -0,0 +1,42 @@
+package com.schimmerCreative.admin_panel_reactive.controller;
+
+import com.schimmerCreative.admin_panel_reactive.model.User;
+
+/*
+Strong ETags of one user, "<id>-<version>" like in the servlet application,
+so a client can switch between the two variants without reading its users again.
+*/
+final class UserETags {
+
+    private UserETags() {
+    }
+
+    static String of(User user) {
+        return user.getVersion() == null ? null : "\"" + user.getId() + "-" + user.getVersion() + "\"";
+    }
+
+    /*
+    The version a PUT with If-Match: "<id>-<version>" expects, null for a missing header or *,
+    -1 for an ETag that is not one of this user (another id or not ours), which can never match.
+    */
+    static Long expectedVersion(String ifMatch, int id) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            //weak ETags never match with If-Match (strong comparison)
+            return -1L;
+        }
+        tag = tag.replace("\"", "");
+        String prefix = id + "-";
+        if (!tag.startsWith(prefix)) {
+            return -1L;
+        }
+        try {
+            return Long.parseLong(tag.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.schimmerCreative.admin_panel_reactive.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.Instant;
+
+/*
+Row of user_data_table for Spring Data R2DBC (SQL_Script_admin_panel_DB_20_09_2024.sql of the servlet application),
+the JSON is the one of the servlet application: id, userFirstName, userLastName, userEmail, version, updatedAt.
+
+No lazy loading, no persistence context: a User is a plain copy of the row.
+A new user has no version (null), the INSERT then writes version 0,
+every UPDATE of UserRepository increments it.
+*/
+@Table("user_data_table")
+public class User {
+
+    @Id
+    @Column("id")
+    Integer id;
+
+    @Column("user_first_name")
+    String userFirstName;
+
+    @Column("user_last_name")
+    String userLastName;
+
+    @Column("user_email")
+    String userEmail;
+
+    //ETag of GET /users/{id} and the value PUT /users/{id} compares with If-Match
+    @Version
+    @Column("version")
+    Long version;
+
+    @Column("updated_at")
+    Instant updatedAt;
+
+    //no argument Constructor for Jackson and Spring Data
+    public User(){
+        //noArgs
+
+    }
+
+    public User(Integer id, String userFirstName, String userLastName, String userEmail) {
+        this.id = id;
+        this.userFirstName = userFirstName;
+        this.userLastName = userLastName;
+        this.userEmail = userEmail;
+    }
+
+    @Override
+    public String toString(){
+        return "USER [ id: "  + id + " userFirstName: " + userFirstName + " userLastName: " + userLastName + " userEmail: " + userEmail + "]";
+    }
+
+    //Setter and getters
+
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public String getUserFirstName() {
+        return userFirstName;
+    }
+
+    public void setUserFirstName(String userFirstName) {
+        this.userFirstName = userFirstName;
+    }
+
+    public String getUserLastName() {
+        return userLastName;
+    }
+
+    public void setUserLastName(String userLastName) {
+        this.userLastName = userLastName;
+    }
+
+    public String getUserEmail() {
+        return userEmail;
+    }
+
+    public void setUserEmail(String userEmail) {
+        this.userEmail = userEmail;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,56 @@
+package com.schimmerCreative.admin_panel_reactive.model;
+
+import java.util.List;
+
+/*
+One page of users for the keyset (cursor) pagination of GET /users, the same JSON as in the servlet application.
+The client sends nextCursor back as ?after=<id> to read the following page,
+nextCursor is null when there are no more rows.
+*/
+public class UserPage {
+
+    List<User> users;
+
+    Integer nextCursor;
+
+    int limit;
+
+    //no argument Constructor for Jackson
+    public UserPage(){
+        //noArgs
+
+    }
+
+    public UserPage(List<User> users, Integer nextCursor, int limit) {
+        this.users = users;
+        this.nextCursor = nextCursor;
+        this.limit = limit;
+    }
+
+    //Setter and getters
+
+
+    public List<User> getUsers() {
+        return users;
+    }
+
+    public void setUsers(List<User> users) {
+        this.users = users;
+    }
+
+    public Integer getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(Integer nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+}
@@ -0,0 +1,81 @@
+package com.schimmerCreative.admin_panel_reactive.repository;
+
+import com.schimmerCreative.admin_panel_reactive.model.User;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.repository.query.Param;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+/*
+Reactive counterpart of the JPA UserRepository: the same statements on user_data_table,
+written in SQL because R2DBC has no JPQL. Every method returns at once,
+the rows arrive as the Flux/Mono is subscribed, no thread waits for MySQL.
+
+Soft delete: there is no @SQLRestriction in R2DBC, every statement has "deleted_at IS NULL" itself,
+use findActiveById instead of the findById/existsById of R2dbcRepository (they also find deleted users).
+The deleted rows are purged by the servlet application.
+*/
+public interface UserRepository extends R2dbcRepository<User, Integer> {
+
+    /*
+    Keyset (seek) pagination on the primary key: WHERE id > :after ORDER BY id LIMIT :limit,
+    lastName and emailPrefix are optional filters (null means no filter),
+    the email prefix is escaped by the caller (! is the escape character)
+    */
+    @Query("SELECT * FROM user_data_table WHERE id > :after AND deleted_at IS NULL"
+            + " AND (:lastName IS NULL OR user_last_name = :lastName)"
+            + " AND (:emailPrefix IS NULL OR user_email LIKE CONCAT(:emailPrefix, '%') ESCAPE '!')"
+            + " ORDER BY id ASC LIMIT :limit")
+    Flux<User> findPageAfterId(@Param("after") int after,
+                               @Param("lastName") String lastName,
+                               @Param("emailPrefix") String emailPrefix,
+                               @Param("limit") int limit);
+
+    //the whole table in id order, read row by row as the client consumes the stream
+    @Query("SELECT * FROM user_data_table WHERE deleted_at IS NULL ORDER BY id ASC")
+    Flux<User> findAllOrderedById();
+
+    @Query("SELECT * FROM user_data_table WHERE id = :id AND deleted_at IS NULL")
+    Mono<User> findActiveById(@Param("id") int id);
+
+    /*
+    Single statement writes: one UPDATE ... WHERE id = ? or DELETE ... WHERE id = ?,
+    the number of affected rows tells whether the user existed (or was still at the expected version)
+    */
+    @Modifying
+    @Query("UPDATE user_data_table SET user_first_name = :userFirstName, user_last_name = :userLastName, user_email = :userEmail,"
+            + " version = version + 1, updated_at = :updatedAt"
+            + " WHERE id = :id AND deleted_at IS NULL")
+    Mono<Integer> updateUserById(@Param("id") int id,
+                                 @Param("userFirstName") String userFirstName,
+                                 @Param("userLastName") String userLastName,
+                                 @Param("userEmail") String userEmail,
+                                 @Param("updatedAt") Instant updatedAt);
+
+    @Modifying
+    @Query("UPDATE user_data_table SET user_first_name = :userFirstName, user_last_name = :userLastName, user_email = :userEmail,"
+            + " version = version + 1, updated_at = :updatedAt"
+            + " WHERE id = :id AND version = :expectedVersion AND deleted_at IS NULL")
+    Mono<Integer> updateUserByIdAndVersion(@Param("id") int id,
+                                           @Param("expectedVersion") long expectedVersion,
+                                           @Param("userFirstName") String userFirstName,
+                                           @Param("userLastName") String userLastName,
+                                           @Param("userEmail") String userEmail,
+                                           @Param("updatedAt") Instant updatedAt);
+
+    @Modifying
+    @Query("DELETE FROM user_data_table WHERE id = :id")
+    Mono<Integer> deleteUserById(@Param("id") int id);
+
+    //soft delete: 0 rows when the id does not exist or the user is already deleted, the email is free again right away (user_email NULL)
+    @Modifying
+    @Query("UPDATE user_data_table SET deleted_at = :deletedAt, deleted_email = user_email, user_email = NULL,"
+            + " version = version + 1, updated_at = :deletedAt"
+            + " WHERE id = :id AND deleted_at IS NULL")
+    Mono<Integer> softDeleteUserById(@Param("id") int id, @Param("deletedAt") Instant deletedAt);
+
+}
@@ -0,0 +1,39 @@
+package com.schimmerCreative.admin_panel_reactive.service;
+
+import com.schimmerCreative.admin_panel_reactive.model.User;
+import com.schimmerCreative.admin_panel_reactive.model.UserPage;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/*
+Non-blocking counterpart of the UserService of the servlet application.
+Nothing happens until the returned Mono/Flux is subscribed (by WebFlux, when it writes the response).
+A user that does not exist is an empty Mono instead of an EntityNotFoundException,
+the controller answers 404 for it.
+*/
+public interface UserService {
+
+    //createUser method, IllegalArgumentException for a missing name or email, DataIntegrityViolationException for a used email
+    public Mono<User> createUser(String userFirstName, String userLastName, String userEmail);
+
+    //updateUser method
+    public Mono<User> updateUser(String userFirstName, String userLastName, String userEmail, int id);
+
+    //updates only when the user is still at expectedVersion (If-Match), OptimisticLockingFailureException otherwise
+    public Mono<User> updateUser(String userFirstName, String userLastName, String userEmail, int id, long expectedVersion);
+
+    public Mono<User> findUserById(int id);
+
+    //true: the user was deleted, false: there was no user with this id
+    public Mono<Boolean> deleteUser(int id);
+
+    //the whole table as a stream in id order, never collected into a List
+    public Flux<User> getAllUsers();
+
+    /*
+    keyset pagination: one page of at most limit users with an id greater than after,
+    lastName and emailPrefix are optional filters (null means no filter)
+    */
+    public Mono<UserPage> getUsersPage(int after, int limit, String lastName, String emailPrefix);
+
+}
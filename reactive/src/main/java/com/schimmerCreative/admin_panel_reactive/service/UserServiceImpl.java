@@ -0,0 +1,152 @@
+package com.schimmerCreative.admin_panel_reactive.service;
+
+import com.schimmerCreative.admin_panel_reactive.model.User;
+import com.schimmerCreative.admin_panel_reactive.model.UserPage;
+import com.schimmerCreative.admin_panel_reactive.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/*
+The same operations as the servlet UserServiceImpl, as reactive pipelines.
+@Transactional works with the R2dbcTransactionManager of Spring Boot: the transaction is bound to the
+subscription (Reactor context), not to a thread, and committed when the Mono completes.
+
+No users cache and no change events here: the reactive variant is the plain read/write path,
+to compare it with the servlet application under load.
+Soft delete like the servlet application (admin-panel.soft-delete.enabled), which also purges the deleted rows.
+*/
+@org.springframework.stereotype.Service
+public class UserServiceImpl implements UserService {
+
+    static final Logger log = LoggerFactory.getLogger(UserServiceImpl.class);
+
+    UserRepository userRepository;
+
+    //deleteUser only sets deleted_at
+    boolean softDelete;
+
+    //methods
+
+    @Override
+    @Transactional
+    public Mono<User> createUser(String userFirstName, String userLastName, String userEmail) {
+
+        if (userFirstName == null || userLastName == null || userEmail == null) {
+            return Mono.error(new IllegalArgumentException("userFirstName, userLastName and userEmail are required"));
+        }
+
+        User userToCreate = new User(null, userFirstName, userLastName, userEmail);
+        userToCreate.setUpdatedAt(now());
+        //a used email ends in a DataIntegrityViolationException from the unique index uk_user_email
+        return userRepository.save(userToCreate)
+                .doOnNext(user -> log.debug("user created id={}", user.getId()));
+    }
+
+    @Override
+    @Transactional
+    public Mono<User> updateUser(String userFirstName, String userLastName, String userEmail, int id) {
+
+        //one UPDATE, then the row as stored (version and updated_at) in the same transaction
+        return userRepository.updateUserById(id, userFirstName, userLastName, userEmail, now())
+                .filter(updatedRows -> updatedRows > 0)
+                .flatMap(updatedRows -> userRepository.findActiveById(id))
+                .doOnNext(user -> log.debug("user updated id={}", id));
+    }
+
+    @Override
+    @Transactional
+    public Mono<User> updateUser(String userFirstName, String userLastName, String userEmail, int id, long expectedVersion) {
+
+        return userRepository.updateUserByIdAndVersion(id, expectedVersion, userFirstName, userLastName, userEmail, now())
+                .flatMap(updatedRows -> {
+                    if (updatedRows > 0) {
+                        return userRepository.findActiveById(id);
+                    }
+                    //0 rows: no such user (empty, 404), or somebody else changed it since the client read it (412)
+                    return userRepository.findActiveById(id).hasElement().flatMap(exists -> exists
+                            ? Mono.error(new OptimisticLockingFailureException("user " + id + " is not at version " + expectedVersion))
+                            : Mono.empty());
+                })
+                .doOnNext(user -> log.debug("user updated id={} version={}", id, user.getVersion()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Mono<User> findUserById(int id) {
+        return userRepository.findActiveById(id);
+    }
+
+    @Override
+    @Transactional
+    public Mono<Boolean> deleteUser(int id) {
+
+        //one DELETE ... WHERE id = ? (soft delete: one UPDATE ... SET deleted_at), 0 affected rows means there was no user with this id
+        return (softDelete ? userRepository.softDeleteUserById(id, now()) : userRepository.deleteUserById(id))
+                .map(deletedRows -> deletedRows > 0)
+                .doOnNext(deleted -> log.debug("user deleted id={} deleted={}", id, deleted));
+    }
+
+    /*
+    No row cap like getAllUsers() of the servlet application: the rows are written to the response
+    as they arrive, with backpressure, so the heap never holds the whole table.
+    */
+    @Override
+    @Transactional(readOnly = true)
+    public Flux<User> getAllUsers() {
+        return userRepository.findAllOrderedById();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Mono<UserPage> getUsersPage(int after, int limit, String lastName, String emailPrefix) {
+
+        /*
+        fetch limit + 1 rows: the extra row only tells us that there is a next page,
+        it is not returned, the cursor is the id of the last row on this page
+        */
+        String lastNameFilter = (lastName == null || lastName.isBlank()) ? null : lastName;
+        String emailPrefixFilter = (emailPrefix == null || emailPrefix.isBlank()) ? null : escapeLikePattern(emailPrefix);
+
+        return userRepository.findPageAfterId(after, lastNameFilter, emailPrefixFilter, limit + 1)
+                .collectList()
+                .map(users -> {
+                    Integer nextCursor = null;
+                    if (users.size() > limit) {
+                        users = users.subList(0, limit);
+                        nextCursor = users.get(limit - 1).getId();
+                    }
+                    return new UserPage(users, nextCursor, limit);
+                });
+    }
+
+    //the precision of the updated_at column (datetime(6)), the returned user has the stored value
+    static Instant now() {
+        return Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    //LIKE wildcards of the input are searched literally, ! is the escape character of the queries
+    static String escapeLikePattern(String prefix) {
+        return prefix.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+
+    /*
+    constructor
+    */
+    @Autowired
+    public UserServiceImpl(UserRepository userRepository,
+                           @Value("${admin-panel.soft-delete.enabled:false}") boolean softDelete) {
+
+        this.userRepository = userRepository;
+        this.softDelete = softDelete;
+    }
+}
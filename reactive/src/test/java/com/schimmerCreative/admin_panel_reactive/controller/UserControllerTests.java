@@ -0,0 +1,142 @@
+package com.schimmerCreative.admin_panel_reactive.controller;
+
+import com.schimmerCreative.admin_panel_reactive.model.User;
+import com.schimmerCreative.admin_panel_reactive.model.UserPage;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+The /users contract of the servlet application on WebFlux and R2DBC (embedded H2 in MySQL mode):
+status codes, ETags and conditional requests, the keyset pages and the streamed list, soft deleted users.
+*/
+@SpringBootTest(properties = "admin-panel.soft-delete.enabled=true")
+@AutoConfigureWebTestClient
+@ActiveProfiles("test")
+class UserControllerTests {
+
+	@Autowired
+	WebTestClient webTestClient;
+
+	@Autowired
+	DatabaseClient databaseClient;
+
+	@Test
+	void createReadUpdateDelete() {
+		User created = createUser("Ada", "Lovelace", "ada@reactive.example.com");
+		int id = created.getId();
+		assertEquals(0L, created.getVersion());
+		assertNotNull(created.getUpdatedAt());
+
+		String eTag = webTestClient.get().uri("/users/" + id).exchange()
+				.expectStatus().isOk()
+				.expectHeader().valueEquals(HttpHeaders.ETAG, "\"" + id + "-0\"")
+				.expectHeader().exists(HttpHeaders.LAST_MODIFIED)
+				.expectBody().jsonPath("$.userEmail").isEqualTo("ada@reactive.example.com")
+				.returnResult().getResponseHeaders().getETag();
+
+		webTestClient.get().uri("/users/" + id).header(HttpHeaders.IF_NONE_MATCH, eTag).exchange()
+				.expectStatus().isNotModified();
+
+		webTestClient.put().uri("/users/" + id).header(HttpHeaders.IF_MATCH, eTag)
+				.bodyValue(new User(null, "Ada", "King", "ada@reactive.example.com")).exchange()
+				.expectStatus().isOk()
+				.expectHeader().valueEquals(HttpHeaders.ETAG, "\"" + id + "-1\"")
+				.expectBody().jsonPath("$.userLastName").isEqualTo("King");
+
+		//the old ETag no longer matches
+		webTestClient.put().uri("/users/" + id).header(HttpHeaders.IF_MATCH, eTag)
+				.bodyValue(new User(null, "Ada", "Byron", "ada@reactive.example.com")).exchange()
+				.expectStatus().isEqualTo(412);
+
+		webTestClient.delete().uri("/users/" + id).exchange()
+				.expectStatus().isOk()
+				.expectBody(Boolean.class).isEqualTo(true);
+		webTestClient.get().uri("/users/" + id).exchange().expectStatus().isNotFound();
+		webTestClient.delete().uri("/users/" + id).exchange().expectStatus().isNotFound();
+		webTestClient.put().uri("/users/" + id).bodyValue(new User(null, "Ada", "Byron", "ada@reactive.example.com")).exchange()
+				.expectStatus().isNotFound();
+
+		//soft deleted: the row is still there with the email in deleted_email, the email can be used again
+		StepVerifier.create(databaseClient.sql("SELECT COUNT(*) AS n FROM user_data_table WHERE id = :id AND deleted_at IS NOT NULL"
+								+ " AND deleted_email = 'ada@reactive.example.com'")
+						.bind("id", id).map(row -> row.get("n", Long.class)).one())
+				.expectNext(1L)
+				.verifyComplete();
+		User again = createUser("Ada", "Byron", "ada@reactive.example.com");
+		assertTrue(again.getId() > id);
+		webTestClient.get().uri("/users?all=true").exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$[?(@.id == " + id + ")]").doesNotExist();
+	}
+
+	@Test
+	void invalidOrDuplicateUsersAreRefused() {
+		createUser("Grace", "Hopper", "grace@reactive.example.com");
+
+		webTestClient.post().uri("/users").bodyValue(new User(null, "Grace", "Murray", "grace@reactive.example.com")).exchange()
+				.expectStatus().isEqualTo(409);
+		webTestClient.post().uri("/users").bodyValue(new User(null, "Grace", null, "grace2@reactive.example.com")).exchange()
+				.expectStatus().isBadRequest();
+		webTestClient.get().uri("/users?limit=0").exchange().expectStatus().isBadRequest();
+	}
+
+	@Test
+	void pagesAndStreamedList() {
+		List<Integer> ids = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			ids.add(createUser("Page" + i, "Streamed", "page" + i + "@stream.reactive.example.com").getId());
+		}
+
+		//the five users of this test, two at a time
+		List<Integer> paged = new ArrayList<>();
+		Integer cursor = ids.get(0) - 1;
+		while (cursor != null) {
+			UserPage page = webTestClient.get().uri("/users?lastName=Streamed&limit=2&after=" + cursor).exchange()
+					.expectStatus().isOk()
+					.expectBody(UserPage.class).returnResult().getResponseBody();
+			assertTrue(page.getUsers().size() <= 2);
+			page.getUsers().forEach(user -> paged.add(user.getId()));
+			cursor = page.getNextCursor();
+		}
+		assertEquals(ids, paged);
+		assertNull(webTestClient.get().uri("/users?emailPrefix=page4@stream&limit=2").exchange()
+				.expectBody(UserPage.class).returnResult().getResponseBody().getNextCursor());
+
+		//one user per line
+		Flux<User> stream = webTestClient.get().uri("/users?all=true").accept(MediaType.APPLICATION_NDJSON).exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+				.returnResult(User.class).getResponseBody();
+		StepVerifier.create(stream.filter(user -> "Streamed".equals(user.getUserLastName())).map(User::getId))
+				.expectNextSequence(ids)
+				.verifyComplete();
+
+		//one JSON array
+		webTestClient.get().uri("/users?all=true").accept(MediaType.APPLICATION_JSON).exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$[?(@.userLastName == 'Streamed')].id").value(streamed -> assertEquals(ids, streamed));
+	}
+
+	User createUser(String firstName, String lastName, String email) {
+		return webTestClient.post().uri("/users").bodyValue(new User(null, firstName, lastName, email)).exchange()
+				.expectStatus().isCreated()
+				.expectBody(User.class).returnResult().getResponseBody();
+	}
+}
@@ -0,0 +1,16 @@
+-- user_data_table of SQL_Script_admin_panel_DB_20_09_2024.sql, in the SQL H2 understands
+CREATE TABLE IF NOT EXISTS user_data_table (
+    id INT NOT NULL AUTO_INCREMENT,
+    user_first_name VARCHAR(255) NOT NULL,
+    user_last_name VARCHAR(255) NOT NULL,
+    user_email VARCHAR(255) NULL,
+    version BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+    deleted_at TIMESTAMP(6) NULL DEFAULT NULL,
+    deleted_email VARCHAR(255) NULL DEFAULT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_user_email UNIQUE (user_email)
+);
+
+CREATE INDEX IF NOT EXISTS idx_user_last_first ON user_data_table (user_last_name, user_first_name);
+CREATE INDEX IF NOT EXISTS idx_user_deleted_at ON user_data_table (deleted_at);
@@ -0,0 +1,216 @@
+package com.schimmerCreative.admin_panel.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+Closed loop HTTP load test of the /users API, to compare execution modes of the same application,
+e.g. the Tomcat platform thread pool against the virtual thread mode:
+
+    java -jar target/admin_panel-0.0.1-SNAPSHOT.jar                                            (platform threads)
+    java -jar target/admin_panel-0.0.1-SNAPSHOT.jar --spring.profiles.active=virtual-threads   (Java 21)
+    java -jar reactive/target/admin_panel_reactive-0.0.1-SNAPSHOT.jar                          (WebFlux, R2DBC, port 8081)
+    mvn -Pbenchmark test-compile exec:exec@load-test -Dload.args="http://localhost:8080 400 60"
+
+Arguments: base url, concurrent clients, duration in seconds.
+Every client sends its next request as soon as the previous answer arrived, the mix is
+70% GET /users?after=..&limit=50 (database read), 20% GET /users/{id} (mostly cached), 10% PUT /users/{id}.
+Prints throughput and latency percentiles, plus one JSON line to keep with the results of other runs.
+*/
+public class UserApiLoadGenerator {
+
+    static final int SEEDED_USERS = 2000;
+
+    static final ObjectMapper objectMapper = new ObjectMapper();
+
+    public static void main(String[] args) throws Exception {
+
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors())))
+                .build();
+
+        int[] ids = seedUsers(httpClient, baseUrl);
+        System.out.printf("seeded %d users, %d clients for %d s against %s%n", ids.length, clients, seconds, baseUrl);
+
+        //warm up the server (JIT, connection pools) for a tenth of the run, then measure
+        runClients(httpClient, baseUrl, ids, clients, Math.max(1, seconds / 10));
+        Result result = runClients(httpClient, baseUrl, ids, clients, seconds);
+
+        System.out.printf("requests %d, errors %d, throughput %.1f req/s%n", result.requests, result.errors, result.requests / (double) seconds);
+        System.out.printf("latency ms p50 %.2f, p95 %.2f, p99 %.2f, max %.2f%n",
+                result.percentileMillis(50), result.percentileMillis(95), result.percentileMillis(99), result.percentileMillis(100));
+        System.out.printf("{\"clients\":%d,\"seconds\":%d,\"requests\":%d,\"errors\":%d,\"throughput\":%.1f,\"p50\":%.2f,\"p95\":%.2f,\"p99\":%.2f}%n",
+                clients, seconds, result.requests, result.errors, result.requests / (double) seconds,
+                result.percentileMillis(50), result.percentileMillis(95), result.percentileMillis(99));
+
+        System.exit(0);
+    }
+
+    //creates the users of the test with one bulk request (one POST per user without bulk endpoint) and returns their ids
+    static int[] seedUsers(HttpClient httpClient, String baseUrl) throws Exception {
+
+        long runId = System.currentTimeMillis();
+
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < SEEDED_USERS; i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            body.append("{\"userFirstName\":\"load").append(i)
+                    .append("\",\"userLastName\":\"test\",\"userEmail\":\"load-").append(runId).append('-').append(i).append("@example.com\"}");
+        }
+        body.append(']');
+
+        HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl + "/users/bulk"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() == 404 || response.statusCode() == 405) {
+            //no bulk endpoint (the reactive variant), one POST /users per user
+            return seedUsersOneByOne(httpClient, baseUrl, runId);
+        }
+
+        List<Integer> ids = new ArrayList<>();
+        for (JsonNode item : objectMapper.readTree(response.body()).get("items")) {
+            if (item.hasNonNull("id")) {
+                ids.add(item.get("id").asInt());
+            }
+        }
+        if (ids.isEmpty()) {
+            throw new IllegalStateException("could not seed users, answer of POST /users/bulk: " + response.statusCode());
+        }
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    static int[] seedUsersOneByOne(HttpClient httpClient, String baseUrl, long runId) throws Exception {
+
+        int[] ids = new int[SEEDED_USERS];
+        for (int i = 0; i < SEEDED_USERS; i++) {
+            String user = "{\"userFirstName\":\"load" + i + "\",\"userLastName\":\"test\",\"userEmail\":\"load-"
+                    + runId + "-" + i + "@example.com\"}";
+            HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl + "/users"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(user))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 201) {
+                throw new IllegalStateException("could not seed users, answer of POST /users: " + response.statusCode());
+            }
+            ids[i] = objectMapper.readTree(response.body()).get("id").asInt();
+        }
+        return ids;
+    }
+
+    static Result runClients(HttpClient httpClient, String baseUrl, int[] ids, int clients, int seconds) throws Exception {
+
+        long endNanos = System.nanoTime() + seconds * 1_000_000_000L;
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        try {
+            List<Future<Result>> futures = new ArrayList<>(clients);
+            for (int client = 0; client < clients; client++) {
+                int clientNumber = client;
+                futures.add(executor.submit(() -> runClient(httpClient, baseUrl, ids, clientNumber, endNanos)));
+            }
+
+            Result total = new Result();
+            for (Future<Result> future : futures) {
+                total.add(future.get());
+            }
+            return total;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    static Result runClient(HttpClient httpClient, String baseUrl, int[] ids, int clientNumber, long endNanos) {
+
+        Result result = new Result();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int sequence = 0;
+
+        while (System.nanoTime() < endNanos) {
+            int id = ids[random.nextInt(ids.length)];
+            int pick = random.nextInt(100);
+
+            HttpRequest request;
+            if (pick < 70) {
+                request = HttpRequest.newBuilder(URI.create(baseUrl + "/users?limit=50&after=" + (id - 1))).GET().build();
+            } else if (pick < 90) {
+                request = HttpRequest.newBuilder(URI.create(baseUrl + "/users/" + id)).GET().build();
+            } else {
+                sequence++;
+                String user = "{\"userFirstName\":\"load\",\"userLastName\":\"test\",\"userEmail\":\"put-"
+                        + clientNumber + "-" + sequence + "-" + id + "@example.com\"}";
+                request = HttpRequest.newBuilder(URI.create(baseUrl + "/users/" + id))
+                        .header("Content-Type", "application/json")
+                        .PUT(HttpRequest.BodyPublishers.ofString(user))
+                        .build();
+            }
+
+            long start = System.nanoTime();
+            boolean ok;
+            try {
+                HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                ok = response.statusCode() < 400;
+            } catch (Exception e) {
+                ok = false;
+            }
+            result.record(System.nanoTime() - start, ok);
+        }
+        return result;
+    }
+
+    //latencies of one client, merged into the total at the end
+    static class Result {
+
+        long[] latencies = new long[1024];
+        int requests;
+        int errors;
+
+        void record(long latencyNanos, boolean ok) {
+            if (requests == latencies.length) {
+                latencies = Arrays.copyOf(latencies, requests * 2);
+            }
+            latencies[requests++] = latencyNanos;
+            if (!ok) {
+                errors++;
+            }
+        }
+
+        void add(Result other) {
+            for (int i = 0; i < other.requests; i++) {
+                record(other.latencies[i], true);
+            }
+            errors += other.errors;
+        }
+
+        double percentileMillis(double percentile) {
+            if (requests == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(latencies, requests);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100.0 * requests) - 1;
+            return sorted[Math.max(0, Math.min(index, requests - 1))] / 1_000_000.0;
+        }
+    }
+
+}
@@ -0,0 +1,122 @@
+package com.schimmerCreative.admin_panel.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.schimmerCreative.admin_panel.AdminPanelApplication;
+import com.schimmerCreative.admin_panel.model.User;
+import com.schimmerCreative.admin_panel.model.UserResponse;
+import com.schimmerCreative.admin_panel.repository.UserRepository;
+import com.schimmerCreative.admin_panel.service.UserBulkService;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+One page of GET /users from the query to the JSON bytes, the way it was and the way it is:
+- entities: SELECT u FROM User u (managed entities, default Jackson bean serializer), read-write transaction
+- projection: UserRepository.findPageAfterId (UserResponse records, UserResponse.Serializer), read-only transaction
+Against the embedded H2 database of the "test" profile, so the database part is smaller than with MySQL
+and the difference is mostly what happens in the JVM. Allocations per page with the GC profiler:
+
+    mvn -Pbenchmark -DskipTests verify -Djmh.args="UserReadPathBenchmark -prof gc"
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserReadPathBenchmark {
+
+    //50 is the default page of GET /users, 500 the biggest page
+    @Param({"50", "500"})
+    int pageSize;
+
+    ConfigurableApplicationContext context;
+
+    UserRepository userRepository;
+
+    EntityManager entityManager;
+
+    ObjectMapper objectMapper;
+
+    TransactionTemplate readWriteTransaction;
+
+    TransactionTemplate readOnlyTransaction;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(AdminPanelApplication.class)
+                .profiles("test")
+                .web(WebApplicationType.NONE)
+                .properties("spring.jpa.properties.hibernate.generate_statistics=false")
+                .run();
+
+        userRepository = context.getBean(UserRepository.class);
+        entityManager = context.getBean(EntityManager.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        readWriteTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+
+        //enough rows for the biggest page
+        List<User> users = new ArrayList<>(500);
+        for (int i = 0; i < 500; i++) {
+            users.add(new User(0, "first" + i, "last" + i, "read-path-" + i + "@example.com"));
+        }
+        context.getBean(UserBulkService.class).createUsers(users);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] pageOfEntities() {
+        return readWriteTransaction.execute(status -> {
+            List<User> users = entityManager.createQuery("SELECT u FROM User u WHERE u.id > :after ORDER BY u.id ASC", User.class)
+                    .setParameter("after", 0)
+                    .setMaxResults(pageSize)
+                    .getResultList();
+            return writeJson(users);
+        });
+    }
+
+    @Benchmark
+    public byte[] pageOfProjections() {
+        return readOnlyTransaction.execute(status ->
+                writeJson(userRepository.findPageAfterId(0, null, null, Limit.of(pageSize))));
+    }
+
+    //the same ObjectMapper as Spring MVC, with open-in-view the entities are also serialized while the session is open
+    byte[] writeJson(List<?> users) {
+        try {
+            return objectMapper.writeValueAsBytes(users);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -0,0 +1,116 @@
+package com.schimmerCreative.admin_panel.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.schimmerCreative.admin_panel.model.User;
+import com.schimmerCreative.admin_panel.model.UserResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+JSON hot paths of the controllers (Jackson serialization of User and List<User>
+with the ObjectMapper configuration Spring MVC uses) and User.toString().
+The UserResponse variants are what the read endpoints answer now (UserResponse.Serializer),
+the User variants the entity with the default bean serializer, for comparison.
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserSerializationBenchmark {
+
+    ObjectMapper objectMapper;
+
+    User user;
+
+    UserResponse userResponse;
+
+    byte[] userJson;
+
+    @Setup
+    public void createUser() throws JsonProcessingException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        user = new User(4711, "Peter", "Mustermann", "pm@schimmercreative.com");
+        userResponse = UserResponse.of(user);
+        userJson = objectMapper.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public byte[] serializeUser() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public byte[] serializeUserResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(userResponse);
+    }
+
+    @Benchmark
+    public byte[] serializeUserList(UserList userList) throws JsonProcessingException {
+        return userList.writer.writeValueAsBytes(userList.users);
+    }
+
+    @Benchmark
+    public byte[] serializeUserResponseList(UserList userList) throws JsonProcessingException {
+        return userList.responseWriter.writeValueAsBytes(userList.userResponses);
+    }
+
+    //request body of POST and PUT /users
+    @Benchmark
+    public User deserializeUser() throws java.io.IOException {
+        return objectMapper.readValue(userJson, User.class);
+    }
+
+    @Benchmark
+    public String userToString() {
+        return user.toString();
+    }
+
+    @State(Scope.Benchmark)
+    public static class UserList {
+
+        //size of the serialized list, 50 is the default page of GET /users, 500 the biggest page
+        @Param({"50", "500"})
+        int listSize;
+
+        ObjectWriter writer;
+
+        ObjectWriter responseWriter;
+
+        List<User> users;
+
+        List<UserResponse> userResponses;
+
+        @Setup
+        public void createUsers(UserSerializationBenchmark benchmark) {
+            writer = benchmark.objectMapper.writerFor(
+                    benchmark.objectMapper.getTypeFactory().constructCollectionType(List.class, User.class));
+            responseWriter = benchmark.objectMapper.writerFor(
+                    benchmark.objectMapper.getTypeFactory().constructCollectionType(List.class, UserResponse.class));
+            users = new ArrayList<>(listSize);
+            userResponses = new ArrayList<>(listSize);
+            for (int i = 1; i <= listSize; i++) {
+                users.add(new User(i, "first" + i, "last" + i, "user" + i + "@schimmercreative.com"));
+                userResponses.add(UserResponse.of(users.get(i - 1)));
+            }
+        }
+    }
+
+}
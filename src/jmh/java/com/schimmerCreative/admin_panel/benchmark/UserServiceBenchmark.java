@@ -0,0 +1,118 @@
+package com.schimmerCreative.admin_panel.benchmark;
+
+import com.schimmerCreative.admin_panel.AdminPanelApplication;
+import com.schimmerCreative.admin_panel.config.CacheConfig;
+import com.schimmerCreative.admin_panel.model.User;
+import com.schimmerCreative.admin_panel.model.UserResponse;
+import com.schimmerCreative.admin_panel.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+CRUD calls of UserServiceImpl through the Spring proxies (transactions, cache),
+against the embedded H2 database in MySQL mode of the "test" profile.
+The application context is started once per fork, without the web server.
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserServiceBenchmark {
+
+    ConfigurableApplicationContext context;
+
+    UserService userService;
+
+    Cache usersCache;
+
+    int existingId;
+
+    //unique names and emails for every created or updated user
+    final AtomicInteger sequence = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(AdminPanelApplication.class)
+                .profiles("test")
+                .web(WebApplicationType.NONE)
+                .properties("spring.jpa.properties.hibernate.generate_statistics=false")
+                .run();
+
+        userService = context.getBean(UserService.class);
+        usersCache = context.getBean(CacheManager.class).getCache(CacheConfig.USERS_CACHE);
+        existingId = userService.createUser("bench", "mark", "benchmark@example.com").getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public User createUser() {
+        int n = sequence.incrementAndGet();
+        return userService.createUser("first" + n, "last" + n, "create" + n + "@example.com");
+    }
+
+    //hot id, served by the read-through cache
+    @Benchmark
+    public Optional<UserResponse> findUserByIdCached() {
+        return userService.findUserById(existingId);
+    }
+
+    //cold id, the eviction forces the read from the database (the evict itself costs well below a microsecond)
+    @Benchmark
+    public Optional<UserResponse> findUserByIdFromDatabase() {
+        usersCache.evict(existingId);
+        return userService.findUserById(existingId);
+    }
+
+    @Benchmark
+    public Optional<User> updateUser() {
+        int n = sequence.incrementAndGet();
+        return userService.updateUser("first" + n, "last" + n, "update" + n + "@example.com", existingId);
+    }
+
+    /*
+    a delete needs a fresh row every call, it is created in a setup per invocation outside of the measured time
+    (Level.Invocation is fine here, a delete costs far more than the timestamps around it)
+    */
+    @Benchmark
+    public boolean deleteUser(UserToDelete userToDelete) {
+        return userService.deleteUser(userToDelete.id);
+    }
+
+    @State(Scope.Thread)
+    public static class UserToDelete {
+
+        int id;
+
+        @Setup(Level.Invocation)
+        public void createUser(UserServiceBenchmark benchmark) {
+            int n = benchmark.sequence.incrementAndGet();
+            id = benchmark.userService.createUser("first" + n, "last" + n, "delete" + n + "@example.com").getId();
+        }
+    }
+
+}
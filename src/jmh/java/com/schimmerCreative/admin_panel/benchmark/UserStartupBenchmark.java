@@ -0,0 +1,276 @@
+package com.schimmerCreative.admin_panel.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.jar.JarFile;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.DoubleStream;
+import java.util.stream.Stream;
+
+/*
+Startup time and memory of the start modes of the packaged application, for the instances the autoscaler adds:
+
+    mvn -Paot,benchmark -DskipTests package exec:exec@startup-test -Dstartup.args="target/admin_panel-0.0.1-SNAPSHOT.jar 3"
+
+Arguments: the jar, runs per mode, then arguments for the application (e.g. --spring.datasource.url=...).
+The jar is extracted (java -Djarmode=tools extract) to target/startup, a CDS archive needs plain jars on the class path.
+Modes, each started the given number of times:
+- jvm                 the application as configured
+- fast-start          profile "fast-start": lazy initialization, no JDBC metadata at boot
+- fast-start+cds      and a CDS archive of the classes loaded until the context is refreshed (one training run first)
+- fast-start+aot      and the AOT generated bean definitions (-Dspring.aot.enabled=true), when the jar was built with -Paot
+- fast-start+aot+cds  both
+- crac                restored from a checkpoint taken after the refresh, on a JDK with CRaC and a jar built with -Pcrac
+- native              the executable target/admin_panel of mvn -Pnative native:compile, when it exists
+
+Per run: started (the "Started ... in" time Spring logs), ready (launch until /actuator/health answers 200),
+first request (GET /users after ready, lazy beans are created there) and the resident memory (VmRSS, Linux) after it.
+Prints the medians per mode, plus one JSON line per mode to keep with the results of other runs.
+*/
+public class UserStartupBenchmark {
+
+    static final Pattern STARTED = Pattern.compile("Started \\S+ in ([0-9.]+) seconds");
+
+    static final Duration START_TIMEOUT = Duration.ofMinutes(2);
+
+    //fixed port of the CRaC checkpoint, the restored process listens where the checkpointed one was configured to
+    static final int CRAC_PORT = 18_181;
+
+    static final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+
+    public static void main(String[] args) throws Exception {
+
+        Path jar = Path.of(args.length > 0 ? args[0] : "target/admin_panel-0.0.1-SNAPSHOT.jar").toAbsolutePath();
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        List<String> applicationArgs = args.length > 2 ? Arrays.asList(args).subList(2, args.length) : List.of();
+        String extraClasspath = System.getProperty("startup.classpath", "");
+
+        Path workDirectory = jar.resolveSibling("startup");
+        Path extracted = workDirectory.resolve("app");
+        run(List.of(java(), "-Djarmode=tools", "-jar", jar.toString(), "extract", "--destination", extracted.toString(), "--force"),
+                workDirectory.resolve("extract.log"));
+
+        String mainClass;
+        try (JarFile jarFile = new JarFile(jar.toFile())) {
+            mainClass = jarFile.getManifest().getMainAttributes().getValue("Start-Class");
+        }
+        Path applicationJar = extracted.resolve(jar.getFileName());
+        String classpath = extraClasspath.isBlank() ? applicationJar.toString() : applicationJar + File.pathSeparator + extraClasspath;
+
+        boolean aot;
+        try (JarFile jarFile = new JarFile(applicationJar.toFile())) {
+            aot = jarFile.getEntry(mainClass.replace('.', '/') + "__ApplicationContextInitializer.class") != null;
+        }
+
+        List<String> fastStart = new ArrayList<>(applicationArgs);
+        fastStart.add(0, "--spring.profiles.active=fast-start");
+
+        List<Mode> modes = new ArrayList<>();
+        modes.add(new Mode("jvm", null, port -> command(List.of(), classpath, mainClass, port, applicationArgs)));
+        modes.add(new Mode("fast-start", null, port -> command(List.of(), classpath, mainClass, port, fastStart)));
+        modes.add(cdsMode("fast-start+cds", List.of(), workDirectory, classpath, mainClass, fastStart));
+        if (aot) {
+            modes.add(new Mode("fast-start+aot", null, port -> command(List.of("-Dspring.aot.enabled=true"), classpath, mainClass, port, fastStart)));
+            modes.add(cdsMode("fast-start+aot+cds", List.of("-Dspring.aot.enabled=true"), workDirectory, classpath, mainClass, fastStart));
+        } else {
+            System.out.println("no AOT classes in " + jar.getFileName() + " (build with mvn -Paot), skipping the aot modes");
+        }
+        if (cracSupported(extracted)) {
+            Path checkpoint = workDirectory.resolve("crac");
+            modes.add(new Mode("crac",
+                    command(List.of("-XX:CRaCCheckpointTo=" + checkpoint, "-Dspring.context.checkpoint=onRefresh"), classpath, mainClass, CRAC_PORT, fastStart),
+                    port -> List.of(java(), "-XX:CRaCRestoreFrom=" + checkpoint)));
+        } else {
+            System.out.println("no CRaC (needs a JDK with CRaC and a jar built with mvn -Pcrac), skipping the crac mode");
+        }
+        Path nativeImage = jar.resolveSibling("admin_panel");
+        if (Files.isExecutable(nativeImage)) {
+            modes.add(new Mode("native", null, port -> {
+                List<String> command = new ArrayList<>(List.of(nativeImage.toString(), "--server.port=" + port));
+                command.addAll(fastStart);
+                return command;
+            }));
+        } else {
+            System.out.println("no native image " + nativeImage + " (build with mvn -Pnative native:compile), skipping the native mode");
+        }
+
+        List<String> jsonLines = new ArrayList<>();
+        System.out.printf("%-20s %12s %10s %18s %8s%n", "mode", "started s", "ready ms", "first request ms", "RSS MB");
+        for (Mode mode : modes) {
+            if (mode.training() != null) {
+                //CDS archive or CRaC checkpoint, the process exits after the refresh
+                Files.createDirectories(workDirectory);
+                run(mode.training(), workDirectory.resolve(mode.name() + "-training.log"));
+            }
+
+            List<Run> results = new ArrayList<>();
+            for (int i = 0; i < runs; i++) {
+                int port = mode.name().equals("crac") ? CRAC_PORT : freePort();
+                results.add(measure(mode.command().apply(port), port, workDirectory.resolve(mode.name() + "-" + i + ".log")));
+            }
+
+            double started = median(results.stream().mapToDouble(Run::startedSeconds));
+            double ready = median(results.stream().mapToDouble(Run::readyMillis));
+            double firstRequest = median(results.stream().mapToDouble(Run::firstRequestMillis));
+            double rss = median(results.stream().mapToDouble(Run::rssMegabytes));
+            System.out.printf("%-20s %12.2f %10.0f %18.1f %8.0f%n", mode.name(), started, ready, firstRequest, rss);
+            jsonLines.add(String.format("{\"mode\":\"%s\",\"runs\":%d,\"started\":%.2f,\"ready\":%.0f,\"firstRequest\":%.1f,\"rss\":%.0f}",
+                    mode.name(), runs, started, ready, firstRequest, rss));
+        }
+        jsonLines.forEach(System.out::println);
+
+        System.exit(0);
+    }
+
+    record Mode(String name, List<String> training, IntFunction<List<String>> command) {}
+
+    record Run(double startedSeconds, double readyMillis, double firstRequestMillis, double rssMegabytes) {}
+
+    static Mode cdsMode(String name, List<String> jvmOptions, Path workDirectory, String classpath, String mainClass, List<String> applicationArgs) {
+
+        Path archive = workDirectory.resolve(name + ".jsa");
+        List<String> training = new ArrayList<>(jvmOptions);
+        training.add("-XX:ArchiveClassesAtExit=" + archive);
+        training.add("-Dspring.context.exit=onRefresh");
+        List<String> options = new ArrayList<>(jvmOptions);
+        options.add("-XX:SharedArchiveFile=" + archive);
+
+        return new Mode(name, command(training, classpath, mainClass, freePort(), applicationArgs),
+                port -> command(options, classpath, mainClass, port, applicationArgs));
+    }
+
+    static List<String> command(List<String> jvmOptions, String classpath, String mainClass, int port, List<String> applicationArgs) {
+
+        List<String> command = new ArrayList<>();
+        command.add(java());
+        command.addAll(jvmOptions);
+        command.addAll(List.of("-cp", classpath, mainClass, "--server.port=" + port));
+        command.addAll(applicationArgs);
+        return command;
+    }
+
+    //one start of the application: until /actuator/health answers, then one GET /users, then it is stopped
+    static Run measure(List<String> command, int port, Path log) throws Exception {
+
+        long launched = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        try {
+            URI health = URI.create("http://localhost:" + port + "/actuator/health");
+            long deadline = launched + START_TIMEOUT.toNanos();
+            while (status(health) != 200) {
+                if (!process.isAlive() || System.nanoTime() > deadline) {
+                    throw new IllegalStateException("application did not start, see " + log);
+                }
+                Thread.sleep(10);
+            }
+            double readyMillis = (System.nanoTime() - launched) / 1e6;
+
+            long requested = System.nanoTime();
+            int status = status(URI.create("http://localhost:" + port + "/users?limit=20"));
+            double firstRequestMillis = (System.nanoTime() - requested) / 1e6;
+            if (status != 200) {
+                throw new IllegalStateException("GET /users answered " + status + ", see " + log);
+            }
+
+            double rssMegabytes = rssMegabytes(process.pid());
+            //the log is written asynchronously, the line is there by now
+            Matcher started = STARTED.matcher(Files.readString(log));
+            double startedSeconds = started.find() ? Double.parseDouble(started.group(1)) : Double.NaN;
+            return new Run(startedSeconds, readyMillis, firstRequestMillis, rssMegabytes);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    static int status(URI uri) {
+        try {
+            return httpClient.send(HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).GET().build(),
+                    HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            //not listening yet
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+
+    //resident set size of the process from /proc (Linux), NaN elsewhere
+    static double rssMegabytes(long pid) throws IOException {
+
+        Path status = Path.of("/proc", Long.toString(pid), "status");
+        if (!Files.exists(status)) {
+            return Double.NaN;
+        }
+        try (Stream<String> lines = Files.lines(status)) {
+            return lines.filter(line -> line.startsWith("VmRSS:"))
+                    .mapToLong(line -> Long.parseLong(line.replaceAll("\\D", "")))
+                    .findFirst()
+                    .orElse(-1) / 1024.0;
+        }
+    }
+
+    //a training run or the extraction: runs to its end, a CRaC checkpoint ends the process with exit code 137
+    static void run(List<String> command, Path log) throws Exception {
+
+        Files.createDirectories(log.getParent());
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        if (!process.waitFor(START_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+            process.destroyForcibly().waitFor();
+            throw new IllegalStateException("did not finish in time, see " + log);
+        }
+        if (process.exitValue() != 0 && process.exitValue() != 137) {
+            throw new IllegalStateException("exit code " + process.exitValue() + ", see " + log);
+        }
+    }
+
+    //the CRaC API in the jar (mvn -Pcrac) and a JVM that accepts the CRaC options
+    static boolean cracSupported(Path extracted) throws Exception {
+
+        try (Stream<Path> libraries = Files.list(extracted.resolve("lib"))) {
+            if (libraries.noneMatch(library -> library.getFileName().toString().startsWith("crac-"))) {
+                return false;
+            }
+        }
+        Process process = new ProcessBuilder(java(), "-XX:CRaCCheckpointTo=" + Files.createTempDirectory("crac"), "-version")
+                .redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+        return process.waitFor() == 0;
+    }
+
+    static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String java() {
+        return Path.of(System.getProperty("java.home"), "bin", "java").toString();
+    }
+
+    static double median(DoubleStream values) {
+        double[] sorted = values.sorted().toArray();
+        return sorted.length == 0 ? Double.NaN : sorted[sorted.length / 2];
+    }
+}
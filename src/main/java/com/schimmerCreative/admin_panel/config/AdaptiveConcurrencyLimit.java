@@ -0,0 +1,103 @@
+package com.schimmerCreative.admin_panel.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.LongSupplier;
+
+/*
+Limit of the requests in flight that adapts to the latency of the requests (AIMD, like TCP congestion control):
+- additive increase: a request faster than the latency threshold while the limit is in use (at least half of it
+  in flight) raises the limit by 1 / limit, about +1 per round of requests
+- multiplicative decrease: a request slower than the threshold multiplies the limit by backoff-ratio,
+  at most once per threshold, so a burst of slow answers does not collapse the limit at once
+When MySQL slows down every request gets slower, the limit shrinks, and the requests above it are
+refused at once (503) instead of queueing for a pooled connection and making the database even slower.
+
+The limit (a double, as its bits) and the number of requests in flight are atomics, updated with compare-and-set.
+*/
+final class AdaptiveConcurrencyLimit {
+
+    final int minLimit;
+    final int maxLimit;
+    final long latencyThresholdNanos;
+    final double backoffRatio;
+
+    final AtomicInteger inFlight = new AtomicInteger();
+    final AtomicLong limitBits;
+    final AtomicLong lastDecreaseNanos;
+
+    final LongSupplier clock;
+
+    AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long latencyThresholdNanos, double backoffRatio) {
+        this(initialLimit, minLimit, maxLimit, latencyThresholdNanos, backoffRatio, TokenBuckets.nanoClock());
+    }
+
+    AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long latencyThresholdNanos, double backoffRatio,
+                             LongSupplier clock) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit || backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("needs 1 <= min <= initial <= max and a backoff ratio between 0 and 1");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThresholdNanos;
+        this.backoffRatio = backoffRatio;
+        this.limitBits = new AtomicLong(Double.doubleToLongBits(initialLimit));
+        this.clock = clock;
+        this.lastDecreaseNanos = new AtomicLong(clock.getAsLong() - latencyThresholdNanos);
+    }
+
+    boolean tryAcquire() {
+        int limit = limit();
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    //every admitted request calls this once, sample = false for requests whose latency says nothing about the database
+    void release(long latencyNanos, boolean sample) {
+
+        int inFlightBefore = inFlight.getAndDecrement();
+        if (!sample) {
+            return;
+        }
+
+        if (latencyNanos > latencyThresholdNanos) {
+            long now = clock.getAsLong();
+            long lastDecrease = lastDecreaseNanos.get();
+            if (now - lastDecrease >= latencyThresholdNanos && lastDecreaseNanos.compareAndSet(lastDecrease, now)) {
+                updateLimit(limit -> Math.max(minLimit, limit * backoffRatio));
+            }
+        } else if (inFlightBefore * 2 >= limitValue()) {
+            updateLimit(limit -> Math.min(maxLimit, limit + 1 / limit));
+        }
+    }
+
+    int limit() {
+        return (int) limitValue();
+    }
+
+    double limitValue() {
+        return Double.longBitsToDouble(limitBits.get());
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    void updateLimit(DoubleUnaryOperator update) {
+        while (true) {
+            long current = limitBits.get();
+            long next = Double.doubleToLongBits(update.applyAsDouble(Double.longBitsToDouble(current)));
+            if (current == next || limitBits.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+}
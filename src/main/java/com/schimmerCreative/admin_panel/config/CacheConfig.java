@@ -0,0 +1,23 @@
+package com.schimmerCreative.admin_panel.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/*
+Read-through cache of users by id, the cache itself (Caffeine, size, TTL, statistics)
+is configured with the spring.cache.* properties in application.properties.
+
+The cache advice runs outside the transaction advice (lower order = outer):
+- a cache hit returns before any transaction is opened, so no connection is taken from the pool
+- an eviction after updateUser/deleteUser happens after the commit,
+  a concurrent read cannot put the old row back into the cache between eviction and commit
+*/
+@Configuration
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+public class CacheConfig {
+
+    //name of the cache of User entities by id, used by UserServiceImpl and UserBulkServiceImpl
+    public static final String USERS_CACHE = "users";
+
+}
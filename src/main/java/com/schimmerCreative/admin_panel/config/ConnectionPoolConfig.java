@@ -0,0 +1,110 @@
+package com.schimmerCreative.admin_panel.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+Metrics of the HikariCP connection pool, the pool itself is configured with the
+spring.datasource.hikari.* properties in application.properties.
+
+Spring Boot already publishes the pool as hikaricp.connections.* (active, idle, pending, acquire, usage, timeout),
+this configuration installs the same Micrometer tracker wrapped by one that also reports slow acquisitions:
+every getConnection() waiting longer than admin-panel.pool.slow-acquire-threshold-ms is logged
+and counted in hikaricp.connections.acquire.slow. A rising count with pending > 0 means the pool is too small
+(or connections are held too long, see hikaricp.connections.usage), a zero count means it is big enough.
+
+Leaked connections (held longer than spring.datasource.hikari.leak-detection-threshold) are logged by Hikari itself.
+*/
+@Configuration
+public class ConnectionPoolConfig {
+
+    //static, a BeanPostProcessor has to exist before the other beans of the configuration are created
+    @Bean
+    static BeanPostProcessor slowAcquireMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry,
+                                                             @Value("${admin-panel.pool.slow-acquire-threshold-ms:50}") long slowAcquireThresholdMillis) {
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                //set before the pool starts (first getConnection), Spring Boot then leaves the tracker factory alone
+                if (bean instanceof HikariDataSource hikari && hikari.getMetricRegistry() == null && hikari.getMetricsTrackerFactory() == null) {
+                    hikari.setMetricsTrackerFactory(new SlowAcquireMetricsTrackerFactory(meterRegistry, slowAcquireThresholdMillis));
+                }
+                return bean;
+            }
+        };
+    }
+
+    static class SlowAcquireMetricsTrackerFactory implements MetricsTrackerFactory {
+
+        static final Logger log = LoggerFactory.getLogger(SlowAcquireMetricsTrackerFactory.class);
+
+        //resolved when the pool starts, not when the DataSource bean is created (the registry may bind the DataSource)
+        final ObjectProvider<MeterRegistry> meterRegistry;
+
+        final long slowAcquireThresholdNanos;
+
+        SlowAcquireMetricsTrackerFactory(ObjectProvider<MeterRegistry> meterRegistry, long slowAcquireThresholdMillis) {
+            this.meterRegistry = meterRegistry;
+            this.slowAcquireThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowAcquireThresholdMillis);
+        }
+
+        @Override
+        public IMetricsTracker create(String poolName, PoolStats poolStats) {
+
+            MeterRegistry registry = meterRegistry.getObject();
+            IMetricsTracker micrometer = new MicrometerMetricsTrackerFactory(registry).create(poolName, poolStats);
+            Counter slowAcquisitions = Counter.builder("hikaricp.connections.acquire.slow")
+                    .description("Connection acquisitions slower than admin-panel.pool.slow-acquire-threshold-ms")
+                    .tag("pool", poolName)
+                    .register(registry);
+
+            return new IMetricsTracker() {
+                @Override
+                public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+                    micrometer.recordConnectionCreatedMillis(connectionCreatedMillis);
+                }
+
+                @Override
+                public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                    micrometer.recordConnectionAcquiredNanos(elapsedAcquiredNanos);
+                    if (elapsedAcquiredNanos > slowAcquireThresholdNanos) {
+                        slowAcquisitions.increment();
+                        log.warn("{}: waited {} ms for a connection (active {}, idle {}, pending {}, max {})", poolName,
+                                TimeUnit.NANOSECONDS.toMillis(elapsedAcquiredNanos), poolStats.getActiveConnections(),
+                                poolStats.getIdleConnections(), poolStats.getPendingThreads(), poolStats.getMaxConnections());
+                    }
+                }
+
+                @Override
+                public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                    micrometer.recordConnectionUsageMillis(elapsedBorrowedMillis);
+                }
+
+                @Override
+                public void recordConnectionTimeout() {
+                    micrometer.recordConnectionTimeout();
+                }
+
+                @Override
+                public void close() {
+                    micrometer.close();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.schimmerCreative.admin_panel.config;
+
+import com.schimmerCreative.admin_panel.service.UserPurgeService;
+import com.schimmerCreative.admin_panel.service.UserWriteBehindService;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/*
+Lazy initialization (profile "fast-start", application-fast-start.properties) creates a bean when it is first used.
+Beans that do their work from the start, without being called, are excluded:
+- the write-behind service replays its journal and starts the drainer thread when it is created,
+  lazily the users still pending in the journal would wait for the next POST /users
+- the purge of soft deleted users schedules its runs when it is created, nothing else ever calls it
+- the schema migration has to add the soft delete columns before the first read, not at it
+
+The filter is only consulted when lazy initialization is on, so it is not bound to the profile
+(AOT processing fixes the bean definitions at build time, profile specific beans would need the profile at build time).
+*/
+@Configuration
+public class FastStartConfig {
+
+    @Bean
+    static LazyInitializationExcludeFilter eagerUserBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(UserWriteBehindService.class, UserPurgeService.class, UserSchemaMigration.class);
+    }
+}
@@ -0,0 +1,57 @@
+package com.schimmerCreative.admin_panel.config;
+
+import com.schimmerCreative.admin_panel.model.BulkItemResult;
+import com.schimmerCreative.admin_panel.model.BulkResult;
+import com.schimmerCreative.admin_panel.model.User;
+import com.schimmerCreative.admin_panel.model.UserChange;
+import com.schimmerCreative.admin_panel.model.UserColumns;
+import com.schimmerCreative.admin_panel.model.UserImportProgress;
+import com.schimmerCreative.admin_panel.model.UserPage;
+import com.schimmerCreative.admin_panel.model.UserResponse;
+import com.schimmerCreative.admin_panel.model.UserTicket;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+/*
+Reflection and resource hints for the native image (mvn -Pnative native:compile), read by the AOT processing.
+The GraalVM native image only keeps what it sees used at build time, everything reached by reflection has to be declared.
+
+Spring AOT already registers the types of the @RequestBody and @ResponseBody parameters of the controllers
+and the entity classes of the persistence unit. Declared here is what is only used by reflection at runtime:
+- User: the entity, fields and constructors for Hibernate, and the JSON body of POST/PUT /users,
+  read with an ObjectReader by the NDJSON bulk endpoints and the import, written by the export
+- UserResponse: created by Hibernate from the "SELECT new ...UserResponse(...)" queries of UserRepository
+- UserChange: the data of the change feed events, written by the SseEmitter (no controller signature)
+- the other JSON models of the controllers, so the image does not depend on the signatures alone
+- hibernate-l2cache.conf and the Caffeine JCache provider, loaded by name in the profile "l2cache"
+*/
+@Configuration
+@ImportRuntimeHints(NativeHintsConfig.UserRuntimeHints.class)
+public class NativeHintsConfig {
+
+    static class UserRuntimeHints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+
+            hints.reflection().registerType(User.class,
+                    MemberCategory.DECLARED_FIELDS, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_DECLARED_METHODS);
+            hints.reflection().registerType(UserResponse.class, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+
+            //getters, setters, constructors and Jackson annotations of the JSON models
+            BindingReflectionHintsRegistrar bindingHints = new BindingReflectionHintsRegistrar();
+            bindingHints.registerReflectionHints(hints.reflection(), User.class, UserResponse.class, UserPage.class,
+                    UserColumns.class, UserChange.class, UserTicket.class, UserImportProgress.class,
+                    BulkResult.class, BulkItemResult.class);
+
+            hints.resources().registerPattern("hibernate-l2cache.conf");
+            hints.reflection().registerType(TypeReference.of("com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider"),
+                    MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        }
+    }
+}
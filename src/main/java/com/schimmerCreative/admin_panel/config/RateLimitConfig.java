@@ -0,0 +1,69 @@
+package com.schimmerCreative.admin_panel.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/*
+Rate limiting and load shedding in front of the /users endpoints (admin-panel.rate-limit.enabled=true, off by default),
+see UserRateLimitInterceptor. A client that sends GET /users?all=true in a loop gets 429 after a few requests
+instead of reading the whole table again and again, and when MySQL slows down the application answers 503
+for the requests above the adaptive limit instead of queueing them all on the connection pool.
+*/
+@Configuration
+@ConditionalOnProperty(name = "admin-panel.rate-limit.enabled", havingValue = "true")
+public class RateLimitConfig implements WebMvcConfigurer {
+
+    final UserRateLimitInterceptor interceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(interceptor).addPathPatterns("/users", "/users/**");
+    }
+
+    public RateLimitConfig(MeterRegistry meterRegistry,
+                           @Value("${admin-panel.rate-limit.requests-per-second:20}") double requestsPerSecond,
+                           @Value("${admin-panel.rate-limit.burst:40}") int burst,
+                           @Value("${admin-panel.rate-limit.heavy-requests-per-second:0.2}") double heavyRequestsPerSecond,
+                           @Value("${admin-panel.rate-limit.heavy-burst:2}") int heavyBurst,
+                           @Value("${admin-panel.rate-limit.heavy-endpoints:}") List<String> heavyEndpoints,
+                           @Value("${admin-panel.rate-limit.idle-timeout:10m}") Duration idleTimeout,
+                           @Value("${admin-panel.rate-limit.max-clients:100000}") long maxClients,
+                           @Value("${admin-panel.concurrency-limit.initial:20}") int initialLimit,
+                           @Value("${admin-panel.concurrency-limit.min:2}") int minLimit,
+                           @Value("${admin-panel.concurrency-limit.max:200}") int maxLimit,
+                           @Value("${admin-panel.concurrency-limit.latency-threshold-ms:250}") long latencyThresholdMillis,
+                           @Value("${admin-panel.concurrency-limit.backoff-ratio:0.9}") double backoffRatio) {
+
+        Set<String> heavy = new HashSet<>();
+        for (String endpoint : heavyEndpoints) {
+            if (!endpoint.isBlank()) {
+                heavy.add(endpoint.trim());
+            }
+        }
+
+        AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit,
+                TimeUnit.MILLISECONDS.toNanos(latencyThresholdMillis), backoffRatio);
+        Gauge.builder("users.limiter.concurrency.limit", concurrencyLimit, AdaptiveConcurrencyLimit::limitValue)
+                .description("Current adaptive limit of the /users requests in flight")
+                .register(meterRegistry);
+        Gauge.builder("users.limiter.concurrency.in_flight", concurrencyLimit, AdaptiveConcurrencyLimit::inFlight)
+                .description("/users requests in flight")
+                .register(meterRegistry);
+
+        this.interceptor = new UserRateLimitInterceptor(
+                new TokenBuckets(requestsPerSecond, burst, idleTimeout, maxClients),
+                new TokenBuckets(heavyRequestsPerSecond, heavyBurst, idleTimeout, maxClients),
+                Set.copyOf(heavy), concurrencyLimit, meterRegistry);
+    }
+}
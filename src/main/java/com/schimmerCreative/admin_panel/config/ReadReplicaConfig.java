@@ -0,0 +1,88 @@
+package com.schimmerCreative.admin_panel.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/*
+Read replicas (admin-panel.replicas.enabled=true, off by default): read-only transactions read from
+the MySQL replicas in admin-panel.replicas.urls, everything else goes to the primary (spring.datasource.url).
+
+The DataSource of the application is a LazyConnectionDataSourceProxy over the primary pool with the
+ReplicaDataSource as its read-only DataSource. The proxy takes the real connection only at the first statement,
+when the transaction manager already marked it read-only (@Transactional(readOnly = true) in UserServiceImpl,
+the read-only TransactionTemplates of the suggest index and the export), and then takes it from a replica.
+Transactions that write, and reads without a transaction, use the primary.
+So do the cache misses of findUserById (ReplicaDataSource.onPrimary), the users cache never holds a replica row.
+
+Every replica gets a pool with the settings of the primary pool (spring.datasource.hikari.*),
+named <pool-name>-replica-<n>, with its own hikaricp.connections.* metrics.
+Replication lag longer than the read-your-writes window (ReadYourWritesFilter) can still be visible to a client.
+*/
+@Configuration
+@ConditionalOnProperty(name = "admin-panel.replicas.enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    //the pool Spring Boot would have created, bound to spring.datasource.hikari.*
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaDataSource replicaDataSource(HikariDataSource primaryDataSource,
+                                               @Value("${admin-panel.replicas.urls}") List<String> urls,
+                                               @Value("${admin-panel.replicas.balancing:round-robin}") String balancing,
+                                               @Value("${admin-panel.replicas.username:}") String username,
+                                               @Value("${admin-panel.replicas.password:}") String password) {
+
+        List<HikariDataSource> replicas = new ArrayList<>(urls.size());
+        for (String url : urls) {
+            HikariConfig config = new HikariConfig();
+            //pool size, timeouts, credentials and the metrics tracker of the primary pool
+            primaryDataSource.copyStateTo(config);
+            config.setJdbcUrl(url.trim());
+            config.setPoolName(primaryDataSource.getPoolName() + "-replica-" + (replicas.size() + 1));
+            config.setReadOnly(true);
+            //a read-only account on the replicas, the credentials of the primary otherwise
+            if (!username.isEmpty()) {
+                config.setUsername(username);
+                config.setPassword(password);
+            }
+            replicas.add(new HikariDataSource(config));
+        }
+        if (replicas.isEmpty()) {
+            throw new IllegalStateException("admin-panel.replicas.enabled=true needs at least one url in admin-panel.replicas.urls");
+        }
+
+        return new ReplicaDataSource(primaryDataSource, replicas,
+                ReplicaDataSource.Balancing.valueOf(balancing.trim().toUpperCase(Locale.ROOT).replace('-', '_')));
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        return dataSource;
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(@Value("${admin-panel.replicas.read-your-writes-seconds:5}") long seconds) {
+        return new ReadYourWritesFilter(Duration.ofSeconds(seconds));
+    }
+}
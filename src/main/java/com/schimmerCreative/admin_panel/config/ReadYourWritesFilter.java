@@ -0,0 +1,69 @@
+package com.schimmerCreative.admin_panel.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseCookie;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/*
+Read-your-writes with read replicas: a client that wrote (POST, PUT, PATCH, DELETE) gets a cookie for
+admin-panel.replicas.read-your-writes-seconds, while the browser sends it back its reads go to the primary
+(ReplicaDataSource.readFromPrimary), so it never reads a replica that has not applied its own write yet.
+The cookie only carries the window, the server keeps no session state.
+Set before the write runs: the status is not known before the response is committed, a failed write just costs a few primary reads.
+*/
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String COOKIE_NAME = "admin-panel-primary";
+
+    final Duration window;
+
+    public ReadYourWritesFilter(Duration window) {
+        this.window = window;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        boolean write = isWrite(request.getMethod());
+        if (write) {
+            ResponseCookie cookie = ResponseCookie.from(COOKIE_NAME, "1")
+                    .maxAge(window).path("/").httpOnly(true).sameSite("Lax").build();
+            response.addHeader("Set-Cookie", cookie.toString());
+        }
+
+        if (write || hasCookie(request)) {
+            ReplicaDataSource.readFromPrimary.set(Boolean.TRUE);
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                ReplicaDataSource.readFromPrimary.remove();
+            }
+        } else {
+            filterChain.doFilter(request, response);
+        }
+    }
+
+    static boolean isWrite(String method) {
+        return !(HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method) || HttpMethod.OPTIONS.matches(method));
+    }
+
+    static boolean hasCookie(HttpServletRequest request) {
+        if (request.getCookies() != null) {
+            for (Cookie cookie : request.getCookies()) {
+                if (COOKIE_NAME.equals(cookie.getName())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,116 @@
+package com.schimmerCreative.admin_panel.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/*
+The read-only side of the routing DataSource (see ReadReplicaConfig): one Hikari pool per replica,
+a connection is taken from the replica chosen by the balancing strategy.
+
+- round-robin: the replicas in turn
+- least-connections: the replica with the fewest connections in use (HikariPoolMXBean.getActiveConnections)
+- a replica that cannot give a connection is skipped, when none can the primary answers the read
+- during the read-your-writes window of a client (ReadYourWritesFilter) the primary answers as well,
+  a replica may not have the write of the client yet
+- reads that fill a shared cache run in onPrimary: a row of a lagging replica cached after the eviction of a write
+  would be served to every client, the writer included, until the next write or expiry
+*/
+public class ReplicaDataSource extends AbstractDataSource implements AutoCloseable {
+
+    static final Logger log = LoggerFactory.getLogger(ReplicaDataSource.class);
+
+    public enum Balancing { ROUND_ROBIN, LEAST_CONNECTIONS }
+
+    //set for the requests of a client that just wrote, see ReadYourWritesFilter
+    static final ThreadLocal<Boolean> readFromPrimary = new ThreadLocal<>();
+
+    final HikariDataSource primary;
+
+    final List<HikariDataSource> replicas;
+
+    final Balancing balancing;
+
+    final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaDataSource(HikariDataSource primary, List<HikariDataSource> replicas, Balancing balancing) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.balancing = balancing;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+
+        if (Boolean.TRUE.equals(readFromPrimary.get())) {
+            return primary.getConnection();
+        }
+
+        for (HikariDataSource replica : candidates()) {
+            try {
+                return replica.getConnection();
+            } catch (SQLException e) {
+                log.warn("replica {} unavailable, trying the next one: {}", replica.getPoolName(), e.getMessage());
+            }
+        }
+        return primary.getConnection();
+    }
+
+    //runs the read against the primary, also without replicas (nothing reads the flag then)
+    public static <T> T onPrimary(Supplier<T> read) {
+        Boolean previous = readFromPrimary.get();
+        readFromPrimary.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            if (previous == null) {
+                readFromPrimary.remove();
+            } else {
+                readFromPrimary.set(previous);
+            }
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLException("the replica pools use the configured credentials");
+    }
+
+    //the replicas in the order they are tried
+    List<HikariDataSource> candidates() {
+
+        List<HikariDataSource> ordered = new ArrayList<>(replicas.size());
+        int first = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            ordered.add(replicas.get((first + i) % replicas.size()));
+        }
+        if (balancing == Balancing.LEAST_CONNECTIONS) {
+            //stable sort: replicas with equal load keep the round-robin order
+            ordered.sort(Comparator.comparingInt(ReplicaDataSource::activeConnections));
+        }
+        return ordered;
+    }
+
+    //0 for a pool that is not started yet (the pools start with their first connection)
+    static int activeConnections(HikariDataSource replica) {
+        HikariPoolMXBean pool = replica.getHikariPoolMXBean();
+        return pool == null ? 0 : pool.getActiveConnections();
+    }
+
+    @Override
+    public void close() {
+        for (HikariDataSource replica : replicas) {
+            replica.close();
+        }
+    }
+}
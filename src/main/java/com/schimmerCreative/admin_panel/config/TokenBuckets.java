@@ -0,0 +1,72 @@
+package com.schimmerCreative.admin_panel.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/*
+One token bucket per key (client and endpoint), rate tokens per second, at most burst tokens saved up.
+
+Each bucket is a single AtomicLong with the GCRA form of the token bucket (generic cell rate algorithm):
+instead of a token count and a refill time it keeps the "theoretical arrival time", the time at which
+the bucket would be full again. A request is admitted when that time is at most burst - 1 intervals
+in the future, and moves it one interval (1 / rate) further. Admitting is one compare-and-set,
+no lock and no refill thread, concurrent requests of the same client retry the CAS.
+
+The buckets live in a Caffeine cache (a striped ConcurrentHashMap): a client that has been quiet
+for longer than idle-timeout loses its bucket, which is the same as a full bucket.
+*/
+final class TokenBuckets {
+
+    final Cache<String, AtomicLong> buckets;
+
+    //1 / rate, and how far the theoretical arrival time may be ahead of now (burst - 1 intervals)
+    final long intervalNanos;
+    final long toleranceNanos;
+
+    //nanoseconds since the creation of the buckets, never negative (System.nanoTime() can be)
+    final LongSupplier clock;
+
+    TokenBuckets(double tokensPerSecond, int burst, Duration idleTimeout, long maximumBuckets) {
+        this(tokensPerSecond, burst, idleTimeout, maximumBuckets, nanoClock());
+    }
+
+    TokenBuckets(double tokensPerSecond, int burst, Duration idleTimeout, long maximumBuckets, LongSupplier clock) {
+        if (tokensPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("a token bucket needs a positive rate and a burst of at least 1");
+        }
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / tokensPerSecond));
+        this.toleranceNanos = intervalNanos * (burst - 1);
+        this.clock = clock;
+        this.buckets = Caffeine.newBuilder()
+                .expireAfterAccess(idleTimeout)
+                .maximumSize(maximumBuckets)
+                .build();
+    }
+
+    //0 when the request is admitted, otherwise the nanoseconds until the bucket has a token again
+    long tryAcquire(String key) {
+
+        AtomicLong arrival = buckets.get(key, k -> new AtomicLong());
+        long now = clock.getAsLong();
+        while (true) {
+            long current = arrival.get();
+            long earliest = Math.max(current, now);
+            long wait = earliest - now - toleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (arrival.compareAndSet(current, earliest + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    static LongSupplier nanoClock() {
+        long origin = System.nanoTime();
+        return () -> System.nanoTime() - origin;
+    }
+}
@@ -0,0 +1,78 @@
+package com.schimmerCreative.admin_panel.config;
+
+import com.schimmerCreative.admin_panel.model.UserImportProgress;
+import com.schimmerCreative.admin_panel.service.UserExportFormat;
+import com.schimmerCreative.admin_panel.service.UserImportService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+
+/*
+Command line mode of the import, for the files of a migration that are already on the server:
+
+    java -jar admin_panel.jar --spring.main.web-application-type=none --admin-panel.import.file=/data/legacy-users.csv
+
+imports the file (CSV, or NDJSON for .ndjson / .jsonl, or --admin-panel.import.format=ndjson) on the main thread,
+logs the progress, writes the rejected rows next to it (legacy-users.csv.rejects.csv) and exits
+with 0 when the import completed, 1 when it failed. Running the same command again after a failure
+continues after the last committed chunk (legacy-users.csv.checkpoint).
+*/
+@Component
+@ConditionalOnProperty(name = "admin-panel.import.file")
+public class UserImportCommand implements ApplicationRunner {
+
+    static final Logger log = LoggerFactory.getLogger(UserImportCommand.class);
+
+    UserImportService userImportService;
+
+    ConfigurableApplicationContext applicationContext;
+
+    Path file;
+
+    //empty: by the extension of the file
+    String format;
+
+    //false keeps the application running after the import (e.g. with the web application)
+    boolean exitWhenDone;
+
+    @Override
+    public void run(ApplicationArguments args) {
+
+        UserExportFormat importFormat = format.isBlank()
+                ? UserExportFormat.ofFileName(file.getFileName().toString())
+                : UserExportFormat.valueOf(format.trim().toUpperCase());
+
+        UserImportProgress progress = userImportService.importFile("cli-" + file.getFileName(), file, importFormat);
+        log.info("import of {} {}: rows={} imported={} rejected={}{}", file, progress.getStatus(), progress.getRowsRead(),
+                progress.getRowsImported(), progress.getRowsRejected(),
+                progress.getMessage() == null ? "" : " (" + progress.getMessage() + ")");
+
+        if (exitWhenDone) {
+            int exitCode = progress.getStatus() == UserImportProgress.Status.COMPLETED ? 0 : 1;
+            System.exit(SpringApplication.exit(applicationContext, () -> exitCode));
+        }
+    }
+
+
+    @Autowired
+    public UserImportCommand(UserImportService userImportService, ConfigurableApplicationContext applicationContext,
+                             @Value("${admin-panel.import.file}") Path file,
+                             @Value("${admin-panel.import.format:}") String format,
+                             @Value("${admin-panel.import.exit-when-done:true}") boolean exitWhenDone) {
+
+        this.userImportService = userImportService;
+        this.applicationContext = applicationContext;
+        this.file = file;
+        this.format = format;
+        this.exitWhenDone = exitWhenDone;
+    }
+}
@@ -0,0 +1,134 @@
+package com.schimmerCreative.admin_panel.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/*
+Runs before every handler of the /users endpoints (RateLimitConfig), in this order:
+1. token bucket per client and endpoint: over the rate -> 429 Too Many Requests with Retry-After
+2. adaptive concurrency limit over all endpoints: over the limit -> 503 Service Unavailable with Retry-After: 1
+The endpoint is the handler method (UserController.retrieveAllUsers), so GET /users and GET /users?all=true
+have their own buckets. The heavy endpoints (whole table, export, bulk) have their own, much smaller rate,
+and their latency does not change the concurrency limit (they are slow by design).
+
+An asynchronous request (export, change feed) leaves the concurrency limit when its handler returns,
+not when the stream ends, it no longer holds a request thread then.
+
+Metrics: users.limiter.requests (tags endpoint, outcome=admitted|rate_limited|shed),
+users.limiter.concurrency.limit and users.limiter.concurrency.in_flight.
+*/
+class UserRateLimitInterceptor implements AsyncHandlerInterceptor {
+
+    static final Logger log = LoggerFactory.getLogger(UserRateLimitInterceptor.class);
+
+    //start of an admitted request, removed when it leaves the concurrency limit
+    static final String ADMITTED_AT = UserRateLimitInterceptor.class.getName() + ".admittedAt";
+
+    final TokenBuckets buckets;
+    final TokenBuckets heavyBuckets;
+    final Set<String> heavyEndpoints;
+    final AdaptiveConcurrencyLimit concurrencyLimit;
+
+    final MeterRegistry meterRegistry;
+
+    //three counters per endpoint, created on the first request of the endpoint
+    final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
+
+    UserRateLimitInterceptor(TokenBuckets buckets, TokenBuckets heavyBuckets, Set<String> heavyEndpoints,
+                             AdaptiveConcurrencyLimit concurrencyLimit, MeterRegistry meterRegistry) {
+        this.buckets = buckets;
+        this.heavyBuckets = heavyBuckets;
+        this.heavyEndpoints = heavyEndpoints;
+        this.concurrencyLimit = concurrencyLimit;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+
+        //the dispatch that writes the result of an asynchronous request was already admitted
+        if (!(handler instanceof HandlerMethod handlerMethod) || request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+
+        String endpoint = handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName();
+        String client = clientOf(request);
+
+        long waitNanos = (heavyEndpoints.contains(endpoint) ? heavyBuckets : buckets).tryAcquire(client + " " + endpoint);
+        if (waitNanos > 0) {
+            count(endpoint, "rate_limited");
+            log.debug("rate limited client={} endpoint={}", client, endpoint);
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999))));
+            return false;
+        }
+
+        if (!concurrencyLimit.tryAcquire()) {
+            count(endpoint, "shed");
+            log.debug("shed client={} endpoint={} limit={}", client, endpoint, concurrencyLimit.limit());
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            return false;
+        }
+
+        count(endpoint, "admitted");
+        request.setAttribute(ADMITTED_AT, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        release(request, handler, false);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        release(request, handler, true);
+    }
+
+    void release(HttpServletRequest request, Object handler, boolean sample) {
+
+        Object admittedAt = request.getAttribute(ADMITTED_AT);
+        if (admittedAt == null) {
+            return;
+        }
+        request.removeAttribute(ADMITTED_AT);
+
+        boolean heavy = handler instanceof HandlerMethod handlerMethod
+                && heavyEndpoints.contains(handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName());
+        concurrencyLimit.release(System.nanoTime() - (Long) admittedAt, sample && !heavy);
+    }
+
+    /*
+    The remote address, never a header the client sends itself: any value of X-Forwarded-For the client puts
+    in front of the ones the proxies append would give it a fresh bucket on every request.
+    Behind a proxy server.forward-headers-strategy=native lets Tomcat (RemoteIpValve) set the remote address
+    to the right-most X-Forwarded-For value that is not one of the trusted proxies (server.tomcat.remoteip.internal-proxies).
+    */
+    static String clientOf(HttpServletRequest request) {
+        return request.getRemoteAddr();
+    }
+
+    void count(String endpoint, String outcome) {
+        counters.computeIfAbsent(endpoint + " " + outcome, key -> Counter.builder("users.limiter.requests")
+                        .description("Requests of the /users endpoints admitted, rate limited (429) or shed (503)")
+                        .tag("endpoint", endpoint)
+                        .tag("outcome", outcome)
+                        .register(meterRegistry))
+                .increment();
+    }
+}
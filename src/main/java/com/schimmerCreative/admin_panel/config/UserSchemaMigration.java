@@ -0,0 +1,93 @@
+package com.schimmerCreative.admin_panel.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/*
+Soft delete columns of user_data_table, checked when the application starts, before the first request.
+Every read of User filters on deleted_at IS NULL (@SQLRestriction), also with admin-panel.soft-delete.enabled=false,
+so a table created before soft delete existed has to get the columns before anything reads it:
+
+- deleted_at, deleted_email and the index idx_user_deleted_at are added when they are missing
+- user_email becomes nullable: a soft deleted user has NULL there (its email is in deleted_email),
+  NULLs never collide in uk_user_email, whatever emails the users registered
+
+The statements are the upgrade ALTER TABLEs of SQL_Script_admin_panel_DB_20_09_2024.sql. Adding nullable columns is
+an instant change on MySQL 8 and the index is built online. Where the application account may not run DDL,
+admin-panel.schema.migrate=false only checks: the start fails and names the statements a DBA has to run.
+A table that does not exist yet is left alone (created by the SQL script, or by Hibernate in the tests).
+*/
+@Component
+public class UserSchemaMigration implements InitializingBean {
+
+    static final Logger log = LoggerFactory.getLogger(UserSchemaMigration.class);
+
+    static final String COLUMNS = "SELECT LOWER(COLUMN_NAME) AS name, IS_NULLABLE AS nullable FROM INFORMATION_SCHEMA.COLUMNS"
+            + " WHERE LOWER(TABLE_NAME) = 'user_data_table' AND TABLE_SCHEMA = SCHEMA()";
+
+    JdbcTemplate jdbcTemplate;
+
+    final boolean migrate;
+
+    @Override
+    public void afterPropertiesSet() {
+
+        List<String> statements = missingStatements();
+        if (statements.isEmpty()) {
+            return;
+        }
+        if (!migrate) {
+            throw new IllegalStateException("user_data_table needs the soft delete columns, run: " + String.join("; ", statements));
+        }
+        for (String statement : statements) {
+            log.info("migrating user_data_table: {}", statement);
+            jdbcTemplate.execute(statement);
+        }
+    }
+
+    //empty when the table is up to date or does not exist
+    List<String> missingStatements() {
+
+        Map<String, String> nullableByColumn = new HashMap<>();
+        jdbcTemplate.query(COLUMNS, row -> {
+            nullableByColumn.put(row.getString("name"), row.getString("nullable").toUpperCase(Locale.ROOT));
+        });
+
+        List<String> statements = new ArrayList<>();
+        if (nullableByColumn.isEmpty()) {
+            return statements;
+        }
+        if (!nullableByColumn.containsKey("deleted_at")) {
+            statements.add("ALTER TABLE user_data_table ADD COLUMN deleted_at datetime(6) NULL DEFAULT NULL");
+            statements.add("CREATE INDEX idx_user_deleted_at ON user_data_table (deleted_at)");
+        }
+        if (!nullableByColumn.containsKey("deleted_email")) {
+            statements.add("ALTER TABLE user_data_table ADD COLUMN deleted_email varchar(255) NULL DEFAULT NULL");
+        }
+        if ("NO".equals(nullableByColumn.get("user_email"))) {
+            statements.add("ALTER TABLE user_data_table MODIFY user_email varchar(255) NULL");
+        }
+        return statements;
+    }
+
+
+    /*
+    constructor
+    */
+    @Autowired
+    public UserSchemaMigration(JdbcTemplate jdbcTemplate, @Value("${admin-panel.schema.migrate:true}") boolean migrate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.migrate = migrate;
+    }
+}
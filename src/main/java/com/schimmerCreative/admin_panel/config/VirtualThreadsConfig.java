@@ -0,0 +1,23 @@
+package com.schimmerCreative.admin_panel.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/*
+Profile "virtual-threads" (application-virtual-threads.properties).
+Spring Boot silently ignores spring.threads.virtual.enabled below Java 21,
+the application would run on platform threads with a pool sized for virtual threads.
+Fail at startup instead, so the mode is either really on or the start is refused.
+*/
+@Configuration
+@Profile("virtual-threads")
+public class VirtualThreadsConfig {
+
+    public VirtualThreadsConfig() {
+
+        if (Runtime.version().feature() < 21) {
+            throw new IllegalStateException("profile virtual-threads needs Java 21 or newer, running on Java "
+                    + Runtime.version() + ", build with mvn -Pjava21 and start with a Java 21 runtime");
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.schimmerCreative.admin_panel.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.schimmerCreative.admin_panel.model.BulkResult;
+import com.schimmerCreative.admin_panel.model.User;
+import com.schimmerCreative.admin_panel.service.UserBulkService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+Bulk endpoints, the body is either a JSON array (Content-Type: application/json)
+or one JSON value per line (Content-Type: application/x-ndjson):
+
+    POST   /users/bulk   users to create         [{"userFirstName": ..., "userLastName": ..., "userEmail": ...}, ...]
+    PUT    /users/bulk   users to update         [{"id": 1, "userFirstName": ..., ...}, ...]
+    DELETE /users/bulk   ids of users to delete  [1, 2, 3]
+
+The answer is 200 with a BulkResult: one result per item in request order,
+a failed item does not fail the whole request.
+More than admin-panel.bulk.max-items items answer 413 Payload Too Large, nothing is written.
+*/
+@RestController
+public class UserBulkController {
+
+    UserBulkService userBulkService;
+
+    ObjectMapper objectMapper;
+
+    int maxItems;
+
+    @PostMapping(value = "/users/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BulkResult> addUsers(@RequestBody List<User> newUsers){
+        //CRUD: create, adding many users
+
+        if (newUsers.size() > maxItems) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        return ResponseEntity.status(HttpStatus.OK).body(userBulkService.createUsers(newUsers));
+    }
+
+    @PostMapping(value = "/users/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<BulkResult> addUsersNdjson(InputStream body) throws IOException {
+
+        List<User> newUsers = readNdjson(body, User.class);
+        if (newUsers == null) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        return ResponseEntity.status(HttpStatus.OK).body(userBulkService.createUsers(newUsers));
+    }
+
+    @PutMapping(value = "/users/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BulkResult> modifyUsers(@RequestBody List<User> usersToUpdate){
+        //CRUD: update, modifying many users
+
+        if (usersToUpdate.size() > maxItems) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        return ResponseEntity.status(HttpStatus.OK).body(userBulkService.updateUsers(usersToUpdate));
+    }
+
+    @PutMapping(value = "/users/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<BulkResult> modifyUsersNdjson(InputStream body) throws IOException {
+
+        List<User> usersToUpdate = readNdjson(body, User.class);
+        if (usersToUpdate == null) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        return ResponseEntity.status(HttpStatus.OK).body(userBulkService.updateUsers(usersToUpdate));
+    }
+
+    @DeleteMapping(value = "/users/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BulkResult> removeUsers(@RequestBody List<Integer> ids){
+        //CRUD: delete, removing many users
+
+        if (ids.size() > maxItems) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        return ResponseEntity.status(HttpStatus.OK).body(userBulkService.deleteUsers(ids));
+    }
+
+    @DeleteMapping(value = "/users/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<BulkResult> removeUsersNdjson(InputStream body) throws IOException {
+
+        List<Integer> ids = readNdjson(body, Integer.class);
+        if (ids == null) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        return ResponseEntity.status(HttpStatus.OK).body(userBulkService.deleteUsers(ids));
+    }
+
+    //malformed JSON in the body is a client error
+    @org.springframework.web.bind.annotation.ExceptionHandler(JsonProcessingException.class)
+    public ResponseEntity<BulkResult> handleMalformedBody(JsonProcessingException e){
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+    }
+
+    /*
+    reads one value per line while the body arrives,
+    returns null as soon as there are more than maxItems values, the rest of the body is not parsed
+    */
+    <T> List<T> readNdjson(InputStream body, Class<T> type) throws IOException {
+
+        List<T> values = new ArrayList<>();
+        try (MappingIterator<T> iterator = objectMapper.readerFor(type).readValues(body)) {
+            while (iterator.hasNextValue()) {
+                if (values.size() == maxItems) {
+                    return null;
+                }
+                values.add(iterator.nextValue());
+            }
+        }
+        return values;
+    }
+
+
+    @Autowired
+    public UserBulkController(UserBulkService userBulkService, ObjectMapper objectMapper,
+                              @Value("${admin-panel.bulk.max-items:200000}") int maxItems) {
+
+        this.userBulkService = userBulkService;
+        this.objectMapper = objectMapper;
+        this.maxItems = maxItems;
+    }
+}
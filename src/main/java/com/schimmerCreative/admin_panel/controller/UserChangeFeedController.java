@@ -0,0 +1,38 @@
+package com.schimmerCreative.admin_panel.controller;
+
+import com.schimmerCreative.admin_panel.service.UserChangeFeedService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/*
+Change feed for the admin panel, so an open list is patched row by row instead of being read again.
+
+GET /users/changes (text/event-stream)
+events: created, updated, deleted (data: epoch, sequence, type, id, user),
+sync (the current position, sent to a new client) and reset (the missed changes are gone, read the list again).
+The browser's EventSource reconnects by itself and sends the last event id as Last-Event-ID,
+?since=<event id> does the same for clients that cannot set the header.
+*/
+@RestController
+public class UserChangeFeedController {
+
+    UserChangeFeedService userChangeFeedService;
+
+    @GetMapping(path = "/users/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamUserChanges(@RequestHeader(name = "Last-Event-ID", required = false) String lastEventId,
+                                        @RequestParam(required = false) String since){
+
+        return userChangeFeedService.subscribe(lastEventId != null ? lastEventId : since);
+    }
+
+
+    @Autowired
+    public UserChangeFeedController(UserChangeFeedService userChangeFeedService) {
+        this.userChangeFeedService = userChangeFeedService;
+    }
+}
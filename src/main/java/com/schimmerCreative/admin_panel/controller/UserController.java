@@ -1,15 +1,30 @@
 package com.schimmerCreative.admin_panel.controller;
 
 import com.schimmerCreative.admin_panel.model.User;
+import com.schimmerCreative.admin_panel.model.UserColumns;
+import com.schimmerCreative.admin_panel.model.UserPage;
+import com.schimmerCreative.admin_panel.model.UserResponse;
+import com.schimmerCreative.admin_panel.model.UserTicket;
 import com.schimmerCreative.admin_panel.service.UserService;
+import com.schimmerCreative.admin_panel.service.UserWriteBehindService;
 import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 /*
 indicate that the return value of the
@@ -45,9 +60,24 @@ public class UserController {
      more control over the HTTP response, including setting specific status codes.
     */
 
+    /*
+    Logging: SLF4J, written by an asynchronous appender (logback-spring.xml), the request thread only enqueues the event.
+    Messages carry ids as key=value, never whole users or lists. Failed lookups by id are expected
+    (404 for the client) and logged at DEBUG, failures of the list endpoints at WARN.
+    The latency and error rate of every endpoint are the http.server.requests metric (tags uri, method, status, outcome).
+    */
+    static final Logger log = LoggerFactory.getLogger(UserController.class);
+
     //usable injected UserService interface for calling methods instantiated in a private class member variable
     UserService userServiceInject;
 
+    //only present with admin-panel.write-behind.enabled=true, then POST /users answers 202 with a ticket
+    UserWriteBehindService userWriteBehindService;
+
+    //page size for GET /users when the client sends no limit, and the biggest limit a client may ask for
+    int defaultPageSize;
+    int maxPageSize;
+
     /*
      For each CRUD operation, define a method in the
      controller that will execute the corresponding service method.
@@ -61,8 +91,15 @@ public class UserController {
     addUser method will call the createUser method from the UserService interface
     This endpoint should accept user details from the request body
     */
+    /*
+    Responses are UserResponse records (serialized by UserResponse.Serializer), never the JPA entity
+    and never an Optional, the request bodies are still bound to User.
+
+    In write-behind mode the user is only journaled: 202 Accepted with a UserTicket and
+    Location: /users/tickets/{ticket}, 503 with Retry-After when the queue is full.
+    */
     @PostMapping("/users")
-    public ResponseEntity<User> addUser(@RequestBody User newUser){
+    public ResponseEntity<?> addUser(@RequestBody User newUser){
         /*
         Model User Object as parameter
         @RequestBody binds the JSON and XML payload in  the request body to the User object parameter
@@ -74,6 +111,10 @@ public class UserController {
         create a variable, and call the methods get...() from the newUser Request Body
         */
 
+        if (userWriteBehindService != null) {
+            return acceptUser(newUser);
+        }
+
         try{
             String userFirstName = newUser.getUserFirstName();
             String userLastName = newUser.getUserLastName();
@@ -87,7 +128,11 @@ public class UserController {
         remember that the return of the method is of type ResponseEntity<User>
         Stateless Behavior: HTTP is a stateless protocol, meaning each request is independent of others
         */
-            return ResponseEntity.status(HttpStatus.CREATED).body(createdUser);
+            return ResponseEntity.status(HttpStatus.CREATED).body(UserResponse.of(createdUser));
+
+        }catch (DataIntegrityViolationException e) {
+            //the email is already used by another user (unique index on user_email)
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
 
         }catch (Exception e) {
             /*
@@ -105,12 +150,36 @@ public class UserController {
 
 
 
+    ResponseEntity<UserTicket> acceptUser(User newUser) {
+
+        try{
+            UserTicket ticket = userWriteBehindService.submitUser(newUser.getUserFirstName(), newUser.getUserLastName(), newUser.getUserEmail());
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .location(URI.create("/users/tickets/" + ticket.getTicket()))
+                    .body(ticket);
+
+        }catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+
+        }catch (RejectedExecutionException e) {
+            //backpressure: the drainer is behind (or the database is down), the client should come back later
+            log.warn("addUser refused in write-behind mode: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+        }
+    }
+
+
     /*
     correspondant to updateUser in UserService interface
     add the path variable int id for no inconsistencies
+
+    With If-Match: <ETag of GET /users/{id}> the update only happens when nobody changed the user since,
+    otherwise 412 Precondition Failed and the client has to read the user again (optimistic concurrency).
+    Without If-Match (or with *) the last writer wins, as before.
     */
     @PutMapping("/users/{id}")
-    public ResponseEntity<Optional<User>> modifyUser(@RequestBody User userToUpdate, @PathVariable int id){
+    public ResponseEntity<UserResponse> modifyUser(@RequestBody User userToUpdate, @PathVariable int id,
+                                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
         //CRUD: update, modifying an existing user´s details
 
         try{
@@ -119,11 +188,22 @@ public class UserController {
             String userEmail = userToUpdate.getUserEmail();
 
             //the id can be directed from the main method parameter to the interface parameter call
-            Optional<User> updatedUser = userServiceInject.updateUser(userFirstName, userLastName, userEmail, id);
-            return ResponseEntity.status(HttpStatus.OK).body(updatedUser);
+            List<Long> expectedVersions = UserETags.expectedVersions(ifMatch, id);
+            Optional<User> updatedUser = (expectedVersions == null)
+                    ? userServiceInject.updateUser(userFirstName, userLastName, userEmail, id)
+                    : updateIfMatch(userFirstName, userLastName, userEmail, id, expectedVersions);
+
+            UserResponse user = UserResponse.of(updatedUser.get());
+            return ResponseEntity.status(HttpStatus.OK).eTag(UserETags.of(user)).body(user);
+
+        }catch (DataIntegrityViolationException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+
+        }catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
 
         }catch (Exception e) {
-            System.out.println("Could not complete modifyUser method in UserController " + e);
+            log.debug("modifyUser failed id={} error={}", id, e.toString());
             throw new EntityNotFoundException(String.valueOf(HttpStatus.NOT_MODIFIED));
 
         }
@@ -132,6 +212,26 @@ public class UserController {
 
     }
 
+    /*
+    If-Match with several tags of the user: one conditional UPDATE per version until one matches,
+    only the one with the current version can write the row. No tag of the user: -1 never matches (412, or 404 for no user).
+    */
+    Optional<User> updateIfMatch(String userFirstName, String userLastName, String userEmail, int id, List<Long> expectedVersions) {
+
+        if (expectedVersions.isEmpty()) {
+            return userServiceInject.updateUser(userFirstName, userLastName, userEmail, id, -1L);
+        }
+        for (int i = 0; ; i++) {
+            try {
+                return userServiceInject.updateUser(userFirstName, userLastName, userEmail, id, expectedVersions.get(i));
+            } catch (OptimisticLockingFailureException e) {
+                if (i == expectedVersions.size() - 1) {
+                    throw e;
+                }
+            }
+        }
+    }
+
     //Correspondant to deleteUser in UserService interface
     @DeleteMapping("/users/{id}")
     public ResponseEntity<Boolean> removeUser(@PathVariable int id){
@@ -143,7 +243,7 @@ public class UserController {
             return ResponseEntity.status(HttpStatus.OK).body(deletionStatus);
 
         }catch (Exception e) {
-            System.out.println("Could not complete removeUser method in UserController " + e);
+            log.debug("removeUser failed id={} error={}", id, e.toString());
             /*
              A better status might be HttpStatus.NOT_FOUND or HttpStatus.INTERNAL_SERVER_ERROR.
              */
@@ -160,19 +260,31 @@ public class UserController {
     the path variable in the annotations is named {id}.
      These should match to correctly bind the path variable to the method parameter.
     */
+    /*
+    Conditional GET: the answer carries ETag (id and version) and Last-Modified (updated_at),
+    Cache-Control: no-cache makes browsers send If-None-Match every time.
+    When the ETag still matches, Spring answers 304 Not Modified without serializing the user,
+    and a user in the cache of findUserById is not even loaded from the database.
+    */
     @GetMapping("/users/{id}")
-    public ResponseEntity<Optional<User>> retrieveUser(@PathVariable int id){
+    public ResponseEntity<UserResponse> retrieveUser(@PathVariable int id){
         //CRUD: read, retrieving one or more users
 
 
         try{
-            Optional<User> requestedUser = userServiceInject.findUserById(id);
+            Optional<UserResponse> requestedUser = userServiceInject.findUserById(id);
+            UserResponse user = requestedUser.get();
 
-            System.out.println("controller, user : " + requestedUser);
-            return ResponseEntity.status(HttpStatus.OK).body(requestedUser);
+            ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.OK)
+                    .cacheControl(CacheControl.noCache())
+                    .eTag(UserETags.of(user));
+            if (user.updatedAt() != null) {
+                response.lastModified(user.updatedAt());
+            }
+            return response.body(user);
 
         }catch (Exception e) {
-            System.out.println("Could not complete retrieveUser method in UserController " + e);
+            log.debug("retrieveUser failed id={} error={}", id, e.toString());
             throw new EntityNotFoundException(String.valueOf(HttpStatus.NOT_FOUND));
         }
 
@@ -181,23 +293,130 @@ public class UserController {
     }
 
     /*
-
-   implement here the retrieveAllUsers method with maybe findAll from Repository, getAllUsers from UserService?
-     */
+    GET /users reads the table page by page with keyset pagination on the id:
+    ?after=<id>&limit=<n>, optional filters ?lastName=<exact last name>&emailPrefix=<start of the email>.
+    The response carries nextCursor, which the client sends back as after= for the next page.
+    Never loads more than maxPageSize rows, whatever the size of the table.
+    The page has a weak ETag over the versions of its users (weak so Tomcat may gzip it), If-None-Match with it answers 304 without a body.
+    No Last-Modified: a deleted user changes the page but no updated_at on it.
+    */
     @GetMapping("/users")
-    public ResponseEntity<List<User>> retrieveAllUsers(){
-        //CRUD: read, retrieving one or more users
+    public ResponseEntity<UserPage> retrieveUsersPage(@RequestParam(defaultValue = "0") int after,
+                                                      @RequestParam(required = false) Integer limit,
+                                                      @RequestParam(required = false) String lastName,
+                                                      @RequestParam(required = false) String emailPrefix){
+        //CRUD: read, retrieving one page of users
+
+        int pageSize = (limit == null) ? defaultPageSize : limit;
+        if (pageSize < 1 || pageSize > maxPageSize || after < 0) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
 
         try{
-            //uses findAll() from repository
-            List<User> allUsers =  userServiceInject.getAllUsers();
+            UserPage page = userServiceInject.getUsersPage(after, pageSize, lastName, emailPrefix);
+            return ResponseEntity.status(HttpStatus.OK)
+                    .cacheControl(CacheControl.noCache())
+                    .eTag(UserETags.of(page))
+                    .body(page);
 
+        }catch (Exception e) {
+            log.warn("retrieveUsersPage failed after={} limit={}", after, pageSize, e);
+            throw new EntityNotFoundException(String.valueOf(HttpStatus.NOT_FOUND));
+        }
+
+    }
+
+    /*
+    GET /users?format=columns: the same page as above as a UserColumns object (one array per property),
+    smaller on the wire and faster to parse for the table of the admin panel.
+    Same parameters, cursor and 304 handling, with its own ETag.
+    */
+    @GetMapping(value = "/users", params = {"format=columns", "!all"})
+    public ResponseEntity<UserColumns> retrieveUsersColumns(@RequestParam(defaultValue = "0") int after,
+                                                            @RequestParam(required = false) Integer limit,
+                                                            @RequestParam(required = false) String lastName,
+                                                            @RequestParam(required = false) String emailPrefix){
+
+        int pageSize = (limit == null) ? defaultPageSize : limit;
+        if (pageSize < 1 || pageSize > maxPageSize || after < 0) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+
+        try{
+            UserPage page = userServiceInject.getUsersPage(after, pageSize, lastName, emailPrefix);
+            return ResponseEntity.status(HttpStatus.OK)
+                    .cacheControl(CacheControl.noCache())
+                    .eTag(UserETags.ofColumns(page))
+                    .body(UserColumns.of(page));
 
-            System.out.println("allUsers : " + allUsers);
+        }catch (Exception e) {
+            log.warn("retrieveUsersColumns failed after={} limit={}", after, pageSize, e);
+            throw new EntityNotFoundException(String.valueOf(HttpStatus.NOT_FOUND));
+        }
+
+    }
+
+    /*
+    GET /users/search, lookups that use the indexes of user_data_table, one form per request:
+    ?email=<exact email>                               unique index, 0 or 1 user
+    ?emailPrefix=<start of the email>                  unique index range, ordered by email
+    ?lastName=<exact last name>[&firstNamePrefix=..]   (last name, first name) index, ordered by name
+    limit as for GET /users, anything else is 400 Bad Request.
+    */
+    @GetMapping("/users/search")
+    public ResponseEntity<List<UserResponse>> searchUsers(@RequestParam(required = false) String email,
+                                                          @RequestParam(required = false) String emailPrefix,
+                                                          @RequestParam(required = false) String lastName,
+                                                          @RequestParam(required = false) String firstNamePrefix,
+                                                          @RequestParam(required = false) Integer limit){
+
+        int pageSize = (limit == null) ? defaultPageSize : limit;
+        int forms = (hasText(email) ? 1 : 0) + (hasText(emailPrefix) ? 1 : 0) + (hasText(lastName) ? 1 : 0);
+        if (forms != 1 || pageSize < 1 || pageSize > maxPageSize || (hasText(firstNamePrefix) && !hasText(lastName))) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+
+        try{
+            List<UserResponse> users;
+            if (hasText(email)) {
+                users = userServiceInject.findUserByEmail(email).map(List::of).orElse(List.of());
+            } else if (hasText(emailPrefix)) {
+                users = userServiceInject.searchUsersByEmailPrefix(emailPrefix, pageSize);
+            } else {
+                users = userServiceInject.searchUsersByName(lastName, firstNamePrefix, pageSize);
+            }
+            return ResponseEntity.status(HttpStatus.OK).body(users);
+
+        }catch (Exception e) {
+            log.warn("searchUsers failed", e);
+            throw new EntityNotFoundException(String.valueOf(HttpStatus.NOT_FOUND));
+        }
+
+    }
+
+    static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+
+    /*
+    The old "return everything" behaviour is opt-in with GET /users?all=true
+    and bounded by admin-panel.users.max-unpaged-rows,
+    a bigger table answers 413 Payload Too Large instead of exhausting the heap.
+    */
+    @GetMapping(value = "/users", params = "all=true")
+    public ResponseEntity<List<UserResponse>> retrieveAllUsers(){
+        //CRUD: read, retrieving one or more users
+
+        try{
+            List<UserResponse> allUsers =  userServiceInject.getAllUsers();
             return ResponseEntity.status(HttpStatus.OK).body(allUsers);
 
+        }catch (IllegalStateException e) {
+            //more rows than the cap, the client has to use pagination
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+
         }catch (Exception e) {
-            System.out.println("Could not complete retrieveAllUsers method in UserController " + e);
+            log.warn("retrieveAllUsers failed", e);
             throw new EntityNotFoundException(String.valueOf(HttpStatus.NOT_FOUND));
         }
 
@@ -206,9 +425,15 @@ public class UserController {
 
 
     @Autowired
-    public UserController(UserService userServiceInject) {
+    public UserController(UserService userServiceInject,
+                          ObjectProvider<UserWriteBehindService> userWriteBehindService,
+                          @Value("${admin-panel.users.default-page-size:50}") int defaultPageSize,
+                          @Value("${admin-panel.users.max-page-size:500}") int maxPageSize) {
 
         this.userServiceInject = userServiceInject;
+        this.userWriteBehindService = userWriteBehindService.getIfAvailable();
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
         /*
         using it here as parameter helps that controller cannot be used without it
         declaring it in the class as composition and then declaring is needed also
@@ -0,0 +1,119 @@
+package com.schimmerCreative.admin_panel.controller;
+
+import com.schimmerCreative.admin_panel.model.User;
+import com.schimmerCreative.admin_panel.model.UserPage;
+import com.schimmerCreative.admin_panel.model.UserResponse;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/*
+ETags of the user endpoints, built from the version column of User:
+- one user: strong "<id>-<version>", changes with every write of the row, used with If-Match by PUT
+- one page of GET /users: weak W/"p-<hash>", a hash over id and version of every user on the page, the cursor and the limit,
+  a created, updated or deleted user inside the page changes it
+- the same page as columns (?format=columns): weak W/"c-<hash>", it is another representation
+The representation is fully determined by these values, so equal ETags mean identical JSON.
+The pages are weak because Tomcat never gzips a response with a strong ETag (the compressed bytes are another
+representation), If-None-Match compares weakly and still answers 304.
+*/
+final class UserETags {
+
+    private UserETags() {
+    }
+
+    //null when the version is not known (update without If-Match), then no ETag is sent
+    static String of(User user) {
+        return user.getVersion() == null ? null : "\"" + user.getId() + "-" + user.getVersion() + "\"";
+    }
+
+    static String of(UserResponse user) {
+        return user.version() == null ? null : "\"" + user.id() + "-" + user.version() + "\"";
+    }
+
+    static String of(UserPage page) {
+        return "W/\"p-" + hash(page) + "\"";
+    }
+
+    static String ofColumns(UserPage page) {
+        return "W/\"c-" + hash(page) + "\"";
+    }
+
+    static String hash(UserPage page) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            ByteBuffer row = ByteBuffer.allocate(Integer.BYTES + Long.BYTES);
+            for (UserResponse user : page.getUsers()) {
+                row.clear();
+                row.putInt(user.id()).putLong(user.version() == null ? -1 : user.version());
+                digest.update(row.array());
+            }
+            row.clear();
+            row.putInt(page.getNextCursor() == null ? -1 : page.getNextCursor()).putLong(page.getLimit());
+            digest.update(row.array());
+            //128 bits are plenty to tell two pages apart
+            return HexFormat.of().formatHex(digest.digest(), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            //every Java runtime has SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /*
+    The versions a PUT with If-Match expects. The header is a list of entity tags (RFC 9110),
+    e.g. "5-3", "5-4": every strong tag of this user gives one version.
+    null for a missing header or *, an empty list when no tag is one of this user
+    (another id, a weak tag, not ours), which can never match.
+    */
+    static List<Long> expectedVersions(String ifMatch, int id) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return null;
+        }
+        List<Long> versions = new ArrayList<>();
+        String prefix = id + "-";
+        int position = 0;
+        while (position < ifMatch.length()) {
+            char c = ifMatch.charAt(position);
+            if (c == ',' || Character.isWhitespace(c)) {
+                position++;
+                continue;
+            }
+            if (c == '*') {
+                return null;
+            }
+            //weak ETags never match with If-Match (strong comparison), they are skipped
+            boolean weak = ifMatch.startsWith("W/", position);
+            if (weak) {
+                position += 2;
+            }
+            String tag;
+            if (position < ifMatch.length() && ifMatch.charAt(position) == '"') {
+                int close = ifMatch.indexOf('"', position + 1);
+                if (close < 0) {
+                    close = ifMatch.length();
+                }
+                tag = ifMatch.substring(position + 1, close);
+                position = close + 1;
+            } else {
+                //an unquoted tag, up to the next comma
+                int comma = ifMatch.indexOf(',', position);
+                int end = comma < 0 ? ifMatch.length() : comma;
+                tag = ifMatch.substring(position, end).trim();
+                position = end;
+            }
+            if (weak || !tag.startsWith(prefix)) {
+                continue;
+            }
+            try {
+                versions.add(Long.parseLong(tag.substring(prefix.length())));
+            } catch (NumberFormatException e) {
+                //not one of our tags
+            }
+        }
+        return versions;
+    }
+}
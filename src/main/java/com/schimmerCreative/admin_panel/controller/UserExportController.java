@@ -0,0 +1,116 @@
+package com.schimmerCreative.admin_panel.controller;
+
+import com.schimmerCreative.admin_panel.service.UserExportFormat;
+import com.schimmerCreative.admin_panel.service.UserExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/*
+Full dump of user_data_table for the nightly reconciliation.
+
+GET /users/export?format=ndjson (default) or ?format=csv
+The response is written while the rows are read (chunked transfer encoding),
+nothing is collected in a List before the first byte goes out.
+With Accept-Encoding: gzip the stream is compressed on the fly (not with gzip;q=0).
+*/
+@RestController
+public class UserExportController {
+
+    UserExportService userExportService;
+
+    @GetMapping("/users/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(defaultValue = "ndjson") String format,
+                                                             @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding){
+
+        UserExportFormat exportFormat;
+        try{
+            exportFormat = UserExportFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        }catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+
+        boolean gzip = acceptsGzip(acceptEncoding);
+
+        /*
+        The body runs after this method returned, on an async request thread,
+        the export service opens its own read-only transaction around the cursor.
+        With gzip, syncFlush makes every flush of the export push the compressed bytes to the client.
+        */
+        StreamingResponseBody body = outputStream -> {
+            if (gzip) {
+                try (OutputStream gzipStream = new GZIPOutputStream(outputStream, 8192, true)) {
+                    userExportService.exportUsers(gzipStream, exportFormat);
+                }
+            } else {
+                userExportService.exportUsers(outputStream, exportFormat);
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.OK)
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"users." + exportFormat.getFileExtension() + "\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+
+    }
+
+    /*
+    Accept-Encoding is a list of codings with optional q-values (RFC 9110), e.g. "br, gzip;q=0.8".
+    gzip is accepted by its own entry with q > 0, otherwise by "*" with q > 0, q=0 means "not acceptable".
+    */
+    static boolean acceptsGzip(String acceptEncoding) {
+
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double anyQuality = null;
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim().toLowerCase(Locale.ROOT);
+                if (parameter.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        //a malformed q-value does not accept the coding
+                        quality = 0.0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzipQuality = quality;
+            } else if (coding.equals("*")) {
+                anyQuality = quality;
+            }
+        }
+        if (gzipQuality != null) {
+            return gzipQuality > 0;
+        }
+        return anyQuality != null && anyQuality > 0;
+    }
+
+
+    @Autowired
+    public UserExportController(UserExportService userExportService) {
+
+        this.userExportService = userExportService;
+    }
+}
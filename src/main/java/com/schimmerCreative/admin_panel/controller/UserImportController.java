@@ -0,0 +1,105 @@
+package com.schimmerCreative.admin_panel.controller;
+
+import com.schimmerCreative.admin_panel.model.UserImportProgress;
+import com.schimmerCreative.admin_panel.service.UserExportFormat;
+import com.schimmerCreative.admin_panel.service.UserImportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+
+/*
+Import of users from the files of the legacy systems, the formats of GET /users/export:
+
+    POST /users/imports                      body: the file, Content-Type: text/csv or application/x-ndjson
+    GET  /users/imports/{importId}           progress (rows read, imported, rejected, percent of the file)
+    POST /users/imports/{importId}/resume    continues a failed import after its last committed chunk
+    GET  /users/imports/{importId}/rejects   the rejected rows (CSV: row, reason, line)
+
+The upload is stored in admin-panel.import.directory and imported in the background,
+the answer is 202 Accepted with the progress, Location is where to follow it.
+An upload bigger than admin-panel.import.max-upload-mb answers 413 Payload Too Large, nothing is imported.
+For files on the server itself there is the command line mode (UserImportCommand).
+*/
+@RestController
+public class UserImportController {
+
+    UserImportService userImportService;
+
+    @PostMapping(value = "/users/imports", consumes = "text/csv")
+    public ResponseEntity<UserImportProgress> importUsersCsv(InputStream body) throws IOException {
+        return startImport(body, UserExportFormat.CSV);
+    }
+
+    @PostMapping(value = "/users/imports", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<UserImportProgress> importUsersNdjson(InputStream body) throws IOException {
+        return startImport(body, UserExportFormat.NDJSON);
+    }
+
+    ResponseEntity<UserImportProgress> startImport(InputStream body, UserExportFormat format) throws IOException {
+
+        try{
+            return accepted(userImportService.startImport(body, format));
+        }catch (IllegalStateException e) {
+            //bigger than the cap
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+    }
+
+    @GetMapping("/users/imports/{importId}")
+    public ResponseEntity<UserImportProgress> retrieveImport(@PathVariable String importId){
+
+        return userImportService.findImport(importId)
+                .map(progress -> ResponseEntity.status(HttpStatus.OK).cacheControl(CacheControl.noStore()).body(progress))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+    }
+
+    @PostMapping("/users/imports/{importId}/resume")
+    public ResponseEntity<UserImportProgress> resumeImport(@PathVariable String importId){
+
+        try{
+            return userImportService.resumeImport(importId)
+                    .map(this::accepted)
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+        }catch (IllegalStateException e) {
+            //still queued or running
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    @GetMapping("/users/imports/{importId}/rejects")
+    public ResponseEntity<Resource> retrieveRejects(@PathVariable String importId){
+
+        return userImportService.findRejectFile(importId)
+                .<ResponseEntity<Resource>>map(file -> ResponseEntity.status(HttpStatus.OK)
+                        .contentType(MediaType.parseMediaType("text/csv;charset=UTF-8"))
+                        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + importId + "-rejects.csv\"")
+                        .cacheControl(CacheControl.noStore())
+                        .body(new FileSystemResource(file)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+    }
+
+    ResponseEntity<UserImportProgress> accepted(UserImportProgress progress) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .location(URI.create("/users/imports/" + progress.getImportId()))
+                .body(progress);
+    }
+
+
+    @Autowired
+    public UserImportController(UserImportService userImportService) {
+        this.userImportService = userImportService;
+    }
+}
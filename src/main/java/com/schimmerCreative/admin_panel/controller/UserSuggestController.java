@@ -0,0 +1,54 @@
+package com.schimmerCreative.admin_panel.controller;
+
+import com.schimmerCreative.admin_panel.model.UserResponse;
+import com.schimmerCreative.admin_panel.service.UserSuggestService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/*
+Type-ahead for the search box of the admin panel.
+
+GET /users/suggest?q=<start of a first name, last name or email>[&limit=<n>]
+answers from the in-memory index of UserSuggestService, without a database query,
+an empty q gives an empty list. The users are UserResponse records like on the other read endpoints,
+without version and updatedAt (the index does not keep them). The UI debounces its calls, one per pause in typing.
+*/
+@RestController
+public class UserSuggestController {
+
+    UserSuggestService userSuggestService;
+
+    //suggestions when the client sends no limit, and the biggest limit a client may ask for
+    int defaultLimit;
+    int maxLimit;
+
+    @GetMapping("/users/suggest")
+    public ResponseEntity<List<UserResponse>> suggestUsers(@RequestParam(defaultValue = "") String q,
+                                                   @RequestParam(required = false) Integer limit){
+
+        int suggestions = (limit == null) ? defaultLimit : limit;
+        if (suggestions < 1 || suggestions > maxLimit) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+
+        return ResponseEntity.status(HttpStatus.OK).body(userSuggestService.suggest(q, suggestions));
+    }
+
+
+    @Autowired
+    public UserSuggestController(UserSuggestService userSuggestService,
+                                 @Value("${admin-panel.suggest.default-limit:10}") int defaultLimit,
+                                 @Value("${admin-panel.suggest.max-limit:50}") int maxLimit) {
+
+        this.userSuggestService = userSuggestService;
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+    }
+}
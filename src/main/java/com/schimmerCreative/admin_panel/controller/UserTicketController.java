@@ -0,0 +1,39 @@
+package com.schimmerCreative.admin_panel.controller;
+
+import com.schimmerCreative.admin_panel.model.UserTicket;
+import com.schimmerCreative.admin_panel.service.UserWriteBehindService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+/*
+State of a user accepted by POST /users in write-behind mode (only with admin-panel.write-behind.enabled=true).
+
+GET /users/tickets/{ticket}: PENDING until the drainer wrote it, then CREATED with the id of the user,
+or CONFLICT / FAILED with the reason. 404 for an unknown ticket or one older than the ticket retention.
+*/
+@RestController
+@ConditionalOnProperty(name = "admin-panel.write-behind.enabled", havingValue = "true")
+public class UserTicketController {
+
+    UserWriteBehindService userWriteBehindService;
+
+    @GetMapping("/users/tickets/{ticket}")
+    public ResponseEntity<UserTicket> retrieveTicket(@PathVariable long ticket){
+
+        return userWriteBehindService.findTicket(ticket)
+                .map(found -> ResponseEntity.status(HttpStatus.OK).cacheControl(CacheControl.noStore()).body(found))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+    }
+
+
+    @Autowired
+    public UserTicketController(UserWriteBehindService userWriteBehindService) {
+        this.userWriteBehindService = userWriteBehindService;
+    }
+}
@@ -0,0 +1,66 @@
+package com.schimmerCreative.admin_panel.model;
+
+/*
+Result of one item of a bulk request,
+index is the position of the item in the request body (array index or NDJSON line, starting at 0)
+*/
+public class BulkItemResult {
+
+    int index;
+
+    //id of the created, updated or deleted user, null when the item was invalid or failed before getting an id
+    Integer id;
+
+    BulkItemStatus status;
+
+    //reason for INVALID, NOT_FOUND, CONFLICT and FAILED, null on success
+    String message;
+
+    //no argument Constructor for Jackson
+    public BulkItemResult(){
+        //noArgs
+
+    }
+
+    public BulkItemResult(int index, Integer id, BulkItemStatus status, String message) {
+        this.index = index;
+        this.id = id;
+        this.status = status;
+        this.message = message;
+    }
+
+    //Setter and getters
+
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public BulkItemStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(BulkItemStatus status) {
+        this.status = status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
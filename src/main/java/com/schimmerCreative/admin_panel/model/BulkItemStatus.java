@@ -0,0 +1,28 @@
+package com.schimmerCreative.admin_panel.model;
+
+//outcome of one item of a bulk create, update or delete request
+public enum BulkItemStatus {
+
+    CREATED,
+    UPDATED,
+    DELETED,
+
+    //the item itself is not valid (missing first name, last name, email or id), nothing was written
+    INVALID,
+
+    //update or delete of an id that does not exist
+    NOT_FOUND,
+
+    //the email is already used by another user (unique index on user_email)
+    CONFLICT,
+
+    //the database refused the item, the message has the reason
+    FAILED,
+
+    //the database was not available, nothing of the item was written and it can be sent again
+    NOT_WRITTEN;
+
+    public boolean isSuccess() {
+        return this == CREATED || this == UPDATED || this == DELETED;
+    }
+}
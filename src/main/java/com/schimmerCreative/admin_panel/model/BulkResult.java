@@ -0,0 +1,68 @@
+package com.schimmerCreative.admin_panel.model;
+
+import java.util.List;
+
+//summary and per item results of a bulk create, update or delete request, items are in request order
+public class BulkResult {
+
+    int total;
+
+    int succeeded;
+
+    int failed;
+
+    List<BulkItemResult> items;
+
+    //no argument Constructor for Jackson
+    public BulkResult(){
+        //noArgs
+
+    }
+
+    public BulkResult(List<BulkItemResult> items) {
+        this.items = items;
+        this.total = items.size();
+        for (BulkItemResult item : items) {
+            if (item.getStatus().isSuccess()) {
+                succeeded++;
+            } else {
+                failed++;
+            }
+        }
+    }
+
+    //Setter and getters
+
+
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    public void setSucceeded(int succeeded) {
+        this.succeeded = succeeded;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public List<BulkItemResult> getItems() {
+        return items;
+    }
+
+    public void setItems(List<BulkItemResult> items) {
+        this.items = items;
+    }
+}
@@ -1,9 +1,39 @@
 package com.schimmerCreative.admin_panel.model;
 
 import jakarta.persistence.*;
-
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.SQLRestriction;
+
+import java.time.Instant;
+
+/*
+@Cacheable and @Cache only have an effect with the optional Hibernate second-level cache
+(profile "l2cache"), otherwise the read-through cache of UserServiceImpl is used
+
+Indexes (also in SQL_Script_admin_panel_DB_20_09_2024.sql for the existing MySQL table):
+uk_user_email: one user per email, the database refuses a duplicate in the INSERT/UPDATE itself,
+               and lookups by email or email prefix are index range scans
+idx_user_last_first: lookups by last name, last name + first name (prefix) and sorting by name
+idx_user_deleted_at: the purge of soft deleted users finds the rows past the retention with a range scan
+
+Soft delete (admin-panel.soft-delete.enabled): DELETE /users/{id} only sets deleted_at,
+@SQLRestriction adds "deleted_at IS NULL" to every load and JPQL query of the entity, so a deleted user
+is not found by any read. UserPurgeServiceImpl deletes the rows later in small batches.
+The same UPDATE moves the email to deleted_email and sets user_email to NULL (NULLs never collide in uk_user_email,
+unlike a placeholder a user could have registered), the email is free right away and a create or update with it stays one statement.
+The filter applies with soft delete off as well, UserSchemaMigration adds the columns to an older table at startup.
+The JDBC statements (UserBulkServiceImpl, UserPurgeServiceImpl) have the condition in their SQL.
+*/
 @Entity
-@Table(name = "user_data_table")
+@Table(name = "user_data_table",
+        uniqueConstraints = @UniqueConstraint(name = "uk_user_email", columnNames = "user_email"),
+        indexes = {
+                @Index(name = "idx_user_last_first", columnList = "user_last_name, user_first_name"),
+                @Index(name = "idx_user_deleted_at", columnList = "deleted_at")})
+@SQLRestriction("deleted_at IS NULL")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user")
 public class User {
     /*
     Java expects this name, while i would rather use UserModel, but stick to this one
@@ -29,6 +59,27 @@ public class User {
     @Column(name = "user_email")
     String userEmail;
 
+    /*
+    Incremented by every write of the row (also by the UPDATE statements of UserRepository and UserBulkServiceImpl),
+    it is the ETag of GET /users/{id} and the value PUT /users/{id} compares with If-Match.
+    null when it is not known, e.g. in the answer of an update without If-Match.
+    */
+    @Version
+    @Column(name = "version")
+    Long version;
+
+    //time of the last write, the Last-Modified header of GET /users/{id}
+    @Column(name = "updated_at")
+    Instant updatedAt;
+
+    //time of the soft delete, null for every user the application can see (no getter, it is not part of the JSON)
+    @Column(name = "deleted_at")
+    Instant deletedAt;
+
+    //the email of a soft deleted user, null for the others
+    @Column(name = "deleted_email")
+    String deletedEmail;
+
 
     //no argument Constructor for JPA (Java Persistence API)
     public User(){
@@ -83,4 +134,20 @@ public class User {
     public void setUserEmail(String userEmail) {
         this.userEmail = userEmail;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
 }
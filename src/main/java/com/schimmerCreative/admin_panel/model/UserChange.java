@@ -0,0 +1,83 @@
+package com.schimmerCreative.admin_panel.model;
+
+/*
+One entry of the change feed (GET /users/changes), sent as the data of a server-sent event.
+sequence numbers the changes since the start of the application (epoch),
+the event id "<epoch>:<sequence>" lets a reconnecting client resume after the last change it saw.
+*/
+public class UserChange {
+
+    long epoch;
+
+    long sequence;
+
+    //created, updated or deleted
+    String type;
+
+    int id;
+
+    //the user after the change, null for deleted
+    User user;
+
+    //no argument Constructor for Jackson
+    public UserChange(){
+        //noArgs
+
+    }
+
+    public UserChange(long epoch, long sequence, String type, int id, User user) {
+        this.epoch = epoch;
+        this.sequence = sequence;
+        this.type = type;
+        this.id = id;
+        this.user = user;
+    }
+
+    //id of the server-sent event
+    public String eventId() {
+        return epoch + ":" + sequence;
+    }
+
+    //Setter and getters
+
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public void setEpoch(long epoch) {
+        this.epoch = epoch;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public void setUser(User user) {
+        this.user = user;
+    }
+}
@@ -0,0 +1,148 @@
+package com.schimmerCreative.admin_panel.model;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.util.List;
+
+/*
+One page of GET /users?format=columns: the same users, cursor and limit as UserPage,
+but column by column. Every property name is written once per page instead of once per user,
+and the values of one column (ids, last names, email domains) stand next to each other, which gzip compresses better.
+
+    {"count":2,"nextCursor":2,"limit":50,
+     "id":[1,2],"userFirstName":["Ada","Alan"],"userLastName":["Lovelace","Turing"],
+     "userEmail":["ada@example.com","alan@example.com"],"version":[0,3],"updatedAt":["2024-09-20T10:15:30Z",null]}
+
+The user at index i is id[i], userFirstName[i], ... of every column.
+*/
+@JsonPropertyOrder({"count", "nextCursor", "limit", "id", "userFirstName", "userLastName", "userEmail", "version", "updatedAt"})
+public class UserColumns {
+
+    int count;
+
+    Integer nextCursor;
+
+    int limit;
+
+    int[] id;
+
+    String[] userFirstName;
+
+    String[] userLastName;
+
+    String[] userEmail;
+
+    Long[] version;
+
+    //ISO-8601 like UserResponse, null when unknown
+    String[] updatedAt;
+
+    //no argument Constructor for Jackson
+    public UserColumns(){
+        //noArgs
+
+    }
+
+    public static UserColumns of(UserPage page) {
+
+        List<UserResponse> users = page.getUsers();
+        int count = users.size();
+
+        UserColumns columns = new UserColumns();
+        columns.count = count;
+        columns.nextCursor = page.getNextCursor();
+        columns.limit = page.getLimit();
+        columns.id = new int[count];
+        columns.userFirstName = new String[count];
+        columns.userLastName = new String[count];
+        columns.userEmail = new String[count];
+        columns.version = new Long[count];
+        columns.updatedAt = new String[count];
+
+        for (int i = 0; i < count; i++) {
+            UserResponse user = users.get(i);
+            columns.id[i] = user.id();
+            columns.userFirstName[i] = user.userFirstName();
+            columns.userLastName[i] = user.userLastName();
+            columns.userEmail[i] = user.userEmail();
+            columns.version[i] = user.version();
+            columns.updatedAt[i] = user.updatedAt() == null ? null : user.updatedAt().toString();
+        }
+        return columns;
+    }
+
+    //Setter and getters
+
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+
+    public Integer getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(Integer nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+
+    public int[] getId() {
+        return id;
+    }
+
+    public void setId(int[] id) {
+        this.id = id;
+    }
+
+    public String[] getUserFirstName() {
+        return userFirstName;
+    }
+
+    public void setUserFirstName(String[] userFirstName) {
+        this.userFirstName = userFirstName;
+    }
+
+    public String[] getUserLastName() {
+        return userLastName;
+    }
+
+    public void setUserLastName(String[] userLastName) {
+        this.userLastName = userLastName;
+    }
+
+    public String[] getUserEmail() {
+        return userEmail;
+    }
+
+    public void setUserEmail(String[] userEmail) {
+        this.userEmail = userEmail;
+    }
+
+    public Long[] getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long[] version) {
+        this.version = version;
+    }
+
+    public String[] getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(String[] updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
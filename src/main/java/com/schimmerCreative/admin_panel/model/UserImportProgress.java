@@ -0,0 +1,186 @@
+package com.schimmerCreative.admin_panel.model;
+
+import java.time.Instant;
+
+/*
+Progress of an import of a CSV or NDJSON file (POST /users/imports, GET /users/imports/{importId},
+or the command line mode), a snapshot taken when it is read.
+The counters only grow when a chunk is committed, they are what a resumed import continues from.
+*/
+public class UserImportProgress {
+
+    public enum Status {
+        //waiting for the import before it to finish, imports run one at a time
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        //stopped by an error (file unreadable, database down), POST /users/imports/{importId}/resume continues it
+        FAILED
+    }
+
+    String importId;
+
+    Status status;
+
+    String format;
+
+    //size of the file and the bytes of it that are committed
+    long bytesTotal;
+
+    long bytesCommitted;
+
+    //rows of the file read so far (the CSV header counts as row 1), imported into user_data_table, and written to the reject file
+    long rowsRead;
+
+    long rowsImported;
+
+    long rowsRejected;
+
+    long chunksCommitted;
+
+    //row the last run started after, 0 when it started at the beginning of the file
+    long resumedAfterRow;
+
+    //null until the import failed
+    String message;
+
+    Instant startedAt;
+
+    Instant finishedAt;
+
+    //no argument Constructor for Jackson
+    public UserImportProgress(){
+        //noArgs
+
+    }
+
+    public UserImportProgress(String importId, Status status, String format, long bytesTotal, long bytesCommitted,
+                              long rowsRead, long rowsImported, long rowsRejected, long chunksCommitted,
+                              long resumedAfterRow, String message, Instant startedAt, Instant finishedAt) {
+        this.importId = importId;
+        this.status = status;
+        this.format = format;
+        this.bytesTotal = bytesTotal;
+        this.bytesCommitted = bytesCommitted;
+        this.rowsRead = rowsRead;
+        this.rowsImported = rowsImported;
+        this.rowsRejected = rowsRejected;
+        this.chunksCommitted = chunksCommitted;
+        this.resumedAfterRow = resumedAfterRow;
+        this.message = message;
+        this.startedAt = startedAt;
+        this.finishedAt = finishedAt;
+    }
+
+    //0 to 100, by bytes of the file
+    public int getPercentDone() {
+        return bytesTotal == 0 ? (status == Status.COMPLETED ? 100 : 0) : (int) (bytesCommitted * 100 / bytesTotal);
+    }
+
+    //Setter and getters
+
+
+    public String getImportId() {
+        return importId;
+    }
+
+    public void setImportId(String importId) {
+        this.importId = importId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public void setFormat(String format) {
+        this.format = format;
+    }
+
+    public long getBytesTotal() {
+        return bytesTotal;
+    }
+
+    public void setBytesTotal(long bytesTotal) {
+        this.bytesTotal = bytesTotal;
+    }
+
+    public long getBytesCommitted() {
+        return bytesCommitted;
+    }
+
+    public void setBytesCommitted(long bytesCommitted) {
+        this.bytesCommitted = bytesCommitted;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public void setRowsRead(long rowsRead) {
+        this.rowsRead = rowsRead;
+    }
+
+    public long getRowsImported() {
+        return rowsImported;
+    }
+
+    public void setRowsImported(long rowsImported) {
+        this.rowsImported = rowsImported;
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    public void setRowsRejected(long rowsRejected) {
+        this.rowsRejected = rowsRejected;
+    }
+
+    public long getChunksCommitted() {
+        return chunksCommitted;
+    }
+
+    public void setChunksCommitted(long chunksCommitted) {
+        this.chunksCommitted = chunksCommitted;
+    }
+
+    public long getResumedAfterRow() {
+        return resumedAfterRow;
+    }
+
+    public void setResumedAfterRow(long resumedAfterRow) {
+        this.resumedAfterRow = resumedAfterRow;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Instant startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Instant finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+}
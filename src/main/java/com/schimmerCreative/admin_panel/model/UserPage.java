@@ -0,0 +1,56 @@
+package com.schimmerCreative.admin_panel.model;
+
+import java.util.List;
+
+/*
+One page of users for the keyset (cursor) pagination of GET /users.
+The client sends nextCursor back as ?after=<id> to read the following page,
+nextCursor is null when there are no more rows.
+*/
+public class UserPage {
+
+    List<UserResponse> users;
+
+    Integer nextCursor;
+
+    int limit;
+
+    //no argument Constructor for Jackson
+    public UserPage(){
+        //noArgs
+
+    }
+
+    public UserPage(List<UserResponse> users, Integer nextCursor, int limit) {
+        this.users = users;
+        this.nextCursor = nextCursor;
+        this.limit = limit;
+    }
+
+    //Setter and getters
+
+
+    public List<UserResponse> getUsers() {
+        return users;
+    }
+
+    public void setUsers(List<UserResponse> users) {
+        this.users = users;
+    }
+
+    public Integer getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(Integer nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+}
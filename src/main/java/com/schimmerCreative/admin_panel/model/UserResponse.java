@@ -0,0 +1,73 @@
+package com.schimmerCreative.admin_panel.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.time.Instant;
+
+/*
+Read model of a user: what the read endpoints answer, and the row the read queries of UserRepository select.
+
+The queries build it directly with a constructor expression (SELECT new ...UserResponse(u.id, ...)),
+so a read never hydrates a managed User entity: no entity instance, no snapshot for dirty checking,
+nothing added to the persistence context. Being immutable it is also safe to share from the users cache.
+
+The JSON is the same as the one of User (same property names and order),
+but it is written by the serializer below with pre-encoded property names instead of bean introspection.
+*/
+@JsonSerialize(using = UserResponse.Serializer.class)
+public record UserResponse(int id, String userFirstName, String userLastName, String userEmail,
+                           Long version, Instant updatedAt) {
+
+    //for the write endpoints, which still work with the entity
+    public static UserResponse of(User user) {
+        return new UserResponse(user.getId(), user.getUserFirstName(), user.getUserLastName(), user.getUserEmail(),
+                user.getVersion(), user.getUpdatedAt());
+    }
+
+    public static class Serializer extends StdSerializer<UserResponse> {
+
+        //property names quoted and UTF-8 encoded once, not for every user
+        static final SerializedString ID = new SerializedString("id");
+        static final SerializedString FIRST_NAME = new SerializedString("userFirstName");
+        static final SerializedString LAST_NAME = new SerializedString("userLastName");
+        static final SerializedString EMAIL = new SerializedString("userEmail");
+        static final SerializedString VERSION = new SerializedString("version");
+        static final SerializedString UPDATED_AT = new SerializedString("updatedAt");
+
+        public Serializer() {
+            super(UserResponse.class);
+        }
+
+        @Override
+        public void serialize(UserResponse user, JsonGenerator json, SerializerProvider provider) throws IOException {
+            json.writeStartObject(user);
+            json.writeFieldName(ID);
+            json.writeNumber(user.id());
+            json.writeFieldName(FIRST_NAME);
+            json.writeString(user.userFirstName());
+            json.writeFieldName(LAST_NAME);
+            json.writeString(user.userLastName());
+            json.writeFieldName(EMAIL);
+            json.writeString(user.userEmail());
+            json.writeFieldName(VERSION);
+            if (user.version() == null) {
+                json.writeNull();
+            } else {
+                json.writeNumber(user.version());
+            }
+            //ISO-8601 like the Instant serializer Spring Boot configures (WRITE_DATES_AS_TIMESTAMPS off)
+            json.writeFieldName(UPDATED_AT);
+            if (user.updatedAt() == null) {
+                json.writeNull();
+            } else {
+                json.writeString(user.updatedAt().toString());
+            }
+            json.writeEndObject();
+        }
+    }
+}
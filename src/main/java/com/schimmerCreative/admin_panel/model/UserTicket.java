@@ -0,0 +1,75 @@
+package com.schimmerCreative.admin_panel.model;
+
+/*
+Receipt of a user accepted by POST /users in write-behind mode (202 Accepted),
+GET /users/tickets/{ticket} tells when it was written to the database and with which id.
+*/
+public class UserTicket {
+
+    public enum Status {
+        //in the local journal, not yet in user_data_table
+        PENDING,
+        CREATED,
+        //the email is already used by another user
+        CONFLICT,
+        //the database refused the user, the message has the reason
+        FAILED
+    }
+
+    long ticket;
+
+    Status status;
+
+    //id of the created user, null until CREATED
+    Integer id;
+
+    String message;
+
+    //no argument Constructor for Jackson
+    public UserTicket(){
+        //noArgs
+
+    }
+
+    public UserTicket(long ticket, Status status, Integer id, String message) {
+        this.ticket = ticket;
+        this.status = status;
+        this.id = id;
+        this.message = message;
+    }
+
+    //Setter and getters
+
+
+    public long getTicket() {
+        return ticket;
+    }
+
+    public void setTicket(long ticket) {
+        this.ticket = ticket;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
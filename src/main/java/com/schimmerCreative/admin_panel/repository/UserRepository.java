@@ -1,10 +1,22 @@
 package com.schimmerCreative.admin_panel.repository;
 
 import com.schimmerCreative.admin_panel.model.User;
+import com.schimmerCreative.admin_panel.model.UserResponse;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 
 /*
@@ -46,4 +58,108 @@ public interface UserRepository extends JpaRepository<User, Integer> {
 
     //findAll() will be used to fill up the table through getAllUsers() and retrieveAllUsers()
 
+    /*
+    Read queries: they select the columns straight into the UserResponse record (constructor expression),
+    Hibernate creates no managed entity for them, so there is nothing to snapshot, dirty check or flush.
+    Writes still go through the User entity or the UPDATE/DELETE statements below.
+    */
+    String USER_RESPONSE = "SELECT new com.schimmerCreative.admin_panel.model.UserResponse("
+            + "u.id, u.userFirstName, u.userLastName, u.userEmail, u.version, u.updatedAt) FROM User u";
+
+    @Query(USER_RESPONSE + " WHERE u.id = :id")
+    Optional<UserResponse> findResponseById(@Param("id") int id);
+
+    /*
+    Keyset (seek) pagination on the primary key:
+    instead of OFFSET the next page starts right after the last id the client has seen,
+    so every page is a range scan on the PRIMARY KEY no matter how deep the client reads.
+    The filters are optional, a null parameter switches its condition off.
+    The email prefix must already be escaped with '!' (see UserServiceImpl.escapeLikePattern).
+    */
+    @Query(USER_RESPONSE + " WHERE u.id > :after"
+            + " AND (:lastName IS NULL OR u.userLastName = :lastName)"
+            + " AND (:emailPrefix IS NULL OR u.userEmail LIKE CONCAT(:emailPrefix, '%') ESCAPE '!')"
+            + " ORDER BY u.id ASC")
+    List<UserResponse> findPageAfterId(@Param("after") int after,
+                                       @Param("lastName") String lastName,
+                                       @Param("emailPrefix") String emailPrefix,
+                                       Limit limit);
+
+    /*
+    Lookups on the indexes of User (uk_user_email, idx_user_last_first), every one is an index range scan.
+    The prefixes must already be escaped with '!' (see UserServiceImpl.escapeLikePattern),
+    a LIKE 'prefix%' without a leading wildcard can use the index.
+    */
+    @Query(USER_RESPONSE + " WHERE u.userEmail = :userEmail")
+    Optional<UserResponse> findByUserEmail(@Param("userEmail") String userEmail);
+
+    @Query(USER_RESPONSE + " WHERE u.userEmail LIKE CONCAT(:emailPrefix, '%') ESCAPE '!'"
+            + " ORDER BY u.userEmail ASC")
+    List<UserResponse> findByEmailPrefix(@Param("emailPrefix") String emailPrefix, Limit limit);
+
+    //the first name prefix is optional (null), the order follows the index, so no sort of the matching rows is needed
+    @Query(USER_RESPONSE + " WHERE u.userLastName = :lastName"
+            + " AND (:firstNamePrefix IS NULL OR u.userFirstName LIKE CONCAT(:firstNamePrefix, '%') ESCAPE '!')"
+            + " ORDER BY u.userLastName ASC, u.userFirstName ASC, u.id ASC")
+    List<UserResponse> findByLastNameAndFirstNamePrefix(@Param("lastName") String lastName,
+                                                        @Param("firstNamePrefix") String firstNamePrefix,
+                                                        Limit limit);
+
+    /*
+    Forward-only cursor over the whole table for the streaming export.
+    With useCursorFetch=true on the MySQL URL the driver pulls FETCH_SIZE rows at a time
+    from a server side cursor instead of buffering the complete result set in the heap.
+    The Stream must be consumed and closed inside a (read-only) transaction.
+    */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT u FROM User u ORDER BY u.id ASC")
+    Stream<User> streamAllOrderedById();
+
+    /*
+    Single statement writes: one UPDATE ... WHERE id = ? or DELETE ... WHERE id = ?
+    without loading the entity first. The returned affected row count tells
+    success (1) from a missing id (0), so no SELECT is needed for the 404 case either.
+    clearAutomatically drops entities of this persistence context that the statement made stale.
+    Both updates increment the version and set updated_at like a write of the entity would.
+    */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE User u SET u.userFirstName = :userFirstName, u.userLastName = :userLastName, u.userEmail = :userEmail,"
+            + " u.version = u.version + 1, u.updatedAt = :updatedAt"
+            + " WHERE u.id = :id")
+    int updateUserById(@Param("id") int id,
+                       @Param("userFirstName") String userFirstName,
+                       @Param("userLastName") String userLastName,
+                       @Param("userEmail") String userEmail,
+                       @Param("updatedAt") Instant updatedAt);
+
+    //optimistic concurrency (If-Match): 0 rows when the id does not exist or the row is no longer at the expected version
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE User u SET u.userFirstName = :userFirstName, u.userLastName = :userLastName, u.userEmail = :userEmail,"
+            + " u.version = u.version + 1, u.updatedAt = :updatedAt"
+            + " WHERE u.id = :id AND u.version = :expectedVersion")
+    int updateUserByIdAndVersion(@Param("id") int id,
+                                 @Param("expectedVersion") long expectedVersion,
+                                 @Param("userFirstName") String userFirstName,
+                                 @Param("userLastName") String userLastName,
+                                 @Param("userEmail") String userEmail,
+                                 @Param("updatedAt") Instant updatedAt);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM User u WHERE u.id = :id")
+    int deleteUserById(@Param("id") int id);
+
+    /*
+    Soft delete: one UPDATE of the row instead of the DELETE. It frees the email in uk_user_email as well
+    (moved to deleted_email, user_email becomes NULL), so the next create with it needs no extra statement.
+    0 rows when the id does not exist or the user is already deleted. The version is incremented like by every write.
+    */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE User u SET u.deletedAt = :deletedAt, u.deletedEmail = u.userEmail, u.userEmail = NULL,"
+            + " u.version = u.version + 1, u.updatedAt = :deletedAt"
+            + " WHERE u.id = :id AND u.deletedAt IS NULL")
+    int softDeleteUserById(@Param("id") int id, @Param("deletedAt") Instant deletedAt);
+
 }
@@ -0,0 +1,85 @@
+package com.schimmerCreative.admin_panel.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/*
+Request coalescing ("single-flight"): concurrent loads of the same key share one load.
+
+The first caller of a key (the leader) registers a CompletableFuture for it and runs the loader,
+callers that arrive while it runs find that future and wait for its result instead of running
+the loader again. The future is removed when the load is done, the next caller loads again:
+nothing is cached here, only work in flight is shared.
+
+The futures live in a ConcurrentHashMap, which is striped by itself: registering a key is
+a compare-and-set on one bin of the table, readers of other keys never wait for each other,
+and no lock is held while the loader runs (unlike ConcurrentHashMap.computeIfAbsent or
+Caffeine's get(key, loader), which block the whole bin for the duration of the load).
+
+A failed load fails every caller that waited for it with the same exception.
+*/
+final class SingleFlight<K, V> {
+
+    final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    //loads that ran, and calls answered by the load of another caller (the loads that were saved)
+    final LongAdder loads = new LongAdder();
+    final LongAdder coalesced = new LongAdder();
+
+    V load(K key, Supplier<V> loader) {
+
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            coalesced.increment();
+            return await(running);
+        }
+
+        loads.increment();
+        try {
+            V value = loader.get();
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            //only our own flight, forget() may already have replaced it
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /*
+    Callers arriving after this do not join the load that is running for the key but start a new one,
+    used after a write of the key: a load that started before the write may return the old value.
+    */
+    void forget(K key) {
+        inFlight.remove(key);
+    }
+
+    long loads() {
+        return loads.sum();
+    }
+
+    long coalesced() {
+        return coalesced.sum();
+    }
+
+    static <V> V await(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            //the exception of the leader, not the wrapper of the future
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.schimmerCreative.admin_panel.service;
+
+import com.schimmerCreative.admin_panel.model.BulkResult;
+import com.schimmerCreative.admin_panel.model.User;
+
+import java.util.List;
+
+public interface UserBulkService {
+
+    /*
+    bulk operations for onboarding and offboarding many users in one request,
+    every item gets its own result, one invalid or refused item does not fail the others
+    */
+
+    //creates the users (the id of the request objects is ignored), the result has the generated ids
+    public BulkResult createUsers(List<User> users);
+
+    //updates first name, last name and email of the users with the given ids
+    public BulkResult updateUsers(List<User> users);
+
+    public BulkResult deleteUsers(List<Integer> ids);
+
+}
@@ -0,0 +1,419 @@
+package com.schimmerCreative.admin_panel.service;
+
+import com.schimmerCreative.admin_panel.config.CacheConfig;
+import com.schimmerCreative.admin_panel.model.BulkItemResult;
+import com.schimmerCreative.admin_panel.model.BulkItemStatus;
+import com.schimmerCreative.admin_panel.model.BulkResult;
+import com.schimmerCreative.admin_panel.model.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.BatchUpdateException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/*
+Bulk writes with JDBC batching in chunked transactions.
+
+Why JDBC and not userRepository.saveAll():
+User.id uses GenerationType.IDENTITY, Hibernate has to run every INSERT on its own
+to read the generated id, so it never batches inserts of this entity.
+A JDBC batch with getGeneratedKeys keeps the AUTO_INCREMENT column (no id migration needed)
+and with rewriteBatchedStatements=true on the MySQL URL the driver sends a whole chunk
+as one multi row INSERT, still returning one generated id per row.
+
+Every chunk of admin-panel.bulk.chunk-size items is one transaction (one commit),
+so 200k users are a few hundred commits instead of 200k.
+When the database refuses the data of a chunk (e.g. a value too long) the chunk is rolled back
+and its items are written again one by one, so only the bad items are reported as FAILED.
+When the database is not reachable the request stops at the first failed chunk, its items and the rest are NOT_WRITTEN
+(can be sent again), see writeInChunks.
+
+Soft delete (admin-panel.soft-delete.enabled): the JDBC statements do not get the @SQLRestriction of User,
+updates and deletes only match rows with deleted_at IS NULL, a delete sets deleted_at
+and frees the email like UserRepository.softDeleteUserById.
+*/
+@org.springframework.stereotype.Service
+public class UserBulkServiceImpl implements UserBulkService {
+
+    static final Logger log = LoggerFactory.getLogger(UserBulkServiceImpl.class);
+
+    static final String INSERT_SQL =
+            "INSERT INTO user_data_table (user_first_name, user_last_name, user_email, version, updated_at) VALUES (?, ?, ?, 0, ?)";
+
+    static final String UPDATE_SQL =
+            "UPDATE user_data_table SET user_first_name = ?, user_last_name = ?, user_email = ?, version = version + 1, updated_at = ? WHERE id = ? AND deleted_at IS NULL";
+
+    static final String DELETE_SQL =
+            "DELETE FROM user_data_table WHERE id = ?";
+
+    //deleted_email before user_email: MySQL assigns from left to right with the new values
+    static final String SOFT_DELETE_SQL =
+            "UPDATE user_data_table SET deleted_at = ?, deleted_email = user_email, user_email = NULL,"
+                    + " version = version + 1, updated_at = ? WHERE id = ? AND deleted_at IS NULL";
+
+    JdbcTemplate jdbcTemplate;
+
+    //JpaTransactionManager, the JdbcTemplate joins its transactions on the same connection
+    TransactionTemplate transactionTemplate;
+
+    int chunkSize;
+
+    boolean softDelete;
+
+    /*
+    the JDBC writes bypass the @CacheEvict of UserServiceImpl and the Hibernate second-level cache,
+    updated and deleted ids are evicted from both here
+    */
+    Cache usersCache;
+
+    jakarta.persistence.Cache entityCache;
+
+    //UserChangedEvent for every written item, published after the commit of its chunk (see publishWritten)
+    ApplicationEventPublisher eventPublisher;
+
+    //methods
+
+    @Override
+    public BulkResult createUsers(List<User> users) {
+
+        BulkItemResult[] results = new BulkItemResult[users.size()];
+        List<Integer> validIndexes = new ArrayList<>(users.size());
+
+        for (int i = 0; i < users.size(); i++) {
+            if (hasAllFields(users.get(i))) {
+                validIndexes.add(i);
+            } else {
+                results[i] = new BulkItemResult(i, null, BulkItemStatus.INVALID, "userFirstName, userLastName and userEmail are required");
+            }
+        }
+
+        writeInChunks(validIndexes, results, index -> null, chunk -> insertChunk(users, chunk));
+        publishWritten(results, index -> UserChangedEvent.created(withId(users.get(index), results[index].getId())));
+        return new BulkResult(Arrays.asList(results));
+    }
+
+    @Override
+    public BulkResult updateUsers(List<User> users) {
+
+        BulkItemResult[] results = new BulkItemResult[users.size()];
+        List<Integer> validIndexes = new ArrayList<>(users.size());
+
+        for (int i = 0; i < users.size(); i++) {
+            User user = users.get(i);
+            if (hasAllFields(user) && user.getId() > 0) {
+                validIndexes.add(i);
+            } else {
+                results[i] = new BulkItemResult(i, user == null ? null : user.getId(), BulkItemStatus.INVALID,
+                        "id, userFirstName, userLastName and userEmail are required");
+            }
+        }
+
+        writeInChunks(validIndexes, results, index -> users.get(index).getId(), chunk -> updateChunk(users, chunk));
+        evictWritten(results);
+        publishWritten(results, index -> UserChangedEvent.updated(users.get(index)));
+        return new BulkResult(Arrays.asList(results));
+    }
+
+    @Override
+    public BulkResult deleteUsers(List<Integer> ids) {
+
+        BulkItemResult[] results = new BulkItemResult[ids.size()];
+        List<Integer> validIndexes = new ArrayList<>(ids.size());
+
+        for (int i = 0; i < ids.size(); i++) {
+            if (ids.get(i) != null) {
+                validIndexes.add(i);
+            } else {
+                results[i] = new BulkItemResult(i, null, BulkItemStatus.INVALID, "id is required");
+            }
+        }
+
+        writeInChunks(validIndexes, results, ids::get, chunk -> deleteChunk(ids, chunk));
+        evictWritten(results);
+        publishWritten(results, index -> UserChangedEvent.deleted(ids.get(index)));
+        return new BulkResult(Arrays.asList(results));
+    }
+
+    /*
+    Runs chunkWriter for every chunk of indexes in its own transaction.
+    If the database refuses data of a chunk it is rolled back and every item of it is retried alone,
+    the items that fail alone as well are reported as FAILED (CONFLICT for a duplicate email) with the database message.
+    Any other error (no connection, pool timeout, deadlock) is not retried item by item: during an outage
+    that would be one failing round trip per item. The chunk and all items after it are NOT_WRITTEN, the request ends.
+    */
+    void writeInChunks(List<Integer> indexes, BulkItemResult[] results, IntFunction<Integer> idOfIndex, ChunkWriter chunkWriter) {
+
+        for (int from = 0; from < indexes.size(); from += chunkSize) {
+            List<Integer> chunk = indexes.subList(from, Math.min(from + chunkSize, indexes.size()));
+
+            try {
+                //results are only taken over after the commit succeeded
+                copyResults(transactionTemplate.execute(status -> chunkWriter.write(chunk)), results);
+
+            } catch (RuntimeException chunkException) {
+
+                if (!isDataError(chunkException)) {
+                    failRemaining(indexes.subList(from, indexes.size()), results, idOfIndex, chunkException);
+                    return;
+                }
+
+                for (int i = 0; i < chunk.size(); i++) {
+                    Integer index = chunk.get(i);
+                    try {
+                        copyResults(transactionTemplate.execute(status -> chunkWriter.write(List.of(index))), results);
+                    } catch (RuntimeException itemException) {
+                        if (!isDataError(itemException)) {
+                            failRemaining(indexes.subList(from + i, indexes.size()), results, idOfIndex, itemException);
+                            return;
+                        }
+                        BulkItemStatus status = (itemException instanceof DuplicateKeyException) ? BulkItemStatus.CONFLICT : BulkItemStatus.FAILED;
+                        results[index] = new BulkItemResult(index, idOfIndex.apply(index), status,
+                                NestedExceptionUtils.getMostSpecificCause(itemException).getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    /*
+    An error in the data of an item: a constraint (duplicate email, value too long, ...),
+    or a failed JDBC batch that is not about the connection (SQLState class 08).
+    Transient errors (lock timeout, deadlock) and everything else are not caused by one item.
+    */
+    static boolean isDataError(RuntimeException e) {
+
+        if (e instanceof DataIntegrityViolationException) {
+            return true;
+        }
+        if (e instanceof TransientDataAccessException || e instanceof RecoverableDataAccessException) {
+            return false;
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof BatchUpdateException batchException) {
+                String sqlState = batchException.getSQLState();
+                return sqlState == null || !sqlState.startsWith("08");
+            }
+        }
+        return false;
+    }
+
+    //the items were not written (or their transaction was rolled back), the client may send them again
+    void failRemaining(List<Integer> indexes, BulkItemResult[] results, IntFunction<Integer> idOfIndex, RuntimeException e) {
+
+        String message = "not written, the database is not available: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+        log.warn("bulk write stopped, items={} not written: {}", indexes.size(), e.toString());
+        for (Integer index : indexes) {
+            results[index] = new BulkItemResult(index, idOfIndex.apply(index), BulkItemStatus.NOT_WRITTEN, message);
+        }
+    }
+
+    List<BulkItemResult> insertChunk(List<User> users, List<Integer> chunk) {
+
+        Timestamp writtenAt = writtenAt();
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_SQL, new String[]{"id"}),
+                new ChunkStatementSetter(chunk) {
+                    @Override
+                    void bind(PreparedStatement ps, int index) throws SQLException {
+                        User user = users.get(index);
+                        ps.setString(1, user.getUserFirstName());
+                        ps.setString(2, user.getUserLastName());
+                        ps.setString(3, user.getUserEmail());
+                        ps.setTimestamp(4, writtenAt);
+                    }
+                },
+                keyHolder);
+
+        //one generated key per row, in the order of the batch
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != chunk.size()) {
+            throw new IncorrectResultSizeDataAccessException("generated keys of a bulk insert", chunk.size(), keys.size());
+        }
+
+        List<BulkItemResult> chunkResults = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            Number id = (Number) keys.get(i).values().iterator().next();
+            chunkResults.add(new BulkItemResult(chunk.get(i), id.intValue(), BulkItemStatus.CREATED, null));
+        }
+        return chunkResults;
+    }
+
+    List<BulkItemResult> updateChunk(List<User> users, List<Integer> chunk) {
+
+        Timestamp writtenAt = writtenAt();
+
+        int[] updateCounts = jdbcTemplate.batchUpdate(UPDATE_SQL, new ChunkStatementSetter(chunk) {
+            @Override
+            void bind(PreparedStatement ps, int index) throws SQLException {
+                User user = users.get(index);
+                ps.setString(1, user.getUserFirstName());
+                ps.setString(2, user.getUserLastName());
+                ps.setString(3, user.getUserEmail());
+                ps.setTimestamp(4, writtenAt);
+                ps.setInt(5, user.getId());
+            }
+        });
+
+        return countsToResults(chunk, updateCounts, index -> users.get(index).getId(), BulkItemStatus.UPDATED);
+    }
+
+    List<BulkItemResult> deleteChunk(List<Integer> ids, List<Integer> chunk) {
+
+        if (softDelete) {
+            Timestamp deletedAt = writtenAt();
+            int[] updateCounts = jdbcTemplate.batchUpdate(SOFT_DELETE_SQL, new ChunkStatementSetter(chunk) {
+                @Override
+                void bind(PreparedStatement ps, int index) throws SQLException {
+                    ps.setTimestamp(1, deletedAt);
+                    ps.setTimestamp(2, deletedAt);
+                    ps.setInt(3, ids.get(index));
+                }
+            });
+            return countsToResults(chunk, updateCounts, ids::get, BulkItemStatus.DELETED);
+        }
+
+        int[] updateCounts = jdbcTemplate.batchUpdate(DELETE_SQL, new ChunkStatementSetter(chunk) {
+            @Override
+            void bind(PreparedStatement ps, int index) throws SQLException {
+                ps.setInt(1, ids.get(index));
+            }
+        });
+
+        return countsToResults(chunk, updateCounts, ids::get, BulkItemStatus.DELETED);
+    }
+
+    //updated_at of the rows of a chunk (same precision as UserServiceImpl), the version starts at 0 and is incremented by every update
+    static Timestamp writtenAt() {
+        return Timestamp.from(Instant.now().truncatedTo(ChronoUnit.MICROS));
+    }
+
+    /*
+    0 affected rows means the id does not exist,
+    Statement.SUCCESS_NO_INFO (driver did not report a count for a rewritten batch) counts as success
+    */
+    static List<BulkItemResult> countsToResults(List<Integer> chunk, int[] updateCounts, IntFunction<Integer> idOfIndex, BulkItemStatus successStatus) {
+
+        List<BulkItemResult> chunkResults = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            int index = chunk.get(i);
+            if (updateCounts[i] > 0 || updateCounts[i] == Statement.SUCCESS_NO_INFO) {
+                chunkResults.add(new BulkItemResult(index, idOfIndex.apply(index), successStatus, null));
+            } else {
+                chunkResults.add(new BulkItemResult(index, idOfIndex.apply(index), BulkItemStatus.NOT_FOUND, "user not found"));
+            }
+        }
+        return chunkResults;
+    }
+
+    //runs after the chunks are committed, so a concurrent read cannot cache the old row again
+    void evictWritten(BulkItemResult[] results) {
+        for (BulkItemResult result : results) {
+            if (result.getStatus().isSuccess()) {
+                usersCache.evict(result.getId());
+                entityCache.evict(User.class, result.getId());
+            }
+        }
+    }
+
+    //also after the commits, outside of a transaction the listeners get the events right away
+    void publishWritten(BulkItemResult[] results, IntFunction<UserChangedEvent> eventOfIndex) {
+        for (BulkItemResult result : results) {
+            if (result.getStatus().isSuccess()) {
+                eventPublisher.publishEvent(eventOfIndex.apply(result.getIndex()));
+            }
+        }
+    }
+
+    static User withId(User user, int id) {
+        return new User(id, user.getUserFirstName(), user.getUserLastName(), user.getUserEmail());
+    }
+
+    static void copyResults(List<BulkItemResult> chunkResults, BulkItemResult[] results) {
+        for (BulkItemResult result : chunkResults) {
+            results[result.getIndex()] = result;
+        }
+    }
+
+    static boolean hasAllFields(User user) {
+        return user != null && user.getUserFirstName() != null && user.getUserLastName() != null && user.getUserEmail() != null;
+    }
+
+    //writes one chunk inside the current transaction and returns the result of every item of it
+    @FunctionalInterface
+    interface ChunkWriter {
+        List<BulkItemResult> write(List<Integer> chunk);
+    }
+
+    //binds the items of a chunk (given by their index in the request) to the rows of a JDBC batch
+    abstract static class ChunkStatementSetter implements BatchPreparedStatementSetter {
+
+        final List<Integer> chunk;
+
+        ChunkStatementSetter(List<Integer> chunk) {
+            this.chunk = chunk;
+        }
+
+        //binds the request item with the given index to the statement
+        abstract void bind(PreparedStatement ps, int index) throws SQLException;
+
+        @Override
+        public void setValues(PreparedStatement ps, int i) throws SQLException {
+            bind(ps, chunk.get(i));
+        }
+
+        @Override
+        public int getBatchSize() {
+            return chunk.size();
+        }
+    }
+
+
+    /*
+    constructor
+    */
+    @Autowired
+    public UserBulkServiceImpl(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                               CacheManager cacheManager, EntityManagerFactory entityManagerFactory,
+                               ApplicationEventPublisher eventPublisher,
+                               @Value("${admin-panel.bulk.chunk-size:500}") int chunkSize,
+                               @Value("${admin-panel.soft-delete.enabled:false}") boolean softDelete) {
+
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.usersCache = cacheManager.getCache(CacheConfig.USERS_CACHE);
+        this.entityCache = entityManagerFactory.getCache();
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+        this.softDelete = softDelete;
+    }
+
+}
@@ -0,0 +1,17 @@
+package com.schimmerCreative.admin_panel.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface UserChangeFeedService {
+
+    /*
+    opens a server-sent event stream of the committed user changes,
+    lastEventId is the id of the last event the client saw (null for a new client),
+    the changes after it are sent first if they are still buffered, otherwise a reset event
+    */
+    public SseEmitter subscribe(String lastEventId);
+
+    //number of open streams
+    public int subscriberCount();
+
+}
@@ -0,0 +1,375 @@
+package com.schimmerCreative.admin_panel.service;
+
+import com.schimmerCreative.admin_panel.model.User;
+import com.schimmerCreative.admin_panel.model.UserChange;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+Change feed of user_data_table for the admin panel: instead of every open tab reading the whole list again,
+each tab keeps one server-sent event stream open and patches the rows that changed.
+
+- every committed write (UserChangedEvent, AFTER_COMMIT) gets the next sequence number and is kept in a ring buffer
+  of the last admin-panel.changes.buffer-size changes, then sent to all open streams
+- the event id is "<epoch>:<sequence>", epoch being the start of this application.
+  A reconnecting EventSource sends it back as Last-Event-ID and gets the changes it missed from the buffer.
+  If they are no longer buffered (or the application restarted) it gets a reset event and reloads its list once.
+- a new client gets a sync event with the current position, so it can resume even before the first change
+
+AFTER_COMMIT listeners of two transactions writing the same user can run in either order, so the dispatcher
+keeps the version sent last for every user still in the buffer: a created or updated event with a lower version
+comes after a newer one and is dropped (the client already shows the newer row), and after a delete
+only another delete is sent. Events without a version (the bulk update) cannot be ordered and are sent as they come.
+
+One thread (user-change-feed) numbers and buffers all events and owns the subscriber list,
+so the events reach every stream in sequence order without locks. Its work queue holds at most
+admin-panel.changes.dispatch-queue-size tasks, a write only waits when it is full.
+It does not send: every subscriber has a queue of admin-panel.changes.subscriber-queue-size events,
+drained by one of admin-panel.changes.sender-threads threads (user-change-feed-sender), one thread per subscriber at a time.
+A client that falls so far behind that its queue is full is completed, its EventSource reconnects
+with its Last-Event-ID and resumes from the buffer, so one slow client never holds up the others.
+Every admin-panel.changes.heartbeat-seconds a comment is queued for every stream to keep proxies from closing idle ones.
+*/
+@org.springframework.stereotype.Service
+public class UserChangeFeedServiceImpl implements UserChangeFeedService {
+
+    static final Logger log = LoggerFactory.getLogger(UserChangeFeedServiceImpl.class);
+
+    //start of this application, sequence numbers of another epoch cannot be resumed
+    final long epoch = System.currentTimeMillis();
+
+    final ThreadPoolExecutor dispatcher;
+
+    volatile Thread dispatcherThread;
+
+    //sends the queued events of the subscribers
+    final ExecutorService sender;
+
+    //queues the heartbeat on the dispatcher
+    final ScheduledExecutorService heartbeat;
+
+    final long emitterTimeoutMillis;
+
+    final int subscriberQueueSize;
+
+    //changes by sequence number modulo the length, only used on the dispatcher thread
+    final UserChange[] buffer;
+
+    //sequence number of the last change, only used on the dispatcher thread
+    long lastSequence;
+
+    //version and sequence number of the last change sent per user id, for the users in the buffer, only used on the dispatcher thread
+    final Map<Integer, Sent> lastSent = new HashMap<>();
+
+    //events dropped because a newer change of the user was sent already
+    final AtomicInteger staleEvents = new AtomicInteger();
+
+    //open streams, only used on the dispatcher thread
+    final List<Subscriber> subscribers = new ArrayList<>();
+
+    //read by subscriberCount() from other threads
+    volatile int subscriberCount;
+
+    //streams completed because their queue was full
+    final AtomicInteger droppedSubscribers = new AtomicInteger();
+
+    //methods
+
+    @Override
+    public SseEmitter subscribe(String lastEventId) {
+
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        emitter.onCompletion(() -> dispatcher.execute(() -> removeSubscriber(emitter)));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> emitter.complete());
+        subscribe(emitter, lastEventId);
+        return emitter;
+    }
+
+    void subscribe(SseEmitter emitter, String lastEventId) {
+        dispatcher.execute(() -> {
+            Subscriber subscriber = new Subscriber(emitter, subscriberQueueSize);
+            subscribers.add(subscriber);
+            subscriberCount = subscribers.size();
+            queueMissedChanges(subscriber, lastEventId);
+        });
+    }
+
+    @Override
+    public int subscriberCount() {
+        return subscriberCount;
+    }
+
+    //AFTER_COMMIT: rolled back writes are never announced, fallbackExecution: the bulk service publishes outside a transaction
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+
+        String type = event.getType().name().toLowerCase(Locale.ROOT);
+        User user = event.getUser();
+        Long version = user == null ? null : user.getVersion();
+        dispatcher.execute(() -> {
+            if (isStale(event.getType(), event.getId(), version)) {
+                log.debug("change feed dropped {} of user {} version {}, a newer change was sent", type, event.getId(), version);
+                staleEvents.incrementAndGet();
+                return;
+            }
+            lastSequence++;
+            UserChange change = new UserChange(epoch, lastSequence, type, event.getId(), user);
+            int slot = (int) (lastSequence % buffer.length);
+            forget(buffer[slot]);
+            buffer[slot] = change;
+            lastSent.put(change.getId(), new Sent(event.getType() == UserChangedEvent.Type.DELETED ? Long.MAX_VALUE
+                    : version == null ? Long.MIN_VALUE : version, lastSequence));
+            broadcast(change);
+        });
+    }
+
+    //on the dispatcher thread: a newer change of the user was sent already (a delete counts as the newest one)
+    boolean isStale(UserChangedEvent.Type type, int id, Long version) {
+        Sent sent = lastSent.get(id);
+        if (sent == null || type == UserChangedEvent.Type.DELETED) {
+            return false;
+        }
+        //ids are never used again, after a delete every create or update of the user is late
+        return sent.version() == Long.MAX_VALUE || (version != null && version < sent.version());
+    }
+
+    //on the dispatcher thread: the change leaves the buffer, the version of its user is not needed anymore unless it changed again
+    void forget(UserChange change) {
+        if (change != null) {
+            Sent sent = lastSent.get(change.getId());
+            if (sent != null && sent.sequence() == change.getSequence()) {
+                lastSent.remove(change.getId());
+            }
+        }
+    }
+
+    void queueMissedChanges(Subscriber subscriber, String lastEventId) {
+
+        long resumeAfter = resumePoint(lastEventId);
+        long oldestBuffered = Math.max(1, lastSequence - buffer.length + 1);
+
+        if (resumeAfter < 0) {
+            //new client: where the feed is now
+            queue(subscriber, positionEvent("sync"));
+        } else if (resumeAfter + 1 < oldestBuffered || resumeAfter > lastSequence
+                || lastSequence - resumeAfter > subscriberQueueSize) {
+            //missed changes are gone (or the id is from before a restart, or they would not fit in the queue of the stream),
+            //the client has to read its list again
+            queue(subscriber, positionEvent("reset"));
+        } else {
+            for (long sequence = resumeAfter + 1; sequence <= lastSequence; sequence++) {
+                queue(subscriber, event(buffer[(int) (sequence % buffer.length)]));
+            }
+        }
+    }
+
+    //sequence number after which to resume, -1 for a new client, Long.MAX_VALUE for an id that cannot be resumed
+    long resumePoint(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return -1;
+        }
+        String[] parts = lastEventId.trim().split(":");
+        try {
+            if (parts.length == 2 && Long.parseLong(parts[0]) == epoch) {
+                return Long.parseLong(parts[1]);
+            }
+        } catch (NumberFormatException e) {
+            //not one of our ids
+        }
+        return Long.MAX_VALUE;
+    }
+
+    void broadcast(UserChange change) {
+        SseEmitter.SseEventBuilder event = event(change);
+        for (Subscriber subscriber : List.copyOf(subscribers)) {
+            queue(subscriber, event);
+        }
+    }
+
+    void heartbeat() {
+        SseEmitter.SseEventBuilder comment = SseEmitter.event().comment("keep-alive");
+        for (Subscriber subscriber : List.copyOf(subscribers)) {
+            queue(subscriber, comment);
+        }
+    }
+
+    //on the dispatcher thread: hand the event to the queue of the stream and make sure a sender drains it
+    void queue(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (subscriber.closed) {
+            removeSubscriber(subscriber.emitter);
+            return;
+        }
+        if (!subscriber.pending.offer(event)) {
+            //the client fell behind, it reconnects with its Last-Event-ID and resumes from the buffer
+            log.debug("change feed stream {} events behind, completing it", subscriber.pending.size());
+            droppedSubscribers.incrementAndGet();
+            subscriber.closed = true;
+            subscriber.emitter.complete();
+            removeSubscriber(subscriber.emitter);
+            return;
+        }
+        if (subscriber.draining.compareAndSet(false, true)) {
+            sender.execute(() -> drain(subscriber));
+        }
+    }
+
+    //on a sender thread, only one at a time per subscriber (draining)
+    void drain(Subscriber subscriber) {
+        while (true) {
+            SseEmitter.SseEventBuilder event;
+            while (!subscriber.closed && (event = subscriber.pending.poll()) != null) {
+                try {
+                    subscriber.emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                    //the client went away, the container completes the emitter
+                    subscriber.closed = true;
+                }
+            }
+            subscriber.draining.set(false);
+            //an event queued after the last poll but before draining was cleared would wait for the next one
+            if (subscriber.closed || subscriber.pending.isEmpty() || !subscriber.draining.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+
+    void removeSubscriber(SseEmitter emitter) {
+        subscribers.removeIf(subscriber -> subscriber.emitter == emitter);
+        subscriberCount = subscribers.size();
+    }
+
+    static SseEmitter.SseEventBuilder event(UserChange change) {
+        return SseEmitter.event()
+                .id(change.eventId())
+                .name(change.getType())
+                .data(change, MediaType.APPLICATION_JSON);
+    }
+
+    SseEmitter.SseEventBuilder positionEvent(String type) {
+        return event(new UserChange(epoch, lastSequence, type, 0, null));
+    }
+
+    @PreDestroy
+    public void close() {
+        heartbeat.shutdownNow();
+        dispatcher.execute(() -> {
+            for (Subscriber subscriber : subscribers) {
+                subscriber.closed = true;
+                subscriber.emitter.complete();
+            }
+            subscribers.clear();
+        });
+        dispatcher.shutdown();
+        try {
+            dispatcher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sender.shutdownNow();
+        log.info("user change feed closed at sequence={}, slow streams completed={}, stale events dropped={}",
+                lastSequence, droppedSubscribers.get(), staleEvents.get());
+    }
+
+    //Long.MAX_VALUE for a delete, Long.MIN_VALUE for a change without a version
+    record Sent(long version, long sequence) {
+    }
+
+    //an open stream and the events waiting to be sent to it
+    static class Subscriber {
+
+        final SseEmitter emitter;
+
+        final BlockingQueue<SseEmitter.SseEventBuilder> pending;
+
+        //a sender thread is draining pending
+        final AtomicBoolean draining = new AtomicBoolean();
+
+        //completed or gone, nothing more is sent
+        volatile boolean closed;
+
+        Subscriber(SseEmitter emitter, int queueSize) {
+            this.emitter = emitter;
+            this.pending = new ArrayBlockingQueue<>(queueSize);
+        }
+    }
+
+
+    /*
+    constructor
+    */
+    @Autowired
+    public UserChangeFeedServiceImpl(@Value("${admin-panel.changes.buffer-size:10000}") int bufferSize,
+                                     @Value("${admin-panel.changes.heartbeat-seconds:25}") long heartbeatSeconds,
+                                     @Value("${admin-panel.changes.emitter-timeout-ms:1800000}") long emitterTimeoutMillis,
+                                     @Value("${admin-panel.changes.subscriber-queue-size:1000}") int subscriberQueueSize,
+                                     @Value("${admin-panel.changes.dispatch-queue-size:10000}") int dispatchQueueSize,
+                                     @Value("${admin-panel.changes.sender-threads:4}") int senderThreads) {
+
+        this.buffer = new UserChange[bufferSize];
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+        this.subscriberQueueSize = subscriberQueueSize;
+
+        //a full work queue makes the caller wait for room instead of dropping a change,
+        //the dispatcher itself (e.g. a completion callback of a stream it completed) runs the task at once
+        RejectedExecutionHandler waitForRoom = (runnable, executor) -> {
+            if (executor.isShutdown()) {
+                return;
+            }
+            if (Thread.currentThread() == dispatcherThread) {
+                runnable.run();
+                return;
+            }
+            try {
+                executor.getQueue().put(runnable);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        ThreadFactory dispatcherThreads = daemonThreads("user-change-feed");
+        this.dispatcher = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(dispatchQueueSize),
+                runnable -> dispatcherThread = dispatcherThreads.newThread(runnable), waitForRoom);
+        //at most one task per subscriber is waiting here (draining)
+        this.sender = new ThreadPoolExecutor(senderThreads, senderThreads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                daemonThreads("user-change-feed-sender"));
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(daemonThreads("user-change-feed-heartbeat"));
+        this.heartbeat.scheduleAtFixedRate(() -> dispatcher.execute(this::heartbeat), heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+    }
+
+    //the first thread is called name, further ones name-2, name-3...
+    static ThreadFactory daemonThreads(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            int number = count.incrementAndGet();
+            Thread thread = new Thread(runnable, number == 1 ? name : name + "-" + number);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,54 @@
+package com.schimmerCreative.admin_panel.service;
+
+import com.schimmerCreative.admin_panel.model.User;
+
+/*
+Published by UserServiceImpl and UserBulkServiceImpl for every user they write.
+Listeners that keep a copy of the users (e.g. the suggest index) use
+@TransactionalEventListener(phase = AFTER_COMMIT, fallbackExecution = true):
+a write that is rolled back never reaches them, and the bulk service publishes
+after its chunks are committed (no transaction, fallbackExecution).
+*/
+public class UserChangedEvent {
+
+    public enum Type { CREATED, UPDATED, DELETED }
+
+    final Type type;
+
+    final int id;
+
+    //the user as written, null for DELETED
+    final User user;
+
+    UserChangedEvent(Type type, int id, User user) {
+        this.type = type;
+        this.id = id;
+        this.user = user;
+    }
+
+    public static UserChangedEvent created(User user) {
+        return new UserChangedEvent(Type.CREATED, user.getId(), user);
+    }
+
+    public static UserChangedEvent updated(User user) {
+        return new UserChangedEvent(Type.UPDATED, user.getId(), user);
+    }
+
+    public static UserChangedEvent deleted(int id) {
+        return new UserChangedEvent(Type.DELETED, id, null);
+    }
+
+    //getters
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public User getUser() {
+        return user;
+    }
+}
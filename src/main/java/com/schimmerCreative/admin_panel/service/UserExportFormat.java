@@ -0,0 +1,38 @@
+package com.schimmerCreative.admin_panel.service;
+
+import java.util.Locale;
+
+/*
+Formats of the streaming export of user_data_table,
+each row is written on its own line so a consumer can read the dump line by line as well.
+*/
+public enum UserExportFormat {
+
+    //one JSON object per line (newline delimited JSON)
+    NDJSON("application/x-ndjson", "ndjson"),
+
+    //header line id,user_first_name,user_last_name,user_email then one line per user (RFC 4180 quoting)
+    CSV("text/csv", "csv");
+
+    final String contentType;
+    final String fileExtension;
+
+    UserExportFormat(String contentType, String fileExtension) {
+        this.contentType = contentType;
+        this.fileExtension = fileExtension;
+    }
+
+    //format of an import file by its name: .ndjson and .jsonl are NDJSON, everything else CSV
+    public static UserExportFormat ofFileName(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        return name.endsWith(".ndjson") || name.endsWith(".jsonl") ? NDJSON : CSV;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+}
@@ -0,0 +1,15 @@
+package com.schimmerCreative.admin_panel.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface UserExportService {
+
+    /*
+    writes every row of user_data_table to the output stream in the given format,
+    row by row while reading them, returns the number of exported users
+    the output stream is not closed, that is the job of the caller
+    */
+    public long exportUsers(OutputStream out, UserExportFormat format) throws IOException;
+
+}
@@ -0,0 +1,116 @@
+package com.schimmerCreative.admin_panel.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.schimmerCreative.admin_panel.model.User;
+import com.schimmerCreative.admin_panel.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/*
+Streaming export for the nightly reconciliation.
+
+Memory stays flat whatever the size of the table:
+- the rows come from a forward-only cursor (UserRepository.streamAllOrderedById), never as a List
+- every user is written as soon as it is read and then detached,
+  so the persistence context does not grow with the number of exported rows
+- the writes go straight to the response, with blocking servlet I/O a slow client
+  blocks write()/flush(), which stops reading from the cursor until the client catches up (backpressure)
+*/
+@org.springframework.stereotype.Service
+public class UserExportServiceImpl implements UserExportService {
+
+    UserRepository userRepository;
+
+    EntityManager entityManager;
+
+    //one writer instance for all rows, ObjectWriter is immutable and thread safe
+    ObjectWriter userJsonWriter;
+
+    //push the buffered rows to the client every n rows, so the first bytes arrive early and the buffer stays small
+    int flushEveryRows;
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportUsers(OutputStream out, UserExportFormat format) throws IOException {
+
+        //the writer is not closed on purpose, closing it would close the response stream of the caller
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+
+        if (format == UserExportFormat.CSV) {
+            writer.write("id,user_first_name,user_last_name,user_email\n");
+        }
+
+        long exportedRows = 0;
+
+        try (Stream<User> users = userRepository.streamAllOrderedById()) {
+
+            Iterator<User> iterator = users.iterator();
+            while (iterator.hasNext()) {
+                User user = iterator.next();
+
+                if (format == UserExportFormat.CSV) {
+                    writeCsvLine(writer, user);
+                } else {
+                    writer.write(userJsonWriter.writeValueAsString(user));
+                    writer.write('\n');
+                }
+
+                //the row is written, the persistence context does not need to keep it
+                entityManager.detach(user);
+
+                exportedRows++;
+                if (exportedRows % flushEveryRows == 0) {
+                    writer.flush();
+                }
+            }
+        }
+
+        writer.flush();
+        return exportedRows;
+    }
+
+    static void writeCsvLine(Writer writer, User user) throws IOException {
+        writer.write(Integer.toString(user.getId()));
+        writer.write(',');
+        writer.write(csvField(user.getUserFirstName()));
+        writer.write(',');
+        writer.write(csvField(user.getUserLastName()));
+        writer.write(',');
+        writer.write(csvField(user.getUserEmail()));
+        writer.write('\n');
+    }
+
+    //RFC 4180: quote a field containing a comma, a quote or a line break and double the quotes inside
+    static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    @Autowired
+    public UserExportServiceImpl(UserRepository userRepository, EntityManager entityManager, ObjectMapper objectMapper,
+                                 @Value("${admin-panel.export.flush-every-rows:500}") int flushEveryRows) {
+
+        this.userRepository = userRepository;
+        this.entityManager = entityManager;
+        this.userJsonWriter = objectMapper.writerFor(User.class);
+        this.flushEveryRows = flushEveryRows;
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.schimmerCreative.admin_panel.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/*
+Where an import stopped: written next to the imported file (<file>.checkpoint) after every committed chunk.
+offset and rowsRead point after the last committed row, rejectFileSize is the end of its rejects in the reject file
+(rejects of a chunk that was not committed are cut off again when the import is resumed).
+
+The file is identified by its size and modification time, a checkpoint of another file with the same name is ignored
+and the import starts at the beginning. Written to a temporary file and moved over the old one,
+so a crash leaves either the old or the new checkpoint, never half of one.
+*/
+record UserImportCheckpoint(long fileSize, long fileModifiedMillis, long offset, long rowsRead, long rowsImported,
+                            long rowsRejected, long chunksCommitted, long rejectFileSize) {
+
+    static Path fileOf(Path importFile) {
+        return importFile.resolveSibling(importFile.getFileName() + ".checkpoint");
+    }
+
+    //the checkpoint of this file, null when there is none or it belongs to another file
+    static UserImportCheckpoint read(Path importFile) throws IOException {
+        Path file = fileOf(importFile);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        }
+        UserImportCheckpoint checkpoint = new UserImportCheckpoint(
+                value(properties, "fileSize"), value(properties, "fileModifiedMillis"), value(properties, "offset"),
+                value(properties, "rowsRead"), value(properties, "rowsImported"), value(properties, "rowsRejected"),
+                value(properties, "chunksCommitted"), value(properties, "rejectFileSize"));
+        boolean sameFile = checkpoint.fileSize() == Files.size(importFile)
+                && checkpoint.fileModifiedMillis() == Files.getLastModifiedTime(importFile).toMillis();
+        return sameFile ? checkpoint : null;
+    }
+
+    void write(Path importFile) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("fileSize", Long.toString(fileSize));
+        properties.setProperty("fileModifiedMillis", Long.toString(fileModifiedMillis));
+        properties.setProperty("offset", Long.toString(offset));
+        properties.setProperty("rowsRead", Long.toString(rowsRead));
+        properties.setProperty("rowsImported", Long.toString(rowsImported));
+        properties.setProperty("rowsRejected", Long.toString(rowsRejected));
+        properties.setProperty("chunksCommitted", Long.toString(chunksCommitted));
+        properties.setProperty("rejectFileSize", Long.toString(rejectFileSize));
+
+        Path file = fileOf(importFile);
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temporary)) {
+            properties.store(out, "import checkpoint of " + importFile.getFileName());
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static long value(Properties properties, String name) {
+        return Long.parseLong(properties.getProperty(name, "0"));
+    }
+}
@@ -0,0 +1,191 @@
+package com.schimmerCreative.admin_panel.service;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+Splits an import file into chunks of rows, read through a memory-mapped window of the file.
+
+The file is mapped window by window (windowBytes, a file of several GB does not fit one mapping),
+a row is a line, or for CSV a line break outside a quoted field (the export quotes fields with line breaks).
+The reader only finds where the rows start and end and copies the bytes of a whole chunk out of the mapping,
+decoding and validating the rows is left to the threads of the pipeline (UserImportRows).
+
+Row numbers count every line of the file from 1, the CSV header and empty lines included,
+so they match the line numbers of an editor (as long as no field has a line break).
+Not thread safe, one reader thread per import.
+*/
+final class UserImportReader implements AutoCloseable {
+
+    static final int DEFAULT_WINDOW_BYTES = 64 * 1024 * 1024;
+
+    //the rows of a chunk, data holds the bytes of the file from the first row to the end of the last one
+    record RawChunk(byte[] data, int[] rowStarts, int[] rowEnds, long[] rowNumbers, int rows, long endOffset, long rowsRead) {
+
+        String row(int i) {
+            return new String(data, rowStarts[i], rowEnds[i] - rowStarts[i], StandardCharsets.UTF_8);
+        }
+    }
+
+    final FileChannel channel;
+
+    final long size;
+
+    //CSV: line breaks inside quoted fields do not end a row
+    final boolean csv;
+
+    final int windowBytes;
+
+    MappedByteBuffer window;
+
+    long windowStart;
+
+    //file offset of the next row, and number of rows before it
+    long position;
+
+    long rowsRead;
+
+    UserImportReader(Path file, boolean csv, long offset, long rowsBefore, int windowBytes) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.csv = csv;
+        this.windowBytes = windowBytes;
+        this.position = offset;
+        this.rowsRead = rowsBefore;
+    }
+
+    //the first row of the file (the CSV header) whatever the position, null for an empty file
+    String firstRow() throws IOException {
+        long savedPosition = position;
+        long savedRows = rowsRead;
+        position = 0;
+        try {
+            RawChunk first = next(1);
+            return first == null || first.rows() == 0 ? null : first.row(0);
+        } finally {
+            position = savedPosition;
+            rowsRead = savedRows;
+        }
+    }
+
+    //skips the first row (the CSV header) when the reader is at the start of the file
+    void skipFirstRow() throws IOException {
+        if (position == 0) {
+            next(1);
+        }
+    }
+
+    //the next rows, at most maxRows, null at the end of the file
+    RawChunk next(int maxRows) throws IOException {
+
+        if (position >= size) {
+            return null;
+        }
+        mapWindowAt(position, false);
+
+        int base = (int) (position - windowStart);
+        int limit = window.capacity();
+        boolean windowReachesEnd = windowStart + limit == size;
+
+        int[] rowStarts = new int[maxRows];
+        int[] rowEnds = new int[maxRows];
+        long[] rowNumbers = new long[maxRows];
+        int rows = 0;
+        long rowNumber = rowsRead;
+
+        int rowStart = base;
+        boolean quoted = false;
+        boolean fieldStart = true;
+        boolean closedQuote = false;
+
+        int i = base;
+        while (rows < maxRows) {
+            if (i == limit) {
+                if (windowReachesEnd) {
+                    //last row without a line break at the end of the file
+                    if (i > rowStart) {
+                        rowNumber++;
+                        if (rowEnd(rowStart, i) > rowStart) {
+                            rowStarts[rows] = rowStart - base;
+                            rowEnds[rows] = rowEnd(rowStart, i) - base;
+                            rowNumbers[rows++] = rowNumber;
+                        }
+                        rowStart = i;
+                    }
+                } else if (rowStart == base) {
+                    //not even one row fits the rest of the window, map it again starting at this row
+                    if (windowStart == position) {
+                        throw new IOException("row " + (rowsRead + 1) + " is longer than " + windowBytes + " bytes");
+                    }
+                    mapWindowAt(position, true);
+                    return next(maxRows);
+                }
+                break;
+            }
+
+            byte b = window.get(i);
+            if (csv && b == '"') {
+                //a quote opens a quoted field at its start, or is the second quote of an escaped "" inside it
+                if (quoted) {
+                    quoted = false;
+                    closedQuote = true;
+                } else if (fieldStart || closedQuote) {
+                    quoted = true;
+                    closedQuote = false;
+                }
+                fieldStart = false;
+            } else {
+                closedQuote = false;
+                if (b == '\n' && !quoted) {
+                    rowNumber++;
+                    if (rowEnd(rowStart, i) > rowStart) {
+                        rowStarts[rows] = rowStart - base;
+                        rowEnds[rows] = rowEnd(rowStart, i) - base;
+                        rowNumbers[rows++] = rowNumber;
+                    }
+                    rowStart = i + 1;
+                    fieldStart = true;
+                } else {
+                    fieldStart = b == ',';
+                }
+            }
+            i++;
+        }
+
+        //copies the complete rows out of the mapping, the rest is read with the next chunk
+        byte[] data = new byte[rowStart - base];
+        window.get(base, data);
+
+        position = windowStart + rowStart;
+        rowsRead = rowNumber;
+        return new RawChunk(data, rowStarts, rowEnds, rowNumbers, rows, position, rowsRead);
+    }
+
+    //end of a row without the \r of a Windows line break
+    int rowEnd(int rowStart, int lineBreak) {
+        return lineBreak > rowStart && window.get(lineBreak - 1) == '\r' ? lineBreak - 1 : lineBreak;
+    }
+
+    /*
+    maps the next window when less than half of the current one is left after offset,
+    so a chunk never waits for a mapping in the middle of a row
+    */
+    void mapWindowAt(long offset, boolean force) throws IOException {
+        boolean covered = window != null && offset >= windowStart && offset < windowStart + window.capacity();
+        boolean enoughLeft = covered && (windowStart + window.capacity() == size
+                || windowStart + window.capacity() - offset >= windowBytes / 2);
+        if (force || !enoughLeft) {
+            windowStart = offset;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(windowBytes, size - offset));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,177 @@
+package com.schimmerCreative.admin_panel.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.schimmerCreative.admin_panel.model.User;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/*
+Parses and validates the rows of a chunk of an import file, runs on the validation threads of the import pipeline
+(stateless after construction, one instance is shared by all of them).
+
+A row is rejected when
+- it cannot be parsed (CSV with fewer columns than the header, NDJSON that is not a JSON object)
+- a first name, last name or email is missing or blank, or longer than the column (255)
+- the email does not look like an email (something@something.tld, no spaces)
+- an earlier row of the same chunk has the same email (case-insensitive)
+Duplicates in different chunks and of users already in the database are refused by the unique key uk_user_email
+when the chunk is inserted, and rejected then.
+
+CSV columns are found by the header: user_first_name, user_last_name, user_email (as written by GET /users/export?format=csv),
+or userFirstName, userLastName, userEmail, in any order, other columns (the id of an export) are ignored.
+*/
+final class UserImportRows {
+
+    static final Pattern EMAIL = Pattern.compile("[^@\\s]+@[^@\\s]+\\.[^@\\s]+");
+
+    static final int MAX_LENGTH = 255;
+
+    //a row that is not imported, written to the reject file
+    record Reject(long row, String reason, String line) {
+    }
+
+    //the valid users of a chunk in file order (userRows[i] is the row of users.get(i)) and the rejected rows
+    record ValidatedChunk(UserImportReader.RawChunk raw, List<User> users, long[] userRows, String[] userLines, List<Reject> rejects) {
+    }
+
+    //CSV: index of the first name, last name and email column, null for NDJSON
+    final int[] csvColumns;
+
+    //NDJSON: reads one line into a User
+    final ObjectReader userReader;
+
+    UserImportRows(int[] csvColumns, ObjectReader userReader) {
+        this.csvColumns = csvColumns;
+        this.userReader = userReader;
+    }
+
+    static UserImportRows csv(String header) {
+        if (header == null) {
+            throw new IllegalArgumentException("the CSV file is empty, it needs a header line");
+        }
+        List<String> names = csvFields(header);
+        int[] columns = {-1, -1, -1};
+        for (int i = 0; i < names.size(); i++) {
+            switch (names.get(i).trim().replace("_", "").toLowerCase(Locale.ROOT)) {
+                case "userfirstname", "firstname" -> columns[0] = i;
+                case "userlastname", "lastname" -> columns[1] = i;
+                case "useremail", "email" -> columns[2] = i;
+                default -> { }
+            }
+        }
+        if (columns[0] < 0 || columns[1] < 0 || columns[2] < 0) {
+            throw new IllegalArgumentException("the CSV header needs the columns user_first_name, user_last_name and user_email");
+        }
+        return new UserImportRows(columns, null);
+    }
+
+    static UserImportRows ndjson(ObjectReader userReader) {
+        return new UserImportRows(null, userReader);
+    }
+
+    ValidatedChunk validate(UserImportReader.RawChunk chunk) {
+
+        List<User> users = new ArrayList<>(chunk.rows());
+        long[] userRows = new long[chunk.rows()];
+        String[] userLines = new String[chunk.rows()];
+        List<Reject> rejects = new ArrayList<>();
+        Map<String, Long> rowOfEmail = new HashMap<>(chunk.rows() * 2);
+
+        for (int i = 0; i < chunk.rows(); i++) {
+            String line = chunk.row(i);
+            long row = chunk.rowNumbers()[i];
+            try {
+                User user = parse(line);
+                String invalid = invalidField(user);
+                if (invalid != null) {
+                    rejects.add(new Reject(row, invalid, line));
+                    continue;
+                }
+                Long firstRow = rowOfEmail.putIfAbsent(user.getUserEmail().toLowerCase(Locale.ROOT), row);
+                if (firstRow != null) {
+                    rejects.add(new Reject(row, "duplicate email, same as row " + firstRow, line));
+                    continue;
+                }
+                userRows[users.size()] = row;
+                userLines[users.size()] = line;
+                users.add(user);
+            } catch (IllegalArgumentException e) {
+                rejects.add(new Reject(row, e.getMessage(), line));
+            }
+        }
+        return new ValidatedChunk(chunk, users, userRows, userLines, rejects);
+    }
+
+    User parse(String line) {
+        if (csvColumns == null) {
+            try {
+                return userReader.readValue(line);
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("not a JSON user object: " + e.getOriginalMessage());
+            }
+        }
+        List<String> fields = csvFields(line);
+        for (int column : csvColumns) {
+            if (column >= fields.size()) {
+                throw new IllegalArgumentException("fewer columns than the header");
+            }
+        }
+        return new User(0, fields.get(csvColumns[0]), fields.get(csvColumns[1]), fields.get(csvColumns[2]));
+    }
+
+    //the reason the user is rejected, null when it is valid
+    static String invalidField(User user) {
+        if (isBlank(user.getUserFirstName()) || isBlank(user.getUserLastName()) || isBlank(user.getUserEmail())) {
+            return "userFirstName, userLastName and userEmail are required";
+        }
+        if (user.getUserFirstName().length() > MAX_LENGTH || user.getUserLastName().length() > MAX_LENGTH
+                || user.getUserEmail().length() > MAX_LENGTH) {
+            return "a value is longer than " + MAX_LENGTH + " characters";
+        }
+        if (!EMAIL.matcher(user.getUserEmail()).matches()) {
+            return "not a valid email";
+        }
+        return null;
+    }
+
+    static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    //RFC 4180 fields of one row: quoted fields may contain commas, line breaks and doubled quotes
+    static List<String> csvFields(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
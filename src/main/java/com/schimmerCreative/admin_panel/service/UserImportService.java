@@ -0,0 +1,36 @@
+package com.schimmerCreative.admin_panel.service;
+
+import com.schimmerCreative.admin_panel.model.UserImportProgress;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+
+public interface UserImportService {
+
+    /*
+    imports of users from CSV or NDJSON files of the migrations from the legacy systems (the formats of GET /users/export),
+    the users are inserted in committed chunks, rejected rows go to a reject file next to the imported file,
+    and an interrupted import continues after its last committed chunk
+    */
+
+    //stores the uploaded file in the import directory and imports it in the background, IllegalStateException when it is too big
+    public UserImportProgress startImport(InputStream upload, UserExportFormat format) throws IOException;
+
+    /*
+    imports the stored file of an earlier import again in the background, after its last committed chunk,
+    empty for an unknown import, IllegalStateException while it is still queued or running
+    */
+    public Optional<UserImportProgress> resumeImport(String importId);
+
+    //imports a file on the calling thread (command line mode), after its last committed chunk when it was imported before
+    public UserImportProgress importFile(String importId, Path file, UserExportFormat format);
+
+    //progress of an import, read from its checkpoint when it was started before the application started, empty for an unknown import
+    public Optional<UserImportProgress> findImport(String importId);
+
+    //the rejected rows of a stored import (CSV: row, reason, line), empty when there is none
+    public Optional<Path> findRejectFile(String importId);
+
+}
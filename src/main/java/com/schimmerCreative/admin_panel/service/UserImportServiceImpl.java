@@ -0,0 +1,540 @@
+package com.schimmerCreative.admin_panel.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.schimmerCreative.admin_panel.model.BulkItemResult;
+import com.schimmerCreative.admin_panel.model.BulkItemStatus;
+import com.schimmerCreative.admin_panel.model.User;
+import com.schimmerCreative.admin_panel.model.UserImportProgress;
+import com.schimmerCreative.admin_panel.model.UserResponse;
+import com.schimmerCreative.admin_panel.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/*
+Import of users from files of several million rows (migrations from the legacy systems).
+
+Pipeline of one import, bounded so memory stays flat whatever the size of the file:
+1. reader thread: finds the rows in the memory-mapped file (UserImportReader) and cuts them into chunks of
+   admin-panel.import.chunk-size rows, every chunk is handed to the validation pool right away
+2. validation pool (admin-panel.import.parallelism threads): decodes, parses and validates the rows of a chunk (UserImportRows)
+3. import thread: takes the validated chunks in file order and inserts their users with one JDBC batch
+   (UserBulkService, chunked transactions), then appends the rejected rows to the reject file and writes the checkpoint
+The futures of the chunks wait in a queue of 2 x parallelism entries, when the database is the bottleneck the reader
+blocks on the full queue instead of reading the whole file ahead.
+
+Resume: the checkpoint (UserImportCheckpoint) is written after every committed chunk, importing the same file again
+continues after it. A chunk committed just before a crash (without its checkpoint) is read again, its rows then meet
+their own users: a duplicate email of a user with the same names counts as imported in the first chunk of a resumed run.
+
+Rejected rows go to <file>.rejects.csv (row, reason, line), the users the database refuses (duplicate email) as well.
+Users the database could not write (NOT_WRITTEN, e.g. a chunk of the bulk insert hit an outage) are never rejected:
+they are sent again after a pause, admin-panel.import.write-attempts times in all, then the import stops as FAILED
+before the chunk is committed, and can be resumed.
+
+An upload bigger than admin-panel.import.max-upload-mb is refused (IllegalStateException) and its file deleted.
+The progress of an import started before the last restart is read from its checkpoint:
+COMPLETED when it reaches the end of the file, FAILED otherwise (it can be resumed).
+
+Imports run one at a time (user-import thread), the users are published as UserChangedEvents like every bulk insert.
+Metrics: users.import.rows (tag outcome=imported|rejected).
+*/
+@org.springframework.stereotype.Service
+public class UserImportServiceImpl implements UserImportService {
+
+    static final Logger log = LoggerFactory.getLogger(UserImportServiceImpl.class);
+
+    //ids are generated (UUID), anything else is not a stored import and never becomes part of a path
+    static final Pattern IMPORT_ID = Pattern.compile("[A-Za-z0-9-]{1,64}");
+
+    static final String REJECT_HEADER = "row,reason,line\n";
+
+    static final long TRANSFER_BYTES = 16 * 1024 * 1024;
+
+    static final long PROGRESS_LOG_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    UserBulkService userBulkService;
+
+    UserRepository userRepository;
+
+    ObjectReader userJsonReader;
+
+    final Path importDirectory;
+
+    final int chunkSize;
+
+    final int parallelism;
+
+    final int windowBytes;
+
+    final long maxUploadBytes;
+
+    final int writeAttempts;
+
+    final long retryPauseMs;
+
+    //one import at a time, their rows are validated by the pool
+    final ExecutorService importExecutor;
+
+    final ExecutorService validationExecutor;
+
+    final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    final Counter importedRows;
+
+    final Counter rejectedRows;
+
+    //methods
+
+    @Override
+    public UserImportProgress startImport(InputStream upload, UserExportFormat format) throws IOException {
+
+        String importId = UUID.randomUUID().toString();
+        Files.createDirectories(importDirectory);
+        Path file = storedFile(importId, format);
+
+        //straight from the request body into the file, the upload is never held in memory, one byte more than the cap at most
+        long size = 0;
+        try (ReadableByteChannel in = Channels.newChannel(upload);
+             FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long transferred;
+            while ((transferred = out.transferFrom(in, size, Math.min(TRANSFER_BYTES, maxUploadBytes + 1 - size))) > 0) {
+                size += transferred;
+            }
+        }
+        if (size > maxUploadBytes) {
+            Files.delete(file);
+            throw new IllegalStateException("upload bigger than " + maxUploadBytes + " bytes");
+        }
+
+        ImportJob job = register(importId, file, format);
+        importExecutor.execute(() -> run(job));
+        return job.progress();
+    }
+
+    @Override
+    public Optional<UserImportProgress> resumeImport(String importId) {
+
+        Optional<Path> file = findStoredFile(importId);
+        if (file.isEmpty()) {
+            return Optional.empty();
+        }
+        ImportJob job = register(importId, file.get(), UserExportFormat.ofFileName(file.get().getFileName().toString()));
+        importExecutor.execute(() -> run(job));
+        return Optional.of(job.progress());
+    }
+
+    @Override
+    public UserImportProgress importFile(String importId, Path file, UserExportFormat format) {
+
+        ImportJob job = register(importId, file, format);
+        run(job);
+        return job.progress();
+    }
+
+    @Override
+    public Optional<UserImportProgress> findImport(String importId) {
+        ImportJob job = jobs.get(importId);
+        if (job != null) {
+            return Optional.of(job.progress());
+        }
+        return findStoredFile(importId).map(file -> storedProgress(importId, file));
+    }
+
+    //progress of an import of an earlier start of the application, as far as its checkpoint goes
+    UserImportProgress storedProgress(String importId, Path file) {
+        ImportJob job = new ImportJob(importId, file, UserExportFormat.ofFileName(file.getFileName().toString()));
+        try {
+            UserImportCheckpoint checkpoint = UserImportCheckpoint.read(file);
+            job.bytesTotal = Files.size(file);
+            if (checkpoint != null) {
+                job.update(checkpoint);
+            }
+            job.status = checkpoint != null && checkpoint.offset() == checkpoint.fileSize()
+                    ? UserImportProgress.Status.COMPLETED : UserImportProgress.Status.FAILED;
+            if (job.status == UserImportProgress.Status.FAILED) {
+                job.message = "stopped by a restart of the application, it can be resumed";
+            }
+        } catch (IOException e) {
+            job.status = UserImportProgress.Status.FAILED;
+            job.message = "checkpoint not readable: " + e.getMessage();
+        }
+        return job.progress();
+    }
+
+    @Override
+    public Optional<Path> findRejectFile(String importId) {
+        return findStoredFile(importId).map(UserImportServiceImpl::rejectFileOf).filter(Files::exists);
+    }
+
+    ImportJob register(String importId, Path file, UserExportFormat format) {
+        ImportJob job = new ImportJob(importId, file, format);
+        ImportJob previous = jobs.compute(importId, (id, existing) -> existing != null && existing.isActive() ? existing : job);
+        if (previous != job) {
+            throw new IllegalStateException("import " + importId + " is still " + previous.status);
+        }
+        return job;
+    }
+
+    void run(ImportJob job) {
+
+        job.status = UserImportProgress.Status.RUNNING;
+        job.startedAt = Instant.now();
+        try {
+            long fileSize = Files.size(job.file);
+            long fileModifiedMillis = Files.getLastModifiedTime(job.file).toMillis();
+            Path rejectFile = rejectFileOf(job.file);
+
+            UserImportCheckpoint checkpoint = UserImportCheckpoint.read(job.file);
+            if (checkpoint == null) {
+                checkpoint = new UserImportCheckpoint(fileSize, fileModifiedMillis, 0, 0, 0, 0, 0, 0);
+                Files.deleteIfExists(rejectFile);
+            } else {
+                log.info("import {} resuming after row {} imported={} rejected={}",
+                        job.importId, checkpoint.rowsRead(), checkpoint.rowsImported(), checkpoint.rowsRejected());
+            }
+            job.update(checkpoint);
+            job.resumedAfterRow = checkpoint.rowsRead();
+
+            boolean csv = job.format == UserExportFormat.CSV;
+            try (UserImportReader reader = new UserImportReader(job.file, csv, checkpoint.offset(), checkpoint.rowsRead(), windowBytes);
+                 FileChannel rejects = FileChannel.open(rejectFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+
+                //rejects of a chunk that was written but not committed are cut off
+                rejects.truncate(checkpoint.rejectFileSize());
+                rejects.position(checkpoint.rejectFileSize());
+                if (checkpoint.rejectFileSize() == 0) {
+                    write(rejects, REJECT_HEADER);
+                }
+
+                UserImportRows rows = csv ? UserImportRows.csv(reader.firstRow()) : UserImportRows.ndjson(userJsonReader);
+                if (csv) {
+                    reader.skipFirstRow();
+                }
+                importChunks(job, reader, rows, rejects, checkpoint);
+            }
+
+            job.status = UserImportProgress.Status.COMPLETED;
+            log.info("import {} completed rows={} imported={} rejected={}", job.importId, job.rowsRead, job.rowsImported, job.rowsRejected);
+
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            job.message = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+            job.status = UserImportProgress.Status.FAILED;
+            log.warn("import {} failed after row {}, it can be resumed", job.importId, job.rowsRead, e);
+        } finally {
+            job.finishedAt = Instant.now();
+        }
+    }
+
+    void importChunks(ImportJob job, UserImportReader reader, UserImportRows rows, FileChannel rejects,
+                      UserImportCheckpoint checkpoint) throws Exception {
+
+        BlockingQueue<Future<UserImportRows.ValidatedChunk>> pipeline = new ArrayBlockingQueue<>(2 * parallelism);
+        Thread readerThread = new Thread(() -> readChunks(reader, rows, pipeline), "user-import-reader");
+        readerThread.setDaemon(true);
+        readerThread.start();
+
+        UserImportCheckpoint committed = checkpoint;
+        boolean resumedChunk = checkpoint.offset() > 0;
+        long lastLog = System.nanoTime();
+        try {
+            while (true) {
+                UserImportRows.ValidatedChunk chunk = await(pipeline.take());
+                if (chunk == null) {
+                    return;
+                }
+                committed = writeChunk(job, chunk, rejects, committed, resumedChunk);
+                resumedChunk = false;
+
+                if (System.nanoTime() - lastLog > PROGRESS_LOG_NANOS) {
+                    lastLog = System.nanoTime();
+                    log.info("import {} {}% rows={} imported={} rejected={}",
+                            job.importId, job.progress().getPercentDone(), job.rowsRead, job.rowsImported, job.rowsRejected);
+                }
+            }
+        } finally {
+            //stops a reader blocked on the full pipeline when the import failed
+            readerThread.interrupt();
+            readerThread.join();
+        }
+    }
+
+    //runs on the reader thread, a null chunk ends the pipeline, a failed future hands an error to the import thread
+    void readChunks(UserImportReader reader, UserImportRows rows, BlockingQueue<Future<UserImportRows.ValidatedChunk>> pipeline) {
+        try {
+            UserImportReader.RawChunk raw;
+            while ((raw = reader.next(chunkSize)) != null) {
+                UserImportReader.RawChunk chunk = raw;
+                pipeline.put(CompletableFuture.supplyAsync(() -> rows.validate(chunk), validationExecutor));
+            }
+            pipeline.put(CompletableFuture.completedFuture(null));
+        } catch (InterruptedException e) {
+            //the import thread stopped, nobody reads the pipeline anymore
+        } catch (IOException | RuntimeException e) {
+            try {
+                pipeline.put(CompletableFuture.failedFuture(e));
+            } catch (InterruptedException stopped) {
+                //the import thread stopped already
+            }
+        }
+    }
+
+    //inserts the users of a chunk, appends its rejects and commits it with the next checkpoint
+    UserImportCheckpoint writeChunk(ImportJob job, UserImportRows.ValidatedChunk chunk, FileChannel rejects,
+                                    UserImportCheckpoint committed, boolean resumedChunk) throws IOException, InterruptedException {
+
+        List<UserImportRows.Reject> rejected = new ArrayList<>(chunk.rejects());
+        long imported = 0;
+
+        if (!chunk.users().isEmpty()) {
+            for (BulkItemResult result : createUsers(chunk.users(), committed.rowsRead())) {
+                int index = result.getIndex();
+                User user = chunk.users().get(index);
+
+                if (result.getStatus() == BulkItemStatus.CREATED
+                        || (resumedChunk && result.getStatus() == BulkItemStatus.CONFLICT && alreadyImported(user))) {
+                    imported++;
+                } else {
+                    String reason = result.getStatus() == BulkItemStatus.CONFLICT ? "email already used by another user" : result.getMessage();
+                    rejected.add(new UserImportRows.Reject(chunk.userRows()[index], reason, chunk.userLines()[index]));
+                }
+            }
+        }
+
+        rejected.sort(Comparator.comparingLong(UserImportRows.Reject::row));
+        StringBuilder lines = new StringBuilder();
+        for (UserImportRows.Reject reject : rejected) {
+            lines.append(reject.row()).append(',')
+                    .append(UserExportServiceImpl.csvField(reject.reason())).append(',')
+                    .append(UserExportServiceImpl.csvField(reject.line())).append('\n');
+        }
+        write(rejects, lines.toString());
+
+        UserImportCheckpoint next = new UserImportCheckpoint(committed.fileSize(), committed.fileModifiedMillis(),
+                chunk.raw().endOffset(), chunk.raw().rowsRead(), committed.rowsImported() + imported,
+                committed.rowsRejected() + rejected.size(), committed.chunksCommitted() + 1, rejects.position());
+        next.write(job.file);
+
+        job.update(next);
+        importedRows.increment(imported);
+        rejectedRows.increment(rejected.size());
+        return next;
+    }
+
+    /*
+    inserts the users of a chunk, the ones the database could not write are sent again after a growing pause,
+    IllegalStateException when some are still not written after the last attempt (nothing of the chunk is committed then)
+    */
+    List<BulkItemResult> createUsers(List<User> users, long afterRow) throws InterruptedException {
+
+        BulkItemResult[] results = new BulkItemResult[users.size()];
+        List<Integer> pending = new ArrayList<>(users.size());
+        for (int i = 0; i < users.size(); i++) {
+            pending.add(i);
+        }
+        for (int attempt = 1; ; attempt++) {
+            List<User> batch = new ArrayList<>(pending.size());
+            pending.forEach(index -> batch.add(users.get(index)));
+
+            List<Integer> notWritten = new ArrayList<>();
+            String message = null;
+            for (BulkItemResult result : userBulkService.createUsers(batch).getItems()) {
+                int index = pending.get(result.getIndex());
+                result.setIndex(index);
+                results[index] = result;
+                if (result.getStatus() == BulkItemStatus.NOT_WRITTEN) {
+                    notWritten.add(index);
+                    message = result.getMessage();
+                }
+            }
+            if (notWritten.isEmpty()) {
+                return List.of(results);
+            }
+            if (attempt >= writeAttempts) {
+                throw new IllegalStateException(notWritten.size() + " users of the chunk after row " + afterRow
+                        + " could not be written: " + message);
+            }
+            log.warn("{} users of the chunk after row {} not written, attempt {} of {}: {}",
+                    notWritten.size(), afterRow, attempt, writeAttempts, message);
+            Thread.sleep(retryPauseMs * attempt);
+            pending = notWritten;
+        }
+    }
+
+    //the user was inserted by an earlier run that stopped before its checkpoint
+    boolean alreadyImported(User user) {
+        Optional<UserResponse> existing = userRepository.findByUserEmail(user.getUserEmail());
+        return existing.isPresent() && Objects.equals(existing.get().userFirstName(), user.getUserFirstName())
+                && Objects.equals(existing.get().userLastName(), user.getUserLastName());
+    }
+
+    static UserImportRows.ValidatedChunk await(Future<UserImportRows.ValidatedChunk> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    static void write(FileChannel channel, String text) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    Optional<Path> findStoredFile(String importId) {
+        if (!IMPORT_ID.matcher(importId).matches()) {
+            return Optional.empty();
+        }
+        for (UserExportFormat format : UserExportFormat.values()) {
+            Path file = storedFile(importId, format);
+            if (Files.exists(file)) {
+                return Optional.of(file);
+            }
+        }
+        return Optional.empty();
+    }
+
+    Path storedFile(String importId, UserExportFormat format) {
+        return importDirectory.resolve(importId + "." + format.getFileExtension());
+    }
+
+    static Path rejectFileOf(Path importFile) {
+        return importFile.resolveSibling(importFile.getFileName() + ".rejects.csv");
+    }
+
+    @PreDestroy
+    public void close() {
+        //a running import stops at its next chunk and is resumed from its checkpoint
+        importExecutor.shutdownNow();
+        validationExecutor.shutdownNow();
+    }
+
+    //state of one run of an import, only the thread running it writes
+    static final class ImportJob {
+
+        final String importId;
+        final Path file;
+        final UserExportFormat format;
+
+        volatile UserImportProgress.Status status = UserImportProgress.Status.QUEUED;
+        volatile long bytesTotal;
+        volatile long bytesCommitted;
+        volatile long rowsRead;
+        volatile long rowsImported;
+        volatile long rowsRejected;
+        volatile long chunksCommitted;
+        volatile long resumedAfterRow;
+        volatile String message;
+        volatile Instant startedAt;
+        volatile Instant finishedAt;
+
+        ImportJob(String importId, Path file, UserExportFormat format) {
+            this.importId = importId;
+            this.file = file;
+            this.format = format;
+        }
+
+        boolean isActive() {
+            return status == UserImportProgress.Status.QUEUED || status == UserImportProgress.Status.RUNNING;
+        }
+
+        void update(UserImportCheckpoint checkpoint) {
+            bytesTotal = checkpoint.fileSize();
+            bytesCommitted = checkpoint.offset();
+            rowsRead = checkpoint.rowsRead();
+            rowsImported = checkpoint.rowsImported();
+            rowsRejected = checkpoint.rowsRejected();
+            chunksCommitted = checkpoint.chunksCommitted();
+        }
+
+        UserImportProgress progress() {
+            return new UserImportProgress(importId, status, format.name().toLowerCase(), bytesTotal, bytesCommitted,
+                    rowsRead, rowsImported, rowsRejected, chunksCommitted, resumedAfterRow, message, startedAt, finishedAt);
+        }
+    }
+
+
+    /*
+    constructor
+    */
+    @Autowired
+    public UserImportServiceImpl(UserBulkService userBulkService, UserRepository userRepository, ObjectMapper objectMapper,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${admin-panel.import.directory:data/imports}") Path importDirectory,
+                                 @Value("${admin-panel.import.chunk-size:500}") int chunkSize,
+                                 @Value("${admin-panel.import.parallelism:0}") int parallelism,
+                                 @Value("${admin-panel.import.window-mb:64}") int windowMb,
+                                 @Value("${admin-panel.import.max-upload-mb:2048}") long maxUploadMb,
+                                 @Value("${admin-panel.import.write-attempts:3}") int writeAttempts,
+                                 @Value("${admin-panel.import.retry-pause-ms:1000}") long retryPauseMs) {
+
+        this.userBulkService = userBulkService;
+        this.userRepository = userRepository;
+        this.userJsonReader = objectMapper.readerFor(User.class);
+        this.importDirectory = importDirectory;
+        this.chunkSize = chunkSize;
+        //0: one validation thread per CPU
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.windowBytes = windowMb * 1024 * 1024;
+        this.maxUploadBytes = maxUploadMb * 1024 * 1024;
+        this.writeAttempts = Math.max(1, writeAttempts);
+        this.retryPauseMs = retryPauseMs;
+
+        this.importExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "user-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger validationThreads = new AtomicInteger();
+        this.validationExecutor = Executors.newFixedThreadPool(this.parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "user-import-validate-" + validationThreads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.importedRows = Counter.builder("users.import.rows").tag("outcome", "imported")
+                .description("Rows of import files inserted into user_data_table").register(meterRegistry);
+        this.rejectedRows = Counter.builder("users.import.rows").tag("outcome", "rejected")
+                .description("Rows of import files written to the reject file").register(meterRegistry);
+    }
+}
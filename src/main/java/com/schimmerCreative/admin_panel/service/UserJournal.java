@@ -0,0 +1,281 @@
+package com.schimmerCreative.admin_panel.service;
+
+import com.schimmerCreative.admin_panel.model.User;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/*
+Local journal of the write-behind mode: every accepted user is appended to a memory-mapped file
+before it is acknowledged, and marked done after it was written to user_data_table.
+The pages of a mapped file belong to the operating system, a record survives a crash of the JVM
+as soon as it is written (and a crash of the machine once forced, see forceWrites).
+
+Layout:
+  header  long magic, long next ticket, int start (oldest record that may be pending), int unused
+  record  int payload length, byte state (0 pending, 1 done), long ticket, payload, int CRC32 of ticket and payload
+          payload = first name, last name, email, each as int byte length + UTF-8 (length -1 for null)
+  int -1  the records continue after the header (wrap)
+  int 0   after the last record
+
+The file is a ring: the records from start to the last one are live, the space before start is free.
+When the oldest records are done start moves past them, and a record that does not fit before the end
+of the file is written after the header, as long as it ends before start. So the journal only needs room
+for the users between the oldest one not yet in the database and the newest one, also when it never empties
+under a steady load. When no record is pending anymore the journal starts again at the front.
+
+The length of a record is written last, and a wrap only after the record behind it: a record torn by a crash
+has length 0 or a wrong CRC and ends the scan at startup, which begins at start.
+Not thread safe on its own, UserWriteBehindServiceImpl synchronizes on it.
+*/
+class UserJournal implements AutoCloseable {
+
+    static final long MAGIC = 0x55534552_4a524e32L;
+
+    static final int HEADER_SIZE = 24;
+
+    static final int START_OFFSET = 16;
+
+    //length of the wrap marker
+    static final int WRAP = -1;
+
+    //length, state, ticket ... crc
+    static final int RECORD_OVERHEAD = 4 + 1 + 8 + 4;
+
+    static final byte PENDING = 0;
+    static final byte DONE = 1;
+
+    final FileChannel channel;
+
+    final MappedByteBuffer buffer;
+
+    final boolean forceWrites;
+
+    int writePosition;
+
+    //oldest record that may be pending, kept in the header
+    int start;
+
+    int pendingRecords;
+
+    //a pending record found by open(), to be written to the database again
+    record PendingRecord(int position, long ticket, User user) {
+    }
+
+    final List<PendingRecord> pendingAtOpen = new ArrayList<>();
+
+    UserJournal(Path file, int capacityBytes, boolean forceWrites) throws IOException {
+
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        this.forceWrites = forceWrites;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        //an existing journal keeps its size, it may hold pending records beyond a smaller configured capacity
+        int size = (int) Math.max(capacityBytes, channel.size());
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+        if (buffer.getLong(0) != MAGIC) {
+            buffer.putLong(0, MAGIC);
+            buffer.putLong(8, 1);
+            buffer.putInt(HEADER_SIZE, 0);
+            buffer.putInt(START_OFFSET, HEADER_SIZE);
+            start = HEADER_SIZE;
+            writePosition = HEADER_SIZE;
+        } else {
+            start = buffer.getInt(START_OFFSET);
+            if (start < HEADER_SIZE || start + 4 > buffer.capacity()) {
+                start = HEADER_SIZE;
+            }
+            scan();
+        }
+        if (pendingRecords == 0) {
+            restart();
+        }
+    }
+
+    void scan() {
+        int position = start;
+        //after the wrap the records end before start
+        int limit = buffer.capacity();
+        while (position + 4 <= limit) {
+            int length = buffer.getInt(position);
+            if (length == WRAP && limit == buffer.capacity()) {
+                position = HEADER_SIZE;
+                limit = start;
+                continue;
+            }
+            if (length <= 0 || (long) position + RECORD_OVERHEAD + length > limit) {
+                break;
+            }
+            long ticket = buffer.getLong(position + 5);
+            if (crc(position + 5, 8 + length) != buffer.getInt(position + 13 + length)) {
+                //torn by a crash while it was written, it was never acknowledged
+                break;
+            }
+            if (buffer.get(position + 4) == PENDING) {
+                pendingAtOpen.add(new PendingRecord(position, ticket, readUser(position + 13)));
+                pendingRecords++;
+            }
+            position += RECORD_OVERHEAD + length;
+        }
+        writePosition = position;
+    }
+
+    //position of the appended record, -1 when the journal is full
+    int append(long ticket, User user) {
+
+        byte[] firstName = bytes(user.getUserFirstName());
+        byte[] lastName = bytes(user.getUserLastName());
+        byte[] email = bytes(user.getUserEmail());
+        int length = 12 + lengthOf(firstName) + lengthOf(lastName) + lengthOf(email);
+
+        int size = RECORD_OVERHEAD + length;
+        int position = writePosition;
+        boolean wrap = false;
+        if (position >= start) {
+            //live records up to the end of the file, the space after the header up to start is free
+            if ((long) position + size + 4 > buffer.capacity()) {
+                if ((long) HEADER_SIZE + size + 4 > start) {
+                    return -1;
+                }
+                position = HEADER_SIZE;
+                wrap = true;
+            }
+        } else if ((long) position + size + 4 > start) {
+            //wrapped, the record and the end mark have to end before the oldest live record
+            return -1;
+        }
+        int end = position + size;
+
+        buffer.put(position + 4, PENDING);
+        buffer.putLong(position + 5, ticket);
+        int offset = position + 13;
+        offset = putString(offset, firstName);
+        offset = putString(offset, lastName);
+        offset = putString(offset, email);
+        buffer.putInt(offset, crc(position + 5, 8 + length));
+        buffer.putInt(end, 0);
+        //the length makes the record visible to the scan, written after everything else
+        buffer.putInt(position, length);
+        if (forceWrites) {
+            buffer.force(position, end + 4 - position);
+        }
+        if (wrap) {
+            //replaces the end mark after the last record at the back, the scan now continues at the front
+            buffer.putInt(writePosition, WRAP);
+            if (forceWrites) {
+                buffer.force(writePosition, 4);
+            }
+        }
+
+        writePosition = end;
+        pendingRecords++;
+        return position;
+    }
+
+    void markDone(int position) {
+        buffer.put(position + 4, DONE);
+        if (forceWrites) {
+            buffer.force(position + 4, 1);
+        }
+        pendingRecords--;
+        if (pendingRecords == 0) {
+            restart();
+        } else if (position == start) {
+            advanceStart();
+        }
+    }
+
+    //frees the space of the done records at the front of the ring
+    void advanceStart() {
+        int position = start;
+        while (position != writePosition) {
+            int length = buffer.getInt(position);
+            if (length == WRAP) {
+                position = HEADER_SIZE;
+            } else if (buffer.get(position + 4) == DONE) {
+                position += RECORD_OVERHEAD + length;
+            } else {
+                break;
+            }
+        }
+        start = position;
+        buffer.putInt(START_OFFSET, start);
+        if (forceWrites) {
+            buffer.force(START_OFFSET, 4);
+        }
+    }
+
+    //the next ticket number, kept in the header so tickets stay unique across restarts
+    long nextTicket() {
+        long ticket = buffer.getLong(8);
+        buffer.putLong(8, ticket + 1);
+        return ticket;
+    }
+
+    void restart() {
+        buffer.putInt(HEADER_SIZE, 0);
+        buffer.putInt(START_OFFSET, HEADER_SIZE);
+        start = HEADER_SIZE;
+        writePosition = HEADER_SIZE;
+    }
+
+    int pendingRecords() {
+        return pendingRecords;
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    User readUser(int offset) {
+        String[] fields = new String[3];
+        for (int i = 0; i < fields.length; i++) {
+            int length = buffer.getInt(offset);
+            offset += 4;
+            if (length >= 0) {
+                byte[] value = new byte[length];
+                buffer.get(offset, value);
+                fields[i] = new String(value, StandardCharsets.UTF_8);
+                offset += length;
+            }
+        }
+        return new User(0, fields[0], fields[1], fields[2]);
+    }
+
+    int putString(int offset, byte[] value) {
+        buffer.putInt(offset, value == null ? -1 : value.length);
+        if (value != null) {
+            buffer.put(offset + 4, value);
+            return offset + 4 + value.length;
+        }
+        return offset + 4;
+    }
+
+    int crc(int offset, int length) {
+        CRC32 crc = new CRC32();
+        ByteBuffer slice = buffer.slice(offset, length);
+        crc.update(slice);
+        return (int) crc.getValue();
+    }
+
+    static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    static int lengthOf(byte[] value) {
+        return value == null ? 0 : value.length;
+    }
+}
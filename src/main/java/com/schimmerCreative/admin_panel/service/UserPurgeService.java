@@ -0,0 +1,11 @@
+package com.schimmerCreative.admin_panel.service;
+
+public interface UserPurgeService {
+
+    /*
+    deletes the users that were soft deleted longer than the retention ago for good, in small batches,
+    returns the number of deleted rows. Runs in the background on its own, callable for tests and maintenance.
+    */
+    public int purgeDeletedUsers();
+
+}
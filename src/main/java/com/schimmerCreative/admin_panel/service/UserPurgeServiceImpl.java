@@ -0,0 +1,189 @@
+package com.schimmerCreative.admin_panel.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+Purge of soft deleted users (admin-panel.soft-delete.enabled=true, off by default).
+DELETE /users/{id} only sets deleted_at, the rows are deleted for good here, in the background,
+once they are older than admin-panel.soft-delete.retention.
+
+Every admin-panel.soft-delete.purge-interval-ms one thread (user-purger) deletes them in batches:
+- index driven: SELECT id ... WHERE deleted_at < ? ORDER BY deleted_at LIMIT batch-size is a range scan
+  on idx_user_deleted_at that stops after one batch, the DELETE then finds its rows by primary key
+- small: every batch is its own short transaction, it locks only the rows it deletes,
+  the live traffic on the table waits for one batch at most
+- throttled: after a batch the thread pauses purge-batch-pause-ms, at least as long as the batch took,
+  so the purge uses the database at most half of the time, and a run ends after purge-max-batches batches,
+  the rest is left for the next run
+
+Metrics: users.purge.rows (deleted rows), users.purge.batch (time of one batch),
+users.purge.oldest.seconds (age of the oldest soft deleted row, well above the retention means the purge falls behind).
+*/
+@org.springframework.stereotype.Service
+@ConditionalOnProperty(name = "admin-panel.soft-delete.enabled", havingValue = "true")
+public class UserPurgeServiceImpl implements UserPurgeService {
+
+    static final Logger log = LoggerFactory.getLogger(UserPurgeServiceImpl.class);
+
+    static final String SELECT_BATCH_SQL =
+            "SELECT id FROM user_data_table WHERE deleted_at < ? ORDER BY deleted_at ASC LIMIT ?";
+
+    static final String DELETE_BATCH_SQL =
+            "DELETE FROM user_data_table WHERE deleted_at < ? AND id IN (%s)";
+
+    static final String OLDEST_SQL =
+            "SELECT MIN(deleted_at) FROM user_data_table WHERE deleted_at IS NOT NULL";
+
+    JdbcTemplate jdbcTemplate;
+
+    TransactionTemplate transactionTemplate;
+
+    final Duration retention;
+
+    final int batchSize;
+
+    final long batchPauseMillis;
+
+    final int maxBatches;
+
+    final ScheduledExecutorService purger;
+
+    final Counter purgedRows;
+
+    final Timer batchTimer;
+
+    //seconds, 0 when there is no soft deleted user
+    final AtomicLong oldestDeletedSeconds = new AtomicLong();
+
+    //methods
+
+    @Override
+    public int purgeDeletedUsers() {
+
+        Timestamp cutoff = Timestamp.from(Instant.now().minus(retention));
+        int purged = 0;
+
+        for (int batch = 0; batch < maxBatches; batch++) {
+
+            long start = System.nanoTime();
+            int deleted = transactionTemplate.execute(status -> purgeBatch(cutoff));
+            long batchNanos = System.nanoTime() - start;
+            batchTimer.record(batchNanos, TimeUnit.NANOSECONDS);
+            purgedRows.increment(deleted);
+            purged += deleted;
+
+            //a short batch was the last one
+            if (deleted < batchSize) {
+                break;
+            }
+            try {
+                Thread.sleep(Math.max(batchPauseMillis, TimeUnit.NANOSECONDS.toMillis(batchNanos)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        updateOldestDeleted();
+        if (purged > 0) {
+            log.info("purged soft deleted users={} deleted before {}", purged, cutoff.toInstant());
+        }
+        return purged;
+    }
+
+    //one batch in the current transaction
+    int purgeBatch(Timestamp cutoff) {
+
+        List<Integer> ids = jdbcTemplate.queryForList(SELECT_BATCH_SQL, Integer.class, cutoff, batchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        Object[] parameters = new Object[ids.size() + 1];
+        parameters[0] = cutoff;
+        for (int i = 0; i < ids.size(); i++) {
+            parameters[i + 1] = ids.get(i);
+        }
+        return jdbcTemplate.update(String.format(DELETE_BATCH_SQL, String.join(", ", Collections.nCopies(ids.size(), "?"))), parameters);
+    }
+
+    void updateOldestDeleted() {
+        Timestamp oldest = jdbcTemplate.queryForObject(OLDEST_SQL, Timestamp.class);
+        oldestDeletedSeconds.set(oldest == null ? 0 : Math.max(0, Duration.between(oldest.toInstant(), Instant.now()).toSeconds()));
+    }
+
+    //a failed run is logged and the next one runs as planned (an exception would end the schedule)
+    void runScheduled() {
+        try {
+            purgeDeletedUsers();
+        } catch (RuntimeException e) {
+            log.warn("purge of soft deleted users failed, retrying in the next run", e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        //interrupts the pause between two batches, a batch in its transaction is finished or rolled back
+        purger.shutdownNow();
+    }
+
+
+    /*
+    constructor
+    */
+    @Autowired
+    public UserPurgeServiceImpl(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                                @Value("${admin-panel.soft-delete.retention:7d}") Duration retention,
+                                @Value("${admin-panel.soft-delete.purge-interval-ms:60000}") long purgeIntervalMillis,
+                                @Value("${admin-panel.soft-delete.purge-batch-size:500}") int batchSize,
+                                @Value("${admin-panel.soft-delete.purge-batch-pause-ms:100}") long batchPauseMillis,
+                                @Value("${admin-panel.soft-delete.purge-max-batches:100}") int maxBatches) {
+
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retention = retention;
+        this.batchSize = batchSize;
+        this.batchPauseMillis = batchPauseMillis;
+        this.maxBatches = maxBatches;
+
+        this.purgedRows = Counter.builder("users.purge.rows")
+                .description("Soft deleted users deleted for good by the purge")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("users.purge.batch")
+                .description("Time of one purge batch (select and delete in one transaction)")
+                .register(meterRegistry);
+        Gauge.builder("users.purge.oldest.seconds", oldestDeletedSeconds, AtomicLong::get)
+                .description("Age of the oldest soft deleted user still in the table, measured after every purge run")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+
+        this.purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "user-purger");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.purger.scheduleWithFixedDelay(this::runScheduled, purgeIntervalMillis, purgeIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+}
@@ -1,6 +1,8 @@
 package com.schimmerCreative.admin_panel.service;
 
 import com.schimmerCreative.admin_panel.model.User;
+import com.schimmerCreative.admin_panel.model.UserPage;
+import com.schimmerCreative.admin_panel.model.UserResponse;
 
 import java.util.List;
 import java.util.Optional;
@@ -15,10 +17,17 @@ public interface UserService {
     //updateUser method
     public Optional<User> updateUser(String userFirstName, String userLastName, String userEmail, int id);
 
+    //updates only when the user is still at expectedVersion (If-Match), OptimisticLockingFailureException otherwise
+    public Optional<User> updateUser(String userFirstName, String userLastName, String userEmail, int id, long expectedVersion);
+
     //getUserById
     //public User getUserById(int id);
 
-    public Optional<User> findUserById(int id);
+    /*
+    the reads return UserResponse records selected by the query (no managed entities),
+    the writes above still take and return the User entity
+    */
+    public Optional<UserResponse> findUserById(int id);
 
 
     //List<User> getUsersByIds(List<Long> ids);
@@ -37,7 +46,23 @@ public interface UserService {
     are aligned in terms of the data type used (e.g., List<User> vs. ArrayList<User>).
     It's usually best to use List<User> as it is more generic and flexible.
      */
-     public List<User> getAllUsers(); //uses findAll() from repository
+     public List<UserResponse> getAllUsers(); //reads the whole table, refuses tables bigger than the configured row cap
+
+    /*
+    keyset pagination: one page of at most limit users with an id greater than after,
+    lastName and emailPrefix are optional filters (null means no filter)
+    */
+    public UserPage getUsersPage(int after, int limit, String lastName, String emailPrefix);
+
+    /*
+    index lookups for GET /users/search: exact email (unique), email prefix,
+    last name with an optional first name prefix, the lists hold at most limit users
+    */
+    public Optional<UserResponse> findUserByEmail(String userEmail);
+
+    public List<UserResponse> searchUsersByEmailPrefix(String emailPrefix, int limit);
+
+    public List<UserResponse> searchUsersByName(String lastName, String firstNamePrefix, int limit);
 
 }
 
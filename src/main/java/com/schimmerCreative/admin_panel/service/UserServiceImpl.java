@@ -1,12 +1,34 @@
 package com.schimmerCreative.admin_panel.service;
 
+import com.schimmerCreative.admin_panel.config.CacheConfig;
+import com.schimmerCreative.admin_panel.config.ReplicaDataSource;
 import com.schimmerCreative.admin_panel.model.User;
+import com.schimmerCreative.admin_panel.model.UserPage;
+import com.schimmerCreative.admin_panel.model.UserResponse;
 import com.schimmerCreative.admin_panel.repository.UserRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.ArrayList;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,6 +44,8 @@ Configure transaction management to ensure data integrity
  and handle any transactions required by business processes,
  especially where multiple database operations must be completed
  successfully or not at all.
+ The read methods are @Transactional(readOnly = true): Hibernate does not flush at their commit
+ and the connection is switched to read-only, which lets the database skip its write bookkeeping.
 
 Handling Nulls and Exceptions:
 Consider handling scenarios where user operations might fail
@@ -39,21 +63,36 @@ public class UserServiceImpl implements UserService{
      allows your service to access UserRepository methods like findById, save, delete
     */
 
-    //to return the objects and datatype, need to declare them
-    User newUser;
-    Optional<User> updatedUser;
-
     /*
+    No per-request state in fields: this service is a singleton bean shared by all request threads,
+    a result stored in a field could be overwritten by another thread before it is returned
+    (and the last result, e.g. a whole list of users, would stay reachable on the heap).
+    The fields below are only dependencies and configuration, set once in the constructor.
+    Results are kept in local variables.
+
     Returning Optional: Consider using Optional for methods that retrieve data.
     This can prevent null checks
     in other layers and let you elegantly handle missing values using orElseThrow().
      */
-    Optional<User> byIdUser;
-    boolean deletionStatus;
+    final UserRepository userRepository;
+
+    //DEBUG only: a log line per call is too much for production, the counts and timings are in the metrics
+    static final Logger log = LoggerFactory.getLogger(UserServiceImpl.class);
+
+    //hard cap for getAllUsers(), bigger tables have to be read page by page with getUsersPage()
+    final int maxUnpagedRows;
+
+    //UserChangedEvent for every write, delivered to the listeners after the commit (e.g. the suggest index)
+    final ApplicationEventPublisher eventPublisher;
+
+    //concurrent cache misses of the same id share one query (users.single_flight.* metrics)
+    final SingleFlight<Integer, Optional<UserResponse>> userReads = new SingleFlight<>();
 
-    List<User> allUsers = new ArrayList<>();
+    //the transaction of that one query, opened by the caller that runs it
+    final TransactionTemplate readOnlyTransaction;
 
-    UserRepository userRepository;
+    //deleteUser only marks the row (deleted_at), UserPurgeServiceImpl deletes it after the retention
+    final boolean softDelete;
 
     //methods
 
@@ -67,7 +106,12 @@ Use of EntityNotFoundException: This is appropriate for situations where a user
 It translates well into a 404 Not Found HTTP status in a web context,
 providing clear feedback to the client.
  */
+    /*
+    Caching: findUserById is a read-through cache by id (CacheConfig.USERS_CACHE),
+    every write evicts the id it touched, the next read loads the row again.
+    */
     @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS_CACHE, key = "#result.id")
     public User createUser(String userFirstName, String userLastName, String userEmail) {
 
         /*
@@ -97,18 +141,19 @@ providing clear feedback to the client.
                 userToCreate.setUserFirstName(userFirstName);
                 userToCreate.setUserLastName(userLastName);
                 userToCreate.setUserEmail(userEmail);
+                userToCreate.setUpdatedAt(now());
 
-                newUser = userRepository.save(userToCreate);
-            /*
-            Enhanced Logging: Replace System.out.println with a robust logging framework which allows
-            categorization of logs (INFO, DEBUG, ERROR) and better management of log outputs.
-
-            should be replaced with a proper logging mechanism (like SLF4J or Log4J)
-             */
-
-                System.out.println("newUSer in createUser UserServiceImpl created: " + newUser);
+                User newUser = userRepository.save(userToCreate);
+                log.debug("user created id={}", newUser.getId());
+                eventPublisher.publishEvent(UserChangedEvent.created(newUser));
                 return newUser;
                 //return creationStatus;
+            } catch (DataIntegrityViolationException e) {
+                /*
+                duplicate email: the unique index uk_user_email refuses the INSERT,
+                no SELECT before the insert (it could not see a concurrent insert anyway), the controller answers 409
+                */
+                throw e;
             } catch (Exception e) {
                 //Consider using more specific exceptions such as DataAccessException or
                 // custom exceptions that accurately describe the failure.
@@ -123,6 +168,7 @@ providing clear feedback to the client.
 
 
     @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS_CACHE, key = "#id")
     public Optional<User> updateUser(String userFirstName, String userLastName, String userEmail, int id) {
 
         /*
@@ -146,36 +192,89 @@ providing clear feedback to the client.
         Validation: Before attempting to update the user, validate the input data to ensure it
         meets your application's requirements (e.g., non-null values, valid email format).
          */
-        Optional<User> userToUpdate = userRepository.findById(id);
-
-            if(userToUpdate.isPresent() && userFirstName != null && userLastName != null && userEmail != null) {
+        /*
+        One UPDATE ... WHERE id = ? instead of findById + save:
+        the affected row count says whether the user exists, and every column of the row
+        is in the parameters, so the updated user can be returned without reading it again.
+        */
+            if(userFirstName != null && userLastName != null && userEmail != null) {
 
+                Instant updatedAt = now();
+                int updatedRows;
                 try {
-                    User userObject = userToUpdate.get();
-                    userObject.setUserFirstName(userFirstName);
-                    userObject.setUserLastName(userLastName);
-                    userObject.setUserEmail(userEmail);
-
-                    //ERROR: Inferred type 'S' for type parameter 'S' is not within its bound; should extend 'com.schimmerCreative.admin_panel.model.User'
-                    updatedUser = Optional.of(userRepository.save(userObject)); //save userToUpdate
-
-                    /*
-                    Returning Updated User: After successfully updating the user, the method returns the updated user object wrapped in an Optional.
-                    This is useful for the client-side to confirm the changes.
-                     */
-                    System.out.println("updatedUSer in updateUser UserServiceImpl created: " + updatedUser);
-                    return updatedUser;
-                    //return updatedStatus;
+                        updatedRows = userRepository.updateUserById(id, userFirstName, userLastName, userEmail, updatedAt);
+                }catch (DataIntegrityViolationException e) {
+                    //the new email belongs to another user (unique index uk_user_email)
+                    throw e;
                 }catch (Exception e) {
                     throw new EntityNotFoundException("Could not complete updateUser method in UserServiceImpl "  + e);
                 }
 
+                if (updatedRows == 0) {
+                    throw new EntityNotFoundException("User to update not found on updateUser method in UserServiceImpl " + id);
+                }
+
+                /*
+                Returning Updated User: After successfully updating the user, the method returns the updated user object wrapped in an Optional.
+                This is useful for the client-side to confirm the changes.
+                 */
+                //the new version is not known without reading the row again, it stays null
+                User user = new User(id, userFirstName, userLastName, userEmail);
+                user.setUpdatedAt(updatedAt);
+                Optional<User> updatedUser = Optional.of(user);
+                log.debug("user updated id={}", id);
+                eventPublisher.publishEvent(UserChangedEvent.updated(updatedUser.get()));
+                return updatedUser;
+
             }else{
                 Exception e = new Exception();
                 throw new EntityNotFoundException("User to update not found on updateUser method in UserServiceImpl " + e);
             }
 
     }
+
+    /*
+    Optimistic concurrency for PUT with If-Match: UPDATE ... WHERE id = ? AND version = ?,
+    a writer that read an older version changes nothing instead of overwriting the newer row (last writer wins).
+    Only when no row was updated a second statement tells a missing id from a newer version.
+    */
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS_CACHE, key = "#id")
+    public Optional<User> updateUser(String userFirstName, String userLastName, String userEmail, int id, long expectedVersion) {
+
+        if (userFirstName == null || userLastName == null || userEmail == null) {
+            throw new EntityNotFoundException("User to update not found on updateUser method in UserServiceImpl " + id);
+        }
+
+        Instant updatedAt = now();
+        int updatedRows;
+        try {
+            updatedRows = userRepository.updateUserByIdAndVersion(id, expectedVersion, userFirstName, userLastName, userEmail, updatedAt);
+        }catch (DataIntegrityViolationException e) {
+            throw e;
+        }catch (Exception e) {
+            throw new EntityNotFoundException("Could not complete updateUser method in UserServiceImpl "  + e);
+        }
+
+        if (updatedRows == 0) {
+            if (userRepository.existsById(id)) {
+                throw new OptimisticLockingFailureException("User " + id + " is no longer at version " + expectedVersion);
+            }
+            throw new EntityNotFoundException("User to update not found on updateUser method in UserServiceImpl " + id);
+        }
+
+        User user = new User(id, userFirstName, userLastName, userEmail);
+        user.setVersion(expectedVersion + 1);
+        user.setUpdatedAt(updatedAt);
+        log.debug("user updated id={} version={}", id, user.getVersion());
+        eventPublisher.publishEvent(UserChangedEvent.updated(user));
+        return Optional.of(user);
+    }
+
+    //the precision of the updated_at column (datetime(6)), the returned user has the stored value
+    static Instant now() {
+        return Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
     /*
     @Override
     public User findUserById(int id) {
@@ -198,14 +297,37 @@ providing clear feedback to the client.
 
 
 
+    /*
+    Optional is unwrapped by the cache, a missing id throws and is not cached.
+    The cache holds immutable UserResponse records, not entities that one caller could modify for all others.
+
+    Single-flight: when a hot user is not in the cache (evicted by a write, expired), every concurrent
+    GET /users/{id} misses at the same time. Only the first of them queries the database, the others wait
+    for its result (or its EntityNotFoundException) instead of sending the same SELECT again.
+    SUPPORTS: no transaction and no pooled connection while a caller only waits, the caller that
+    queries opens the read-only transaction itself. Inside a running transaction (which may have
+    written the user) the read is never shared.
+    With read replicas a miss still reads the primary: a lagging replica could put the row from before the
+    write back into the cache right after the write evicted it, for every client until it expires.
+    */
     @Override
-    public Optional<User> findUserById(int id) {
+    @Cacheable(cacheNames = CacheConfig.USERS_CACHE, key = "#id")
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Optional<UserResponse> findUserById(int id) {
+
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return loadUserById(id);
+        }
+        return userReads.load(id, () -> ReplicaDataSource.onPrimary(() -> readOnlyTransaction.execute(status -> loadUserById(id))));
+    }
+
+    Optional<UserResponse> loadUserById(int id) {
 
         try {
-            byIdUser = Optional.ofNullable(userRepository.findById(id)
+            Optional<UserResponse> byIdUser = Optional.ofNullable(userRepository.findResponseById(id)
                     .orElseThrow(() -> new EntityNotFoundException("Could not complete findUserById method in UserServiceImpl " + id)));
 
-            System.out.println("userServiceImpl, found User Entity : " + byIdUser);
+            log.debug("user loaded id={}", id);
 
             return byIdUser;
 
@@ -218,6 +340,16 @@ providing clear feedback to the client.
 
     }
 
+    /*
+    After a write is committed, readers of the id no longer join a query that started before it,
+    that query may still return the old row. NOT_SUPPORTED: runs after the commit, outside of any transaction.
+    */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void onUserChanged(UserChangedEvent event) {
+        userReads.forget(event.getId());
+    }
+
 
 
     /*
@@ -228,46 +360,122 @@ providing clear feedback to the client.
 
     */
     @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS_CACHE, key = "#id")
     public boolean deleteUser(int id) {
 
 
         /*
-        This is good as it handles the case where the user might not exist.
-         */
-        Optional<User> userToDelete = userRepository.findById(id);
+        One DELETE ... WHERE id = ? instead of findById + deleteById (which loads the entity again),
+        0 affected rows means there was no user with this id.
+        Soft delete: one UPDATE ... SET deleted_at = ? WHERE id = ? instead, the row is purged later in the background.
+        */
+        int deletedRows;
+        try {
+            deletedRows = softDelete ? userRepository.softDeleteUserById(id, now()) : userRepository.deleteUserById(id);
+        }catch (Exception e) {
+            throw new EntityNotFoundException("Could not complete deleteUSer method in UserServiceImpl" + e);
+        }
 
-        if (userToDelete.isPresent()) {
+        if (deletedRows == 0) {
+            throw new EntityNotFoundException("User to delete not found on deleteUser method in UserServiceImpl " + id);
+        }
 
-            //Typically returns a success confirmation or a boolean status.
-            try {
+        //Typically returns a success confirmation or a boolean status, true: the user was deleted
+        boolean deletionStatus = true;
+        log.debug("user deleted id={}", id);
+        eventPublisher.publishEvent(UserChangedEvent.deleted(id));
+        return deletionStatus;
+
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserResponse> getAllUsers() {
+
+        /*
+        Reading the whole table is opt-in and bounded:
+        ask for one row more than the cap, if it comes back the table is too big
+        and the caller has to switch to keyset pagination instead of running out of heap.
+        */
+        List<UserResponse> allUsers;
+        try {
+            allUsers = userRepository.findPageAfterId(0, null, null, Limit.of(maxUnpagedRows + 1));
+        } catch (Exception e) {
+            throw new EntityNotFoundException("Could not complete getAllUsers method in UserServiceImpl " + e);
+        }
+
+        if (allUsers.size() > maxUnpagedRows) {
+            throw new IllegalStateException("user_data_table has more than " + maxUnpagedRows
+                    + " rows, use keyset pagination with GET /users?after=<id>&limit=<n>");
+        }
+        return allUsers;
+
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public UserPage getUsersPage(int after, int limit, String lastName, String emailPrefix) {
 
-                userRepository.deleteById(id);
+        /*
+        fetch limit + 1 rows: the extra row only tells us that there is a next page,
+        it is not returned, the cursor is the id of the last row on this page
+        */
+        String lastNameFilter = (lastName == null || lastName.isBlank()) ? null : lastName;
+        String emailPrefixFilter = (emailPrefix == null || emailPrefix.isBlank()) ? null : escapeLikePattern(emailPrefix);
 
-                System.out.println("userServiceImpl, deleted User Entity, false if delete, status: " + deletionStatus);
-                return deletionStatus;
+        try {
+            List<UserResponse> users = userRepository.findPageAfterId(after, lastNameFilter, emailPrefixFilter, Limit.of(limit + 1));
 
-            }catch (Exception e) {
-                throw new EntityNotFoundException("Could not complete deleteUSer method in UserServiceImpl" + e);
+            Integer nextCursor = null;
+            if (users.size() > limit) {
+                users = users.subList(0, limit);
+                nextCursor = users.get(limit - 1).id();
             }
+            return new UserPage(users, nextCursor, limit);
 
-        }else{
-            Exception e = new Exception();
-            throw new EntityNotFoundException("User to delete not found on deleteUser method in UserServiceImpl " + e);
+        } catch (Exception e) {
+            throw new EntityNotFoundException("Could not complete getUsersPage method in UserServiceImpl " + e);
+        }
+
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<UserResponse> findUserByEmail(String userEmail) {
+
+        try {
+            return userRepository.findByUserEmail(userEmail);
+        } catch (Exception e) {
+            throw new EntityNotFoundException("Could not complete findUserByEmail method in UserServiceImpl " + e);
         }
+    }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserResponse> searchUsersByEmailPrefix(String emailPrefix, int limit) {
 
+        try {
+            return userRepository.findByEmailPrefix(escapeLikePattern(emailPrefix), Limit.of(limit));
+        } catch (Exception e) {
+            throw new EntityNotFoundException("Could not complete searchUsersByEmailPrefix method in UserServiceImpl " + e);
+        }
     }
 
     @Override
-    public List<User> getAllUsers() {
+    @Transactional(readOnly = true)
+    public List<UserResponse> searchUsersByName(String lastName, String firstNamePrefix, int limit) {
 
+        String firstNamePrefixFilter = (firstNamePrefix == null || firstNamePrefix.isBlank()) ? null : escapeLikePattern(firstNamePrefix);
         try {
-            allUsers =  userRepository.findAll();
-            return allUsers;
+            return userRepository.findByLastNameAndFirstNamePrefix(lastName, firstNamePrefixFilter, Limit.of(limit));
         } catch (Exception e) {
-            throw new EntityNotFoundException("Could not complete getAllUsers method in UserServiceImpl " + e);
+            throw new EntityNotFoundException("Could not complete searchUsersByName method in UserServiceImpl " + e);
         }
+    }
 
+    //'!' is the ESCAPE character of the LIKEs in UserRepository, a prefix like "a_b%" must match literally
+    static String escapeLikePattern(String prefix) {
+        return prefix.replace("!", "!!").replace("%", "!%").replace("_", "!_");
     }
 
 
@@ -278,9 +486,25 @@ providing clear feedback to the client.
     Use @Autowired on the constructor to wire the UserRepository dependency correctly.
     */
     @Autowired
-    public UserServiceImpl(UserRepository userRepository) {
+    public UserServiceImpl(UserRepository userRepository, ApplicationEventPublisher eventPublisher,
+                           PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                           @Value("${admin-panel.users.max-unpaged-rows:10000}") int maxUnpagedRows,
+                           @Value("${admin-panel.soft-delete.enabled:false}") boolean softDelete) {
 
         this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
+        this.maxUnpagedRows = maxUnpagedRows;
+        this.softDelete = softDelete;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+
+        //saved queries = coalesced, the share of the misses that did not reach the database = coalesced / (queries + coalesced)
+        FunctionCounter.builder("users.single_flight.queries", userReads, SingleFlight::loads)
+                .description("findUserById cache misses that queried the database")
+                .register(meterRegistry);
+        FunctionCounter.builder("users.single_flight.coalesced", userReads, SingleFlight::coalesced)
+                .description("findUserById cache misses answered by the query of a concurrent caller (database queries saved)")
+                .register(meterRegistry);
     }
 
 }
@@ -0,0 +1,19 @@
+package com.schimmerCreative.admin_panel.service;
+
+import com.schimmerCreative.admin_panel.model.UserResponse;
+
+import java.util.List;
+
+public interface UserSuggestService {
+
+    /*
+    type-ahead lookup in memory: users with a first name, last name or email starting with the query
+    (case insensitive), every further word of the query has to match another of them as a prefix,
+    at most limit users, no database access. The users have no version and no updatedAt.
+    */
+    public List<UserResponse> suggest(String query, int limit);
+
+    //number of users in the index
+    public int size();
+
+}
@@ -0,0 +1,514 @@
+package com.schimmerCreative.admin_panel.service;
+
+import com.schimmerCreative.admin_panel.model.User;
+import com.schimmerCreative.admin_panel.model.UserResponse;
+import com.schimmerCreative.admin_panel.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+/*
+In-process search index for the type-ahead box of the admin panel (GET /users/suggest).
+
+Every user is indexed under a few lower case terms: each word of the first name and the last name, and the email.
+- terms: a sorted map from each distinct term to the sorted int[] of the ids of its users,
+  all terms starting with a prefix are one range of the map (prefix up to prefix + Character.MAX_VALUE), found in O(log n)
+- columns: first name, last name and email in one String[], three entries per slot. An id gets the next free slot
+  (IdSlots maps ids to slots), so the size follows the number of users, not the largest AUTO_INCREMENT id.
+  A suggestion never touches the database
+A first name shared by 50k users is one key and one int[50000], not 50k keys.
+
+Readers never lock: a write replaces the int[] of a term instead of changing it, the few writers are serialized on the index.
+A suggestion looks at admin-panel.suggest.max-scanned ids at most (the range of the longest word of the query,
+the other words only filter), so a short first word cannot make it walk the whole index.
+
+- built after startup on its own thread (suggest-index) from a cursor over UserRepository, the application is ready
+  without waiting for the full table scan, until the build is done answers are partial
+- kept up to date from the UserChangedEvents of UserServiceImpl and UserBulkServiceImpl after the commit,
+  the events during a build are applied to the new index before it replaces the old one
+
+Memory: 3 references and at most 4 ints (id table half full) per user, one int per term of a user,
+the distinct terms (mostly the emails).
+*/
+@org.springframework.stereotype.Service
+public class UserSuggestServiceImpl implements UserSuggestService {
+
+    static final Logger log = LoggerFactory.getLogger(UserSuggestServiceImpl.class);
+
+    UserRepository userRepository;
+
+    EntityManager entityManager;
+
+    TransactionTemplate readOnlyTransaction;
+
+    //ids looked at by one suggest call at most
+    final int maxScanned;
+
+    //runs the build of the index after startup
+    final ExecutorService indexBuilder;
+
+    //the index the readers use, replaced by every finished build
+    volatile SuggestIndex index = new SuggestIndex();
+
+    //latest change event per id while a build is running, null when no build is running
+    Map<Integer, UserChangedEvent> changedDuringBuild;
+
+    //one build at a time
+    final Object buildLock = new Object();
+
+    //methods
+
+    @Override
+    public List<UserResponse> suggest(String query, int limit) {
+
+        String[] words = normalize(query).split("\\s+");
+        if (words[0].isEmpty() || limit < 1) {
+            return List.of();
+        }
+
+        //the longest word has the fewest terms starting with it, its range is scanned
+        String scannedWord = words[0];
+        for (String word : words) {
+            if (word.length() > scannedWord.length()) {
+                scannedWord = word;
+            }
+        }
+
+        SuggestIndex current = index;
+        List<UserResponse> suggestions = new ArrayList<>(limit);
+        int scanned = 0;
+        for (int[] ids : current.terms.subMap(scannedWord, true, scannedWord + Character.MAX_VALUE, false).values()) {
+            for (int id : ids) {
+                if (++scanned > maxScanned) {
+                    return suggestions;
+                }
+                UserResponse user = current.user(id);
+                if (user != null && !containsId(suggestions, id) && matchesAllWords(user, words)) {
+                    suggestions.add(user);
+                    if (suggestions.size() == limit) {
+                        return suggestions;
+                    }
+                }
+            }
+        }
+        return suggestions;
+    }
+
+    @Override
+    public int size() {
+        return index.users;
+    }
+
+    //AFTER_COMMIT: a rolled back write is never indexed, fallbackExecution: the bulk service publishes outside a transaction
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+
+        synchronized (this) {
+            if (changedDuringBuild != null) {
+                changedDuringBuild.put(event.getId(), event);
+            }
+            index.apply(event);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndexInBackground() {
+        indexBuilder.execute(() -> {
+            try {
+                buildIndex();
+            } catch (RuntimeException e) {
+                log.warn("suggest index build failed, suggestions only cover the users written since startup", e);
+            }
+        });
+    }
+
+    //reads the whole table into a new index, then replaces the current one
+    public void buildIndex() {
+
+        synchronized (buildLock) {
+            long start = System.nanoTime();
+            synchronized (this) {
+                changedDuringBuild = new LinkedHashMap<>();
+            }
+
+            SuggestIndex built;
+            try {
+                built = readIndex();
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    changedDuringBuild = null;
+                }
+                throw e;
+            }
+
+            synchronized (this) {
+                //the change events are newer than the rows of the cursor
+                for (UserChangedEvent event : changedDuringBuild.values()) {
+                    built.apply(event);
+                }
+                changedDuringBuild = null;
+                index = built;
+            }
+
+            log.info("suggest index built users={} terms={} millis={}", built.users, built.terms.size(), (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    //the rows come in id order, so every id list is built by appending, sorted without copying it on every row
+    SuggestIndex readIndex() {
+
+        SuggestIndex built = new SuggestIndex();
+        Map<String, IdList> postings = new HashMap<>();
+
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<User> rows = userRepository.streamAllOrderedById()) {
+                Iterator<User> iterator = rows.iterator();
+                while (iterator.hasNext()) {
+                    User user = iterator.next();
+                    built.setColumns(user.getId(), user.getUserFirstName(), user.getUserLastName(), user.getUserEmail());
+                    for (String term : termsOf(user.getUserFirstName(), user.getUserLastName(), user.getUserEmail())) {
+                        postings.computeIfAbsent(term, key -> new IdList()).add(user.getId());
+                    }
+                    entityManager.detach(user);
+                }
+            }
+        });
+
+        postings.forEach((term, ids) -> built.terms.put(term, ids.toArray()));
+        return built;
+    }
+
+    @PreDestroy
+    public void close() {
+        indexBuilder.shutdownNow();
+    }
+
+    static boolean containsId(List<UserResponse> users, int id) {
+        for (UserResponse user : users) {
+            if (user.id() == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static Set<String> termsOf(String firstName, String lastName, String email) {
+        Set<String> userTerms = new LinkedHashSet<>();
+        addWords(userTerms, firstName);
+        addWords(userTerms, lastName);
+        if (email != null) {
+            userTerms.add(normalize(email));
+        }
+        return userTerms;
+    }
+
+    static void addWords(Set<String> userTerms, String value) {
+        if (value != null) {
+            for (String word : normalize(value).split("\\s+")) {
+                if (!word.isEmpty()) {
+                    userTerms.add(word);
+                }
+            }
+        }
+    }
+
+    //every word of a query like "ada lov" must be the prefix of a term of the user
+    static boolean matchesAllWords(UserResponse user, String[] words) {
+        if (words.length == 1) {
+            return true;
+        }
+        Set<String> userTerms = termsOf(user.userFirstName(), user.userLastName(), user.userEmail());
+        for (String word : words) {
+            boolean matched = false;
+            for (String term : userTerms) {
+                if (term.startsWith(word)) {
+                    matched = true;
+                    break;
+                }
+            }
+            if (!matched) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /*
+    The index itself. Writers hold the lock of the service, readers take no lock:
+    a reader sees an id only through the int[] of a term, which is published after the slot and the columns of the id are written.
+    */
+    static final class SuggestIndex {
+
+        //term -> sorted ids of its users, the arrays are never changed once they are in the map
+        final ConcurrentSkipListMap<String, int[]> terms = new ConcurrentSkipListMap<>();
+
+        //id -> slot in columns, replaced by a bigger copy when it is half full
+        volatile IdSlots idSlots = new IdSlots(2048);
+
+        //first name, last name, email of slot n at 3n, 3n+1, 3n+2, nulls for a free slot
+        volatile String[] columns = new String[3 * 1024];
+
+        //slots handed out so far, and the ones of removed users to hand out again
+        int slotCount;
+        final IdList freeSlots = new IdList();
+
+        volatile int users;
+
+        UserResponse user(int id) {
+            int slot = idSlots.get(id);
+            String[] current = columns;
+            if (slot < 0 || 3L * slot + 2 >= current.length || current[3 * slot + 2] == null) {
+                return null;
+            }
+            int offset = 3 * slot;
+            return new UserResponse(id, current[offset], current[offset + 1], current[offset + 2], null, null);
+        }
+
+        void apply(UserChangedEvent event) {
+            remove(event.getId());
+            if (event.getType() != UserChangedEvent.Type.DELETED) {
+                User user = event.getUser();
+                setColumns(user.getId(), user.getUserFirstName(), user.getUserLastName(), user.getUserEmail());
+                for (String term : termsOf(user.getUserFirstName(), user.getUserLastName(), user.getUserEmail())) {
+                    terms.compute(term, (key, ids) -> insert(ids, user.getId()));
+                }
+            }
+        }
+
+        void remove(int id) {
+            UserResponse indexed = user(id);
+            if (indexed == null) {
+                return;
+            }
+            for (String term : termsOf(indexed.userFirstName(), indexed.userLastName(), indexed.userEmail())) {
+                terms.computeIfPresent(term, (key, ids) -> delete(ids, id));
+            }
+            int slot = idSlots.remove(id);
+            String[] current = columns;
+            current[3 * slot] = null;
+            current[3 * slot + 1] = null;
+            current[3 * slot + 2] = null;
+            freeSlots.add(slot);
+            users--;
+        }
+
+        void setColumns(int id, String firstName, String lastName, String email) {
+            int slot = idSlots.get(id);
+            boolean added = slot < 0;
+            if (added) {
+                slot = freeSlots.size > 0 ? freeSlots.removeLast() : slotCount++;
+            }
+            String[] current = columns;
+            if (3L * slot + 2 >= current.length) {
+                current = Arrays.copyOf(current, Math.max(3 * (slot + 1), current.length * 2));
+                columns = current;
+            }
+            current[3 * slot] = firstName;
+            current[3 * slot + 1] = lastName;
+            //the email is never null for an indexed user, it marks the slot as used
+            current[3 * slot + 2] = email == null ? "" : email;
+            if (added) {
+                IdSlots table = idSlots;
+                if ((table.used + 1) * 2L > table.keys.length) {
+                    //rehashed into a copy, readers keep using the old table until the new one is published
+                    table = table.resized(users + 1);
+                    table.put(id, slot);
+                    idSlots = table;
+                } else {
+                    table.put(id, slot);
+                }
+                users++;
+            }
+        }
+
+        //a copy with the id, still sorted
+        static int[] insert(int[] ids, int id) {
+            if (ids == null) {
+                return new int[]{id};
+            }
+            int position = Arrays.binarySearch(ids, id);
+            if (position >= 0) {
+                return ids;
+            }
+            position = -position - 1;
+            int[] copy = new int[ids.length + 1];
+            System.arraycopy(ids, 0, copy, 0, position);
+            copy[position] = id;
+            System.arraycopy(ids, position, copy, position + 1, ids.length - position);
+            return copy;
+        }
+
+        //a copy without the id, null (the term is removed) when it was the last one
+        static int[] delete(int[] ids, int id) {
+            int position = Arrays.binarySearch(ids, id);
+            if (position < 0) {
+                return ids;
+            }
+            if (ids.length == 1) {
+                return null;
+            }
+            int[] copy = new int[ids.length - 1];
+            System.arraycopy(ids, 0, copy, 0, position);
+            System.arraycopy(ids, position + 1, copy, position, ids.length - position - 1);
+            return copy;
+        }
+    }
+
+    /*
+    Open addressing int -> int map from id to slot, linear probing, at most half of the keys live or REMOVED,
+    so a probe always ends at a FREE key.
+    Only the writers of the index change it: the slot is written before the key, a removed id leaves REMOVED behind
+    (nothing is moved that a reader might be probing for), a resize copies the live ids into a new table.
+    */
+    static final class IdSlots {
+
+        static final int FREE = 0;
+        static final int REMOVED = Integer.MIN_VALUE;
+
+        final int[] keys;
+        final int[] slots;
+        final int shift;
+
+        //keys that are not FREE, live and REMOVED
+        int used;
+
+        IdSlots(int capacity) {
+            this.keys = new int[capacity];
+            this.slots = new int[capacity];
+            this.shift = 32 - Integer.numberOfTrailingZeros(capacity);
+        }
+
+        int index(int id) {
+            return (id * 0x9E3779B9) >>> shift;
+        }
+
+        //slot of the id, -1 when it has none
+        int get(int id) {
+            if (id == FREE || id == REMOVED) {
+                return -1;
+            }
+            int mask = keys.length - 1;
+            for (int i = index(id); ; i = (i + 1) & mask) {
+                int key = keys[i];
+                if (key == id) {
+                    return slots[i];
+                }
+                if (key == FREE) {
+                    return -1;
+                }
+            }
+        }
+
+        //the id must not be in the table
+        void put(int id, int slot) {
+            int mask = keys.length - 1;
+            int i = index(id);
+            while (keys[i] != FREE && keys[i] != REMOVED) {
+                i = (i + 1) & mask;
+            }
+            if (keys[i] == FREE) {
+                used++;
+            }
+            slots[i] = slot;
+            keys[i] = id;
+        }
+
+        int remove(int id) {
+            int mask = keys.length - 1;
+            for (int i = index(id); ; i = (i + 1) & mask) {
+                if (keys[i] == id) {
+                    keys[i] = REMOVED;
+                    return slots[i];
+                }
+            }
+        }
+
+        //a copy with the live ids and room for at least users ids at half load, without the REMOVED keys
+        IdSlots resized(int users) {
+            int capacity = keys.length;
+            while ((long) users * 4 > capacity) {
+                capacity *= 2;
+            }
+            IdSlots copy = new IdSlots(capacity);
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != FREE && keys[i] != REMOVED) {
+                    copy.put(keys[i], slots[i]);
+                }
+            }
+            return copy;
+        }
+    }
+
+    //growing int[] for the build
+    static final class IdList {
+
+        int[] ids = new int[4];
+
+        int size;
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        int removeLast() {
+            return ids[--size];
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+    }
+
+
+    /*
+    constructor
+    */
+    @Autowired
+    public UserSuggestServiceImpl(UserRepository userRepository, EntityManager entityManager,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${admin-panel.suggest.max-scanned:10000}") int maxScanned) {
+
+        this.userRepository = userRepository;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.maxScanned = maxScanned;
+
+        this.indexBuilder = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "suggest-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
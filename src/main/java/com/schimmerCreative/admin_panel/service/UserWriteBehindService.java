@@ -0,0 +1,18 @@
+package com.schimmerCreative.admin_panel.service;
+
+import com.schimmerCreative.admin_panel.model.UserTicket;
+
+import java.util.Optional;
+
+public interface UserWriteBehindService {
+
+    /*
+    accepts a user to create later: it is journaled locally and written to the database by a background drainer,
+    IllegalArgumentException for a missing field, RejectedExecutionException when the queue or the journal is full
+    */
+    public UserTicket submitUser(String userFirstName, String userLastName, String userEmail);
+
+    //state of an accepted user, empty for an unknown (or expired) ticket
+    public Optional<UserTicket> findTicket(long ticket);
+
+}
@@ -0,0 +1,282 @@
+package com.schimmerCreative.admin_panel.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.schimmerCreative.admin_panel.model.BulkItemResult;
+import com.schimmerCreative.admin_panel.model.BulkItemStatus;
+import com.schimmerCreative.admin_panel.model.User;
+import com.schimmerCreative.admin_panel.model.UserResponse;
+import com.schimmerCreative.admin_panel.model.UserTicket;
+import com.schimmerCreative.admin_panel.repository.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/*
+Write-behind mode of POST /users for signup bursts (admin-panel.write-behind.enabled=true, off by default).
+
+The request thread only appends the user to the local journal (UserJournal, a memory-mapped file, no database round trip)
+and answers 202 Accepted with a ticket. One drainer thread (user-write-behind) takes up to
+admin-panel.write-behind.batch-size users from the queue and inserts them with one JDBC batch
+through UserBulkService, then marks them done in the journal and sets the state of their tickets.
+
+- restart: the users still pending in the journal are queued again before new ones are accepted.
+  A user inserted just before a crash (but not marked done) meets its own row: a CONFLICT of a replayed user
+  whose email belongs to a user with the same names counts as CREATED.
+- backpressure: at most admin-panel.write-behind.queue-capacity users wait, a full queue (or a full journal)
+  refuses new users with RejectedExecutionException (503 for the client) instead of growing without bound
+- outage: the users of a batch the bulk service could not write (NOT_WRITTEN, the database is not reachable,
+  also when it went away after the first chunks of a batch larger than admin-panel.bulk.chunk-size)
+  stay pending in the journal and are retried after admin-panel.write-behind.retry-delay-ms
+- tickets are kept for admin-panel.write-behind.ticket-retention after their last change
+
+The users are not in GET /users (nor in the suggest index or the change feed) before the drainer wrote them.
+*/
+@org.springframework.stereotype.Service
+@ConditionalOnProperty(name = "admin-panel.write-behind.enabled", havingValue = "true")
+public class UserWriteBehindServiceImpl implements UserWriteBehindService {
+
+    static final Logger log = LoggerFactory.getLogger(UserWriteBehindServiceImpl.class);
+
+    UserBulkService userBulkService;
+
+    UserRepository userRepository;
+
+    //all access synchronized on the journal
+    final UserJournal journal;
+
+    final BlockingQueue<QueuedUser> queue;
+
+    final Cache<Long, UserTicket> tickets;
+
+    final int batchSize;
+
+    final long retryDelayMillis;
+
+    final Thread drainer;
+
+    volatile boolean running = true;
+
+    //a user in the queue, position is its record in the journal
+    record QueuedUser(long ticket, int position, User user, boolean replayed) {
+    }
+
+    //methods
+
+    @Override
+    public UserTicket submitUser(String userFirstName, String userLastName, String userEmail) {
+
+        if (userFirstName == null || userLastName == null || userEmail == null) {
+            throw new IllegalArgumentException("userFirstName, userLastName and userEmail are required");
+        }
+        User user = new User(0, userFirstName, userLastName, userEmail);
+
+        QueuedUser queued;
+        synchronized (journal) {
+            //checked under the lock, only the drainer takes from the queue, so the offer below cannot fail
+            if (queue.remainingCapacity() == 0) {
+                throw new RejectedExecutionException("write-behind queue is full");
+            }
+            long ticket = journal.nextTicket();
+            int position = journal.append(ticket, user);
+            if (position < 0) {
+                throw new RejectedExecutionException("write-behind journal is full");
+            }
+            queued = new QueuedUser(ticket, position, user, false);
+            queue.add(queued);
+        }
+
+        UserTicket accepted = new UserTicket(queued.ticket(), UserTicket.Status.PENDING, null, null);
+        tickets.put(accepted.getTicket(), accepted);
+        return accepted;
+    }
+
+    @Override
+    public Optional<UserTicket> findTicket(long ticket) {
+        return Optional.ofNullable(tickets.getIfPresent(ticket));
+    }
+
+    @PostConstruct
+    public void start() {
+        drainer.start();
+    }
+
+    void drain() {
+
+        List<QueuedUser> batch = new ArrayList<>(batchSize);
+        while (running || !batch.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    QueuedUser first = queue.poll(1, TimeUnit.SECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                }
+
+                if (writeBatch(batch)) {
+                    batch.clear();
+                } else if (running) {
+                    //batch holds the users that are still pending
+                    Thread.sleep(retryDelayMillis);
+                } else {
+                    //shutting down, the batch stays pending in the journal for the next start
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                if (!running) {
+                    batch.clear();
+                }
+            }
+        }
+    }
+
+    //false when users of the batch could not be written (database not reachable), only these stay in batch to be retried
+    boolean writeBatch(List<QueuedUser> batch) {
+
+        List<User> users = new ArrayList<>(batch.size());
+        for (QueuedUser queued : batch) {
+            users.add(queued.user());
+        }
+        List<BulkItemResult> results;
+        try {
+            results = userBulkService.createUsers(users).getItems();
+        } catch (RuntimeException e) {
+            log.warn("write-behind batch failed users={}, retrying in {} ms", batch.size(), retryDelayMillis, e);
+            return false;
+        }
+
+        List<QueuedUser> notWritten = new ArrayList<>();
+        String reason = null;
+        for (BulkItemResult result : results) {
+            QueuedUser queued = batch.get(result.getIndex());
+            if (result.getStatus() == BulkItemStatus.NOT_WRITTEN) {
+                //durably journaled, stays pending until the database is back
+                notWritten.add(queued);
+                reason = result.getMessage();
+                continue;
+            }
+            UserTicket ticket = toTicket(queued, result);
+            synchronized (journal) {
+                journal.markDone(queued.position());
+            }
+            tickets.put(ticket.getTicket(), ticket);
+        }
+        if (!notWritten.isEmpty()) {
+            log.warn("write-behind could not write users={} of {}, retrying in {} ms: {}",
+                    notWritten.size(), batch.size(), retryDelayMillis, reason);
+            batch.clear();
+            batch.addAll(notWritten);
+            return false;
+        }
+        log.debug("write-behind batch written users={}", batch.size());
+        return true;
+    }
+
+    UserTicket toTicket(QueuedUser queued, BulkItemResult result) {
+
+        if (result.getStatus() == BulkItemStatus.CREATED) {
+            return new UserTicket(queued.ticket(), UserTicket.Status.CREATED, result.getId(), null);
+        }
+        if (result.getStatus() == BulkItemStatus.CONFLICT) {
+            if (queued.replayed()) {
+                //inserted before the crash, only the done mark was lost
+                User user = queued.user();
+                Optional<UserResponse> existing = userRepository.findByUserEmail(user.getUserEmail());
+                if (existing.isPresent() && Objects.equals(existing.get().userFirstName(), user.getUserFirstName())
+                        && Objects.equals(existing.get().userLastName(), user.getUserLastName())) {
+                    return new UserTicket(queued.ticket(), UserTicket.Status.CREATED, existing.get().id(), null);
+                }
+            }
+            return new UserTicket(queued.ticket(), UserTicket.Status.CONFLICT, null, result.getMessage());
+        }
+        return new UserTicket(queued.ticket(), UserTicket.Status.FAILED, result.getId(), result.getMessage());
+    }
+
+    int pendingUsers() {
+        synchronized (journal) {
+            return journal.pendingRecords();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException, InterruptedException {
+        running = false;
+        //lets the drainer finish the batch it is writing, users still in the queue are replayed at the next start
+        drainer.join(TimeUnit.SECONDS.toMillis(10));
+        synchronized (journal) {
+            log.info("write-behind stopped, pending users={}", journal.pendingRecords());
+            journal.close();
+        }
+    }
+
+
+    /*
+    constructor
+    */
+    @Autowired
+    public UserWriteBehindServiceImpl(UserBulkService userBulkService, UserRepository userRepository, MeterRegistry meterRegistry,
+                                      @Value("${admin-panel.write-behind.journal-file:data/user-journal.dat}") Path journalFile,
+                                      @Value("${admin-panel.write-behind.journal-size-mb:16}") int journalSizeMb,
+                                      @Value("${admin-panel.write-behind.force-writes:false}") boolean forceWrites,
+                                      @Value("${admin-panel.write-behind.queue-capacity:10000}") int queueCapacity,
+                                      @Value("${admin-panel.write-behind.batch-size:500}") int batchSize,
+                                      @Value("${admin-panel.write-behind.retry-delay-ms:1000}") long retryDelayMillis,
+                                      @Value("${admin-panel.write-behind.ticket-retention:1h}") Duration ticketRetention) {
+
+        this.userBulkService = userBulkService;
+        this.userRepository = userRepository;
+        this.batchSize = batchSize;
+        this.retryDelayMillis = retryDelayMillis;
+        this.tickets = Caffeine.newBuilder().expireAfterWrite(ticketRetention).maximumSize(1_000_000).build();
+
+        //one mapped buffer, at most Integer.MAX_VALUE bytes
+        long journalBytes = journalSizeMb * 1024L * 1024L;
+        if (journalSizeMb < 1 || journalBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("admin-panel.write-behind.journal-size-mb must be between 1 and 2047, not " + journalSizeMb);
+        }
+        try {
+            this.journal = new UserJournal(journalFile, (int) journalBytes, forceWrites);
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot open the write-behind journal " + journalFile, e);
+        }
+
+        //the replayed users always fit, even when the configured capacity is smaller than what the journal holds
+        List<UserJournal.PendingRecord> pending = journal.pendingAtOpen;
+        this.queue = new ArrayBlockingQueue<>(Math.max(queueCapacity, pending.size() + 1));
+        for (UserJournal.PendingRecord record : pending) {
+            queue.add(new QueuedUser(record.ticket(), record.position(), record.user(), true));
+            tickets.put(record.ticket(), new UserTicket(record.ticket(), UserTicket.Status.PENDING, null, null));
+        }
+        if (!pending.isEmpty()) {
+            log.info("write-behind replaying pending users={} from {}", pending.size(), journalFile);
+        }
+
+        Gauge.builder("users.write_behind.pending", this, UserWriteBehindServiceImpl::pendingUsers)
+                .description("Users accepted by POST /users in write-behind mode and not yet written to the database")
+                .register(meterRegistry);
+
+        this.drainer = new Thread(this::drain, "user-write-behind");
+        this.drainer.setDaemon(true);
+    }
+}
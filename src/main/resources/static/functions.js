@@ -17,6 +17,14 @@ This method is clean and easy to read.
 */
 
 //to fold javascript comments on intellij --> strg and + and . (control plus period)
+
+/*
+ETag of every user read with retrieveUser(), by id.
+modifyUser() sends it back as If-Match: the server only updates a user nobody changed in the meantime
+and answers 412 otherwise, instead of silently overwriting the other change.
+*/
+const userETags = {};
+
 /* PUT method
 */
 async function modifyUser(){
@@ -50,7 +58,10 @@ async function modifyUser(){
 
         //so not use placeholder, use the id from the label form input field
         method: "PUT", //put for Update
-        headers: {
+        headers: userETags[id] ? {
+          'Content-Type': 'application/json',
+          'If-Match': userETags[id]
+        } : {
           'Content-Type': 'application/json'
         },
 
@@ -73,8 +84,16 @@ async function modifyUser(){
 
     if (response.ok) {
 
+              //the new version, for the next update of the same user
+              userETags[id] = response.headers.get('ETag');
+
               const jsonResponse = await response.json().then(data => {
-                                           populateUserTable(data)
+                                           //only the row of this user is patched when the list is shown
+                                           if (tableShowsUserList) {
+                                               updateUserInTable(data);
+                                           } else {
+                                               populateUserTable(data);
+                                           }
               });
 
               //temp logging
@@ -83,6 +102,15 @@ async function modifyUser(){
 
               alert("temporary alert, modified user correctly");
 
+            } else if (response.status === 409) {
+              //409 Conflict: the email belongs to another user
+              alert("this email is already used by another user");
+
+            } else if (response.status === 412) {
+              //412 Precondition Failed: someone else changed the user since it was read
+              delete userETags[id];
+              alert("this user was changed in the meantime, read it again (retrieveUser) before updating");
+
             } else {
               throw new Error(`Update failed with status: ${response.status}`);
             }
@@ -123,7 +151,7 @@ Correction: Use .value to correctly retrieve input values from form fields.
 /*You've set a constant URL using template literals, although in this case,
 it is unnecessary as the URL does not vary. Still, it is correctly formatted.
 */
-    const url = `/users`; // Correct use of template literals
+    const url = `/users?format=columns`; // Correct use of template literals
 
     const userData = {
 
@@ -144,11 +172,23 @@ it is unnecessary as the URL does not vary. Still, it is correctly formatted.
 
             });
 
+      //202 Accepted: write-behind mode, the user is queued and written to the database shortly after
+        if (response.status === 202) {
+
+                      const ticket = await response.json();
+                      console.log('function addUser, queued user, ticket: ', ticket);
+                      alert(`user queued, state at ${response.headers.get('Location')}`);
+
       //OK (status 200-299)
-        if (response.ok) {
+        } else if (response.ok) {
 
                       const jsonResponse = await response.json().then(data => {
-                                                   populateUserTable(data)
+                                                   //one row is added to the shown list, nothing is read again
+                                                   if (tableShowsUserList) {
+                                                       insertUserInTable(data);
+                                                   } else {
+                                                       populateUserTable(data);
+                                                   }
                       });
 
                       //temp logging
@@ -158,6 +198,15 @@ it is unnecessary as the URL does not vary. Still, it is correctly formatted.
 
                     alert("temporary alert, added user correctly");
 
+         } else if (response.status === 409) {
+
+               alert("this email is already used by another user");
+
+         } else if (response.status === 503) {
+
+               //write-behind queue is full
+               alert("too many new users right now, please try again in a moment");
+
          } else {
 
                throw new Error(`Update failed with status: ${response.status}`);
@@ -195,6 +244,10 @@ async function removeUser(){
                     A simpler UI element like a status message or alert might be appropriate.
                     */
 
+                    //the row of the user leaves the table, the other rows stay as they are
+                    removeUserFromTable(Number(id));
+                    delete userETags[id];
+
                     //temp logging
                     let statusLog = jsonResponse;
                     console.log('function removeUser, deleted User successfully: ', statusLog);
@@ -252,6 +305,8 @@ It is typically used to retrieve data from the server based on the URL.
       //OK (status 200-299)
     if (response.ok) {
 
+          userETags[id] = response.headers.get('ETag');
+
           const jsonResponse = await response.json().then(data => {
                                        populateUserTable(data)
           });
@@ -324,39 +379,29 @@ https://developer.mozilla.org/en-US/docs/Web/JavaScript/Guide/Using_promises
         that cell to the value of the attribute.
     */
 
-        //Clearing the Table:
-        document.getElementById('tBody').innerHTML = '';
-
-            //for(let i = 0; i < userArray.length; i++){
-
-                        const tBody = document.getElementById('tBody');
-                        //create a new row
-                        const tr = document.createElement('tr');
+        //a single user is not the list, the change feed does not append created users to it
+        tableShowsUserList = false;
+        nextUsersCursor = null;
 
-                            const tdId = document.createElement('td');
-                            tdId.textContent = user.id;
-                            tr.appendChild(tdId);
+        //the table shows only this user (see the virtualized table below)
+        showUsersInTable([user]);
 
-                            const tdUserFirstName = document.createElement('td');
-                            tdUserFirstName.textContent = user.userFirstName;
-                            tr.appendChild(tdUserFirstName);
-
-                            const tdUserLastName = document.createElement('td');
-                            tdUserLastName.textContent = user.userLastName;
-                            tr.appendChild(tdUserLastName);
+}//end of populateUserTable
 
-                            const tdUserEmail = document.createElement('td');
-                            tdUserEmail.textContent = user.userEmail;
-                            tr.appendChild(tdUserEmail);
 
-                                tBody.appendChild(tr);
-
-                    //}
-}//end of populateUserTable
 
 
 
+/*
+GET /users is paginated with a cursor (keyset pagination on the id),
+the response is { users: [...], nextCursor: <id or null>, limit: <n> }.
+nextCursor is kept here and sent back as ?after= by retrieveMoreUsers()
 
+The table asks for ?format=columns, the same page with one array per property
+{ count, nextCursor, limit, id: [...], userFirstName: [...], ... }, smaller and faster to parse,
+populateAllUsersTable and appendUsersToTable take both forms.
+*/
+let nextUsersCursor = null;
 
 /* Get Method is not implemented in Controller, Service, UserService
 Maybe is automatically findAll in the JPA Repository?
@@ -372,7 +417,7 @@ async function retrieveAllUsers(){
 /*You've set a constant URL using template literals, although in this case,
 it is unnecessary as the URL does not vary. Still, it is correctly formatted.
 */
-    const url = `/users`; // Correct use of template literals
+    const url = `/users?format=columns`; // Correct use of template literals
 
         const response = await fetch(url, {
 
@@ -404,7 +449,9 @@ It is typically used to retrieve data from the server based on the URL.
            use the .then from the promise to call the function to populate the table
            */
           const jsonResponse = await response.json().then(data => {
+                                       nextUsersCursor = data.nextCursor;
                                        populateAllUsersTable(data)
+                                       tableShowsUserList = true;
 
           });
 
@@ -451,12 +498,103 @@ https://developer.mozilla.org/en-US/docs/Web/JavaScript/Reference/Global_Objects
 }//retrieveAllUsers
 
 
+/*
+reads the next page after the last row in the table and appends it,
+does nothing when the previous page was the last one.
+Called by the "Load more" button and by the table itself when it is scrolled near its last loaded row,
+only one page is requested at a time, and a page that arrives after the list was replaced is dropped.
+*/
+let loadingMoreUsers = false;
+
+async function retrieveMoreUsers(){
+
+    if (nextUsersCursor === null) {
+        console.log('function retrieveMoreUsers, no more users to load');
+        return;
+    }
+    if (loadingMoreUsers) {
+        return;
+    }
+
+    const url = `/users?format=columns&after=${nextUsersCursor}`;
+    const generation = userListGeneration;
+
+    loadingMoreUsers = true;
+    try {
+
+        const response = await fetch(url, { method: "GET" });
+
+        if (response.ok) {
+
+              const page = await response.json();
+              if (generation === userListGeneration) {
+                  nextUsersCursor = page.nextCursor;
+                  appendUsersToTable(page);
+              }
+
+            } else {
+              throw new Error(`Update failed with status: ${response.status}`);
+            }
+
+    } finally {
+        loadingMoreUsers = false;
+    }
+
+}//retrieveMoreUsers
+
+
+/*
+type-ahead search: the request is only sent when the user stopped typing for SUGGEST_DEBOUNCE_MS,
+typing "mustermann" sends one request instead of ten.
+A slow answer to an older query must not replace the answer to a newer one,
+so only the answer to the latest query is shown.
+*/
+const SUGGEST_DEBOUNCE_MS = 200;
+let suggestTimer = null;
+let latestSuggestQuery = null;
+
+function suggestUsersDebounced(){
+
+    clearTimeout(suggestTimer);
+    suggestTimer = setTimeout(suggestUsers, SUGGEST_DEBOUNCE_MS);
+
+}//suggestUsersDebounced
+
+async function suggestUsers(){
+
+    const query = document.getElementById('search').value.trim();
+    latestSuggestQuery = query;
+
+    if (query === '') {
+        clearTable();
+        return;
+    }
+
+    const response = await fetch(`/users/suggest?q=${encodeURIComponent(query)}`, { method: "GET" });
+
+    if (response.ok) {
+
+          const users = await response.json();
+          if (query === latestSuggestQuery) {
+              //the suggestions are not a page of GET /users, "Load more" has nothing to continue
+              nextUsersCursor = null;
+              populateAllUsersTable(users);
+              tableShowsUserList = false;
+          }
+
+        } else {
+          throw new Error(`Suggest failed with status: ${response.status}`);
+        }
+
+}//suggestUsers
+
+
 /*
 function to populate the tables
 This function takes an array of user objects as its parameter.
 Its job is to clear the existing entries in the table and repopulate it based on the array provided.
 */
-function populateAllUsersTable (users) { //array of user objects
+function populateAllUsersTable (users) { //array of user objects or a page of GET /users?format=columns
 
     console.log("function populateUsersTable, usersObject: ", users);
 
@@ -495,46 +633,275 @@ https://developer.mozilla.org/en-US/docs/Web/JavaScript/Guide/Using_promises
         that cell to the value of the attribute.
     */
 
-        //Clearing the Table:
-        document.getElementById('tBody').innerHTML = '';
+        if (!Array.isArray(users)) {
+            users = usersFromColumns(users);
+        }
+
+        //the table shows these users from the first row on
+        showUsersInTable(users);
+
+}//end of populateAllUsersTable
+
+
+//appends the users at the end of the list, used for every next page, only the visible rows get a <tr>
+function appendUsersToTable (users) { //array of user objects or a page of GET /users?format=columns
+
+        if (!Array.isArray(users)) {
+            users = usersFromColumns(users);
+        }
 
         for(let i = 0; i < users.length; i++){
 
-            const tBody = document.getElementById('tBody');
-            //create a new row
+                    shownUsers.push(users[i]);
+
+        }
+        scheduleRenderUserRows();
+
+}//end of appendUsersToTable
+
+
+//user objects of a columnar page: the user at index i is id[i], userFirstName[i], ...
+function usersFromColumns (columns) {
+
+        const users = new Array(columns.count);
+        for(let i = 0; i < columns.count; i++){
+            users[i] = {
+                id: columns.id[i],
+                userFirstName: columns.userFirstName[i],
+                userLastName: columns.userLastName[i],
+                userEmail: columns.userEmail[i],
+                version: columns.version[i],
+                updatedAt: columns.updatedAt[i]
+            };
+        }
+        return users;
+
+}//end of usersFromColumns
+
+
+/*
+Virtualized table: with tens of thousands of users a <tr> per user makes the page freeze for seconds
+(creating the rows, then layout and style of all of them on every change).
+Instead the users are kept in the array shownUsers, and only the rows visible in the scrolling
+<div id="tableViewport"> (plus USER_ROWS_OVERSCAN above and below) exist in the document.
+Two spacer rows above and below them are as high as the rows that are not rendered,
+so the scrollbar has the size and position of the whole list.
+
+Every row has the same height (USER_ROW_HEIGHT, fixed in admin-style.css), the first visible user is
+scrollTop / USER_ROW_HEIGHT, no row has to be measured.
+Scrolling reuses the <tr> elements already rendered and only rewrites the cells whose user changed,
+at most once per animation frame.
+When the last loaded row comes near the viewport, the next page is read (retrieveMoreUsers) while scrolling.
+
+https://developer.mozilla.org/en-US/docs/Web/API/Window/requestAnimationFrame
+*/
+const USER_ROW_HEIGHT = 37;   //px, the same as #tBody tr in admin-style.css
+const USER_ROWS_OVERSCAN = 10;
+//the next page is read when fewer loaded rows than this are left below the viewport
+const USER_ROWS_PREFETCH = 50;
+
+let shownUsers = [];
+//replacing the list changes the generation, a page of an older list that arrives late is dropped
+let userListGeneration = 0;
+let renderedUserRows = [];
+let renderUserRowsScheduled = false;
+
+function showUsersInTable (users) {
+
+        shownUsers = users;
+        userListGeneration++;
+        loadingMoreUsers = false;
+        document.getElementById('tableViewport').scrollTop = 0;
+        scheduleRenderUserRows();
+
+}//end of showUsersInTable
+
+function scheduleRenderUserRows () {
+
+        if (!renderUserRowsScheduled) {
+            renderUserRowsScheduled = true;
+            requestAnimationFrame(renderUserRows);
+        }
+
+}//end of scheduleRenderUserRows
+
+function renderUserRows () {
+
+        renderUserRowsScheduled = false;
+
+        const viewport = document.getElementById('tableViewport');
+        const tBody = document.getElementById('tBody');
+        const topSpacer = document.getElementById('tableTopSpacer');
+        const bottomSpacer = document.getElementById('tableBottomSpacer');
+
+        //index of the first and after the last rendered user
+        const first = Math.max(0, Math.floor(viewport.scrollTop / USER_ROW_HEIGHT) - USER_ROWS_OVERSCAN);
+        const last = Math.min(shownUsers.length,
+                Math.ceil((viewport.scrollTop + viewport.clientHeight) / USER_ROW_HEIGHT) + USER_ROWS_OVERSCAN);
+        const count = Math.max(0, last - first);
+
+        topSpacer.style.height = `${first * USER_ROW_HEIGHT}px`;
+        bottomSpacer.style.height = `${(shownUsers.length - first - count) * USER_ROW_HEIGHT}px`;
+
+        //as many <tr> as visible rows, created or removed only when the viewport shows more or fewer rows
+        while (renderedUserRows.length < count) {
             const tr = document.createElement('tr');
+            tBody.insertBefore(tr, bottomSpacer);
+            renderedUserRows.push(tr);
+        }
+        while (renderedUserRows.length > count) {
+            renderedUserRows.pop().remove();
+        }
+
+        for(let i = 0; i < count; i++){
+            const user = shownUsers[first + i];
+            const tr = renderedUserRows[i];
+            //a row that already shows this user object is left alone
+            if (tr.shownUser !== user) {
+                tr.shownUser = user;
+                tr.dataset.userId = user.id;
+                fillUserRow(tr, user);
+            }
+        }
 
-                    const tdId = document.createElement('td');
-                    tdId.textContent = users[i].id;
-                    tr.appendChild(tdId);
+        if (nextUsersCursor !== null && shownUsers.length - last < USER_ROWS_PREFETCH) {
+            retrieveMoreUsers();
+        }
 
-                    const tdUserFirstName = document.createElement('td');
-                    tdUserFirstName.textContent = users[i].userFirstName;
-                    tr.appendChild(tdUserFirstName);
+}//end of renderUserRows
 
-                    const tdUserLastName = document.createElement('td');
-                    tdUserLastName.textContent = users[i].userLastName;
-                    tr.appendChild(tdUserLastName);
+function fillUserRow (tr, user) {
+
+            //the four cells are created once per <tr>, afterwards only their text changes
+            if (tr.cells.length !== 4) {
+                tr.innerHTML = '';
+                for(let i = 0; i < 4; i++){
+                    tr.appendChild(document.createElement('td'));
+                }
+            }
 
-                    const tdUserEmail = document.createElement('td');
-                    tdUserEmail.textContent = users[i].userEmail;
-                    tr.appendChild(tdUserEmail);
+                    tr.cells[0].textContent = user.id;
+                    tr.cells[1].textContent = user.userFirstName;
+                    tr.cells[2].textContent = user.userLastName;
+                    tr.cells[3].textContent = user.userEmail;
 
+}//end of fillUserRow
 
-                    tBody.appendChild(tr);
 
+/*
+changes of single users patch the list and at most one row instead of rendering the table again,
+used by addUser(), modifyUser(), removeUser() and the change feed
+*/
+function indexOfShownUser (id) {
+    return shownUsers.findIndex(user => user.id === id);
+}
+
+function updateUserInTable (user) {
+
+        const index = indexOfShownUser(user.id);
+        if (index < 0) {
+            return;
         }
+        shownUsers[index] = user;
 
-}//end of populateAllUsersTable
+        const tr = userRowOf(user.id);
+        if (tr !== null) {
+            tr.shownUser = user;
+            fillUserRow(tr, user);
+        }
 
+}//end of updateUserInTable
 
+//a new user has the highest id: it is appended when the list is loaded up to its end, otherwise it comes with the last page
+function insertUserInTable (user) {
 
+        if (tableShowsUserList && nextUsersCursor === null && indexOfShownUser(user.id) < 0) {
+            shownUsers.push(user);
+            scheduleRenderUserRows();
+        }
 
+}//end of insertUserInTable
 
+function removeUserFromTable (id) {
 
-function clearTable (){
+        const index = indexOfShownUser(id);
+        if (index >= 0) {
+            //the rows below move up by one, renderUserRows only rewrites the rendered rows
+            shownUsers.splice(index, 1);
+            scheduleRenderUserRows();
+        }
+
+}//end of removeUserFromTable
+
+
+/*
+Change feed: GET /users/changes is a server-sent event stream of every committed create, update and delete.
+Instead of reading the whole list again after a change (here or in another tab), only the changed row is patched:
+- updated: the user in the list is replaced, and the cells of its row if the row is rendered
+- deleted: the user leaves the list
+- created: a row is appended, but only when the table shows the list read with retrieveAllUsers() up to its end,
+  otherwise the new user belongs to a page that is not loaded yet
+- reset: the server no longer has the changes missed while disconnected, the list is read again once
+
+EventSource reconnects by itself and sends the id of the last event as Last-Event-ID, the server resumes after it.
+*/
+let tableShowsUserList = false;
+let userChanges = null;
 
-        //Clearing the Table:
-        document.getElementById('tBody').innerHTML = '';
+//the rendered row of a user, null when the user is not shown or scrolled out of the viewport
+function userRowOf (id) {
+    return document.querySelector(`#tBody tr[data-user-id="${id}"]`);
 }
 
+function subscribeToUserChanges(){
+
+    if (userChanges !== null || typeof EventSource === 'undefined') {
+        return;
+    }
+
+    userChanges = new EventSource('/users/changes');
+
+    userChanges.addEventListener('updated', event => {
+        const change = JSON.parse(event.data);
+        updateUserInTable(change.user);
+    });
+
+    userChanges.addEventListener('deleted', event => {
+        const change = JSON.parse(event.data);
+        removeUserFromTable(change.id);
+        delete userETags[change.id];
+    });
+
+    userChanges.addEventListener('created', event => {
+        const change = JSON.parse(event.data);
+        insertUserInTable(change.user);
+    });
+
+    userChanges.addEventListener('reset', () => {
+        console.log('function subscribeToUserChanges, missed changes, reading the list again');
+        if (tableShowsUserList) {
+            retrieveAllUsers();
+        }
+    });
+
+}//subscribeToUserChanges
+
+document.getElementById('tableViewport').addEventListener('scroll', scheduleRenderUserRows, { passive: true });
+//a taller window shows more rows
+window.addEventListener('resize', scheduleRenderUserRows);
+
+subscribeToUserChanges();
+
+
+
+
+
+
+function clearTable (){
+
+        tableShowsUserList = false;
+        nextUsersCursor = null;
+
+        //Clearing the Table: no users, the spacers and the rendered rows follow
+        showUsersInTable([]);
+}
@@ -0,0 +1,59 @@
+package com.schimmerCreative.admin_panel.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+The pool of application.properties is the one in use (also with the H2 database of profile "test")
+and publishes its metrics, including the slow acquisition counter of ConnectionPoolConfig.
+*/
+@SpringBootTest
+@ActiveProfiles("test")
+class ConnectionPoolMetricsTests {
+
+	@Autowired
+	DataSource dataSource;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	@Test
+	void poolIsConfiguredFromApplicationProperties() throws Exception {
+		HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+
+		assertEquals("admin-panel-pool", hikari.getPoolName());
+		assertEquals(10, hikari.getMaximumPoolSize());
+		assertEquals(60000, hikari.getLeakDetectionThreshold());
+		assertInstanceOf(ConnectionPoolConfig.SlowAcquireMetricsTrackerFactory.class, hikari.getMetricsTrackerFactory());
+	}
+
+	@Test
+	void poolPublishesGaugesTimersAndSlowAcquireCounter() {
+		for (int i = 0; i < 20; i++) {
+			jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+		}
+
+		Timer acquire = meterRegistry.get("hikaricp.connections.acquire").tag("pool", "admin-panel-pool").timer();
+		assertTrue(acquire.count() >= 20);
+		assertNotNull(meterRegistry.get("hikaricp.connections.active").tag("pool", "admin-panel-pool").gauge());
+		assertNotNull(meterRegistry.get("hikaricp.connections.idle").tag("pool", "admin-panel-pool").gauge());
+		assertNotNull(meterRegistry.get("hikaricp.connections.pending").tag("pool", "admin-panel-pool").gauge());
+		assertNotNull(meterRegistry.get("hikaricp.connections.acquire.slow").tag("pool", "admin-panel-pool").counter());
+	}
+}
@@ -0,0 +1,66 @@
+package com.schimmerCreative.admin_panel.config;
+
+import com.schimmerCreative.admin_panel.controller.UserController;
+import com.schimmerCreative.admin_panel.model.User;
+import com.schimmerCreative.admin_panel.model.UserChange;
+import com.schimmerCreative.admin_panel.model.UserResponse;
+import com.schimmerCreative.admin_panel.service.UserWriteBehindServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+Profile "fast-start": the beans are lazy except the write-behind service, the application answers as usual
+(the H2 dialect instead of the MySQL one of the profile, Hibernate reads no JDBC metadata at boot).
+The runtime hints of the native image cover the entity, the query projection and the change feed events.
+*/
+@SpringBootTest(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+@AutoConfigureMockMvc
+@ActiveProfiles({"test", "fast-start"})
+class FastStartTests {
+
+	@Autowired
+	MockMvc mockMvc;
+
+	@Autowired
+	ConfigurableApplicationContext applicationContext;
+
+	@Autowired
+	LazyInitializationExcludeFilter eagerUserBeans;
+
+	@Test
+	void beansAreLazyAndTheApplicationAnswers() throws Exception {
+		assertTrue(applicationContext.getBeanFactory().getBeanDefinition("userController").isLazyInit());
+		assertTrue(eagerUserBeans.isExcluded("userWriteBehindServiceImpl", null, UserWriteBehindServiceImpl.class));
+		assertFalse(eagerUserBeans.isExcluded("userController", null, UserController.class));
+
+		mockMvc.perform(get("/users").param("limit", "5"))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void nativeImageHintsCoverEntityAndModels() {
+		RuntimeHints hints = new RuntimeHints();
+		new NativeHintsConfig.UserRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+		assertTrue(RuntimeHintsPredicates.reflection().onType(User.class)
+				.withMemberCategories(MemberCategory.DECLARED_FIELDS, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS).test(hints));
+		assertTrue(RuntimeHintsPredicates.reflection().onType(UserResponse.class)
+				.withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS).test(hints));
+		assertTrue(RuntimeHintsPredicates.reflection().onMethod(UserChange.class, "getSequence").test(hints));
+		assertTrue(RuntimeHintsPredicates.resource().forResource("hibernate-l2cache.conf").test(hints));
+	}
+}
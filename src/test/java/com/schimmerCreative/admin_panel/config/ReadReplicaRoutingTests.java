@@ -0,0 +1,147 @@
+package com.schimmerCreative.admin_panel.config;
+
+import com.schimmerCreative.admin_panel.model.User;
+import com.schimmerCreative.admin_panel.model.UserResponse;
+import com.schimmerCreative.admin_panel.service.UserService;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Connection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+Routing to read replicas with two more embedded H2 databases standing in for the replicas.
+Nothing replicates between them: a row copied to the replicas with other names shows which database answered,
+the copy stands in for a replica that has not applied the write yet.
+*/
+@SpringBootTest(properties = {
+		"admin-panel.replicas.enabled=true",
+		"admin-panel.replicas.urls=jdbc:h2:mem:replica_a;MODE=MySQL;DB_CLOSE_DELAY=-1;INIT=RUNSCRIPT FROM 'classpath:replica-schema.sql',"
+				+ "jdbc:h2:mem:replica_b;MODE=MySQL;DB_CLOSE_DELAY=-1;INIT=RUNSCRIPT FROM 'classpath:replica-schema.sql'"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReadReplicaRoutingTests {
+
+	@Autowired
+	MockMvc mockMvc;
+
+	@Autowired
+	UserService userService;
+
+	@Autowired
+	ReplicaDataSource replicaDataSource;
+
+	@Autowired
+	HikariDataSource primaryDataSource;
+
+	@Autowired
+	CacheManager cacheManager;
+
+	@BeforeEach
+	void emptyReplicas() {
+		for (HikariDataSource replica : replicaDataSource.replicas) {
+			new JdbcTemplate(replica).update("DELETE FROM user_data_table");
+		}
+		cacheManager.getCache(CacheConfig.USERS_CACHE).clear();
+	}
+
+	@Test
+	void readOnlyTransactionsReadFromReplicasWritesGoToPrimary() {
+		User created = userService.createUser("Primary", "Row", "primary@replica.example.com");
+		copyToReplicas(created.getId(), "Replica");
+
+		assertEquals("Replica", userService.findUserByEmail("copy@replica.example.com").orElseThrow().userFirstName());
+		//the cache is only filled from the primary
+		assertEquals("Primary", userService.findUserById(created.getId()).orElseThrow().userFirstName());
+
+		userService.updateUser("Updated", "Row", "primary@replica.example.com", created.getId());
+		assertEquals("Updated", new JdbcTemplate(primaryDataSource).queryForObject(
+				"SELECT user_first_name FROM user_data_table WHERE id = ?", String.class, created.getId()));
+		for (HikariDataSource replica : replicaDataSource.replicas) {
+			assertEquals("Replica", new JdbcTemplate(replica).queryForObject(
+					"SELECT user_first_name FROM user_data_table WHERE id = ?", String.class, created.getId()));
+		}
+	}
+
+	@Test
+	void clientReadsItsOwnWriteFromThePrimary() throws Exception {
+		int id = userService.createUser("Primary", "Row", "ryw@replica.example.com").getId();
+		copyToReplicas(id, "Replica");
+
+		Cookie cookie = mockMvc.perform(put("/users/" + id).contentType(MediaType.APPLICATION_JSON)
+						.content("{\"userFirstName\":\"Written\",\"userLastName\":\"Row\",\"userEmail\":\"ryw@replica.example.com\"}"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getCookie(ReadYourWritesFilter.COOKIE_NAME);
+		assertNotNull(cookie);
+		assertEquals(5, cookie.getMaxAge());
+
+		mockMvc.perform(get("/users/" + id).cookie(cookie))
+				.andExpect(jsonPath("$.userFirstName").value("Written"));
+
+		//without the cookie the other reads go to the replicas again
+		mockMvc.perform(get("/users/search").param("email", "copy@replica.example.com"))
+				.andExpect(jsonPath("$[0].userFirstName").value("Replica"));
+	}
+
+	@Test
+	void replicaRowNeverFillsTheCacheAfterAWrite() throws Exception {
+		int id = userService.createUser("Primary", "Row", "cached@replica.example.com").getId();
+		copyToReplicas(id, "Replica");
+
+		Cookie cookie = mockMvc.perform(put("/users/" + id).contentType(MediaType.APPLICATION_JSON)
+						.content("{\"userFirstName\":\"Written\",\"userLastName\":\"Row\",\"userEmail\":\"cached@replica.example.com\"}"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getCookie(ReadYourWritesFilter.COOKIE_NAME);
+
+		//another client misses the cache first, without the cookie
+		mockMvc.perform(get("/users/" + id))
+				.andExpect(jsonPath("$.userFirstName").value("Written"));
+		assertEquals("Written", ((UserResponse) cacheManager.getCache(CacheConfig.USERS_CACHE).get(id).get()).userFirstName());
+
+		//the writer gets its write from the cache
+		mockMvc.perform(get("/users/" + id).cookie(cookie))
+				.andExpect(jsonPath("$.userFirstName").value("Written"));
+	}
+
+	@Test
+	void balancesOverTheReplicas() throws Exception {
+		try (Connection first = replicaDataSource.getConnection(); Connection second = replicaDataSource.getConnection()) {
+			assertNotEquals(first.getMetaData().getURL(), second.getMetaData().getURL());
+		}
+
+		ReplicaDataSource leastConnections = new ReplicaDataSource(primaryDataSource, replicaDataSource.replicas,
+				ReplicaDataSource.Balancing.LEAST_CONNECTIONS);
+		//replica_a has a connection in use, replica_b none
+		try (Connection busy = replicaDataSource.replicas.get(0).getConnection()) {
+			for (int i = 0; i < 3; i++) {
+				try (Connection connection = leastConnections.getConnection()) {
+					assertEquals("jdbc:h2:mem:replica_b", connection.getMetaData().getURL());
+				}
+			}
+		}
+	}
+
+	void copyToReplicas(int id, String firstName) {
+		for (HikariDataSource replica : replicaDataSource.replicas) {
+			new JdbcTemplate(replica).update("INSERT INTO user_data_table (id, user_first_name, user_last_name, user_email, version, updated_at)"
+					+ " VALUES (?, ?, 'Row', 'copy@replica.example.com', 0, CURRENT_TIMESTAMP)", id, firstName);
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package com.schimmerCreative.admin_panel.config;
+
+import com.schimmerCreative.admin_panel.model.User;
+import com.schimmerCreative.admin_panel.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.Advisor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.Ordered;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+Read-through cache of findUserById: a read fills the cache, an update or a delete evicts the id,
+the next read has the new row. The cache advice is outside the transaction advice (the eviction follows the commit),
+and the cache metrics of the users cache are registered.
+*/
+@SpringBootTest
+@ActiveProfiles("test")
+class UserCacheTests {
+
+	@Autowired
+	UserService userService;
+
+	@Autowired
+	CacheManager cacheManager;
+
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	@Autowired
+	ApplicationContext applicationContext;
+
+	@Test
+	void writesEvictTheCachedUser() {
+		Cache usersCache = cacheManager.getCache(CacheConfig.USERS_CACHE);
+		int id = userService.createUser("Cached", "Before", "cached@cache.example.com").getId();
+
+		assertEquals("Before", userService.findUserById(id).orElseThrow().userLastName());
+		assertNotNull(usersCache.get(id));
+
+		userService.updateUser("Cached", "After", "cached@cache.example.com", id);
+		assertNull(usersCache.get(id));
+		assertEquals("After", userService.findUserById(id).orElseThrow().userLastName());
+		assertNotNull(usersCache.get(id));
+
+		userService.deleteUser(id);
+		assertNull(usersCache.get(id));
+		assertThrows(jakarta.persistence.EntityNotFoundException.class, () -> userService.findUserById(id));
+	}
+
+	@Test
+	void cacheAdviceWrapsTheTransaction() {
+		int cacheOrder = ((Ordered) applicationContext.getBean("org.springframework.cache.config.internalCacheAdvisor", Advisor.class)).getOrder();
+		int transactionOrder = ((Ordered) applicationContext.getBean("org.springframework.transaction.config.internalTransactionAdvisor", Advisor.class)).getOrder();
+
+		//lower order = outer advice: the eviction runs after the transaction advice has committed
+		assertTrue(cacheOrder < transactionOrder, cacheOrder + " < " + transactionOrder);
+	}
+
+	@Test
+	void cacheMetricsAreRegistered() {
+		User user = userService.createUser("Cached", "Metrics", "metrics@cache.example.com");
+		userService.findUserById(user.getId());
+		userService.findUserById(user.getId());
+
+		assertTrue(meterRegistry.get("cache.gets").tag("cache", CacheConfig.USERS_CACHE).tag("result", "hit").functionCounter().count() >= 1);
+		assertTrue(meterRegistry.get("cache.gets").tag("cache", CacheConfig.USERS_CACHE).tag("result", "miss").functionCounter().count() >= 1);
+	}
+}
@@ -0,0 +1,153 @@
+package com.schimmerCreative.admin_panel.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+Token buckets and the adaptive concurrency limit on a fake clock, and the limiter in front of the endpoints:
+a client over the rate of GET /users?all=true gets 429 with Retry-After, another client is still served,
+and an X-Forwarded-For the client sends itself does not give it another bucket.
+*/
+@SpringBootTest(properties = {
+		"admin-panel.rate-limit.enabled=true",
+		"admin-panel.rate-limit.heavy-requests-per-second=0.01",
+		"admin-panel.rate-limit.heavy-burst=2"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UserRateLimitTests {
+
+	@Autowired
+	MockMvc mockMvc;
+
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	@Test
+	void bucketAdmitsBurstThenRate() {
+		AtomicLong now = new AtomicLong();
+		TokenBuckets buckets = new TokenBuckets(10, 3, Duration.ofMinutes(1), 100, now::get);
+
+		//a full bucket: three requests at once, the fourth waits one interval (100 ms)
+		assertEquals(0, buckets.tryAcquire("a"));
+		assertEquals(0, buckets.tryAcquire("a"));
+		assertEquals(0, buckets.tryAcquire("a"));
+		assertEquals(TimeUnit.MILLISECONDS.toNanos(100), buckets.tryAcquire("a"));
+		//another key has its own bucket
+		assertEquals(0, buckets.tryAcquire("b"));
+
+		now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+		assertEquals(0, buckets.tryAcquire("a"));
+		assertTrue(buckets.tryAcquire("a") > 0);
+
+		//after a long pause the bucket is full again, not fuller
+		now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+		for (int i = 0; i < 3; i++) {
+			assertEquals(0, buckets.tryAcquire("a"));
+		}
+		assertTrue(buckets.tryAcquire("a") > 0);
+	}
+
+	@Test
+	void concurrencyLimitShrinksOnSlowRequestsAndGrowsOnFastOnes() {
+		AtomicLong now = new AtomicLong();
+		long threshold = TimeUnit.MILLISECONDS.toNanos(100);
+		AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(4, 2, 8, threshold, 0.5, now::get);
+
+		for (int i = 0; i < 4; i++) {
+			assertTrue(limit.tryAcquire());
+		}
+		assertFalse(limit.tryAcquire());
+		assertEquals(4, limit.inFlight());
+
+		//two slow answers at the same time halve the limit once
+		limit.release(2 * threshold, true);
+		limit.release(2 * threshold, true);
+		assertEquals(2, limit.limit());
+		//not below the minimum
+		now.addAndGet(threshold);
+		limit.release(2 * threshold, true);
+		assertEquals(2, limit.limit());
+		//a request that was not sampled (heavy or asynchronous) only leaves
+		limit.release(2 * threshold, false);
+		assertEquals(0, limit.inFlight());
+
+		//fast answers while the limit is used grow it back
+		for (int round = 0; round < 10; round++) {
+			int admitted = 0;
+			while (limit.tryAcquire()) {
+				admitted++;
+			}
+			for (int i = 0; i < admitted; i++) {
+				limit.release(threshold / 10, true);
+			}
+		}
+		assertTrue(limit.limit() > 2);
+		assertTrue(limit.limit() <= 8);
+	}
+
+	@Test
+	void clientOverTheRateOfHeavyEndpointGetsTooManyRequests() throws Exception {
+		String client = "203.0.113.21";
+		double limited = count("UserController.retrieveAllUsers", "rate_limited");
+
+		mockMvc.perform(get("/users").param("all", "true").with(from(client)))
+				.andExpect(status().isOk());
+		mockMvc.perform(get("/users").param("all", "true").with(from(client)))
+				.andExpect(status().isOk());
+		mockMvc.perform(get("/users").param("all", "true").with(from(client)))
+				.andExpect(status().isTooManyRequests())
+				.andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+
+		//another client and another endpoint of the same client have their own buckets
+		mockMvc.perform(get("/users").param("all", "true").with(from("203.0.113.22")))
+				.andExpect(status().isOk());
+		mockMvc.perform(get("/users").with(from(client)))
+				.andExpect(status().isOk());
+
+		assertEquals(limited + 1, count("UserController.retrieveAllUsers", "rate_limited"));
+		assertTrue(count("UserController.retrieveAllUsers", "admitted") >= 3);
+		assertEquals(0, meterRegistry.get("users.limiter.concurrency.in_flight").gauge().value());
+		meterRegistry.get("users.limiter.concurrency.limit").gauge();
+	}
+
+	@Test
+	void forwardedForSentByTheClientIsNotAnotherClient() throws Exception {
+		String client = "203.0.113.31";
+		mockMvc.perform(get("/users").param("all", "true").with(from(client)).header("X-Forwarded-For", "198.51.100.1"))
+				.andExpect(status().isOk());
+		mockMvc.perform(get("/users").param("all", "true").with(from(client)).header("X-Forwarded-For", "198.51.100.2"))
+				.andExpect(status().isOk());
+		mockMvc.perform(get("/users").param("all", "true").with(from(client)).header("X-Forwarded-For", "198.51.100.3"))
+				.andExpect(status().isTooManyRequests());
+	}
+
+	static RequestPostProcessor from(String remoteAddress) {
+		return request -> {
+			request.setRemoteAddr(remoteAddress);
+			return request;
+		};
+	}
+
+	double count(String endpoint, String outcome) {
+		var counter = meterRegistry.find("users.limiter.requests").tag("endpoint", endpoint).tag("outcome", outcome).counter();
+		return counter == null ? 0 : counter.count();
+	}
+}
@@ -0,0 +1,67 @@
+package com.schimmerCreative.admin_panel.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+A user_data_table from before soft delete (no deleted_at, no deleted_email, user_email NOT NULL),
+in a database of its own: the migration adds what is missing, once, and with migrate=false the start fails instead.
+*/
+class UserSchemaMigrationTests {
+
+	final JdbcTemplate jdbcTemplate = new JdbcTemplate(
+			new DriverManagerDataSource("jdbc:h2:mem:legacy_schema;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+
+	@BeforeEach
+	void createLegacyTable() {
+		jdbcTemplate.execute("CREATE TABLE user_data_table (id int NOT NULL AUTO_INCREMENT PRIMARY KEY,"
+				+ " user_first_name varchar(255), user_last_name varchar(255), user_email varchar(255) NOT NULL,"
+				+ " version bigint, updated_at datetime(6), CONSTRAINT uk_user_email UNIQUE (user_email))");
+		jdbcTemplate.update("INSERT INTO user_data_table (user_first_name, user_last_name, user_email) VALUES ('Legacy', 'User', 'legacy@example.com')");
+	}
+
+	@AfterEach
+	void dropTable() {
+		jdbcTemplate.execute("DROP TABLE IF EXISTS user_data_table");
+	}
+
+	@Test
+	void legacyTableGetsTheSoftDeleteColumns() {
+		UserSchemaMigration migration = new UserSchemaMigration(jdbcTemplate, true);
+		assertEquals(4, migration.missingStatements().size());
+
+		migration.afterPropertiesSet();
+
+		assertTrue(migration.missingStatements().isEmpty());
+		assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_data_table WHERE deleted_at IS NULL", Integer.class));
+		jdbcTemplate.update("UPDATE user_data_table SET deleted_at = CURRENT_TIMESTAMP, deleted_email = user_email, user_email = NULL");
+		assertEquals("legacy@example.com", jdbcTemplate.queryForObject("SELECT deleted_email FROM user_data_table", String.class));
+
+		//a second start finds nothing to do
+		migration.afterPropertiesSet();
+	}
+
+	@Test
+	void checkOnlyFailsTheStartAndNamesTheStatements() {
+		IllegalStateException failure = assertThrows(IllegalStateException.class,
+				() -> new UserSchemaMigration(jdbcTemplate, false).afterPropertiesSet());
+
+		assertTrue(failure.getMessage().contains("ADD COLUMN deleted_at"), failure.getMessage());
+		assertTrue(failure.getMessage().contains("MODIFY user_email"), failure.getMessage());
+		assertEquals(4, new UserSchemaMigration(jdbcTemplate, false).missingStatements().size());
+	}
+
+	@Test
+	void missingTableIsLeftAlone() {
+		dropTable();
+
+		assertTrue(new UserSchemaMigration(jdbcTemplate, false).missingStatements().isEmpty());
+	}
+}
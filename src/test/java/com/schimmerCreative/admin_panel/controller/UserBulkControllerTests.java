@@ -0,0 +1,171 @@
+package com.schimmerCreative.admin_panel.controller;
+
+import com.schimmerCreative.admin_panel.model.BulkItemStatus;
+import com.schimmerCreative.admin_panel.model.BulkResult;
+import com.schimmerCreative.admin_panel.model.User;
+import com.schimmerCreative.admin_panel.service.UserBulkServiceImpl;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+/users/bulk with JSON arrays and NDJSON bodies, chunks of 3 items and at most 6 items per request:
+one result per item (CONFLICT, NOT_FOUND, INVALID next to the written ones), 413 above the limit,
+a refused chunk written again item by item, and no item by item retry when the database is not reachable.
+*/
+@SpringBootTest(properties = {"admin-panel.bulk.chunk-size=3", "admin-panel.bulk.max-items=6"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UserBulkControllerTests {
+
+	@Autowired
+	MockMvc mockMvc;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	CacheManager cacheManager;
+
+	@Autowired
+	EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	ApplicationEventPublisher eventPublisher;
+
+	@Test
+	void jsonCreateUpdateDeleteWithResultsPerItem() throws Exception {
+		mockMvc.perform(post("/users/bulk").contentType(MediaType.APPLICATION_JSON).content("["
+						+ UserSearchControllerTests.userJson("Bulk", "One", "one@bulk.example.com") + ","
+						+ UserSearchControllerTests.userJson("Bulk", "Two", "two@bulk.example.com") + ","
+						+ UserSearchControllerTests.userJson("Bulk", "Again", "one@bulk.example.com") + ","
+						+ "{\"userFirstName\":\"Bulk\"}]"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.total").value(4))
+				.andExpect(jsonPath("$.succeeded").value(2))
+				.andExpect(jsonPath("$.items[0].status").value("CREATED"))
+				.andExpect(jsonPath("$.items[1].status").value("CREATED"))
+				.andExpect(jsonPath("$.items[2].status").value("CONFLICT"))
+				.andExpect(jsonPath("$.items[3].status").value("INVALID"));
+
+		int one = idOf("one@bulk.example.com");
+		int two = idOf("two@bulk.example.com");
+
+		mockMvc.perform(put("/users/bulk").contentType(MediaType.APPLICATION_JSON).content("["
+						+ "{\"id\":" + one + ",\"userFirstName\":\"Bulk\",\"userLastName\":\"Changed\",\"userEmail\":\"one@bulk.example.com\"},"
+						+ "{\"id\":" + two + ",\"userFirstName\":\"Bulk\",\"userLastName\":\"Two\",\"userEmail\":\"one@bulk.example.com\"},"
+						+ "{\"id\":" + Integer.MAX_VALUE + ",\"userFirstName\":\"Bulk\",\"userLastName\":\"None\",\"userEmail\":\"none@bulk.example.com\"}]"))
+				.andExpect(jsonPath("$.items[0].status").value("UPDATED"))
+				.andExpect(jsonPath("$.items[1].status").value("CONFLICT"))
+				.andExpect(jsonPath("$.items[2].status").value("NOT_FOUND"));
+		assertEquals("Changed", jdbcTemplate.queryForObject("SELECT user_last_name FROM user_data_table WHERE id = ?", String.class, one));
+
+		mockMvc.perform(delete("/users/bulk").contentType(MediaType.APPLICATION_JSON).content("[" + one + "," + Integer.MAX_VALUE + "]"))
+				.andExpect(jsonPath("$.items[0].status").value("DELETED"))
+				.andExpect(jsonPath("$.items[1].status").value("NOT_FOUND"));
+	}
+
+	@Test
+	void ndjsonBodies() throws Exception {
+		mockMvc.perform(post("/users/bulk").contentType(MediaType.APPLICATION_NDJSON).content(
+						UserSearchControllerTests.userJson("Nd", "One", "one@ndjson.example.com") + "\n"
+								+ UserSearchControllerTests.userJson("Nd", "Two", "two@ndjson.example.com") + "\n"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.items", hasSize(2)))
+				.andExpect(jsonPath("$.succeeded").value(2));
+
+		int one = idOf("one@ndjson.example.com");
+		mockMvc.perform(put("/users/bulk").contentType(MediaType.APPLICATION_NDJSON).content(
+						"{\"id\":" + one + ",\"userFirstName\":\"Nd\",\"userLastName\":\"Changed\",\"userEmail\":\"one@ndjson.example.com\"}\n"))
+				.andExpect(jsonPath("$.items[0].status").value("UPDATED"));
+		mockMvc.perform(delete("/users/bulk").contentType(MediaType.APPLICATION_NDJSON).content(one + "\n" + idOf("two@ndjson.example.com") + "\n"))
+				.andExpect(jsonPath("$.succeeded").value(2));
+	}
+
+	@Test
+	void moreThanMaxItemsIsPayloadTooLarge() throws Exception {
+		mockMvc.perform(delete("/users/bulk").contentType(MediaType.APPLICATION_JSON).content("[1,2,3,4,5,6,7]"))
+				.andExpect(status().isPayloadTooLarge());
+		mockMvc.perform(delete("/users/bulk").contentType(MediaType.APPLICATION_NDJSON).content("1\n2\n3\n4\n5\n6\n7\n"))
+				.andExpect(status().isPayloadTooLarge());
+		mockMvc.perform(post("/users/bulk").contentType(MediaType.APPLICATION_JSON).content("[{"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void refusedChunkIsWrittenItemByItem() throws Exception {
+		//the first chunk has a value too long for the column, its other two items are written alone
+		mockMvc.perform(post("/users/bulk").contentType(MediaType.APPLICATION_JSON).content("["
+						+ UserSearchControllerTests.userJson("Chunk", "One", "one@chunk.example.com") + ","
+						+ UserSearchControllerTests.userJson("Chunk", "x".repeat(300), "long@chunk.example.com") + ","
+						+ UserSearchControllerTests.userJson("Chunk", "Three", "three@chunk.example.com") + ","
+						+ UserSearchControllerTests.userJson("Chunk", "Four", "four@chunk.example.com") + "]"))
+				.andExpect(jsonPath("$.items[0].status").value("CREATED"))
+				.andExpect(jsonPath("$.items[1].status").value("FAILED"))
+				.andExpect(jsonPath("$.items[2].status").value("CREATED"))
+				.andExpect(jsonPath("$.items[3].status").value("CREATED"));
+		assertEquals(3, jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM user_data_table WHERE user_email LIKE '%@chunk.example.com'", Integer.class));
+	}
+
+	@Test
+	void unreachableDatabaseFailsWithoutRetryPerItem() {
+		AtomicInteger connectionAttempts = new AtomicInteger();
+		AbstractDataSource unreachable = new AbstractDataSource() {
+			@Override
+			public Connection getConnection() throws SQLException {
+				connectionAttempts.incrementAndGet();
+				throw new SQLException("Connection refused", "08001");
+			}
+
+			@Override
+			public Connection getConnection(String username, String password) throws SQLException {
+				return getConnection();
+			}
+		};
+		UserBulkServiceImpl bulkService = new UserBulkServiceImpl(new JdbcTemplate(unreachable), new DataSourceTransactionManager(unreachable),
+				cacheManager, entityManagerFactory, eventPublisher, 3, true);
+
+		BulkResult result = bulkService.createUsers(List.of(
+				new User(0, "Down", "One", "one@down.example.com"),
+				new User(0, "Down", "Two", "two@down.example.com"),
+				new User(0, "Down", "Three", "three@down.example.com"),
+				new User(0, "Down", "Four", "four@down.example.com")));
+
+		//one attempt for the first chunk, then the request ends
+		assertEquals(1, connectionAttempts.get());
+		assertEquals(4, result.getFailed());
+		result.getItems().forEach(item -> {
+			assertEquals(BulkItemStatus.NOT_WRITTEN, item.getStatus());
+			assertTrue(item.getMessage().startsWith("not written"), item.getMessage());
+		});
+	}
+
+	int idOf(String email) {
+		return jdbcTemplate.queryForObject("SELECT id FROM user_data_table WHERE user_email = ?", Integer.class, email);
+	}
+}
@@ -0,0 +1,102 @@
+package com.schimmerCreative.admin_panel.controller;
+
+import com.schimmerCreative.admin_panel.model.User;
+import com.schimmerCreative.admin_panel.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+/*
+GET /users/changes: committed writes arrive as created, updated and deleted events in order,
+a reconnecting client gets the changes after its Last-Event-ID, an unknown id gets a reset event.
+*/
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UserChangeFeedControllerTests {
+
+	@Autowired
+	MockMvc mockMvc;
+
+	@Autowired
+	UserService userService;
+
+	@Test
+	void streamsAndReplaysChanges() throws Exception {
+		MockHttpServletResponse live = subscribe(null);
+		String position = lastEventId(awaitContent(live, "event:sync"));
+
+		User created = userService.createUser("Margaret", "Hamilton", "margaret.hamilton@feed.example.com");
+		userService.updateUser("Margaret", "Hamilton", "m.hamilton@feed.example.com", created.getId());
+		userService.deleteUser(created.getId());
+
+		String events = awaitContent(live, "event:deleted");
+		assertInOrder(events, created.getId());
+		assertTrue(events.contains("m.hamilton@feed.example.com"));
+
+		//a client that was disconnected after the sync event gets the same three changes
+		String replayed = awaitContent(subscribe(position), "event:deleted");
+		assertInOrder(replayed, created.getId());
+		assertFalse(replayed.contains("event:sync"));
+	}
+
+	@Test
+	void unknownLastEventIdGetsReset() throws Exception {
+		awaitContent(subscribe("1:42"), "event:reset");
+		awaitContent(subscribe("not-an-id"), "event:reset");
+	}
+
+	MockHttpServletResponse subscribe(String lastEventId) throws Exception {
+		var request = get("/users/changes");
+		if (lastEventId != null) {
+			request.header("Last-Event-ID", lastEventId);
+		}
+		return mockMvc.perform(request).andExpect(request().asyncStarted()).andReturn().getResponse();
+	}
+
+	//the stream never ends, wait for the expected event instead of the end of the response
+	static String awaitContent(MockHttpServletResponse response, String expected) throws Exception {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (true) {
+			String content = response.getContentAsString();
+			if (content.contains(expected)) {
+				return content;
+			}
+			if (System.currentTimeMillis() > deadline) {
+				throw new AssertionError("no " + expected + " in " + content);
+			}
+			Thread.sleep(10);
+		}
+	}
+
+	static String lastEventId(String content) {
+		Matcher matcher = Pattern.compile("id:(\\S+)").matcher(content);
+		String id = null;
+		while (matcher.find()) {
+			id = matcher.group(1);
+		}
+		return id;
+	}
+
+	static void assertInOrder(String events, int userId) {
+		String idField = "\"id\":" + userId + ",";
+		int created = events.indexOf("event:created");
+		int updated = events.indexOf("event:updated");
+		int deleted = events.indexOf("event:deleted");
+		assertTrue(created >= 0 && created < updated && updated < deleted, events);
+		assertTrue(events.indexOf(idField, created) < updated, events);
+		assertTrue(events.indexOf(idField, deleted) > deleted, events);
+	}
+}
@@ -0,0 +1,162 @@
+package com.schimmerCreative.admin_panel.controller;
+
+import com.schimmerCreative.admin_panel.model.User;
+import com.schimmerCreative.admin_panel.service.UserBulkService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+ETag / Last-Modified on GET /users/{id} and GET /users, If-None-Match answers 304,
+If-Match on PUT /users/{id} (one tag or a list) refuses an update of a changed user with 412.
+*/
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UserConditionalRequestTests {
+
+	@Autowired
+	MockMvc mockMvc;
+
+	@Autowired
+	UserBulkService userBulkService;
+
+	@Autowired
+	EntityManagerFactory entityManagerFactory;
+
+	@Test
+	void unchangedUserIsNotModifiedWithoutQueryOrBody() throws Exception {
+		int id = createUser("etag.user@conditional.example.com");
+
+		MvcResult first = mockMvc.perform(get("/users/" + id))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"" + id + "-0\""))
+				.andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+				.andExpect(jsonPath("$.version").value(0))
+				.andReturn();
+		String eTag = first.getResponse().getHeader(HttpHeaders.ETAG);
+
+		//the user is in the cache now, the 304 needs no statement
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		long statementsBefore = statistics.getPrepareStatementCount();
+		mockMvc.perform(get("/users/" + id).header(HttpHeaders.IF_NONE_MATCH, eTag))
+				.andExpect(status().isNotModified())
+				.andExpect(content().string(""));
+		assertEquals(statementsBefore, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void ifMatchGivesOptimisticConcurrency() throws Exception {
+		int id = createUser("if.match@conditional.example.com");
+		String eTag = mockMvc.perform(get("/users/" + id)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		//first writer with the current version wins and gets the next version
+		String newETag = mockMvc.perform(put("/users/" + id).header(HttpHeaders.IF_MATCH, eTag)
+						.contentType(MediaType.APPLICATION_JSON).content(userJson("first", "if.match@conditional.example.com")))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.version").value(1))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertEquals("\"" + id + "-1\"", newETag);
+
+		//second writer still has the old version
+		mockMvc.perform(put("/users/" + id).header(HttpHeaders.IF_MATCH, eTag)
+						.contentType(MediaType.APPLICATION_JSON).content(userJson("second", "if.match@conditional.example.com")))
+				.andExpect(status().isPreconditionFailed());
+		mockMvc.perform(put("/users/" + id).header(HttpHeaders.IF_MATCH, "\"" + (id + 1) + "-1\"")
+						.contentType(MediaType.APPLICATION_JSON).content(userJson("third", "if.match@conditional.example.com")))
+				.andExpect(status().isPreconditionFailed());
+
+		mockMvc.perform(get("/users/" + id))
+				.andExpect(header().string(HttpHeaders.ETAG, newETag))
+				.andExpect(jsonPath("$.userFirstName").value("first"));
+	}
+
+	@Test
+	void ifMatchAcceptsAListOfTags() throws Exception {
+		int id = createUser("if.match.list@conditional.example.com");
+		mockMvc.perform(put("/users/" + id).header(HttpHeaders.IF_MATCH, "\"" + id + "-0\"")
+						.contentType(MediaType.APPLICATION_JSON).content(userJson("first", "if.match.list@conditional.example.com")))
+				.andExpect(status().isOk());
+
+		//the current version is the second tag of the list
+		mockMvc.perform(put("/users/" + id).header(HttpHeaders.IF_MATCH, "\"" + id + "-0\", \"" + id + "-1\"")
+						.contentType(MediaType.APPLICATION_JSON).content(userJson("second", "if.match.list@conditional.example.com")))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"" + id + "-2\""));
+		//no tag of the list is current, a weak tag never matches
+		mockMvc.perform(put("/users/" + id).header(HttpHeaders.IF_MATCH, "\"" + id + "-0\", W/\"" + id + "-2\"")
+						.contentType(MediaType.APPLICATION_JSON).content(userJson("third", "if.match.list@conditional.example.com")))
+				.andExpect(status().isPreconditionFailed());
+
+		assertEquals(List.of(3L, 4L), UserETags.expectedVersions("\"5-3\", \"5-4\"", 5));
+		assertEquals(List.of(4L), UserETags.expectedVersions("W/\"5-3\",\"6-1\", \"5-4\"", 5));
+		assertEquals(List.of(3L), UserETags.expectedVersions("5-3", 5));
+		assertEquals(List.of(), UserETags.expectedVersions("\"p-abc\"", 5));
+		assertNull(UserETags.expectedVersions("*", 5));
+		assertNull(UserETags.expectedVersions(null, 5));
+	}
+
+	@Test
+	void everyWritePathChangesTheETags() throws Exception {
+		int id = createUser("page.etag@conditional.example.com");
+
+		String pageETag = mockMvc.perform(get("/users").param("after", String.valueOf(id - 1)).param("limit", "1"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertNotNull(pageETag);
+		mockMvc.perform(get("/users").param("after", String.valueOf(id - 1)).param("limit", "1")
+						.header(HttpHeaders.IF_NONE_MATCH, pageETag))
+				.andExpect(status().isNotModified());
+
+		//JDBC bulk update, version + 1
+		userBulkService.updateUsers(List.of(new User(id, "bulk", "Conditional", "page.etag@conditional.example.com")));
+
+		String changedPageETag = mockMvc.perform(get("/users").param("after", String.valueOf(id - 1)).param("limit", "1")
+						.header(HttpHeaders.IF_NONE_MATCH, pageETag))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertNotEquals(pageETag, changedPageETag);
+		mockMvc.perform(get("/users/" + id)).andExpect(header().string(HttpHeaders.ETAG, "\"" + id + "-1\""));
+
+		//single statement update without If-Match, version + 1
+		mockMvc.perform(put("/users/" + id).contentType(MediaType.APPLICATION_JSON)
+						.content(userJson("plain", "page.etag@conditional.example.com")))
+				.andExpect(status().isOk())
+				.andExpect(header().doesNotExist(HttpHeaders.ETAG));
+		mockMvc.perform(get("/users/" + id)).andExpect(header().string(HttpHeaders.ETAG, "\"" + id + "-2\""));
+	}
+
+	int createUser(String email) throws Exception {
+		String body = mockMvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON).content(userJson("Etag", email)))
+				.andExpect(status().isCreated())
+				.andReturn().getResponse().getContentAsString();
+		return Integer.parseInt(body.replaceAll(".*\"id\":(\\d+).*", "$1"));
+	}
+
+	static String userJson(String firstName, String email) {
+		return "{\"userFirstName\":\"" + firstName + "\",\"userLastName\":\"Conditional\",\"userEmail\":\"" + email + "\"}";
+	}
+}
@@ -0,0 +1,50 @@
+package com.schimmerCreative.admin_panel.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+The endpoint timers (with histogram buckets for percentiles), the repository timers and the error outcomes
+are published in the Prometheus format under /actuator/prometheus.
+*/
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("test")
+class UserControllerMetricsTests {
+
+	@Autowired
+	MockMvc mockMvc;
+
+	@Test
+	void endpointAndRepositoryMetricsAreScrapable() throws Exception {
+		mockMvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"userFirstName\":\"Ada\",\"userLastName\":\"Lovelace\",\"userEmail\":\"ada@example.com\"}"))
+				.andExpect(status().isCreated());
+		mockMvc.perform(get("/users").param("limit", "10")).andExpect(status().isOk());
+		mockMvc.perform(get("/users").param("limit", "0")).andExpect(status().isBadRequest());
+
+		String scrape = mockMvc.perform(get("/actuator/prometheus"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+
+		assertTrue(scrape.contains("http_server_requests_seconds_count{"), "endpoint timer");
+		assertTrue(scrape.contains("uri=\"/users\""), "endpoint tag");
+		assertTrue(scrape.contains("http_server_requests_seconds_bucket{"), "endpoint histogram");
+		assertTrue(scrape.contains("spring_data_repository_invocations_seconds_bucket{"), "repository histogram");
+		assertTrue(scrape.contains("outcome=\"CLIENT_ERROR\""), "error outcome");
+		assertTrue(scrape.contains("spring_data_repository_invocations_seconds_count{"), "repository timer");
+		assertTrue(scrape.contains("method=\"findPageAfterId\""), "repository method tag");
+	}
+}
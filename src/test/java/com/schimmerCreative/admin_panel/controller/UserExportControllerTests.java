@@ -0,0 +1,121 @@
+package com.schimmerCreative.admin_panel.controller;
+
+import com.schimmerCreative.admin_panel.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+GET /users/export: one line per visible user in NDJSON and CSV (after the header line),
+gzip only when Accept-Encoding accepts it (q-values), 400 for an unknown format.
+*/
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UserExportControllerTests {
+
+	@Autowired
+	MockMvc mockMvc;
+
+	@Autowired
+	UserService userService;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Test
+	void ndjsonHasOneLinePerUser() throws Exception {
+		userService.createUser("Export", "Json", "json@export.example.com");
+
+		MockHttpServletResponse response = export(get("/users/export"));
+		List<String> lines = response.getContentAsString(StandardCharsets.UTF_8).lines().toList();
+
+		assertTrue(response.getContentType().startsWith("application/x-ndjson"), response.getContentType());
+		assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+		assertEquals(visibleUsers(), lines.size());
+		assertTrue(lines.stream().anyMatch(line -> line.contains("\"userEmail\":\"json@export.example.com\"")));
+	}
+
+	@Test
+	void csvHasAHeaderAndQuotedFields() throws Exception {
+		userService.createUser("Export, Quoted", "Csv \"Q\"", "csv@export.example.com");
+
+		MockHttpServletResponse response = export(get("/users/export").param("format", "CSV"));
+		List<String> lines = response.getContentAsString(StandardCharsets.UTF_8).lines().toList();
+
+		assertTrue(response.getContentType().startsWith("text/csv"), response.getContentType());
+		assertEquals("id,user_first_name,user_last_name,user_email", lines.get(0));
+		assertEquals(visibleUsers() + 1, lines.size());
+		assertTrue(lines.stream().anyMatch(line -> line.endsWith(",\"Export, Quoted\",\"Csv \"\"Q\"\"\",csv@export.example.com")));
+	}
+
+	@Test
+	void gzipOnlyWhenAccepted() throws Exception {
+		userService.createUser("Export", "Gzip", "gzip@export.example.com");
+
+		MockHttpServletResponse response = export(get("/users/export").header(HttpHeaders.ACCEPT_ENCODING, "br, gzip;q=0.5"));
+		assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+		try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+			String body = new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+			assertEquals(visibleUsers(), body.lines().count());
+			assertTrue(body.contains("gzip@export.example.com"));
+		}
+
+		//q=0 refuses gzip, also when * would accept it
+		assertNull(export(get("/users/export").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, *")).getHeader(HttpHeaders.CONTENT_ENCODING));
+		assertNull(export(get("/users/export").header(HttpHeaders.ACCEPT_ENCODING, "identity")).getHeader(HttpHeaders.CONTENT_ENCODING));
+	}
+
+	@Test
+	void acceptEncodingIsParsedWithQualities() {
+		assertTrue(UserExportController.acceptsGzip("gzip"));
+		assertTrue(UserExportController.acceptsGzip("deflate, GZIP ; q=0.1"));
+		assertTrue(UserExportController.acceptsGzip("*"));
+		assertFalse(UserExportController.acceptsGzip(null));
+		assertFalse(UserExportController.acceptsGzip("gzip;q=0"));
+		assertFalse(UserExportController.acceptsGzip("gzip;q=0.0, br"));
+		assertFalse(UserExportController.acceptsGzip("*;q=0"));
+		assertFalse(UserExportController.acceptsGzip("br, deflate"));
+	}
+
+	@Test
+	void unknownFormatIsBadRequest() throws Exception {
+		mockMvc.perform(get("/users/export").param("format", "xml"))
+				.andExpect(status().isBadRequest());
+	}
+
+	MockHttpServletResponse export(MockHttpServletRequestBuilder request) throws Exception {
+		MvcResult result = mockMvc.perform(request)
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		return mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isOk())
+				.andReturn().getResponse();
+	}
+
+	int visibleUsers() {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_data_table WHERE deleted_at IS NULL", Integer.class);
+	}
+}
@@ -0,0 +1,88 @@
+package com.schimmerCreative.admin_panel.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.schimmerCreative.admin_panel.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+POST /users/imports answers 202 with the progress, the import runs in the background,
+GET /users/imports/{importId} follows it and GET /users/imports/{importId}/rejects has the rejected rows.
+*/
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UserImportControllerTests {
+
+	@Autowired
+	MockMvc mockMvc;
+
+	@Autowired
+	ObjectMapper objectMapper;
+
+	@Autowired
+	UserRepository userRepository;
+
+	@Test
+	void uploadedFileIsImportedInTheBackground() throws Exception {
+		String csv = """
+				user_email,user_first_name,user_last_name
+				katherine@upload.import.example.com,Katherine,Johnson
+				dorothy@upload.import.example.com,Dorothy,
+				""";
+
+		MvcResult accepted = mockMvc.perform(post("/users/imports").contentType("text/csv").content(csv))
+				.andExpect(status().isAccepted())
+				.andExpect(header().exists(HttpHeaders.LOCATION))
+				.andReturn();
+		String location = accepted.getResponse().getHeader(HttpHeaders.LOCATION);
+
+		JsonNode progress = null;
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (System.nanoTime() < deadline) {
+			progress = objectMapper.readTree(mockMvc.perform(get(location))
+					.andExpect(status().isOk())
+					.andReturn().getResponse().getContentAsString());
+			if (!progress.get("status").asText().equals("QUEUED") && !progress.get("status").asText().equals("RUNNING")) {
+				break;
+			}
+			Thread.sleep(20);
+		}
+
+		assertEquals("COMPLETED", progress.get("status").asText(), progress.toString());
+		assertEquals(1, progress.get("rowsImported").asLong());
+		assertEquals(1, progress.get("rowsRejected").asLong());
+		assertEquals(100, progress.get("percentDone").asInt());
+		assertTrue(userRepository.findByUserEmail("katherine@upload.import.example.com").isPresent());
+
+		String rejects = mockMvc.perform(get(location + "/rejects"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		assertTrue(rejects.contains("3,\"userFirstName, userLastName and userEmail are required\","), rejects);
+
+		mockMvc.perform(get("/users/imports/unknown-import"))
+				.andExpect(status().isNotFound());
+		mockMvc.perform(post("/users/imports/..%2Fsecret/resume"))
+				.andExpect(status().isNotFound());
+		mockMvc.perform(post(location + "/resume"))
+				.andExpect(status().isAccepted())
+				.andExpect(jsonPath("$.importId").value(progress.get("importId").asText()));
+	}
+}
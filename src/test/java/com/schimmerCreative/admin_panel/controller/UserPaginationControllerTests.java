@@ -0,0 +1,103 @@
+package com.schimmerCreative.admin_panel.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+Keyset pagination of GET /users: the after cursor and nextCursor (one row more than the limit is read),
+the lastName and emailPrefix filters (% and _ in the prefix match literally),
+and GET /users?all=true refused with 413 above admin-panel.users.max-unpaged-rows (1 here).
+*/
+@SpringBootTest(properties = "admin-panel.users.max-unpaged-rows=1")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UserPaginationControllerTests {
+
+	@Autowired
+	MockMvc mockMvc;
+
+	@Test
+	void pagesFollowTheCursor() throws Exception {
+		List<Integer> ids = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			ids.add(createUser("Page" + i, "Keyset", "page" + i + "@keyset.example.com"));
+		}
+
+		mockMvc.perform(get("/users").param("lastName", "Keyset").param("limit", "2"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.users", hasSize(2)))
+				.andExpect(jsonPath("$.users[0].id").value(ids.get(0)))
+				.andExpect(jsonPath("$.limit").value(2))
+				.andExpect(jsonPath("$.nextCursor").value(ids.get(1)));
+		mockMvc.perform(get("/users").param("lastName", "Keyset").param("limit", "2").param("after", String.valueOf(ids.get(1))))
+				.andExpect(jsonPath("$.users", hasSize(2)))
+				.andExpect(jsonPath("$.users[0].id").value(ids.get(2)))
+				.andExpect(jsonPath("$.nextCursor").value(ids.get(3)));
+		//the last page: no extra row, no cursor
+		mockMvc.perform(get("/users").param("lastName", "Keyset").param("limit", "2").param("after", String.valueOf(ids.get(3))))
+				.andExpect(jsonPath("$.users", hasSize(1)))
+				.andExpect(jsonPath("$.users[0].id").value(ids.get(4)))
+				.andExpect(jsonPath("$.nextCursor").doesNotExist());
+		//exactly limit rows left is the last page as well
+		mockMvc.perform(get("/users").param("lastName", "Keyset").param("limit", "3").param("after", String.valueOf(ids.get(1))))
+				.andExpect(jsonPath("$.users", hasSize(3)))
+				.andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+		mockMvc.perform(get("/users").param("limit", "0")).andExpect(status().isBadRequest());
+		mockMvc.perform(get("/users").param("limit", "501")).andExpect(status().isBadRequest());
+		mockMvc.perform(get("/users").param("after", "-1")).andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void emailPrefixMatchesWildcardsLiterally() throws Exception {
+		int underscore = createUser("Under", "Escape", "under_score@escape.example.com");
+		createUser("Under", "Escape", "underXscore@escape.example.com");
+		int percent = createUser("Percent", "Escape", "100%off@escape.example.com");
+		createUser("Percent", "Escape", "100xoff@escape.example.com");
+
+		mockMvc.perform(get("/users").param("emailPrefix", "under_"))
+				.andExpect(jsonPath("$.users", hasSize(1)))
+				.andExpect(jsonPath("$.users[0].id").value(underscore));
+		mockMvc.perform(get("/users").param("emailPrefix", "100%"))
+				.andExpect(jsonPath("$.users", hasSize(1)))
+				.andExpect(jsonPath("$.users[0].id").value(percent));
+
+		//both filters together
+		mockMvc.perform(get("/users").param("lastName", "Escape").param("emailPrefix", "under"))
+				.andExpect(jsonPath("$.users", hasSize(2)));
+		mockMvc.perform(get("/users").param("lastName", "Nobody").param("emailPrefix", "under"))
+				.andExpect(jsonPath("$.users", hasSize(0)))
+				.andExpect(jsonPath("$.nextCursor").doesNotExist());
+	}
+
+	@Test
+	void allUsersAboveTheCapIsPayloadTooLarge() throws Exception {
+		createUser("Unpaged", "One", "one@unpaged.example.com");
+		createUser("Unpaged", "Two", "two@unpaged.example.com");
+
+		mockMvc.perform(get("/users").param("all", "true"))
+				.andExpect(status().isPayloadTooLarge());
+	}
+
+	int createUser(String firstName, String lastName, String email) throws Exception {
+		String body = mockMvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON)
+						.content(UserSearchControllerTests.userJson(firstName, lastName, email)))
+				.andExpect(status().isCreated())
+				.andReturn().getResponse().getContentAsString();
+		return Integer.parseInt(body.replaceAll(".*\"id\":(\\d+).*", "$1"));
+	}
+}
@@ -0,0 +1,91 @@
+package com.schimmerCreative.admin_panel.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.schimmerCreative.admin_panel.model.User;
+import com.schimmerCreative.admin_panel.model.UserResponse;
+import com.schimmerCreative.admin_panel.repository.UserRepository;
+import com.schimmerCreative.admin_panel.service.UserService;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+The read endpoints answer UserResponse records: the JSON is the one the User entity had,
+and the read queries leave no managed entities in the persistence context.
+*/
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UserResponseTests {
+
+	@Autowired
+	MockMvc mockMvc;
+
+	@Autowired
+	ObjectMapper objectMapper;
+
+	@Autowired
+	UserService userService;
+
+	@Autowired
+	UserRepository userRepository;
+
+	@Autowired
+	EntityManager entityManager;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	@Test
+	void sameJsonAsTheEntity() throws Exception {
+		User user = new User(7, "Peter", "Mustermann", "pm@response.example.com");
+		user.setVersion(3L);
+		user.setUpdatedAt(Instant.parse("2024-09-20T10:15:30.123456Z"));
+		assertEquals(objectMapper.writeValueAsString(user), objectMapper.writeValueAsString(UserResponse.of(user)));
+
+		User withoutVersion = new User(8, "Erika", null, "em@response.example.com");
+		assertEquals(objectMapper.writeValueAsString(withoutVersion), objectMapper.writeValueAsString(UserResponse.of(withoutVersion)));
+	}
+
+	@Test
+	void retrieveUserAnswersTheStoredUser() throws Exception {
+		User created = userService.createUser("Rosalind", "Franklin", "rosalind@response.example.com");
+		UserResponse stored = userService.findUserById(created.getId()).orElseThrow();
+
+		mockMvc.perform(get("/users/" + created.getId()))
+				.andExpect(status().isOk())
+				.andExpect(content().json(objectMapper.writeValueAsString(stored), true));
+	}
+
+	@Test
+	void readQueriesDoNotManageEntities() {
+		userService.createUser("Lise", "Meitner", "lise@response.example.com");
+
+		TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+		readOnly.executeWithoutResult(status -> {
+			List<UserResponse> page = userRepository.findPageAfterId(0, null, null, Limit.of(50));
+			assertFalse(page.isEmpty());
+			userRepository.findByEmailPrefix("lise@", Limit.of(10));
+			userRepository.findResponseById(page.get(0).id());
+			assertEquals(0, entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+		});
+	}
+}
@@ -0,0 +1,108 @@
+package com.schimmerCreative.admin_panel.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+Unique email (409 instead of a second user with the same email) and GET /users/search,
+the search queries are checked to run on the indexes of user_data_table with the H2 query plan.
+*/
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UserSearchControllerTests {
+
+	@Autowired
+	MockMvc mockMvc;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Test
+	void duplicateEmailIsConflict() throws Exception {
+		createUser("Grace", "Hopper", "grace@search.example.com");
+		int otherId = createUser("Alan", "Turing", "alan@search.example.com");
+
+		mockMvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON)
+						.content(userJson("Grace", "Other", "grace@search.example.com")))
+				.andExpect(status().isConflict());
+		mockMvc.perform(put("/users/" + otherId).contentType(MediaType.APPLICATION_JSON)
+						.content(userJson("Alan", "Turing", "grace@search.example.com")))
+				.andExpect(status().isConflict());
+
+		//the user keeps the old email
+		mockMvc.perform(get("/users/search").param("email", "alan@search.example.com"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$", hasSize(1)))
+				.andExpect(jsonPath("$[0].id").value(otherId));
+	}
+
+	@Test
+	void searchByEmailPrefixAndByName() throws Exception {
+		createUser("Ada", "Byron", "ada.byron@prefix.example.com");
+		createUser("Annabella", "Byron", "annabella.byron@prefix.example.com");
+		createUser("George", "Byron", "george.byron@prefix.example.com");
+
+		mockMvc.perform(get("/users/search").param("emailPrefix", "a").param("limit", "500"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[?(@.userEmail == 'ada.byron@prefix.example.com')]", hasSize(1)));
+		mockMvc.perform(get("/users/search").param("emailPrefix", "annabella.byron@"))
+				.andExpect(jsonPath("$", hasSize(1)));
+
+		mockMvc.perform(get("/users/search").param("lastName", "Byron"))
+				.andExpect(jsonPath("$", hasSize(3)))
+				.andExpect(jsonPath("$[0].userFirstName").value("Ada"))
+				.andExpect(jsonPath("$[2].userFirstName").value("George"));
+		mockMvc.perform(get("/users/search").param("lastName", "Byron").param("firstNamePrefix", "An"))
+				.andExpect(jsonPath("$", hasSize(1)))
+				.andExpect(jsonPath("$[0].userFirstName").value("Annabella"));
+		mockMvc.perform(get("/users/search").param("email", "nobody@prefix.example.com"))
+				.andExpect(jsonPath("$", hasSize(0)));
+	}
+
+	@Test
+	void searchNeedsExactlyOneForm() throws Exception {
+		mockMvc.perform(get("/users/search")).andExpect(status().isBadRequest());
+		mockMvc.perform(get("/users/search").param("email", "a@b.c").param("lastName", "x")).andExpect(status().isBadRequest());
+		mockMvc.perform(get("/users/search").param("firstNamePrefix", "a")).andExpect(status().isBadRequest());
+		mockMvc.perform(get("/users/search").param("lastName", "x").param("limit", "0")).andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void searchQueriesUseTheIndexes() {
+		String emailPlan = jdbcTemplate.queryForObject(
+				"EXPLAIN SELECT * FROM user_data_table WHERE user_email LIKE 'ada%' ESCAPE '!' ORDER BY user_email", String.class);
+		String namePlan = jdbcTemplate.queryForObject(
+				"EXPLAIN SELECT * FROM user_data_table WHERE user_last_name = 'Byron' AND user_first_name LIKE 'A%' ESCAPE '!'"
+						+ " ORDER BY user_last_name, user_first_name, id", String.class);
+
+		assertTrue(emailPlan.toUpperCase().contains("UK_USER_EMAIL"), emailPlan);
+		assertTrue(namePlan.toUpperCase().contains("IDX_USER_LAST_FIRST"), namePlan);
+	}
+
+	int createUser(String firstName, String lastName, String email) throws Exception {
+		String body = mockMvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON)
+						.content(userJson(firstName, lastName, email)))
+				.andExpect(status().isCreated())
+				.andReturn().getResponse().getContentAsString();
+		return Integer.parseInt(body.replaceAll(".*\"id\":(\\d+).*", "$1"));
+	}
+
+	static String userJson(String firstName, String lastName, String email) {
+		return "{\"userFirstName\":\"" + firstName + "\",\"userLastName\":\"" + lastName + "\",\"userEmail\":\"" + email + "\"}";
+	}
+}
@@ -0,0 +1,101 @@
+package com.schimmerCreative.admin_panel.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.schimmerCreative.admin_panel.model.User;
+import com.schimmerCreative.admin_panel.service.UserBulkService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+GET /users on the wire, against the embedded Tomcat (not MockMvc, compression and HTTP/2 are done by the server):
+gzip for clients that accept it, h2c for clients that ask for it, and the columnar format with the same users as the pages.
+*/
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class UserWireFormatTests {
+
+	@LocalServerPort
+	int port;
+
+	@Autowired
+	UserBulkService userBulkService;
+
+	@Autowired
+	ObjectMapper objectMapper;
+
+	HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+	@BeforeEach
+	void enoughUsersForTheMinimumResponseSize() {
+		List<User> users = new ArrayList<>();
+		for (int i = 0; i < 60; i++) {
+			users.add(new User(0, "Wire" + i, "Format", "wire-" + System.nanoTime() + "-" + i + "@format.example.com"));
+		}
+		userBulkService.createUsers(users);
+	}
+
+	@Test
+	void gzipWhenTheClientAcceptsIt() throws Exception {
+		HttpResponse<byte[]> plain = httpClient.send(request("/users?limit=50").build(), HttpResponse.BodyHandlers.ofByteArray());
+		HttpResponse<InputStream> compressed = httpClient.send(request("/users?limit=50").header("Accept-Encoding", "gzip").build(),
+				HttpResponse.BodyHandlers.ofInputStream());
+
+		assertFalse(plain.headers().firstValue("Content-Encoding").isPresent());
+		assertEquals("gzip", compressed.headers().firstValue("Content-Encoding").orElse(null));
+		try (InputStream body = new GZIPInputStream(compressed.body())) {
+			assertEquals(objectMapper.readTree(plain.body()), objectMapper.readTree(body));
+		}
+	}
+
+	@Test
+	void http2WithoutTls() throws Exception {
+		HttpClient http2Client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_2).build();
+		HttpResponse<String> response = http2Client.send(request("/users?limit=5").build(), HttpResponse.BodyHandlers.ofString());
+
+		assertEquals(200, response.statusCode());
+		assertEquals(HttpClient.Version.HTTP_2, response.version());
+	}
+
+	@Test
+	void columnsHoldTheUsersOfThePage() throws Exception {
+		HttpResponse<String> page = httpClient.send(request("/users?limit=50").build(), HttpResponse.BodyHandlers.ofString());
+		HttpResponse<String> columns = httpClient.send(request("/users?limit=50&format=columns").build(), HttpResponse.BodyHandlers.ofString());
+
+		JsonNode users = objectMapper.readTree(page.body()).get("users");
+		JsonNode columnar = objectMapper.readTree(columns.body());
+		assertEquals(users.size(), columnar.get("count").asInt());
+		assertEquals(objectMapper.readTree(page.body()).get("nextCursor"), columnar.get("nextCursor"));
+		for (int i = 0; i < users.size(); i++) {
+			for (String property : List.of("id", "userFirstName", "userLastName", "userEmail", "version", "updatedAt")) {
+				assertEquals(users.get(i).get(property), columnar.get(property).get(i), property + " of user " + i);
+			}
+		}
+
+		assertTrue(columns.body().length() < page.body().length());
+		//another representation of the same page, another ETag
+		assertNotEquals(page.headers().firstValue("ETag").orElseThrow(), columns.headers().firstValue("ETag").orElseThrow());
+	}
+
+	HttpRequest.Builder request(String path) {
+		return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET();
+	}
+}
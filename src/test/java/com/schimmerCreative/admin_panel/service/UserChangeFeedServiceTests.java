@@ -0,0 +1,127 @@
+package com.schimmerCreative.admin_panel.service;
+
+import com.schimmerCreative.admin_panel.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+A stream that does not take its events blocks only its own sender thread:
+the other streams get every change, and the slow one is completed once its queue (3 events here) is full.
+Events of the same user that come late (a lower version, or anything but a delete after a delete) are not sent.
+*/
+class UserChangeFeedServiceTests {
+
+	final UserChangeFeedServiceImpl changeFeed = new UserChangeFeedServiceImpl(100, 3600, 60000, 3, 100, 2);
+
+	@AfterEach
+	void close() {
+		changeFeed.close();
+	}
+
+	@Test
+	void slowStreamIsCompletedWithoutHoldingUpTheOthers() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		RecordingEmitter slow = new RecordingEmitter(release);
+		RecordingEmitter fast = new RecordingEmitter(null);
+		changeFeed.subscribe(slow, null);
+		changeFeed.subscribe(fast, null);
+
+		for (int id = 1; id <= 10; id++) {
+			changeFeed.onUserChanged(UserChangedEvent.created(new User(id, "Slow", "Stream", id + "@slow.example.com")));
+			//the sync event and the changes so far, one at a time: a burst larger than the queue would complete the fast stream as well
+			int sent = id + 1;
+			awaitTrue(() -> fast.sent.size() == sent);
+		}
+
+		awaitTrue(() -> slow.completed);
+		awaitTrue(() -> changeFeed.subscriberCount() == 1);
+		assertEquals(1, changeFeed.droppedSubscribers.get());
+
+		release.countDown();
+		//the slow stream got no more than its first event and the queue it had when it was completed
+		assertTrue(slow.sent.size() <= 4, String.valueOf(slow.sent.size()));
+	}
+
+	@Test
+	void lateEventsOfAUserAreDropped() throws Exception {
+		//a queue that takes the whole burst
+		UserChangeFeedServiceImpl feed = new UserChangeFeedServiceImpl(100, 3600, 60000, 100, 100, 2);
+		RecordingEmitter client = new RecordingEmitter(null);
+		feed.subscribe(client, null);
+
+		feed.onUserChanged(UserChangedEvent.created(withVersion(0)));
+		feed.onUserChanged(UserChangedEvent.updated(withVersion(2)));
+		//the listener of the first update runs after the one of the second
+		feed.onUserChanged(UserChangedEvent.updated(withVersion(1)));
+		feed.onUserChanged(UserChangedEvent.updated(withVersion(2)));
+		feed.onUserChanged(UserChangedEvent.deleted(7));
+		feed.onUserChanged(UserChangedEvent.updated(withVersion(3)));
+		feed.onUserChanged(UserChangedEvent.created(new User(8, "Other", "User", "other@late.example.com")));
+
+		//sync, created, updated 2, updated 2 again, deleted, the other user
+		awaitTrue(() -> client.sent.size() == 6);
+		assertEquals(5, feed.lastSequence);
+		assertEquals(2, feed.staleEvents.get());
+		assertEquals("deleted", feed.buffer[4].getType());
+		assertEquals(8, feed.buffer[5].getId());
+		feed.close();
+	}
+
+	static User withVersion(long version) {
+		User user = new User(7, "Late", "Event", "late@event.example.com");
+		user.setVersion(version);
+		return user;
+	}
+
+	static void awaitTrue(java.util.function.BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!condition.getAsBoolean()) {
+			if (System.currentTimeMillis() > deadline) {
+				throw new AssertionError("condition not met within 5 seconds");
+			}
+			Thread.sleep(10);
+		}
+	}
+
+	//records what is sent, waits for release before returning from a send when it has one
+	static class RecordingEmitter extends SseEmitter {
+
+		final List<SseEventBuilder> sent = new CopyOnWriteArrayList<>();
+
+		final CountDownLatch release;
+
+		volatile boolean completed;
+
+		RecordingEmitter(CountDownLatch release) {
+			this.release = release;
+		}
+
+		@Override
+		public void send(SseEventBuilder builder) throws IOException {
+			sent.add(builder);
+			if (release != null) {
+				try {
+					release.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+
+		@Override
+		public void complete() {
+			completed = true;
+			super.complete();
+		}
+	}
+}
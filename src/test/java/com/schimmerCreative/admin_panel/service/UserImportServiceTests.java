@@ -0,0 +1,283 @@
+package com.schimmerCreative.admin_panel.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.schimmerCreative.admin_panel.model.BulkItemResult;
+import com.schimmerCreative.admin_panel.model.BulkItemStatus;
+import com.schimmerCreative.admin_panel.model.BulkResult;
+import com.schimmerCreative.admin_panel.model.User;
+import com.schimmerCreative.admin_panel.model.UserImportProgress;
+import com.schimmerCreative.admin_panel.model.UserResponse;
+import com.schimmerCreative.admin_panel.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+Imports of CSV and NDJSON files: valid rows are inserted, invalid ones and duplicates (in the file and in the database)
+go to the reject file, an import continues after its checkpoint, and the reader finds the rows across mapped windows.
+Chunks of 3 rows, so the files of the tests have several of them.
+The outage, upload cap and restart tests run on an instance of their own, with a bulk service that fails on purpose.
+*/
+@SpringBootTest(properties = {"admin-panel.import.chunk-size=3", "admin-panel.import.parallelism=2"})
+@ActiveProfiles("test")
+class UserImportServiceTests {
+
+	@Autowired
+	UserImportService userImportService;
+
+	@Autowired
+	UserService userService;
+
+	@Autowired
+	UserRepository userRepository;
+
+	@Autowired
+	ObjectMapper objectMapper;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void csvRowsAreImportedAndInvalidOnesRejected() throws Exception {
+		userService.createUser("Existing", "User", "existing@csv.import.example.com");
+
+		Path file = directory.resolve("legacy.csv");
+		Files.writeString(file, """
+				id,user_first_name,user_last_name,user_email
+				1,Ada,Lovelace,ada@csv.import.example.com
+				2,Ada,Again,ADA@csv.import.example.com
+				3,,Nameless,nameless@csv.import.example.com
+				4,Grace,"Hopper, Murray",grace@csv.import.example.com
+				5,Alan,Turing,not-an-email
+
+				6,Barbara,"Liskov
+				Huberman",barbara@csv.import.example.com
+				7,Someone,Else,existing@csv.import.example.com
+				8,Edsger,Dijkstra,edsger@csv.import.example.com
+				""", StandardCharsets.UTF_8);
+
+		UserImportProgress progress = userImportService.importFile("test-csv", file, UserExportFormat.CSV);
+
+		assertEquals(UserImportProgress.Status.COMPLETED, progress.getStatus(), progress.getMessage());
+		assertEquals(4, progress.getRowsImported());
+		assertEquals(4, progress.getRowsRejected());
+		assertEquals(Files.size(file), progress.getBytesCommitted());
+		assertEquals(100, progress.getPercentDone());
+
+		assertEquals("Hopper, Murray", userRepository.findByUserEmail("grace@csv.import.example.com").orElseThrow().userLastName());
+		assertEquals("Liskov\nHuberman", userRepository.findByUserEmail("barbara@csv.import.example.com").orElseThrow().userLastName());
+		assertTrue(userRepository.findByUserEmail("edsger@csv.import.example.com").isPresent());
+
+		List<String> rejects = Files.readAllLines(file.resolveSibling("legacy.csv.rejects.csv"));
+		assertEquals("row,reason,line", rejects.get(0));
+		//the first row of the email is in the same chunk (rows 2 to 4)
+		assertTrue(rejects.get(1).startsWith("3,\"duplicate email, same as row 2\""), rejects.get(1));
+		assertTrue(rejects.get(2).startsWith("4,\"userFirstName, userLastName and userEmail are required\""), rejects.get(2));
+		assertTrue(rejects.get(3).startsWith("6,not a valid email"), rejects.get(3));
+		//the quoted line break makes row 8 two lines, the rows after it are counted as rows, not lines
+		assertTrue(rejects.get(4).startsWith("9,email already used by another user"), rejects.get(4));
+		assertEquals(5, rejects.size());
+	}
+
+	@Test
+	void importContinuesAfterItsCheckpoint() throws Exception {
+		List<String> lines = new ArrayList<>();
+		for (int i = 1; i <= 10; i++) {
+			lines.add("{\"userFirstName\":\"Resumed\",\"userLastName\":\"User " + i + "\",\"userEmail\":\"user" + i + "@resume.import.example.com\"}");
+		}
+		Path file = directory.resolve("legacy.ndjson");
+		Files.write(file, lines, StandardCharsets.UTF_8);
+
+		//an earlier run committed rows 1 to 4, and row 5 was inserted just before it stopped, without a checkpoint
+		long offset = 0;
+		for (int i = 0; i < 4; i++) {
+			offset += lines.get(i).getBytes(StandardCharsets.UTF_8).length + 1;
+		}
+		new UserImportCheckpoint(Files.size(file), Files.getLastModifiedTime(file).toMillis(), offset, 4, 4, 0, 2, 0).write(file);
+		userService.createUser("Resumed", "User 5", "user5@resume.import.example.com");
+
+		UserImportProgress progress = userImportService.importFile("test-resume", file, UserExportFormat.NDJSON);
+
+		assertEquals(UserImportProgress.Status.COMPLETED, progress.getStatus(), progress.getMessage());
+		assertEquals(4, progress.getResumedAfterRow());
+		assertEquals(10, progress.getRowsRead());
+		//4 of the earlier run, 6 of this one (row 5 counts as imported)
+		assertEquals(10, progress.getRowsImported());
+		assertEquals(0, progress.getRowsRejected());
+
+		//rows before the checkpoint are not read again
+		assertTrue(userRepository.findByUserEmail("user4@resume.import.example.com").isEmpty());
+		UserResponse last = userRepository.findByUserEmail("user10@resume.import.example.com").orElseThrow();
+		assertEquals("User 10", last.userLastName());
+
+		//a completed import has nothing left to import
+		UserImportProgress again = userImportService.importFile("test-resume", file, UserExportFormat.NDJSON);
+		assertEquals(10, again.getRowsImported());
+		assertEquals(10, again.getResumedAfterRow());
+	}
+
+	@Test
+	void readerFindsRowsAcrossMappedWindows() throws Exception {
+		Path file = directory.resolve("windows.csv");
+		Files.writeString(file, "h1,h2\r\n\"a,\"\"1\"\"\",x\r\nb\r\n\"c\nc\",y\r\nlast row without line break", StandardCharsets.UTF_8);
+
+		List<String> rows = new ArrayList<>();
+		List<Long> rowNumbers = new ArrayList<>();
+		//windows of 32 bytes, smaller than the file
+		try (UserImportReader reader = new UserImportReader(file, true, 0, 0, 32)) {
+			assertEquals("h1,h2", reader.firstRow());
+			reader.skipFirstRow();
+			UserImportReader.RawChunk chunk;
+			while ((chunk = reader.next(2)) != null) {
+				for (int i = 0; i < chunk.rows(); i++) {
+					rows.add(chunk.row(i));
+					rowNumbers.add(chunk.rowNumbers()[i]);
+				}
+			}
+		}
+
+		assertEquals(List.of("\"a,\"\"1\"\"\",x", "b", "\"c\nc\",y", "last row without line break"), rows);
+		assertEquals(List.of(2L, 3L, 4L, 5L), rowNumbers);
+		assertEquals(List.of("a,\"1\"", "x"), UserImportRows.csvFields(rows.get(0)));
+		assertNull(UserImportRows.invalidField(new User(0, "A", "B", "a@b.example.com")));
+	}
+
+	@Test
+	void usersNotWrittenDuringAnOutageAreRetriedNotRejected() throws Exception {
+		Path file = directory.resolve("outage.csv");
+		Files.writeString(file, """
+				user_first_name,user_last_name,user_email
+				Ada,Lovelace,ada@outage.import.example.com
+				Grace,Hopper,grace@outage.import.example.com
+				Alan,Turing,alan@outage.import.example.com
+				""", StandardCharsets.UTF_8);
+		//the first user of the chunk is written, the database goes away for the other two, and is back for the retry
+		OutageBulkService bulkService = new OutageBulkService(1, 1);
+
+		UserImportProgress progress = serviceOn(bulkService, 3, 1).importFile("outage", file, UserExportFormat.CSV);
+
+		assertEquals(UserImportProgress.Status.COMPLETED, progress.getStatus(), progress.getMessage());
+		assertEquals(3, progress.getRowsImported());
+		assertEquals(0, progress.getRowsRejected());
+		assertEquals(List.of(3, 2), bulkService.batchSizes);
+		assertEquals(1, Files.readAllLines(file.resolveSibling("outage.csv.rejects.csv")).size());
+	}
+
+	@Test
+	void outageLongerThanTheAttemptsFailsBeforeTheChunkIsCommitted() throws Exception {
+		Path file = directory.resolve("long-outage.csv");
+		Files.writeString(file, """
+				user_first_name,user_last_name,user_email
+				Ada,Lovelace,ada@long-outage.import.example.com
+				Grace,Hopper,grace@long-outage.import.example.com
+				""", StandardCharsets.UTF_8);
+		OutageBulkService bulkService = new OutageBulkService(1, Integer.MAX_VALUE);
+
+		UserImportProgress progress = serviceOn(bulkService, 3, 1).importFile("long-outage", file, UserExportFormat.CSV);
+
+		assertEquals(UserImportProgress.Status.FAILED, progress.getStatus());
+		assertTrue(progress.getMessage().startsWith("1 users of the chunk after row 0 could not be written"), progress.getMessage());
+		assertEquals(List.of(2, 1, 1), bulkService.batchSizes);
+		//nothing committed, nothing rejected: a resume writes the chunk again
+		assertEquals(0, progress.getChunksCommitted());
+		assertNull(UserImportCheckpoint.read(file));
+		assertEquals(1, Files.readAllLines(file.resolveSibling("long-outage.csv.rejects.csv")).size());
+	}
+
+	@Test
+	void uploadBiggerThanTheCapIsRefused() {
+		UserImportServiceImpl service = serviceOn(new OutageBulkService(0, 0), 1, 1);
+		byte[] upload = new byte[1024 * 1024 + 1];
+
+		assertThrows(IllegalStateException.class, () -> service.startImport(new ByteArrayInputStream(upload), UserExportFormat.CSV));
+		//the stored part of the upload is deleted again
+		assertEquals(0, directory.toFile().list().length);
+	}
+
+	@Test
+	void progressOfAnImportBeforeARestartIsReadFromItsCheckpoint() throws Exception {
+		Path done = directory.resolve("done.ndjson");
+		Files.writeString(done, "{}\n", StandardCharsets.UTF_8);
+		new UserImportCheckpoint(Files.size(done), Files.getLastModifiedTime(done).toMillis(), Files.size(done), 1, 1, 0, 1, 0).write(done);
+		Path stopped = directory.resolve("stopped.csv");
+		Files.writeString(stopped, "user_email\na@b.example.com\nc@d.example.com\n", StandardCharsets.UTF_8);
+		new UserImportCheckpoint(Files.size(stopped), Files.getLastModifiedTime(stopped).toMillis(), 25, 2, 1, 0, 1, 0).write(stopped);
+
+		//a new instance has nothing in memory, like the application after a restart
+		UserImportServiceImpl service = serviceOn(new OutageBulkService(0, 0), 1, 1);
+
+		UserImportProgress completed = service.findImport("done").orElseThrow();
+		assertEquals(UserImportProgress.Status.COMPLETED, completed.getStatus());
+		assertEquals(1, completed.getRowsImported());
+		UserImportProgress failed = service.findImport("stopped").orElseThrow();
+		assertEquals(UserImportProgress.Status.FAILED, failed.getStatus());
+		assertEquals(2, failed.getRowsRead());
+		assertEquals(25, failed.getBytesCommitted());
+		assertTrue(service.findImport("unknown").isEmpty());
+	}
+
+	//chunks of 3 rows, no pause between the attempts
+	UserImportServiceImpl serviceOn(UserBulkService bulkService, int writeAttempts, long maxUploadMb) {
+		return new UserImportServiceImpl(bulkService, userRepository, objectMapper, new SimpleMeterRegistry(),
+				directory, 3, 1, 1, maxUploadMb, writeAttempts, 0);
+	}
+
+	/*
+	writes the first users of the first call and answers NOT_WRITTEN for the rest of it (the database went away in the middle),
+	NOT_WRITTEN for everything until the given number of calls failed, then writes everything
+	*/
+	static class OutageBulkService implements UserBulkService {
+
+		int written;
+
+		int outages;
+
+		final List<Integer> batchSizes = new ArrayList<>();
+
+		int nextId = 1;
+
+		OutageBulkService(int written, int outages) {
+			this.written = written;
+			this.outages = outages;
+		}
+
+		@Override
+		public BulkResult createUsers(List<User> users) {
+			batchSizes.add(users.size());
+			boolean outage = outages-- > 0;
+			List<BulkItemResult> items = new ArrayList<>();
+			for (int i = 0; i < users.size(); i++) {
+				items.add(outage && i >= written
+						? new BulkItemResult(i, null, BulkItemStatus.NOT_WRITTEN, "connection refused")
+						: new BulkItemResult(i, nextId++, BulkItemStatus.CREATED, null));
+			}
+			written = 0;
+			return new BulkResult(items);
+		}
+
+		@Override
+		public BulkResult updateUsers(List<User> users) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public BulkResult deleteUsers(List<Integer> ids) {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package com.schimmerCreative.admin_panel.service;
+
+import com.schimmerCreative.admin_panel.model.User;
+import com.schimmerCreative.admin_panel.model.UserResponse;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+Regression suite for shared mutable state in the UserServiceImpl singleton:
+many threads run mixed create / read / update / delete calls at the same time
+against the embedded H2 database (profile "test"), every thread works on its own users
+and checks that each response belongs to its own request, not to the request of another thread.
+*/
+@SpringBootTest
+@ActiveProfiles("test")
+class UserServiceConcurrencyStressTests {
+
+	static final int THREADS = 16;
+
+	static final int ROUNDS_PER_THREAD = 100;
+
+	@Autowired
+	UserService userService;
+
+	@Test
+	void concurrentMixedCrudCallsEachGetTheirOwnResult() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+
+		try {
+			List<Future<Integer>> workers = new ArrayList<>();
+			for (int thread = 0; thread < THREADS; thread++) {
+				workers.add(executor.submit(crudWorker(thread, start)));
+			}
+
+			//all threads start together to maximize the overlap of the calls
+			start.countDown();
+
+			int calls = 0;
+			for (Future<Integer> worker : workers) {
+				//get() rethrows the first assertion error of the worker
+				calls += worker.get(5, TimeUnit.MINUTES);
+			}
+			assertEquals(THREADS * ROUNDS_PER_THREAD * 7, calls);
+
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	Callable<Integer> crudWorker(int thread, CountDownLatch start) {
+		return () -> {
+			start.await();
+			int calls = 0;
+
+			for (int round = 0; round < ROUNDS_PER_THREAD; round++) {
+				String tag = "t" + thread + "r" + round;
+
+				User created = userService.createUser("first-" + tag, "last-" + tag, tag + "@example.com");
+				calls++;
+				assertUser(UserResponse.of(created), created.getId(), "first-" + tag, "last-" + tag, tag + "@example.com");
+
+				Optional<UserResponse> found = userService.findUserById(created.getId());
+				calls++;
+				assertUser(found.orElseThrow(), created.getId(), "first-" + tag, "last-" + tag, tag + "@example.com");
+
+				//a page filtered on the own last name only contains the own user
+				List<UserResponse> page = userService.getUsersPage(0, 10, "last-" + tag, null).getUsers();
+				calls++;
+				assertEquals(1, page.size());
+				assertEquals(created.getId(), page.get(0).id());
+
+				Optional<User> updated = userService.updateUser("changed-" + tag, "last-" + tag, "changed-" + tag + "@example.com", created.getId());
+				calls++;
+				assertUser(UserResponse.of(updated.orElseThrow()), created.getId(), "changed-" + tag, "last-" + tag, "changed-" + tag + "@example.com");
+
+				Optional<UserResponse> foundAfterUpdate = userService.findUserById(created.getId());
+				calls++;
+				assertUser(foundAfterUpdate.orElseThrow(), created.getId(), "changed-" + tag, "last-" + tag, "changed-" + tag + "@example.com");
+
+				assertTrue(userService.deleteUser(created.getId()));
+				calls++;
+
+				assertThrows(EntityNotFoundException.class, () -> userService.findUserById(created.getId()));
+				calls++;
+			}
+			return calls;
+		};
+	}
+
+	static void assertUser(UserResponse user, int id, String userFirstName, String userLastName, String userEmail) {
+		assertEquals(id, user.id());
+		assertEquals(userFirstName, user.userFirstName());
+		assertEquals(userLastName, user.userLastName());
+		assertEquals(userEmail, user.userEmail());
+	}
+
+}
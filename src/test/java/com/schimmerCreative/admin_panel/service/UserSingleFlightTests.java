@@ -0,0 +1,139 @@
+package com.schimmerCreative.admin_panel.service;
+
+import com.schimmerCreative.admin_panel.config.CacheConfig;
+import com.schimmerCreative.admin_panel.model.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+Concurrent reads of the same key share one load (SingleFlight), failures reach every waiter,
+and findUserById counts its database queries and the queries it saved.
+*/
+@SpringBootTest
+@ActiveProfiles("test")
+class UserSingleFlightTests {
+
+	@Autowired
+	UserService userService;
+
+	@Autowired
+	CacheManager cacheManager;
+
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	@Test
+	void concurrentLoadsOfOneKeyShareOneLoad() throws Exception {
+		SingleFlight<Integer, String> singleFlight = new SingleFlight<>();
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger loaderCalls = new AtomicInteger();
+		int callers = 16;
+
+		ExecutorService executor = Executors.newFixedThreadPool(callers);
+		try {
+			List<Future<String>> results = new ArrayList<>();
+			for (int i = 0; i < callers; i++) {
+				results.add(executor.submit(() -> singleFlight.load(7, () -> {
+					loaderCalls.incrementAndGet();
+					await(release);
+					return "user 7";
+				})));
+			}
+			//every caller but the leader waits for the load of the leader
+			waitUntil(() -> singleFlight.coalesced() == callers - 1);
+			release.countDown();
+
+			for (Future<String> result : results) {
+				assertEquals("user 7", result.get(10, TimeUnit.SECONDS));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertEquals(1, loaderCalls.get());
+		assertEquals(1, singleFlight.loads());
+		assertTrue(singleFlight.inFlight.isEmpty());
+
+		//nothing is cached, the next call loads again
+		assertEquals("again", singleFlight.load(7, () -> "again"));
+		assertEquals(2, singleFlight.loads());
+	}
+
+	@Test
+	void failureReachesEveryWaiter() throws Exception {
+		SingleFlight<Integer, String> singleFlight = new SingleFlight<>();
+		CountDownLatch release = new CountDownLatch(1);
+		IllegalStateException failure = new IllegalStateException("database down");
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<Exception> leader = executor.submit(() -> assertThrows(IllegalStateException.class,
+					() -> singleFlight.load(1, () -> { await(release); throw failure; })));
+			waitUntil(() -> singleFlight.loads() == 1);
+			Future<Exception> waiter = executor.submit(() -> assertThrows(IllegalStateException.class,
+					() -> singleFlight.load(1, () -> "never called")));
+			waitUntil(() -> singleFlight.coalesced() == 1);
+			release.countDown();
+
+			assertSame(failure, leader.get(10, TimeUnit.SECONDS));
+			assertSame(failure, waiter.get(10, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdownNow();
+		}
+		assertEquals("recovered", singleFlight.load(1, () -> "recovered"));
+	}
+
+	@Test
+	void cacheMissesAreCounted() {
+		User created = userService.createUser("Frances", "Allen", "frances.allen@single-flight.example.com");
+		cacheManager.getCache(CacheConfig.USERS_CACHE).evict(created.getId());
+		double queries = meterRegistry.get("users.single_flight.queries").functionCounter().count();
+
+		assertEquals("Frances", userService.findUserById(created.getId()).orElseThrow().userFirstName());
+		//a cache hit, no query
+		assertEquals("Frances", userService.findUserById(created.getId()).orElseThrow().userFirstName());
+
+		assertEquals(queries + 1, meterRegistry.get("users.single_flight.queries").functionCounter().count());
+		meterRegistry.get("users.single_flight.coalesced").functionCounter();
+	}
+
+	static void await(CountDownLatch latch) {
+		try {
+			if (!latch.await(10, TimeUnit.SECONDS)) {
+				throw new IllegalStateException("not released");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+
+	static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (!condition.getAsBoolean()) {
+			if (System.nanoTime() > deadline) {
+				throw new IllegalStateException("condition not reached");
+			}
+			Thread.sleep(5);
+		}
+	}
+}
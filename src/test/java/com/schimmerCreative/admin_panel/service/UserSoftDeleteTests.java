@@ -0,0 +1,145 @@
+package com.schimmerCreative.admin_panel.service;
+
+import com.schimmerCreative.admin_panel.model.BulkItemStatus;
+import com.schimmerCreative.admin_panel.model.User;
+import com.schimmerCreative.admin_panel.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+Soft delete: a deleted user stays in user_data_table with deleted_at (its email in deleted_email), but no read finds it,
+its email can be used again right away, and the purge deletes the rows for good after the retention
+(0 here, the scheduled runs are out of the way with a long interval).
+*/
+@SpringBootTest(properties = {
+		"admin-panel.soft-delete.enabled=true",
+		"admin-panel.soft-delete.retention=0s",
+		"admin-panel.soft-delete.purge-interval-ms=3600000",
+		"admin-panel.soft-delete.purge-batch-size=2",
+		"admin-panel.soft-delete.purge-batch-pause-ms=0"})
+@ActiveProfiles("test")
+class UserSoftDeleteTests {
+
+	@Autowired
+	UserService userService;
+
+	@Autowired
+	UserBulkService userBulkService;
+
+	@Autowired
+	UserPurgeService userPurgeService;
+
+	@Autowired
+	UserRepository userRepository;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	@Test
+	void deletedUserIsHiddenFromReadsAndItsEmailCanBeReused() {
+		User user = userService.createUser("Soft", "Deleted", "soft@delete.example.com");
+		int id = user.getId();
+		userService.findUserById(id);
+
+		assertTrue(userService.deleteUser(id));
+
+		//the row is still there, marked, the email moved to deleted_email
+		assertEquals("soft@delete.example.com", jdbcTemplate.queryForObject(
+				"SELECT deleted_email FROM user_data_table WHERE id = ? AND deleted_at IS NOT NULL", String.class, id));
+		//but neither the cache, nor a load by id, nor a query finds it
+		assertThrows(EntityNotFoundException.class, () -> userService.findUserById(id));
+		assertTrue(userRepository.findById(id).isEmpty());
+		assertFalse(userRepository.existsById(id));
+		assertTrue(userService.findUserByEmail("soft@delete.example.com").isEmpty());
+		assertTrue(userService.getUsersPage(id - 1, 10, null, "soft@delete").getUsers().isEmpty());
+		assertTrue(userService.searchUsersByName("Deleted", "Soft", 10).isEmpty());
+
+		//deleted once, then it is gone for every write
+		assertThrows(EntityNotFoundException.class, () -> userService.deleteUser(id));
+		assertThrows(EntityNotFoundException.class, () -> userService.updateUser("Soft", "Again", "soft@delete.example.com", id));
+
+		//the email is free again, the old row stays until the purge
+		User again = userService.createUser("Soft", "Again", "soft@delete.example.com");
+		assertNotEquals(id, again.getId());
+		assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_data_table WHERE id = ?", Integer.class, id));
+	}
+
+	@Test
+	void deletedUsersLeaveNoEmailBehindThatCouldCollide() {
+		User first = userService.createUser("Soft", "First", "first@tombstone.delete.example.com");
+		//an email that looks like what a tombstone of the first user could be
+		User second = userService.createUser("Soft", "Second", "deleted:" + first.getId());
+
+		assertTrue(userService.deleteUser(first.getId()));
+		assertTrue(userService.deleteUser(second.getId()));
+
+		assertEquals(2, jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM user_data_table WHERE id IN (?, ?) AND user_email IS NULL AND deleted_at IS NOT NULL",
+				Integer.class, first.getId(), second.getId()));
+		assertEquals(List.of(BulkItemStatus.CREATED), userBulkService.createUsers(List.of(
+				new User(0, "Soft", "Third", "deleted:" + first.getId()))).getItems().stream().map(item -> item.getStatus()).toList());
+	}
+
+	@Test
+	void bulkWritesSkipDeletedUsers() {
+		List<User> users = List.of(
+				new User(0, "Bulk", "One", "one@bulk.delete.example.com"),
+				new User(0, "Bulk", "Two", "two@bulk.delete.example.com"));
+		List<Integer> ids = new ArrayList<>();
+		userBulkService.createUsers(users).getItems().forEach(item -> ids.add(item.getId()));
+
+		assertEquals(BulkItemStatus.DELETED, userBulkService.deleteUsers(ids).getItems().get(0).getStatus());
+		assertEquals(2, jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM user_data_table WHERE deleted_email LIKE '%@bulk.delete.example.com' AND deleted_at IS NOT NULL", Integer.class));
+
+		//a deleted user is not found by an update or a second delete
+		assertEquals(BulkItemStatus.NOT_FOUND, userBulkService.updateUsers(
+				List.of(new User(ids.get(0), "Bulk", "Changed", "one@bulk.delete.example.com"))).getItems().get(0).getStatus());
+		assertEquals(BulkItemStatus.NOT_FOUND, userBulkService.deleteUsers(ids).getItems().get(1).getStatus());
+		assertEquals(1, jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM user_data_table WHERE id = ? AND deleted_at IS NOT NULL", Integer.class, ids.get(0)));
+
+		//the emails can be created again
+		userBulkService.createUsers(users).getItems().forEach(item -> assertEquals(BulkItemStatus.CREATED, item.getStatus(), item.getMessage()));
+	}
+
+	@Test
+	void purgeDeletesExpiredUsersInBatches() {
+		List<Integer> ids = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			User user = userService.createUser("Purged", "User " + i, "user" + i + "@purge.delete.example.com");
+			userService.deleteUser(user.getId());
+			ids.add(user.getId());
+		}
+		User kept = userService.createUser("Kept", "User", "kept@purge.delete.example.com");
+		double purgedBefore = meterRegistry.get("users.purge.rows").counter().count();
+
+		//batches of 2: three of them for the five users (and any other soft deleted rows of the test database)
+		assertTrue(userPurgeService.purgeDeletedUsers() >= 5);
+
+		for (int id : ids) {
+			assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_data_table WHERE id = ?", Integer.class, id));
+		}
+		assertTrue(userRepository.findById(kept.getId()).isPresent());
+		assertTrue(meterRegistry.get("users.purge.rows").counter().count() - purgedBefore >= 5);
+		assertTrue(meterRegistry.get("users.purge.batch").timer().count() >= 3);
+		assertEquals(0, meterRegistry.get("users.purge.oldest.seconds").gauge().value());
+	}
+}
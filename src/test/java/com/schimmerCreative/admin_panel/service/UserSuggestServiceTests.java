@@ -0,0 +1,183 @@
+package com.schimmerCreative.admin_panel.service;
+
+import com.schimmerCreative.admin_panel.model.User;
+import com.schimmerCreative.admin_panel.model.UserResponse;
+import com.schimmerCreative.admin_panel.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+The suggest index follows the writes of UserServiceImpl and UserBulkServiceImpl,
+is built from the table after startup, answers in well under a millisecond,
+and looks at no more than admin-panel.suggest.max-scanned ids per call.
+Its memory follows the number of users, not the largest id.
+*/
+@SpringBootTest
+@ActiveProfiles("test")
+class UserSuggestServiceTests {
+
+	@Autowired
+	UserSuggestService userSuggestService;
+
+	@Autowired
+	UserService userService;
+
+	@Autowired
+	UserBulkService userBulkService;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	UserRepository userRepository;
+
+	@Autowired
+	EntityManager entityManager;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	@Test
+	void followsCreateUpdateAndDelete() {
+		User created = userService.createUser("Katherine", "Johnson", "katherine.johnson@suggest.example.com");
+
+		assertEquals(List.of(created.getId()), ids(userSuggestService.suggest("kather", 10)));
+		assertEquals(List.of(created.getId()), ids(userSuggestService.suggest("JOHNS", 10)));
+		assertEquals(List.of(created.getId()), ids(userSuggestService.suggest("katherine.johnson@", 10)));
+		assertEquals(List.of(created.getId()), ids(userSuggestService.suggest("johnson kath", 10)));
+		assertTrue(userSuggestService.suggest("johnson mary", 10).isEmpty());
+
+		userService.updateUser("Kathy", "Goble", "kathy.goble@suggest.example.com", created.getId());
+		assertTrue(userSuggestService.suggest("katherine", 10).isEmpty());
+		assertEquals(List.of(created.getId()), ids(userSuggestService.suggest("goble", 10)));
+
+		userService.deleteUser(created.getId());
+		assertTrue(userSuggestService.suggest("goble", 10).isEmpty());
+	}
+
+	@Test
+	void followsBulkWrites() {
+		List<User> users = List.of(new User(0, "Dorothy", "Vaughan", "dorothy.vaughan@suggest.example.com"),
+				new User(0, "Mary", "Jackson", "mary.jackson@suggest.example.com"));
+		List<Integer> createdIds = new ArrayList<>();
+		userBulkService.createUsers(users).getItems().forEach(item -> createdIds.add(item.getId()));
+
+		assertEquals(List.of(createdIds.get(0)), ids(userSuggestService.suggest("vaughan", 10)));
+		assertEquals(List.of(createdIds.get(1)), ids(userSuggestService.suggest("mary.j", 10)));
+
+		userBulkService.deleteUsers(createdIds);
+		assertTrue(userSuggestService.suggest("vaughan", 10).isEmpty());
+	}
+
+	@Test
+	void buildReadsTheTable() {
+		//written with plain JDBC, no event reaches the index
+		jdbcTemplate.update("INSERT INTO user_data_table (user_first_name, user_last_name, user_email) VALUES (?, ?, ?)",
+				"Evelyn", "Boyd", "evelyn.boyd@suggest.example.com");
+		assertTrue(userSuggestService.suggest("evelyn", 10).isEmpty());
+
+		((UserSuggestServiceImpl) userSuggestService).buildIndex();
+		assertEquals(1, userSuggestService.suggest("evelyn", 10).size());
+	}
+
+	@Test
+	void suggestIsSubMillisecond() {
+		List<User> users = new ArrayList<>();
+		for (int i = 0; i < 20000; i++) {
+			users.add(new User(0, "first" + i, "speed" + (i % 100), "speed" + i + "@suggest.example.com"));
+		}
+		userBulkService.createUsers(users);
+
+		String[] queries = {"speed", "speed4", "speed42", "first1", "speed7 first", "nomatch"};
+		for (int i = 0; i < 20000; i++) {
+			userSuggestService.suggest(queries[i % queries.length], 10);
+		}
+
+		int calls = 60000;
+		long start = System.nanoTime();
+		for (int i = 0; i < calls; i++) {
+			userSuggestService.suggest(queries[i % queries.length], 10);
+		}
+		double micros = (System.nanoTime() - start) / 1000.0 / calls;
+		System.out.printf("suggest over %d users: %.1f us per call%n", userSuggestService.size(), micros);
+
+		assertEquals(10, userSuggestService.suggest("speed", 10).size());
+		assertTrue(micros < 1000, "suggest took " + micros + " us");
+	}
+
+	@Test
+	void largeAndSparseIdsTakeOneSlotEach() {
+		UserSuggestServiceImpl sparse = new UserSuggestServiceImpl(userRepository, entityManager, transactionManager, 100);
+		try {
+			int[] largeIds = {1, 715_827_883, 2_000_000_000, Integer.MAX_VALUE};
+			for (int id : largeIds) {
+				sparse.onUserChanged(UserChangedEvent.created(new User(id, "Sparse", "Id" + id, "sparse" + id + "@suggest.example.com")));
+			}
+			assertEquals(List.of(1, 715_827_883, 2_000_000_000, Integer.MAX_VALUE), ids(sparse.suggest("sparse", 10)));
+			assertEquals(List.of(Integer.MAX_VALUE), ids(sparse.suggest("id2147483647", 10)));
+
+			//ids come and go: the id table is resized and its removed keys dropped, the columns follow the number of users
+			for (int round = 0; round < 5000; round++) {
+				int id = 1_000_000_000 + round * 7919;
+				sparse.onUserChanged(UserChangedEvent.created(new User(id, "Churn", "Id", "churn" + id + "@suggest.example.com")));
+				if (round >= 10) {
+					sparse.onUserChanged(UserChangedEvent.deleted(id - 10 * 7919));
+				}
+			}
+			assertEquals(14, sparse.size());
+			assertEquals(10, sparse.suggest("churn", 100).size());
+			assertEquals("Id2000000000", sparse.suggest("sparse2000000000", 10).get(0).userLastName());
+			assertTrue(sparse.index.columns.length <= 3 * 1024, String.valueOf(sparse.index.columns.length));
+		} finally {
+			sparse.close();
+		}
+	}
+
+	@Test
+	void scanStopsAtTheCap() {
+		UserSuggestServiceImpl capped = new UserSuggestServiceImpl(userRepository, entityManager, transactionManager, 3);
+		try {
+			for (int i = 1; i <= 5; i++) {
+				capped.onUserChanged(UserChangedEvent.created(new User(i, "Name" + i, "Capped", "capped" + i + "@suggest.example.com")));
+			}
+
+			//"capped" is scanned (the longest word), user 5 is the fifth id of its range
+			assertEquals(List.of(1, 2, 3), ids(capped.suggest("capped", 10)));
+			assertTrue(capped.suggest("capped name5", 10).isEmpty());
+			assertEquals(List.of(2), ids(capped.suggest("capped name2", 10)));
+			//a longer word has a smaller range
+			assertEquals(List.of(5), ids(capped.suggest("c capped5@", 10)));
+
+			capped.onUserChanged(UserChangedEvent.deleted(1));
+			assertEquals(List.of(2, 3, 4), ids(capped.suggest("capped", 10)));
+			assertEquals(4, capped.size());
+		} finally {
+			capped.close();
+		}
+	}
+
+	@Test
+	void answersWithUserResponses() {
+		User created = userService.createUser("Annie", "Easley", "annie.easley@suggest.example.com");
+
+		UserResponse suggested = userSuggestService.suggest("easley", 10).get(0);
+		assertEquals(created.getId(), suggested.id());
+		assertEquals("Annie", suggested.userFirstName());
+		assertEquals("annie.easley@suggest.example.com", suggested.userEmail());
+	}
+
+	static List<Integer> ids(List<UserResponse> users) {
+		return users.stream().map(UserResponse::id).toList();
+	}
+}
@@ -0,0 +1,247 @@
+package com.schimmerCreative.admin_panel.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.schimmerCreative.admin_panel.model.BulkItemResult;
+import com.schimmerCreative.admin_panel.model.BulkItemStatus;
+import com.schimmerCreative.admin_panel.model.BulkResult;
+import com.schimmerCreative.admin_panel.model.User;
+import com.schimmerCreative.admin_panel.model.UserTicket;
+import com.schimmerCreative.admin_panel.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+Write-behind mode of POST /users: 202 with a ticket that becomes CREATED once the drainer wrote the user,
+pending journal records are written after a restart (also when the row made it before the crash),
+a torn record at the end of the journal is ignored, and a full queue refuses new users.
+The journal reuses the space of done records also when it never empties, and users the bulk service
+could not write during an outage stay pending until they are written.
+*/
+@SpringBootTest(properties = {
+		"admin-panel.write-behind.enabled=true",
+		"admin-panel.write-behind.journal-file=target/write-behind-test/user-journal.dat",
+		"admin-panel.write-behind.retry-delay-ms=100"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UserWriteBehindServiceTests {
+
+	@Autowired
+	MockMvc mockMvc;
+
+	@Autowired
+	ObjectMapper objectMapper;
+
+	@Autowired
+	UserBulkService userBulkService;
+
+	@Autowired
+	UserRepository userRepository;
+
+	@Autowired
+	UserService userService;
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void postIsAcceptedAndWrittenLater() throws Exception {
+		MvcResult accepted = mockMvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"userFirstName\":\"Hedy\",\"userLastName\":\"Lamarr\",\"userEmail\":\"hedy@write-behind.example.com\"}"))
+				.andExpect(status().isAccepted())
+				.andExpect(header().exists("Location"))
+				.andReturn();
+		String location = accepted.getResponse().getHeader("Location");
+
+		JsonNode ticket = awaitTicket(location);
+		assertEquals("CREATED", ticket.get("status").asText());
+		assertEquals("hedy@write-behind.example.com", userService.findUserById(ticket.get("id").asInt()).orElseThrow().userEmail());
+
+		mockMvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON).content("{\"userFirstName\":\"Hedy\"}"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get("/users/tickets/999999999")).andExpect(status().isNotFound());
+	}
+
+	@Test
+	void pendingRecordsAreReplayedAfterRestart() throws Exception {
+		Path file = tempDir.resolve("journal.dat");
+		int existingId = userService.createUser("Joan", "Clarke", "joan@replay.example.com").getId();
+
+		long doneTicket;
+		long pendingTicket;
+		long insertedTicket;
+		try (UserJournal journal = new UserJournal(file, 64 * 1024, false)) {
+			doneTicket = journal.nextTicket();
+			journal.markDone(journal.append(doneTicket, new User(0, "Done", "Already", "done@replay.example.com")));
+			pendingTicket = journal.nextTicket();
+			journal.append(pendingTicket, new User(0, "Mary", "Jackson", "mary@replay.example.com"));
+			//inserted before the crash, the done mark was lost
+			insertedTicket = journal.nextTicket();
+			journal.append(insertedTicket, new User(0, "Joan", "Clarke", "joan@replay.example.com"));
+			//torn by the crash: written, but the length never was
+			int torn = journal.append(journal.nextTicket(), new User(0, "Torn", "Record", "torn@replay.example.com"));
+			journal.buffer.putInt(torn, 0);
+		}
+
+		UserWriteBehindServiceImpl restarted = newService(file, 10);
+		try {
+			assertEquals(2, restarted.pendingUsers());
+			restarted.start();
+			awaitDone(restarted);
+
+			UserTicket written = restarted.findTicket(pendingTicket).orElseThrow();
+			assertEquals(UserTicket.Status.CREATED, written.getStatus());
+			assertEquals(written.getId(), userRepository.findByUserEmail("mary@replay.example.com").orElseThrow().id());
+			assertEquals(existingId, restarted.findTicket(insertedTicket).orElseThrow().getId());
+			assertTrue(restarted.findTicket(doneTicket).isEmpty());
+			assertTrue(userRepository.findByUserEmail("torn@replay.example.com").isEmpty());
+		} finally {
+			restarted.close();
+		}
+	}
+
+	@Test
+	void fullQueueRefusesNewUsers() throws Exception {
+		//drainer not started, nothing leaves the queue
+		UserWriteBehindServiceImpl service = newService(tempDir.resolve("full.dat"), 1);
+		try {
+			service.submitUser("First", "In", "first@full.example.com");
+			assertThrows(RejectedExecutionException.class, () -> service.submitUser("Second", "In", "second@full.example.com"));
+			assertEquals(1, service.pendingUsers());
+		} finally {
+			service.close();
+		}
+	}
+
+	@Test
+	void journalThatNeverEmptiesKeepsAcceptingUsers() throws Exception {
+		Path file = tempDir.resolve("ring.dat");
+		//room for about 40 records, 2000 go through it with 5 always pending
+		Deque<Integer> pending = new ArrayDeque<>();
+		Deque<Long> pendingTickets = new ArrayDeque<>();
+		try (UserJournal journal = new UserJournal(file, 4 * 1024, false)) {
+			for (int i = 0; i < 2000; i++) {
+				long ticket = journal.nextTicket();
+				int position = journal.append(ticket, new User(0, "Ring", "Journal", "ring" + i + "@journal.example.com"));
+				assertTrue(position >= 0, "journal full after " + i + " users");
+				pending.addLast(position);
+				pendingTickets.addLast(ticket);
+				if (pending.size() > 5) {
+					journal.markDone(pending.removeFirst());
+					pendingTickets.removeFirst();
+				}
+			}
+			assertEquals(5, journal.pendingRecords());
+		}
+
+		//the pending records are found again after the wrap, in order
+		try (UserJournal reopened = new UserJournal(file, 4 * 1024, false)) {
+			assertEquals(List.copyOf(pendingTickets), reopened.pendingAtOpen.stream().map(UserJournal.PendingRecord::ticket).toList());
+			assertEquals("ring1999@journal.example.com", reopened.pendingAtOpen.get(4).user().getUserEmail());
+		}
+	}
+
+	@Test
+	void usersNotWrittenDuringAnOutageStayPending() throws Exception {
+		//the first call writes the first user and reports the others NOT_WRITTEN, like an outage after the first chunk
+		AtomicInteger calls = new AtomicInteger();
+		UserBulkService failingAfterFirstChunk = new UserBulkService() {
+			@Override
+			public BulkResult createUsers(List<User> users) {
+				if (calls.incrementAndGet() > 1) {
+					return userBulkService.createUsers(users);
+				}
+				List<BulkItemResult> items = new ArrayList<>(userBulkService.createUsers(users.subList(0, 1)).getItems());
+				for (int i = 1; i < users.size(); i++) {
+					items.add(new BulkItemResult(i, null, BulkItemStatus.NOT_WRITTEN, "not written, the database is not available"));
+				}
+				return new BulkResult(items);
+			}
+
+			@Override
+			public BulkResult updateUsers(List<User> users) {
+				return userBulkService.updateUsers(users);
+			}
+
+			@Override
+			public BulkResult deleteUsers(List<Integer> ids) {
+				return userBulkService.deleteUsers(ids);
+			}
+		};
+		UserWriteBehindServiceImpl service = new UserWriteBehindServiceImpl(failingAfterFirstChunk, userRepository, new SimpleMeterRegistry(),
+				tempDir.resolve("outage.dat"), 1, false, 10, 50, 50, Duration.ofMinutes(5));
+		try {
+			List<Long> tickets = new ArrayList<>();
+			for (int i = 0; i < 3; i++) {
+				tickets.add(service.submitUser("Outage", "Later", "later" + i + "@outage.example.com").getTicket());
+			}
+			service.start();
+			awaitDone(service);
+
+			assertTrue(calls.get() >= 2);
+			for (int i = 0; i < 3; i++) {
+				UserTicket ticket = service.findTicket(tickets.get(i)).orElseThrow();
+				assertEquals(UserTicket.Status.CREATED, ticket.getStatus());
+				assertTrue(userRepository.findByUserEmail("later" + i + "@outage.example.com").isPresent());
+			}
+		} finally {
+			service.close();
+		}
+	}
+
+	@Test
+	void journalSizeIsValidated() {
+		assertThrows(IllegalArgumentException.class, () -> new UserWriteBehindServiceImpl(userBulkService, userRepository, new SimpleMeterRegistry(),
+				tempDir.resolve("huge.dat"), 2048, false, 10, 50, 100, Duration.ofMinutes(5)));
+	}
+
+	UserWriteBehindServiceImpl newService(Path file, int queueCapacity) {
+		return new UserWriteBehindServiceImpl(userBulkService, userRepository, new SimpleMeterRegistry(),
+				file, 1, false, queueCapacity, 50, 100, Duration.ofMinutes(5));
+	}
+
+	JsonNode awaitTicket(String location) throws Exception {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (true) {
+			String body = mockMvc.perform(get(location)).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+			JsonNode ticket = objectMapper.readTree(body);
+			if (!"PENDING".equals(ticket.get("status").asText()) || System.currentTimeMillis() > deadline) {
+				return ticket;
+			}
+			Thread.sleep(20);
+		}
+	}
+
+	static void awaitDone(UserWriteBehindServiceImpl service) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (service.pendingUsers() > 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+		}
+		assertEquals(0, service.pendingUsers());
+	}
+}
@@ -0,0 +1,142 @@
+package com.schimmerCreative.admin_panel.service;
+
+import com.schimmerCreative.admin_panel.model.User;
+import com.schimmerCreative.admin_panel.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+Statements per request of the single statement write paths of UserServiceImpl
+compared with the previous findById + save / findById + deleteById implementation,
+counted with the Hibernate statistics of the embedded H2 database (profile "test").
+The numbers are printed, the assertions keep the new paths at one statement.
+*/
+@SpringBootTest
+@ActiveProfiles("test")
+class UserWriteStatementBenchmarkTests {
+
+	static final int ITERATIONS = 200;
+
+	static final AtomicInteger createdUsers = new AtomicInteger();
+
+	@Autowired
+	UserService userService;
+
+	@Autowired
+	UserRepository userRepository;
+
+	@Autowired
+	EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	Statistics statistics;
+
+	TransactionTemplate transactionTemplate;
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		transactionTemplate = new TransactionTemplate(transactionManager);
+	}
+
+	@Test
+	void updateUserRunsOneStatement() {
+		int id = createUsers(1).get(0);
+
+		//previous implementation: load the entity, change it, save() it, all in one transaction
+		Measurement findAndSave = measure("update, findById + save", i -> transactionTemplate.executeWithoutResult(status -> {
+			User user = userRepository.findById(id).orElseThrow();
+			user.setUserFirstName("first" + i);
+			user.setUserLastName("last" + i);
+			user.setUserEmail("legacy" + i + "@example.com");
+			userRepository.save(user);
+		}));
+
+		Measurement singleStatement = measure("update, UPDATE ... WHERE id = ?",
+				i -> userService.updateUser("first" + i, "last" + i, "single" + i + "@example.com", id));
+
+		assertEquals(1.0, singleStatement.statementsPerCall);
+		assertTrue(singleStatement.statementsPerCall < findAndSave.statementsPerCall);
+		assertEquals("single" + (ITERATIONS - 1) + "@example.com", userRepository.findById(id).orElseThrow().getUserEmail());
+	}
+
+	@Test
+	void deleteUserRunsOneStatement() {
+		List<Integer> legacyIds = createUsers(ITERATIONS);
+		List<Integer> singleStatementIds = createUsers(ITERATIONS);
+
+		//previous implementation: findById, then deleteById which looks the entity up again before removing it
+		Measurement findAndDelete = measure("delete, findById + deleteById", i -> transactionTemplate.executeWithoutResult(status -> {
+			userRepository.findById(legacyIds.get(i)).orElseThrow();
+			userRepository.deleteById(legacyIds.get(i));
+		}));
+
+		Measurement singleStatement = measure("delete, DELETE ... WHERE id = ?",
+				i -> userService.deleteUser(singleStatementIds.get(i)));
+
+		assertEquals(1.0, singleStatement.statementsPerCall);
+		assertTrue(singleStatement.statementsPerCall < findAndDelete.statementsPerCall);
+		assertTrue(userRepository.findAllById(singleStatementIds).isEmpty());
+	}
+
+	@Test
+	void missingIdIsNotFoundAfterOneStatement() {
+		statistics.clear();
+
+		assertThrows(jakarta.persistence.EntityNotFoundException.class, () -> userService.updateUser("a", "b", "c", Integer.MAX_VALUE));
+		assertThrows(jakarta.persistence.EntityNotFoundException.class, () -> userService.deleteUser(Integer.MAX_VALUE));
+
+		assertEquals(2, statistics.getPrepareStatementCount());
+	}
+
+	List<Integer> createUsers(int count) {
+		List<User> users = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			//emails are unique (uk_user_email), also over the calls of all tests in the same database
+			users.add(new User(0, "first" + i, "last" + i, "user" + createdUsers.incrementAndGet() + "@example.com"));
+		}
+		List<Integer> ids = new ArrayList<>(count);
+		for (User user : userRepository.saveAll(users)) {
+			ids.add(user.getId());
+		}
+		return ids;
+	}
+
+	Measurement measure(String name, IntConsumer call) {
+		statistics.clear();
+		long start = System.nanoTime();
+
+		for (int i = 0; i < ITERATIONS; i++) {
+			call.accept(i);
+		}
+
+		long elapsedNanos = System.nanoTime() - start;
+		Measurement measurement = new Measurement((double) statistics.getPrepareStatementCount() / ITERATIONS,
+				elapsedNanos / 1000.0 / ITERATIONS);
+		System.out.printf("%-40s %5.2f statements/call %8.1f us/call%n", name, measurement.statementsPerCall, measurement.microsPerCall);
+		return measurement;
+	}
+
+	record Measurement(double statementsPerCall, double microsPerCall) {
+	}
+
+}
@@ -0,0 +1,12 @@
+-- user_data_table of the embedded databases standing in for read replicas (ReadReplicaRoutingTests),
+-- Hibernate only creates the schema of the primary
+CREATE TABLE IF NOT EXISTS user_data_table (
+    id INT PRIMARY KEY,
+    user_first_name VARCHAR(255),
+    user_last_name VARCHAR(255),
+    user_email VARCHAR(255),
+    version BIGINT,
+    updated_at TIMESTAMP(6),
+    deleted_at TIMESTAMP(6),
+    deleted_email VARCHAR(255)
+);